@@ -17,6 +17,7 @@ export default function StatementUploadPage() {
   const [currentPage, setCurrentPage] = useState(0);
   const [totalPages, setTotalPages] = useState(0);
   const [totalElements, setTotalElements] = useState(0);
+  const [jobs, setJobs] = useState({});
   const itemsPerPage = 10;
 
   const fetchStatements = async (page = 0) => {
@@ -86,17 +87,42 @@ export default function StatementUploadPage() {
     }
   };
 
+  const pollJob = (statementId, jobId) => {
+    const timer = setInterval(async () => {
+      try {
+        const res = await api.get(`/uploaded-statements/jobs/${jobId}`);
+        const job = res.data;
+        setJobs((prev) => ({ ...prev, [statementId]: job }));
+        if (job.status === "PROCESSING") {
+          return;
+        }
+        clearInterval(timer);
+        if (job.status === "PROCESSED") {
+          toast.success(`Processing complete: ${job.rowsSaved} saved, ${job.rowsDuplicate} duplicates`);
+        } else if (job.status === "PARTIAL") {
+          toast.warn(`Partially processed: ${job.rowsSaved} saved, ${job.rowsFailed} failed`);
+        } else {
+          toast.error(`Processing failed${job.error ? ": " + job.error : ""}`);
+        }
+        fetchStatements(currentPage);
+      } catch (err) {
+        clearInterval(timer);
+        console.error(err);
+        fetchStatements(currentPage);
+      }
+    }, 2000);
+  };
+
   const handleProcess = async (id) => {
     try {
-      setLoading(true);
-      await api.post(`/uploaded-statements/${id}/process`);
-      toast.success("Processing complete");
+      const res = await api.post(`/uploaded-statements/${id}/process`);
+      setJobs((prev) => ({ ...prev, [id]: res.data }));
+      toast.info("Processing started");
       fetchStatements(currentPage);
+      pollJob(id, res.data.jobId);
     } catch (err) {
       toast.error("Processing failed");
       console.error(err);
-    } finally {
-      setLoading(false);
     }
   };
 
@@ -207,7 +233,9 @@ export default function StatementUploadPage() {
         >
           <option value="">All Status</option>
           <option value="UPLOADED">Uploaded</option>
+          <option value="PROCESSING">Processing</option>
           <option value="PROCESSED">Processed</option>
+          <option value="PARTIAL">Partially processed</option>
           <option value="FAILED">Failed</option>
         </select>
 
@@ -245,6 +273,12 @@ export default function StatementUploadPage() {
                   {s.status === "PROCESSED" && <span className="text-green-600 font-medium">✓ Processed</span>}
                   {s.status === "UPLOADED" && <span className="text-blue-600 font-medium">Uploaded</span>}
                   {s.status === "FAILED" && <span className="text-red-600 font-medium">✗ Failed</span>}
+                  {s.status === "PROCESSING" && (
+                    <span className="text-yellow-600 font-medium">
+                      Processing{jobs[s.id] ? ` (${jobs[s.id].rowsSaved + jobs[s.id].rowsDuplicate + jobs[s.id].rowsFailed}/${jobs[s.id].rowsParsed})` : "…"}
+                    </span>
+                  )}
+                  {s.status === "PARTIAL" && <span className="text-orange-600 font-medium">⚠ Partial</span>}
                 </td>
                 <td className="px-4 py-2 text-center">
                   <div className="flex flex-col sm:flex-row gap-2 justify-center items-center">
@@ -274,6 +308,22 @@ export default function StatementUploadPage() {
                         </button>
                       </>
                     )}
+                    {s.status === "PARTIAL" && (
+                      <>
+                        <button
+                          className="text-blue-600 hover:underline font-medium"
+                          onClick={() => handleProcess(s.id)}
+                        >
+                          Retry
+                        </button>
+                        <button
+                          className="text-red-600 hover:underline font-medium"
+                          onClick={() => handleUnlink(s.id)}
+                        >
+                          Unlink
+                        </button>
+                      </>
+                    )}
                     {s.status === "FAILED" && (
                       <>
                         <button
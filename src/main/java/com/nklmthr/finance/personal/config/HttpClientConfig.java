@@ -0,0 +1,52 @@
+package com.nklmthr.finance.personal.config;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+
+/**
+ * Shared HTTP clients for the outbound APIs, built once so connections and
+ * TLS sessions are reused across calls instead of set up per request.
+ */
+@Configuration
+public class HttpClientConfig {
+
+	/**
+	 * Transport for every Gmail and Google OAuth call. NetHttpTransport is
+	 * thread-safe and keeps connections alive through the JDK's
+	 * HttpURLConnection pool.
+	 */
+	@Bean
+	public NetHttpTransport googleHttpTransport() throws GeneralSecurityException, IOException {
+		return GoogleNetHttpTransport.newTrustedTransport();
+	}
+
+	/**
+	 * RestTemplate for the OpenAI API on the JDK HttpClient, which pools
+	 * keep-alive connections and negotiates HTTP/2 when the server offers it.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "openai.enabled", havingValue = "true")
+	public RestTemplate openAIRestTemplate(
+			@Value("${openai.http.connect-timeout-ms:10000}") long connectTimeoutMs,
+			@Value("${openai.http.read-timeout-ms:60000}") long readTimeoutMs) {
+		HttpClient httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
+		JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+		requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+		return new RestTemplate(requestFactory);
+	}
+}
@@ -1,5 +1,6 @@
 package com.nklmthr.finance.personal.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -8,6 +9,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.nklmthr.finance.personal.dto.AccountTransactionDTO;
 import com.nklmthr.finance.personal.dto.BulkCategoryRequest;
@@ -25,6 +29,8 @@ import com.nklmthr.finance.personal.dto.BulkLabelsRequest;
 import com.nklmthr.finance.personal.dto.BulkUpdateResponse;
 import com.nklmthr.finance.personal.dto.TransactionPageDTO;
 import com.nklmthr.finance.personal.dto.TransferRequest;
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
+import com.nklmthr.finance.personal.enums.ExportFormat;
 import com.nklmthr.finance.personal.service.AccountTransactionService;
 
 import jakarta.validation.Valid;
@@ -40,8 +46,14 @@ public class AccountTransactionController {
 
 	private static final Logger logger = LoggerFactory.getLogger(AccountTransactionController.class);
 
+	/**
+	 * Lists root transactions. Offset paging ({@code page}/{@code size}) is the
+	 * default; passing {@code pagination=keyset} or a {@code cursor} switches to
+	 * seek paging, where the response's {@code nextCursor} fetches the next page
+	 * and the total count is only computed when {@code includeTotal=true}.
+	 */
 	@GetMapping
-	public TransactionPageDTO getTransactions(@RequestParam(defaultValue = "0") int page,
+	public ResponseEntity<?> getTransactions(@RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size, @RequestParam(required = false) String month,
             @RequestParam(required = false) String date,
 			@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
@@ -50,7 +62,23 @@ public class AccountTransactionController {
 			@RequestParam(required = false) String search,
 			@RequestParam(required = false) String sortBy,
 			@RequestParam(required = false) String sortDir,
-			@RequestParam(required = false) Boolean hasAttachments) {
+			@RequestParam(required = false) Boolean hasAttachments,
+			@RequestParam(required = false) String pagination,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "false") boolean includeTotal) {
+		if (cursor != null || "keyset".equalsIgnoreCase(pagination)) {
+			logger.debug("Fetching transactions by cursor - size: {}, sortBy: {}, sortDir: {}, includeTotal: {}", size,
+					sortBy, sortDir, includeTotal);
+			try {
+				TransactionPageDTO result = transactionService.getFilteredTransactionsByCursor(cursor, size, sortBy,
+						sortDir, includeTotal, month, date, startDate, endDate, accountId, type, search, categoryId,
+						labelId, hasAttachments);
+				return ResponseEntity.ok(result);
+			} catch (IllegalArgumentException e) {
+				logger.warn("Cursor pagination rejected: {}", e.getMessage());
+				return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+			}
+		}
 		logger.debug(
                 "Fetching transactions - page: {}, size: {}, month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, categoryId: {}, labelId: {}, search: {}, sortBy: {}, sortDir: {}, hasAttachments: {}",
                 page, size, month, date, startDate, endDate, accountId, type, categoryId, labelId, search, sortBy, sortDir, hasAttachments);
@@ -61,6 +89,10 @@ public class AccountTransactionController {
 				sort = "asc".equalsIgnoreCase(sortDir)
 					? Sort.by("amount").ascending()
 					: Sort.by("amount").descending();
+			} else if (AccountTransactionService.SORT_RELEVANCE.equalsIgnoreCase(sortBy) && search != null
+					&& !search.isBlank()) {
+				// Best search match first; the service orders the rest by date
+				sort = Sort.by(AccountTransactionService.SORT_RELEVANCE);
 			} else {
 				sort = "asc".equalsIgnoreCase(sortDir)
 					? Sort.by("date").ascending()
@@ -70,12 +102,16 @@ public class AccountTransactionController {
 			sort = Sort.by("date").descending();
 		}
 
-		return transactionService.getFilteredTransactions(PageRequest.of(page, size, sort),
-                month, date, startDate, endDate, accountId, type, search, categoryId, labelId, hasAttachments);
+		return ResponseEntity.ok(transactionService.getFilteredTransactions(PageRequest.of(page, size, sort),
+                month, date, startDate, endDate, accountId, type, search, categoryId, labelId, hasAttachments));
 	}
 
+    /**
+     * Exports matching transactions as a JSON array. Requests with a
+     * {@code format} go to {@link #streamTransactions} instead.
+     */
     @GetMapping("/export")
-    public List<AccountTransactionDTO> exportTransactions(@RequestParam(required = false) String month,
+    public ResponseEntity<?> exportTransactions(@RequestParam(required = false) String month,
             @RequestParam(required = false) String date,
 			@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
 			@RequestParam(required = false) String accountId, @RequestParam(required = false) String type,
@@ -84,7 +120,46 @@ public class AccountTransactionController {
 			@RequestParam(required = false) Boolean hasAttachments) {
         logger.debug("Exporting transactions - month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, categoryId: {}, labelId: {}, search: {}, hasAttachments: {}",
                 month, date, startDate, endDate, accountId, type, categoryId, labelId, search, hasAttachments);
-        return transactionService.getFilteredTransactionsForExport(month, date, startDate, endDate, accountId, type, categoryId, labelId, search, hasAttachments);
+        return ResponseEntity.ok(transactionService.getFilteredTransactionsForExport(month, date, startDate, endDate,
+                accountId, type, categoryId, labelId, search, hasAttachments));
+	}
+
+    /**
+     * Streams matching transactions as {@code format=ndjson} or
+     * {@code format=csv}, writing rows to the response as they are read
+     * instead of building the list.
+     */
+    @GetMapping(value = "/export", params = { "format", "format!=" })
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@RequestParam(required = false) String month,
+            @RequestParam(required = false) String date,
+			@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
+			@RequestParam(required = false) String accountId, @RequestParam(required = false) String type,
+			@RequestParam(required = false) String categoryId, @RequestParam(required = false) String labelId,
+			@RequestParam(required = false) String search,
+			@RequestParam(required = false) Boolean hasAttachments,
+			@RequestParam String format) {
+        logger.debug("Streaming transactions - month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, categoryId: {}, labelId: {}, search: {}, hasAttachments: {}, format: {}",
+                month, date, startDate, endDate, accountId, type, categoryId, labelId, search, hasAttachments, format);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsupported export format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        boolean csv = exportFormat == ExportFormat.CSV;
+        StreamingResponseBody body = out -> transactionService.streamTransactionsForExport(exportFormat, out, month,
+                date, startDate, endDate, accountId, type, categoryId, labelId, search, hasAttachments);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+	}
+
+	@GetMapping("/enrichment")
+	public Map<EnrichmentStatus, Long> getEnrichmentBacklog() {
+		return transactionService.getEnrichmentBacklog();
 	}
 
 	@GetMapping("/{id}")
@@ -32,6 +32,7 @@ import com.nklmthr.finance.personal.security.JwtUtil;
 import com.nklmthr.finance.personal.security.SecurityConfig;
 import com.nklmthr.finance.personal.service.AppUserService;
 import com.nklmthr.finance.personal.service.gmail.GmailAuthHelper;
+import com.nklmthr.finance.personal.service.gmail.GmailServiceProvider;
 
 import jakarta.validation.Valid;
  
@@ -56,6 +57,9 @@ public class AuthController {
 	@Autowired
 	private GmailAuthHelper gmailAuthHelper;
 
+	@Autowired
+	private GmailServiceProvider gmailServiceProvider;
+
 
 	private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
@@ -123,6 +127,7 @@ public class AuthController {
 			user.setGmailRefreshToken(null);
 			user.setGmailTokenExpiry(null);
 			appUserService.save(user);
+			gmailServiceProvider.invalidate(user);
 
 			logger.info("Gmail disconnected for user: {}", user.getUsername());
 			return ResponseEntity.ok(Map.of("disconnected", true));
@@ -16,12 +16,13 @@ import com.nklmthr.finance.personal.dto.AccountTransactionDTO;
 import com.nklmthr.finance.personal.dto.PredictedTransactionDTO;
 import com.nklmthr.finance.personal.mapper.AccountTransactionMapper;
 import com.nklmthr.finance.personal.mapper.PredictedTransactionMapper;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.model.PredictedTransaction;
-import com.nklmthr.finance.personal.model.PredictionActualTxnMapping;
 import com.nklmthr.finance.personal.model.PredictionHistoricalTxnMapping;
 import com.nklmthr.finance.personal.repository.PredictedTransactionRepository;
-import com.nklmthr.finance.personal.repository.PredictionActualTxnMappingRepository;
 import com.nklmthr.finance.personal.repository.PredictionHistoricalTxnMappingRepository;
+import com.nklmthr.finance.personal.service.AppUserService;
 import com.nklmthr.finance.personal.service.PredictionService;
 
 import lombok.RequiredArgsConstructor;
@@ -37,8 +38,8 @@ public class PredictedTransactionController {
 	private final PredictedTransactionMapper predictedTransactionMapper;
 	private final PredictedTransactionRepository predictedTransactionRepository;
 	private final PredictionHistoricalTxnMappingRepository historicalMappingRepository;
-	private final PredictionActualTxnMappingRepository actualMappingRepository;
 	private final AccountTransactionMapper accountTransactionMapper;
+	private final AppUserService appUserService;
 
 	/**
 	 * Get predicted transactions for a specific month
@@ -52,7 +53,7 @@ public class PredictedTransactionController {
 			List<PredictedTransactionDTO> dtos = predictions.stream()
 				.map(predictedTransactionMapper::toDTO)
 				.collect(Collectors.toList());
-			return ResponseEntity.ok(dtos);
+			return ResponseEntity.ok(predictionService.applyProgress(dtos));
 		} catch (Exception e) {
 			log.error("Failed to get predictions for month: {}", month, e);
 			return ResponseEntity.badRequest().build();
@@ -72,7 +73,7 @@ public class PredictedTransactionController {
 			List<PredictedTransactionDTO> dtos = predictions.stream()
 				.map(predictedTransactionMapper::toDTO)
 				.collect(Collectors.toList());
-			return ResponseEntity.ok(dtos);
+			return ResponseEntity.ok(predictionService.applyProgress(dtos));
 		} catch (Exception e) {
 			log.error("Failed to get predictions for month range: {} to {}", startMonth, endMonth, e);
 			return ResponseEntity.badRequest().build();
@@ -92,6 +93,9 @@ public class PredictedTransactionController {
 			PredictedTransaction prediction = predictedTransactionRepository.findById(id)
 				.orElseThrow(() -> new IllegalArgumentException("Prediction not found"));
 			log.debug("Fetched prediction in {} ms", System.currentTimeMillis() - startTime);
+			// Resolved here: the security context does not reach the pool threads
+			AppUser user = appUserService.getCurrentUser();
+			String categoryId = prediction.getCategory().getId();
 			
 			// Fetch historical and actual transactions in parallel using CompletableFuture
 			CompletableFuture<List<AccountTransactionDTO>> historicalFuture = CompletableFuture.supplyAsync(() -> {
@@ -112,14 +116,14 @@ public class PredictedTransactionController {
 			
 			CompletableFuture<List<AccountTransactionDTO>> actualFuture = CompletableFuture.supplyAsync(() -> {
 				long actualStartTime = System.currentTimeMillis();
-				List<PredictionActualTxnMapping> actualMappings = 
-					actualMappingRepository.findByPredictedTransaction(prediction);
-				log.debug("Fetched {} actual mappings in {} ms", 
-					actualMappings.size(), System.currentTimeMillis() - actualStartTime);
+				List<AccountTransaction> actualTransactions = predictionService.getActualTransactions(user,
+					categoryId, prediction.getPredictionMonth(), prediction.getTransactionType());
+				log.debug("Fetched {} actual transactions in {} ms", 
+					actualTransactions.size(), System.currentTimeMillis() - actualStartTime);
 				
 				long dtoStartTime = System.currentTimeMillis();
-				List<AccountTransactionDTO> result = actualMappings.stream()
-					.map(m -> accountTransactionMapper.toDTO(m.getActualTransaction()))
+				List<AccountTransactionDTO> result = actualTransactions.stream()
+					.map(accountTransactionMapper::toDTO)
 					.collect(Collectors.toList());
 				log.debug("Converted {} actual transactions to DTO in {} ms", 
 					result.size(), System.currentTimeMillis() - dtoStartTime);
@@ -140,7 +144,7 @@ public class PredictedTransactionController {
 			return ResponseEntity.ok(Map.of(
 				"historicalTransactions", historicalTxns,
 				"actualTransactions", actualTxns,
-				"prediction", predictedTransactionMapper.toDTO(prediction)
+				"prediction", predictionService.applyProgress(List.of(predictedTransactionMapper.toDTO(prediction))).get(0)
 			));
 		} catch (Exception e) {
 			log.error("Failed to get linked transactions for prediction: {}", id, e);
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,7 +19,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.nklmthr.finance.personal.dto.StatementJobDTO;
 import com.nklmthr.finance.personal.model.UploadedStatement;
+import com.nklmthr.finance.personal.service.StatementJobService;
 import com.nklmthr.finance.personal.service.UploadedStatementService;
 
 @RestController
@@ -27,6 +30,8 @@ public class UploadedStatementController {
 	private static final Logger logger = LoggerFactory.getLogger(UploadedStatementController.class);
 	@Autowired
 	private UploadedStatementService statementService;
+	@Autowired
+	private StatementJobService statementJobService;
 
 	// Upload CSV File
 	@PostMapping("/upload")
@@ -52,18 +57,31 @@ public class UploadedStatementController {
 		return statementService.listStatements(pageable);
 	}
 
+	// Queues the statement for background processing; poll /jobs/{jobId} for progress
 	@PostMapping("/{id}/process")
 	public ResponseEntity<?> process(@PathVariable String id) {
 		try {
 			logger.info("Processing statement with id: {}", id);
-			statementService.process(id);
-			return ResponseEntity.ok("Processing complete");
+			StatementJobDTO job = statementJobService.submit(id);
+			return ResponseEntity.accepted().body(job);
+		} catch (IllegalStateException e) {
+			logger.warn("Statement {} not queued: {}", id, e.getMessage());
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
 		} catch (Exception e) {
 			logger.error("Error processing statement with id: {}", id, e); // ✅ logs full stack trace
 			return ResponseEntity.internalServerError().body("Processing failed: " + e.getMessage());
 		}
 	}
 
+	@GetMapping("/jobs/{jobId}")
+	public ResponseEntity<?> getJob(@PathVariable String jobId) {
+		try {
+			return ResponseEntity.ok(statementJobService.getJob(jobId));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
 	@PostMapping("/{id}/unlink")
 	public ResponseEntity<?> unlinkTransactions(@PathVariable String id) {
 		logger.info("Attempting to unlink transactions for statement id: {}", id);
@@ -0,0 +1,18 @@
+package com.nklmthr.finance.personal.dto;
+
+import java.time.LocalDateTime;
+
+import com.nklmthr.finance.personal.model.UploadedStatement;
+
+public record StatementJobDTO(
+	String jobId,
+	String statementId,
+	UploadedStatement.Status status,
+	int rowsParsed,
+	int rowsSaved,
+	int rowsDuplicate,
+	int rowsFailed,
+	String error,
+	LocalDateTime submittedAt,
+	LocalDateTime finishedAt
+) {}
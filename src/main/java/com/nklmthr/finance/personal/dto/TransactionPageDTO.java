@@ -3,11 +3,23 @@ package com.nklmthr.finance.personal.dto;
 import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * Page of transactions. In keyset mode {@code nextCursor} points past the last
+ * row (null on the final page) and {@code totalPages}/{@code totalElements} are
+ * -1 unless the caller asked for the total count.
+ */
 public record TransactionPageDTO(
     List<AccountTransactionDTO> content,
     int totalPages,
     long totalElements,
     int number,
     int size,
-    BigDecimal currentTotal
-) {}
+    BigDecimal currentTotal,
+    String nextCursor
+) {
+
+    public TransactionPageDTO(List<AccountTransactionDTO> content, int totalPages, long totalElements, int number,
+            int size, BigDecimal currentTotal) {
+        this(content, totalPages, totalElements, number, size, currentTotal, null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.nklmthr.finance.personal.enums;
+
+public enum EnrichmentStatus {
+	PENDING,  // Saved from regex extraction, waiting for the OpenAI enrichment worker
+	ENRICHED, // gpt* fields written back
+	FAILED    // The model's response could not be parsed into a transaction
+}
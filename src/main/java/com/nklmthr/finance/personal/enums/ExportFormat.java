@@ -0,0 +1,5 @@
+package com.nklmthr.finance.personal.enums;
+
+public enum ExportFormat {
+	NDJSON, CSV
+}
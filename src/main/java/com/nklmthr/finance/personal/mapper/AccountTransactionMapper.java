@@ -49,6 +49,7 @@ public interface AccountTransactionMapper extends GenericMapper<AccountTransacti
 	@Mapping(target = "gptAccount", source = "gptAccount")
 	@Mapping(target = "gptCurrency", source = "gptCurrency")
 	@Mapping(target = "transactionLabels", ignore = true)
+	@Mapping(target = "hasChildren", ignore = true)
 	AccountTransaction toEntity(AccountTransactionDTO dto);
 
 	@Mapping(target="shortDescription", ignore = true)
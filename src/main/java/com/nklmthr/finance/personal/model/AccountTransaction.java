@@ -10,6 +10,7 @@ import java.util.Set;
 import org.hibernate.annotations.UuidGenerator;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
 import com.nklmthr.finance.personal.enums.TransactionType;
 
 import jakarta.persistence.CascadeType;
@@ -19,6 +20,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -31,7 +33,15 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "account_transactions")
+@Table(name = "account_transactions", indexes = {
+		@Index(name = "idx_at_user_date", columnList = "app_user_id, date"),
+		@Index(name = "idx_at_user_category_date", columnList = "app_user_id, category_id, date"),
+		@Index(name = "idx_at_parent_user", columnList = "parent_id, app_user_id"),
+		@Index(name = "idx_at_user_source_thread", columnList = "app_user_id, source_thread_id"),
+		@Index(name = "idx_at_user_linked_transfer", columnList = "app_user_id, linked_transfer_id"),
+		@Index(name = "idx_at_user_statement", columnList = "app_user_id, uploaded_statement_id"),
+		@Index(name = "idx_at_account_date", columnList = "account_id, date"),
+		@Index(name = "idx_at_enrichment_status", columnList = "enrichment_status, source_time") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -88,6 +98,10 @@ public class AccountTransaction {
 
 	@Column(name= "parent_id")
 	private String parent;
+
+	// True for split parents; lets leaf filters avoid a correlated subquery on parent_id
+	@Column(name = "has_children", nullable = false)
+	private boolean hasChildren;
 	
 	@Column(name = "linked_transfer_id")
 	private String linkedTransferId;
@@ -140,6 +154,11 @@ public class AccountTransaction {
 	@Column
 	private String gptCurrency;
 
+	// Null for transactions that never go through OpenAI enrichment
+	@Enumerated(EnumType.STRING)
+	@Column(length = 20)
+	private EnrichmentStatus enrichmentStatus;
+
 	@OneToMany(mappedBy = "transaction", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
 	@ToString.Exclude
 	@Builder.Default
@@ -0,0 +1,52 @@
+package com.nklmthr.finance.personal.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.UuidGenerator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Gmail mailbox historyId up to which one extraction config has been synced
+ * for one user. The next scheduled run only looks at messages added after it.
+ */
+@Entity
+@Table(name = "gmail_sync_checkpoint", uniqueConstraints = @UniqueConstraint(name = "uk_gmail_sync_user_config", columnNames = {
+		"app_user_id", "config_name" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GmailSyncCheckpoint {
+
+	@Id
+	@UuidGenerator
+	@Column
+	private String id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "app_user_id", nullable = false)
+	@JsonIgnore
+	private AppUser appUser;
+
+	@Column(name = "config_name", nullable = false, length = 100)
+	private String configName;
+
+	@Column(name = "history_id", nullable = false)
+	private Long historyId;
+
+	@Column(nullable = false)
+	private LocalDateTime syncedAt;
+}
@@ -0,0 +1,82 @@
+package com.nklmthr.finance.personal.model;
+
+import java.math.BigDecimal;
+
+import org.hibernate.annotations.UuidGenerator;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated ledger: one row per (user, account, category, month, type)
+ * holding the summed amounts of the matching account_transactions rows. Rows
+ * are rebuilt per (user, month) by {@code MonthlyLedgerService}, never edited
+ * field by field, so the ids are plain columns rather than associations.
+ *
+ * Three measures are kept because callers disagree on which rows count:
+ * the category spend report sums every row, the unfiltered transaction list
+ * sums root rows (parent_id IS NULL) and category filters and predictions sum
+ * leaf rows (rows that have no split children).
+ */
+@Entity
+@Table(name = "monthly_ledger",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"app_user_id", "account_id", "category_id", "ledger_month", "type"}),
+       indexes = @Index(name = "idx_monthly_ledger_user_month", columnList = "app_user_id, ledger_month"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyLedgerEntry {
+
+	@Id
+	@UuidGenerator
+	@Column
+	private String id;
+
+	@Column(name = "app_user_id", nullable = false)
+	private String appUserId;
+
+	@Column(name = "account_id", nullable = false)
+	private String accountId;
+
+	@Column(name = "category_id")
+	private String categoryId;
+
+	// yyyy-MM, same format as PredictedTransaction.predictionMonth
+	@Column(name = "ledger_month", nullable = false, length = 7)
+	private String month;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private TransactionType type;
+
+	@Column(precision = 19, scale = 4, nullable = false)
+	private BigDecimal amount;
+
+	@Column(name = "txn_count", nullable = false)
+	private long txnCount;
+
+	@Column(name = "root_amount", precision = 19, scale = 4, nullable = false)
+	private BigDecimal rootAmount;
+
+	@Column(name = "root_count", nullable = false)
+	private long rootCount;
+
+	@Column(name = "leaf_amount", precision = 19, scale = 4, nullable = false)
+	private BigDecimal leafAmount;
+
+	@Column(name = "leaf_count", nullable = false)
+	private long leafCount;
+}
@@ -0,0 +1,50 @@
+package com.nklmthr.finance.personal.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.UuidGenerator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cleaned OpenAI completion for one email body and model, so the same email
+ * is never sent for enrichment twice while the entry is fresh.
+ */
+@Entity
+@Table(name = "openai_response_cache", uniqueConstraints = @UniqueConstraint(name = "uk_openai_response_cache_key", columnNames = {
+		"cache_key" }), indexes = @Index(name = "idx_openai_response_cache_created", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OpenAIResponseCacheEntry {
+
+	@Id
+	@UuidGenerator
+	@Column
+	private String id;
+
+	// SHA-256 hex of model, system prompt and normalized email content
+	@Column(name = "cache_key", nullable = false, length = 64)
+	private String cacheKey;
+
+	@Column(nullable = false, length = 100)
+	private String model;
+
+	@Lob
+	@Column(nullable = false, columnDefinition = "TEXT")
+	private String response;
+
+	@Column(nullable = false)
+	private LocalDateTime createdAt;
+}
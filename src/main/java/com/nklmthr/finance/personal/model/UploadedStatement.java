@@ -65,7 +65,7 @@ public class UploadedStatement {
 	private AppUser appUser;
 
 	public enum Status {
-		UPLOADED, PROCESSED, FAILED
+		UPLOADED, PROCESSING, PROCESSED, PARTIAL, FAILED
 	}
 
 }
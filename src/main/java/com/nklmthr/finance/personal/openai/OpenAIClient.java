@@ -1,13 +1,16 @@
 package com.nklmthr.finance.personal.openai;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -22,7 +25,7 @@ import org.springframework.web.client.HttpClientErrorException;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.nklmthr.finance.personal.dto.AccountDTO;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.nklmthr.finance.personal.enums.TransactionType;
 import com.nklmthr.finance.personal.model.Account;
 import com.nklmthr.finance.personal.model.AccountTransaction;
@@ -30,6 +33,8 @@ import com.nklmthr.finance.personal.service.AccountService;
 import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 import com.nklmthr.finance.personal.util.AccountFuzzyMatcher.MatchResult;
 
+import jakarta.annotation.PostConstruct;
+
 @Service
 @ConditionalOnProperty(name = "openai.enabled", havingValue = "true")
 public class OpenAIClient {
@@ -52,18 +57,101 @@ public class OpenAIClient {
     private static final Logger logger = LoggerFactory.getLogger(OpenAIClient.class);
     private static final ObjectMapper mapper = new ObjectMapper();
 
+    private static final String SYSTEM_PROMPT = """
+            You are a strict JSON generator. Return ONLY a single JSON object, no explanations, no markdown, no code fences.
+            Extract transaction from bank email using these patterns:
+            - AMOUNT: Find examples like "Rs.340.00" or "INR 250.00" → extract 340.0
+            - DESCRIPTION: Merchant after "at" or after "UPI/P2A/numbers/" → e.g. "SHASHIKALAKUMARI" or "Ganesh S N"
+            - ACCOUNT: "XX2804" or "ending with 2606" → extract "XX2804" or "2606"
+            - DATE: e.g. "28-09-25, 12:48:34" or "18-09-25" → convert to ISO-8601 "2025-09-28T12:48:34"
+            - TYPE: Determine transaction type carefully:
+              * DEBIT = money spent/owed (purchases, payments, transfers out, debited from account)
+                - Credit card purchases at merchants = DEBIT
+                - Bank account debits/withdrawals = DEBIT
+                - Keywords: "Transaction Amount", "spent", "debited", "paid", "purchase", "merchant"
+              * CREDIT = money received/added (deposits, refunds, credits to account, salary)
+                - Keywords: "credited", "received", "refund", "cashback", "deposit"
+              * Default: If transaction shows merchant/purchase on credit card or bank account = DEBIT
+            Output must be a single JSON object matching the required fields.
+            """;
+
+    private static final String BATCH_SYSTEM_PROMPT = SYSTEM_PROMPT + """
+            Several emails are given, each introduced by a line "### EMAIL <n>".
+            Return {"transactions": [...]} with one object per email, in the same order, each with the email's number in "ref".
+            """;
+
+    private static final Map<String, Object> TRANSACTION_PROPERTIES = Map.of(
+            "id", Map.of("type", "string", "nullable", true),
+            "date", Map.of("type", "string", "description", "ISO 8601 date"),
+            "amount", Map.of("type", "number"),
+            "description", Map.of("type", "string", "description", "where money was spent"),
+            "type", Map.of("type", "string", "enum", List.of("DEBIT", "CREDIT"), "description", "is the money spent (DEBIT) or recieved(CREDIT)"),
+            "account", Map.of("type", "string", "description", "identifying the account from which transaction is done like Axis, SBI, ICICI, CSB bank including any account numbers"),
+            "currency", Map.of("type", "string", "description", "Currency of the transaction like INR, EUR, USD"),
+            "category", Map.of("type", "string")
+    );
+
+    private static final List<String> TRANSACTION_REQUIRED =
+            List.of("id", "date", "amount", "description", "type", "account", "currency", "category");
+
+    private static final Map<String, Object> TRANSACTION_SCHEMA = Map.of(
+            "type", "object",
+            "additionalProperties", false,
+            "properties", TRANSACTION_PROPERTIES,
+            "required", TRANSACTION_REQUIRED
+    );
+
+    private static final Map<String, Object> BATCH_SCHEMA = batchSchema();
+
+    private static final int MAX_TOKENS_PER_EMAIL = 512;
+
     @Autowired
     private AccountService accountService;
     
     @Autowired
     private AccountFuzzyMatcher accountFuzzyMatcher;
 
+    @Autowired
+    private OpenAIResponseCache responseCache;
+
+    @Autowired
+    @Qualifier("openAIRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Value("${openai.requests-per-minute:60}")
+    private int requestsPerMinute;
+
+    private RequestRateLimiter rateLimiter;
+
+    @PostConstruct
+    void createRateLimiter() {
+        rateLimiter = new RequestRateLimiter(requestsPerMinute);
+    }
+
+    private static Map<String, Object> batchSchema() {
+        Map<String, Object> itemProperties = new HashMap<>(TRANSACTION_PROPERTIES);
+        itemProperties.put("ref", Map.of("type", "integer", "description", "number of the email this object is for"));
+        List<String> itemRequired = new ArrayList<>(TRANSACTION_REQUIRED);
+        itemRequired.add("ref");
+        return Map.of(
+                "type", "object",
+                "additionalProperties", false,
+                "properties", Map.of("transactions", Map.of(
+                        "type", "array",
+                        "items", Map.of(
+                                "type", "object",
+                                "additionalProperties", false,
+                                "properties", itemProperties,
+                                "required", itemRequired))),
+                "required", List.of("transactions")
+        );
+    }
+
     /**
      * Calls the OpenAI/OSS model and returns a pure JSON string
      */
-    private String callOpenAI(String prompt) {
-        RestTemplate restTemplate = new RestTemplate();
-
+    private String callOpenAI(String systemPrompt, String prompt, String schemaName, Map<String, Object> jsonSchema,
+            int maxTokens) {
         if (openAIApiKey == null || openAIApiKey.isBlank()) {
             logger.error("OpenAI API key is missing. Ensure 'PROD_MYFINANCE_KEY' (or property 'openai.gpt-model-api-key') is set.");
             throw new IllegalStateException("OpenAI API key is missing");
@@ -81,24 +169,6 @@ public class OpenAIClient {
             headers.set("OpenAI-Project", openAIProjectId);
         }
 
-        String systemPrompt = """
-                You are a strict JSON generator. Return ONLY a single JSON object, no explanations, no markdown, no code fences.
-                Extract transaction from bank email using these patterns:
-                - AMOUNT: Find examples like "Rs.340.00" or "INR 250.00" → extract 340.0
-                - DESCRIPTION: Merchant after "at" or after "UPI/P2A/numbers/" → e.g. "SHASHIKALAKUMARI" or "Ganesh S N"
-                - ACCOUNT: "XX2804" or "ending with 2606" → extract "XX2804" or "2606"
-                - DATE: e.g. "28-09-25, 12:48:34" or "18-09-25" → convert to ISO-8601 "2025-09-28T12:48:34"
-                - TYPE: Determine transaction type carefully:
-                  * DEBIT = money spent/owed (purchases, payments, transfers out, debited from account)
-                    - Credit card purchases at merchants = DEBIT
-                    - Bank account debits/withdrawals = DEBIT
-                    - Keywords: "Transaction Amount", "spent", "debited", "paid", "purchase", "merchant"
-                  * CREDIT = money received/added (deposits, refunds, credits to account, salary)
-                    - Keywords: "credited", "received", "refund", "cashback", "deposit"
-                  * Default: If transaction shows merchant/purchase on credit card or bank account = DEBIT
-                Output must be a single JSON object matching the required fields.
-                """;
-
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", openAIModel);
         requestBody.put("messages", List.of(
@@ -108,22 +178,8 @@ public class OpenAIClient {
 
         // Use json_schema as required by OSS server (accepts 'json_schema' or 'text')
         Map<String, Object> schema = new HashMap<>();
-        schema.put("name", "transaction_extraction");
-		schema.put("schema", Map.of(
-            "type", "object",
-            "additionalProperties", false,
-            "properties", Map.of(
-                "id", Map.of("type", "string", "nullable", true),
-                "date", Map.of("type", "string", "description", "ISO 8601 date"),
-                "amount", Map.of("type", "number"),
-                "description", Map.of("type", "string", "description", "where money was spent"),
-                "type", Map.of("type", "string", "enum", List.of("DEBIT", "CREDIT"), "description", "is the money spent (DEBIT) or recieved(CREDIT)"),
-                "account", Map.of("type", "string", "description", "identifying the account from which transaction is done like Axis, SBI, ICICI, CSB bank including any account numbers"),
-                "currency", Map.of("type", "string", "description", "Currency of the transaction like INR, EUR, USD"),
-                "category", Map.of("type", "string")
-            ),
-			"required", List.of("id", "date", "amount", "description", "type", "account", "currency", "category")
-        ));
+        schema.put("name", schemaName);
+        schema.put("schema", jsonSchema);
         schema.put("strict", true);
         logger.info("Schema: {}", schema);
         Map<String, Object> responseFormat = new HashMap<>();
@@ -133,11 +189,12 @@ public class OpenAIClient {
         logger.info("Response Format: {}", responseFormat);
         // Make responses deterministic and bounded
         requestBody.put("temperature", 0);
-        requestBody.put("max_tokens", 512);
+        requestBody.put("max_tokens", maxTokens);
         logger.info("Request Body: {}", requestBody);
         logger.info("OpenAI request setup - host: {}, model: {}, orgHeaderSet: {}, projectHeaderSet: {}",
                 openAIHost, openAIModel, hasOrgHeader, hasProjectHeader);
         HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
+        rateLimiter.acquire();
         logger.debug("Authorization header set: {} (masked)", mask("Bearer " + openAIApiKey));
         logger.info("OpenAI Host: {}", openAIHost);
         logger.info("OpenAI Model: {}", openAIModel);
@@ -197,16 +254,97 @@ public class OpenAIClient {
     }
 
     /**
-     * Consumes the GPT JSON response and enriches AccountTransaction
+     * Cleaned JSON answer for one email, served from the response cache when
+     * possible. Not yet cached when {@code cached} is false; see
+     * {@link #applyResponse}.
+     */
+    public record GptResponse(String cacheKey, String json, boolean cached) {
+    }
+
+    /**
+     * Fetches and applies the response for one email; failures are logged
+     * and leave the gpt* fields untouched.
      * Note: rawData should already be set in the caller before invoking this method
      */
     public void getGptResponse(String emailContent, AccountTransaction accountTransaction) {
         try {
             logger.info("Email Content: {}", emailContent);
-            // rawData is now set earlier in AbstractDataExtractionService to ensure it's captured for all transactions
+            applyResponse(fetchResponse(emailContent), accountTransaction);
+        } catch (Exception e) {
+            logger.error("Error fetching GPT response", e);
+        }
+    }
+
+    public GptResponse fetchResponse(String emailContent) {
+        String cacheKey = OpenAIResponseCache.key(openAIModel, SYSTEM_PROMPT, emailContent);
+        Optional<String> cached = responseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return new GptResponse(cacheKey, cached.get(), true);
+        }
+        String json = callOpenAI(SYSTEM_PROMPT, emailContent, "transaction_extraction", TRANSACTION_SCHEMA,
+                MAX_TOKENS_PER_EMAIL);
+        return new GptResponse(cacheKey, json, false);
+    }
+
+    /**
+     * Responses for several emails, in order. Cached emails are served from
+     * the cache and the rest are sent in one request; an email the model
+     * leaves out of the batch answer is retried on its own.
+     */
+    public List<GptResponse> fetchResponses(List<String> emailContents) {
+        GptResponse[] responses = new GptResponse[emailContents.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < emailContents.size(); i++) {
+            String cacheKey = OpenAIResponseCache.key(openAIModel, SYSTEM_PROMPT, emailContents.get(i));
+            Optional<String> cached = responseCache.get(cacheKey);
+            if (cached.isPresent()) {
+                responses[i] = new GptResponse(cacheKey, cached.get(), true);
+            } else {
+                misses.add(i);
+            }
+        }
+
+        if (misses.size() > 1) {
+            StringBuilder prompt = new StringBuilder();
+            for (int ref = 0; ref < misses.size(); ref++) {
+                prompt.append("### EMAIL ").append(ref + 1).append('\n')
+                        .append(emailContents.get(misses.get(ref))).append("\n\n");
+            }
+            String json = callOpenAI(BATCH_SYSTEM_PROMPT, prompt.toString(), "transaction_batch_extraction",
+                    BATCH_SCHEMA, MAX_TOKENS_PER_EMAIL * misses.size());
+            try {
+                for (JsonNode item : mapper.readTree(json).path("transactions")) {
+                    int ref = item.path("ref").asInt(0) - 1;
+                    if (ref >= 0 && ref < misses.size() && item instanceof ObjectNode object) {
+                        object.remove("ref");
+                        int index = misses.get(ref);
+                        responses[index] = new GptResponse(
+                                OpenAIResponseCache.key(openAIModel, SYSTEM_PROMPT, emailContents.get(index)),
+                                object.toString(), false);
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Could not parse batched OpenAI response, retrying emails one by one", e);
+            }
+        }
 
-            String response = callOpenAI(emailContent);
-            logger.info("OpenAI Response (raw/cleaned): {}", response);
+        for (int index : misses) {
+            if (responses[index] == null) {
+                responses[index] = fetchResponse(emailContents.get(index));
+            }
+        }
+        return List.of(responses);
+    }
+
+    /**
+     * Consumes the GPT JSON response and enriches AccountTransaction; false
+     * when the response is not a transaction. A fresh response is cached once
+     * it parsed.
+     */
+    public boolean applyResponse(GptResponse gptResponse, AccountTransaction accountTransaction) {
+        try {
+            String response = gptResponse.json();
+            logger.info("OpenAI Response (raw/cleaned, cached={}): {}", gptResponse.cached(), response);
 
             JsonNode parsedContent = mapper.readTree(response);
 
@@ -232,6 +370,9 @@ public class OpenAIClient {
 
             TransactionType type = TransactionType.valueOf(parsedContent.get("type").asText());
             accountTransaction.setGptType(type);
+            if (!gptResponse.cached()) {
+                responseCache.put(gptResponse.cacheKey(), openAIModel, response);
+            }
 
             // ---- Currency ----
             JsonNode currencyNode = parsedContent.get("currency");
@@ -254,9 +395,10 @@ public class OpenAIClient {
                 logger.info("No account detail extracted from GPT response, skipping fuzzy matching");
                 accountTransaction.setGptAccount(accountTransaction.getAccount());
             }
-
+            return true;
         } catch (Exception e) {
             logger.error("Error processing GPT JSON response", e);
+            return false;
         }
     }
 
@@ -271,10 +413,8 @@ public class OpenAIClient {
      * Fuzzy matches GPT account detail with existing accounts using AccountFuzzyMatcher utility
      */
     private void matchAndSetAccount(String accountDetail, AccountTransaction accountTransaction) {
-        List<AccountDTO> accounts = accountService.getAllAccounts(accountTransaction.getAppUser());
-        
         MatchResult matchResult = accountFuzzyMatcher.findBestMatch(
-            accounts,
+            accountTransaction.getAppUser(),
             accountDetail,
             accountTransaction.getRawData(),
             accountTransaction.getDescription()
@@ -0,0 +1,180 @@
+package com.nklmthr.finance.personal.openai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nklmthr.finance.personal.model.OpenAIResponseCacheEntry;
+import com.nklmthr.finance.personal.repository.OpenAIResponseCacheRepository;
+
+/**
+ * Two-tier cache of cleaned OpenAI completions: a bounded LRU map in front of
+ * the openai_response_cache table, so re-processed or re-forwarded emails
+ * are not sent to the model again.
+ *
+ * Keys hash the model, the system prompt and the email body with whitespace
+ * runs collapsed; nothing else is normalized, as case and digits change what
+ * the model extracts. Entries older than the TTL count as misses and are
+ * purged daily.
+ */
+@Component
+@ConditionalOnProperty(name = "openai.enabled", havingValue = "true")
+public class OpenAIResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenAIResponseCache.class);
+
+    private record Cached(String response, LocalDateTime createdAt) {
+    }
+
+    @Autowired
+    private OpenAIResponseCacheRepository repository;
+
+    @Value("${openai.cache.max-entries:1000}")
+    private int maxEntries = 1000;
+
+    @Value("${openai.cache.ttl-days:90}")
+    private int ttlDays = 90;
+
+    private final Map<String, Cached> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Cache key for one request: SHA-256 hex of the model, the system prompt
+     * and the whitespace-normalized email content.
+     */
+    public static String key(String model, String systemPrompt, String emailContent) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] { model, systemPrompt, normalize(emailContent) }) {
+                digest.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(content.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    public Optional<String> get(String key) {
+        LocalDateTime cutoff = expiryCutoff();
+        Cached cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+            if (cached != null && cached.createdAt().isBefore(cutoff)) {
+                memory.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            logger.debug("OpenAI cache memory hit for key {}", key);
+            return Optional.of(cached.response());
+        }
+
+        Optional<OpenAIResponseCacheEntry> stored = repository.findByCacheKey(key)
+                .filter(entry -> !entry.getCreatedAt().isBefore(cutoff));
+        if (stored.isPresent()) {
+            databaseHits.incrementAndGet();
+            logger.debug("OpenAI cache database hit for key {}", key);
+            remember(key, new Cached(stored.get().getResponse(), stored.get().getCreatedAt()));
+            return Optional.of(stored.get().getResponse());
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a response that parsed into a transaction. A concurrent insert of
+     * the same key, or a stale row still waiting for the purge, is replaced.
+     */
+    public void put(String key, String model, String response) {
+        LocalDateTime now = LocalDateTime.now();
+        remember(key, new Cached(response, now));
+        try {
+            OpenAIResponseCacheEntry entry = repository.findByCacheKey(key)
+                    .orElseGet(() -> OpenAIResponseCacheEntry.builder().cacheKey(key).build());
+            entry.setModel(model);
+            entry.setResponse(response);
+            entry.setCreatedAt(now);
+            repository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("OpenAI cache entry {} was stored concurrently", key);
+        }
+    }
+
+    @Scheduled(cron = "${openai.cache.purge-cron:0 15 4 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repository.deleteCreatedBefore(expiryCutoff());
+        logger.info("OpenAI cache purged {} expired entries; memoryHits={}, databaseHits={}, misses={}",
+                purged, memoryHits.get(), databaseHits.get(), misses.get());
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDatabaseHits() {
+        return databaseHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void remember(String key, Cached cached) {
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minus(Duration.ofDays(ttlDays));
+    }
+}
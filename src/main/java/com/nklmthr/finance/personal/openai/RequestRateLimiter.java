@@ -0,0 +1,39 @@
+package com.nklmthr.finance.personal.openai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces calls evenly at a fixed rate: each caller reserves the next free
+ * slot and sleeps until it comes, so concurrent workers never burst past the
+ * limit.
+ */
+final class RequestRateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    RequestRateLimiter(int permitsPerMinute) {
+        if (permitsPerMinute <= 0) {
+            throw new IllegalArgumentException("permitsPerMinute must be positive: " + permitsPerMinute);
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+    }
+
+    void acquire() {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeNanos);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an OpenAI request slot", e);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.nklmthr.finance.personal.repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -14,11 +15,14 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
 import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.Account;
 import com.nklmthr.finance.personal.model.AccountTransaction;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.model.Category;
@@ -95,13 +99,43 @@ public interface AccountTransactionRepository
     })
 	List<AccountTransaction> findByAppUserAndUploadedStatement(AppUser appUser, UploadedStatement statement);
 
+	boolean existsByUploadedStatement(UploadedStatement statement);
+
 	void deleteAllByAppUserAndIdIn(AppUser appUser, List<String> list);
 
-	void deleteAllByAppUserAndUploadedStatement(AppUser appUser, UploadedStatement statement);
+	boolean existsByAppUserAndParentAndIdNot(AppUser appUser, String parent, String id);
 
-	@EntityGraph(attributePaths = { "transactionLabels", "transactionLabels.label" })
-	@Query("SELECT t FROM AccountTransaction t WHERE t.id IN :ids")
-	List<AccountTransaction> findWithLabelsByIdIn(@Param("ids") List<String> ids);
+	/**
+	 * Re-derives has_children from parent_id for the given rows. The DISTINCT
+	 * derived table is materialised, which lets MySQL read the table it updates.
+	 */
+	@Modifying
+	@Query(value = """
+			UPDATE account_transactions t
+			LEFT JOIN (
+			    SELECT DISTINCT parent_id FROM account_transactions WHERE parent_id IN (:ids)
+			) c ON c.parent_id = t.id
+			SET t.has_children = (c.parent_id IS NOT NULL)
+			WHERE t.id IN (:ids)
+			""", nativeQuery = true)
+	int syncHasChildren(@Param("ids") Collection<String> ids);
+
+	/**
+	 * Backfill for {@link #syncHasChildren}: fixes every row whose flag
+	 * disagrees with parent_id and returns how many changed.
+	 */
+	@Modifying
+	@Query(value = """
+			UPDATE account_transactions t
+			LEFT JOIN (
+			    SELECT DISTINCT parent_id FROM account_transactions WHERE parent_id IS NOT NULL
+			) c ON c.parent_id = t.id
+			SET t.has_children = (c.parent_id IS NOT NULL)
+			WHERE t.has_children <> (c.parent_id IS NOT NULL)
+			""", nativeQuery = true)
+	int syncAllHasChildren();
+
+	void deleteAllByAppUserAndUploadedStatement(AppUser appUser, UploadedStatement statement);
 
 	@EntityGraph(attributePaths = {
             "category", "category.parent",
@@ -113,6 +147,21 @@ public interface AccountTransactionRepository
 			@Param("description") String description, @Param("type") TransactionType type,
 			@Param("amount") BigDecimal amount, @Param("date") LocalDateTime date);
 
+	/**
+	 * Full-text candidates for the transaction search, best match first.
+	 * {@code booleanQuery} is in MySQL boolean mode syntax (e.g. "+amaz* +prime*")
+	 * and needs the ft_account_transactions_text FULLTEXT index.
+	 */
+	@Query(value = """
+			SELECT t.id FROM account_transactions t
+			WHERE t.app_user_id = :userId
+			  AND MATCH(t.description, t.explanation) AGAINST (:booleanQuery IN BOOLEAN MODE)
+			ORDER BY MATCH(t.description, t.explanation) AGAINST (:booleanQuery IN BOOLEAN MODE) DESC, t.date DESC
+			LIMIT :limit
+			""", nativeQuery = true)
+	List<String> findIdsByFullTextSearch(@Param("userId") String userId, @Param("booleanQuery") String booleanQuery,
+			@Param("limit") int limit);
+
 	@Query(value = """
 			SELECT
 			    c.id AS categoryId,
@@ -156,12 +205,75 @@ public interface AccountTransactionRepository
 			@Param("type") TransactionType transactionType, @Param("search") String search,
 			@Param("categoryIds") Set<String> categoryIds);
 
+	/**
+	 * Projection rows for a page of root transactions and all of their split
+	 * children in a single round trip. Labels are left-joined, so a transaction
+	 * with N labels yields N rows; the attachment count is a correlated
+	 * subquery so no extra grouped query is needed.
+	 */
+	@Query("""
+			SELECT t.id AS id, t.date AS date, t.amount AS amount, t.description AS description,
+			       t.explanation AS explanation, t.type AS type, t.parent AS parentId,
+			       t.linkedTransferId AS linkedTransferId, t.gptAmount AS gptAmount,
+			       t.gptDescription AS gptDescription, t.gptExplanation AS gptExplanation,
+			       t.gptType AS gptType, t.currency AS currency, t.gptCurrency AS gptCurrency,
+			       (SELECT COUNT(att) FROM Attachment att WHERE att.accountTransaction = t) AS attachmentCount,
+			       a.id AS accountId, a.name AS accountName, a.balance AS accountBalance,
+			       a.accountNumber AS accountNumber, a.accountKeywords AS accountKeywords,
+			       a.accountAliases AS accountAliases, a.statementUploadAvailable AS accountStatementUploadAvailable,
+			       acctType.id AS accountTypeId, acctType.name AS accountTypeName, acctType.description AS accountTypeDescription,
+			       acctType.classification AS accountTypeClassification,
+			       inst.id AS institutionId, inst.name AS institutionName, inst.description AS institutionDescription,
+			       g.id AS gptAccountId, g.name AS gptAccountName, g.balance AS gptAccountBalance,
+			       g.accountNumber AS gptAccountNumber, g.accountKeywords AS gptAccountKeywords,
+			       g.accountAliases AS gptAccountAliases, g.statementUploadAvailable AS gptAccountStatementUploadAvailable,
+			       gptAcctType.id AS gptAccountTypeId, gptAcctType.name AS gptAccountTypeName, gptAcctType.description AS gptAccountTypeDescription,
+			       gptAcctType.classification AS gptAccountTypeClassification,
+			       gptInst.id AS gptInstitutionId, gptInst.name AS gptInstitutionName, gptInst.description AS gptInstitutionDescription,
+			       c.id AS categoryId, c.name AS categoryName, c.parent AS categoryParentId,
+			       c.systemCategory AS categorySystem,
+			       l.id AS labelId, l.name AS labelName
+			FROM AccountTransaction t
+			JOIN t.account a
+			JOIN a.accountType acctType
+			JOIN a.institution inst
+			LEFT JOIN t.gptAccount g
+			LEFT JOIN g.accountType gptAcctType
+			LEFT JOIN g.institution gptInst
+			LEFT JOIN t.category c
+			LEFT JOIN t.transactionLabels tl
+			LEFT JOIN tl.label l
+			WHERE t.appUser = :appUser
+			  AND (t.id IN :ids OR t.parent IN :ids)
+			ORDER BY t.date DESC, t.id
+			""")
+	List<TransactionPageRowProjection> findPageRowsWithChildren(@Param("appUser") AppUser appUser,
+			@Param("ids") List<String> ids);
+
 	default Page<String> findIdByAppUserAndSpecification(AppUser currentUser, Specification<AccountTransaction> spec,
 			Pageable page){
 		return findAll(spec, page).map(AccountTransaction::getId);
 	}
 	
 	List<AccountTransaction> findByParentAndAppUser(String parent, AppUser appUser);
+
+	/**
+	 * Everything the bulk editors need to classify a batch of ids, in one
+	 * query and without loading entities:
+	 * [id, date, categoryId, linkedTransferId, hasChildren, referencedByTransferCount]
+	 */
+	@Query("""
+			SELECT t.id, t.date, t.category.id, t.linkedTransferId, t.hasChildren,
+			    (SELECT COUNT(o) FROM AccountTransaction o WHERE o.appUser = :appUser AND o.linkedTransferId = t.id)
+			FROM AccountTransaction t
+			WHERE t.appUser = :appUser AND t.id IN :ids
+			""")
+	List<Object[]> findBulkUpdateRows(@Param("appUser") AppUser appUser, @Param("ids") Collection<String> ids);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE AccountTransaction t SET t.category = :category WHERE t.appUser = :appUser AND t.id IN :ids")
+	int updateCategoryByAppUserAndIdIn(@Param("appUser") AppUser appUser, @Param("category") Category category,
+			@Param("ids") Collection<String> ids);
 	
 	@EntityGraph(attributePaths = {
             "category", "category.parent",
@@ -188,9 +300,7 @@ public interface AccountTransactionRepository
 		  AND t.category = :category
 		  AND t.date >= :startDate
 		  AND t.date <= :endDate
-		  AND NOT EXISTS (
-		      SELECT 1 FROM AccountTransaction c WHERE c.parent = t.id
-		  )
+		  AND t.hasChildren = false
 	""")
 	List<Object[]> findAverageAmountByCategoryAndDateRange(
 		@Param("appUser") AppUser appUser,
@@ -213,34 +323,6 @@ public interface AccountTransactionRepository
 			@Param("startDate") LocalDateTime startDate,
 			@Param("endDate") LocalDateTime endDate);
 
-	/**
-	 * Hierarchy-aware version: sum/count across a set of category IDs (parent + all descendants)
-	 * Returns: [totalSum, transactionType, count]
-	 */
-	@Query("""
-		SELECT
-		    SUM(CASE WHEN t.type = 'DEBIT' THEN t.amount ELSE -t.amount END),
-		    CASE WHEN SUM(CASE WHEN t.type = 'DEBIT' THEN t.amount ELSE -t.amount END) >= 0
-		         THEN 'DEBIT'
-		         ELSE 'CREDIT'
-		    END,
-		    COUNT(t)
-		FROM AccountTransaction t
-		WHERE t.appUser = :appUser
-		  AND t.category.id IN :categoryIds
-		  AND t.date >= :startDate
-		  AND t.date <= :endDate
-		  AND NOT EXISTS (
-		      SELECT 1 FROM AccountTransaction c WHERE c.parent = t.id
-		  )
-	""")
-	List<Object[]> findAverageAmountByCategoryIdsAndDateRange(
-		@Param("appUser") AppUser appUser,
-		@Param("categoryIds") Set<String> categoryIds,
-		@Param("startDate") LocalDateTime startDate,
-		@Param("endDate") LocalDateTime endDate
-	);
-
 	/**
 	 * Hierarchy-aware version: fetch transactions across a set of category IDs (parent + all descendants).
 	 *
@@ -252,7 +334,7 @@ public interface AccountTransactionRepository
 	@Query("SELECT t FROM AccountTransaction t WHERE t.appUser = :appUser " +
 	       "AND t.category.id IN :categoryIds " +
 	       "AND t.date >= :startDate AND t.date <= :endDate " +
-	       "AND NOT EXISTS (SELECT 1 FROM AccountTransaction c WHERE c.parent = t.id) " +
+	       "AND t.hasChildren = false " +
 	       "ORDER BY t.date DESC")
 	List<AccountTransaction> findByAppUserAndCategoryIdsAndDateBetween(
 		@Param("appUser") AppUser appUser,
@@ -261,6 +343,38 @@ public interface AccountTransactionRepository
 		@Param("endDate") LocalDateTime endDate
 	);
 
+	/**
+	 * Leaf-transaction totals per category and type in [startDate, endDate),
+	 * for prediction progress: [categoryId, type, sum]
+	 */
+	@Query("SELECT t.category.id, t.type, SUM(t.amount) FROM AccountTransaction t " +
+	       "WHERE t.appUser = :appUser " +
+	       "AND t.date >= :startDate AND t.date < :endDate " +
+	       "AND t.hasChildren = false " +
+	       "GROUP BY t.category.id, t.type")
+	List<Object[]> sumLeafAmountsByCategoryAndType(
+		@Param("appUser") AppUser appUser,
+		@Param("startDate") LocalDateTime startDate,
+		@Param("endDate") LocalDateTime endDate
+	);
+
+	/**
+	 * Leaf-transaction totals per category, month and type in
+	 * [startDate, endDate), for bulk prediction generation:
+	 * [categoryId, month (yyyy-MM), type, sum, count]
+	 */
+	@Query("SELECT t.category.id, FUNCTION('DATE_FORMAT', t.date, '%Y-%m'), t.type, SUM(t.amount), COUNT(t) " +
+	       "FROM AccountTransaction t " +
+	       "WHERE t.appUser = :appUser " +
+	       "AND t.date >= :startDate AND t.date < :endDate " +
+	       "AND t.hasChildren = false " +
+	       "GROUP BY t.category.id, FUNCTION('DATE_FORMAT', t.date, '%Y-%m'), t.type")
+	List<Object[]> sumLeafAmountsByCategoryMonthAndType(
+		@Param("appUser") AppUser appUser,
+		@Param("startDate") LocalDateTime startDate,
+		@Param("endDate") LocalDateTime endDate
+	);
+
 	/**
 	 * Find all transactions for a user, category, date range, and transaction type
 	 * (for prediction historical mapping with type filter)
@@ -278,6 +392,42 @@ public interface AccountTransactionRepository
 			@Param("endDate") LocalDateTime endDate,
 			@Param("type") TransactionType type);
 
+	/**
+	 * Dedup keys of an account's transactions in a date span, for statement
+	 * imports: [amount, type, explanation, date]
+	 */
+	@Query("SELECT t.amount, t.type, t.explanation, t.date FROM AccountTransaction t "
+			+ "WHERE t.account = :account AND t.date >= :startDate AND t.date <= :endDate")
+	List<Object[]> findDedupKeysByAccountAndDateBetween(@Param("account") Account account,
+			@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+	/**
+	 * Dedup keys of a user's mail-sourced transactions dated, or received, on
+	 * or after {@code since}, for Gmail ingestion: [id, sourceId,
+	 * sourceThreadId, date, amount, type, description, account id, currency,
+	 * dataVersionId]
+	 */
+	@Query("SELECT t.id, t.sourceId, t.sourceThreadId, t.date, t.amount, t.type, t.description, a.id, "
+			+ "t.currency, t.dataVersionId FROM AccountTransaction t LEFT JOIN t.account a WHERE t.appUser = :appUser "
+			+ "AND t.sourceThreadId IS NOT NULL AND (t.date >= :since OR t.sourceTime >= :since)")
+	List<Object[]> findMailDedupKeysByAppUserSince(@Param("appUser") AppUser appUser,
+			@Param("since") LocalDateTime since);
+
+	/**
+	 * Oldest transactions in the given enrichment state, across all users.
+	 */
+	@Query("SELECT t.id FROM AccountTransaction t WHERE t.enrichmentStatus = :status ORDER BY t.sourceTime, t.id")
+	List<String> findIdsByEnrichmentStatus(@Param("status") EnrichmentStatus status, Pageable pageable);
+
+	/**
+	 * Transaction count per enrichment state for one user: [status, count]
+	 */
+	@Query("SELECT t.enrichmentStatus, COUNT(t) FROM AccountTransaction t WHERE t.appUser = :appUser "
+			+ "AND t.enrichmentStatus IS NOT NULL GROUP BY t.enrichmentStatus")
+	List<Object[]> countEnrichmentStatusesByAppUser(@Param("appUser") AppUser appUser);
+
+	long countByEnrichmentStatus(EnrichmentStatus status);
+
 	/**
 	 * Find transactions by account and date range (for statement upload duplicate detection)
 	 */
@@ -2,6 +2,9 @@ package com.nklmthr.finance.personal.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.data.jpa.domain.Specification;
@@ -30,27 +33,18 @@ public class AccountTransactionSpecifications {
 		return (root, query, cb) -> cb.between(root.get("date"), start, end);
 	}
 
+	public static Specification<AccountTransaction> hasDate() {
+		return (root, query, cb) -> cb.isNotNull(root.get("date"));
+	}
+
 	public static Specification<AccountTransaction> isRootTransaction() {
 		return (root, query, cb) -> cb.isNull(root.get("parent"));
 	}
 	
 	public static Specification<AccountTransaction> isLeafTransaction() {
-		return (root, query, cb) -> {
-			// A leaf transaction is either:
-			// 1. A root transaction with no children (parent IS NULL)
-			// 2. A child transaction (parent IS NOT NULL)
-			// In other words: exclude transactions that have children
-			// We can detect "has children" by checking if this transaction appears as a parent
-			
-			// Subquery to check if transaction has children
-			var subquery = query.subquery(Long.class);
-			var subRoot = subquery.from(AccountTransaction.class);
-			subquery.select(cb.count(subRoot));
-			subquery.where(cb.equal(subRoot.get("parent"), root.get("id")));
-			
-			// Return transactions that have 0 children
-			return cb.equal(subquery, 0L);
-		};
+		// A leaf transaction is either a root with no children or a split child;
+		// has_children is maintained on split/delete, so no per-row subquery
+		return (root, query, cb) -> cb.isFalse(root.get("hasChildren"));
 	}
 
 	public static Specification<AccountTransaction> hasCategory(Set<String> categoryIds) {
@@ -92,6 +86,37 @@ public class AccountTransactionSpecifications {
 		};
 	}
 
+	/**
+	 * Text search backed by candidate sets resolved up front (full-text hits on
+	 * description/explanation, and the ids of accounts, categories and types
+	 * whose names match), so the predicate is plain IN lists instead of
+	 * LIKE '%term%' scans. Empty sets are skipped; if all are empty nothing
+	 * matches.
+	 */
+	public static Specification<AccountTransaction> matchesSearchCandidates(Collection<String> transactionIds,
+			Collection<String> accountIds, Collection<String> categoryIds, Collection<TransactionType> types) {
+		return (root, query, cb) -> {
+			List<Predicate> matches = new ArrayList<>();
+			if (!transactionIds.isEmpty()) {
+				matches.add(root.get("id").in(transactionIds));
+			}
+			if (!accountIds.isEmpty()) {
+				matches.add(root.get("account").get("id").in(accountIds));
+			}
+			if (!categoryIds.isEmpty()) {
+				matches.add(root.get("category").get("id").in(categoryIds));
+			}
+			if (!types.isEmpty()) {
+				matches.add(root.get("type").in(types));
+			}
+			return matches.isEmpty() ? cb.disjunction() : cb.or(matches.toArray(new Predicate[0]));
+		};
+	}
+
+	public static Specification<AccountTransaction> hasIdIn(Collection<String> ids) {
+		return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+	}
+
 	public static Specification<AccountTransaction> belongsToUser(AppUser appUser) {
 		return (root, query, cb) -> cb.equal(root.get("appUser"), appUser);
 	}
@@ -105,4 +130,21 @@ public class AccountTransactionSpecifications {
 			return cb.greaterThan(subquery, 0L);
 		};
 	}
+
+	/**
+	 * Keyset predicate: rows strictly after {@code (value, id)} in the given
+	 * direction. The id is the tie-breaker so rows sharing a date or amount are
+	 * neither skipped nor repeated across pages.
+	 */
+	public static <Y extends Comparable<? super Y>> Specification<AccountTransaction> seekAfter(String field, Y value,
+			String id, boolean ascending) {
+		return (root, query, cb) -> {
+			if (ascending) {
+				return cb.or(cb.greaterThan(root.<Y>get(field), value),
+						cb.and(cb.equal(root.get(field), value), cb.greaterThan(root.<String>get("id"), id)));
+			}
+			return cb.or(cb.lessThan(root.<Y>get(field), value),
+					cb.and(cb.equal(root.get(field), value), cb.lessThan(root.<String>get("id"), id)));
+		};
+	}
 }
@@ -0,0 +1,18 @@
+package com.nklmthr.finance.personal.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.GmailSyncCheckpoint;
+
+@Repository
+public interface GmailSyncCheckpointRepository extends JpaRepository<GmailSyncCheckpoint, String> {
+
+	List<GmailSyncCheckpoint> findByAppUser(AppUser appUser);
+
+	Optional<GmailSyncCheckpoint> findByAppUserAndConfigName(AppUser appUser, String configName);
+}
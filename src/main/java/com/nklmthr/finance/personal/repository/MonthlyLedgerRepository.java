@@ -0,0 +1,91 @@
+package com.nklmthr.finance.personal.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.nklmthr.finance.personal.model.MonthlyLedgerEntry;
+
+@Repository
+public interface MonthlyLedgerRepository extends JpaRepository<MonthlyLedgerEntry, String> {
+
+	@Modifying
+	@Query(value = "DELETE FROM monthly_ledger WHERE app_user_id = :userId "
+			+ "AND ledger_month >= :fromMonth AND ledger_month <= :toMonth", nativeQuery = true)
+	int deleteMonthRange(@Param("userId") String userId, @Param("fromMonth") String fromMonth,
+			@Param("toMonth") String toMonth);
+
+	/**
+	 * Re-aggregates the user's transactions dated in [startDate, endDate) into
+	 * ledger rows. Callers delete the same months first. Leaf rows are the ones
+	 * without split children (has_children = 0).
+	 */
+	@Modifying
+	@Query(value = """
+			INSERT INTO monthly_ledger (id, app_user_id, account_id, category_id, ledger_month, type,
+			    amount, txn_count, root_amount, root_count, leaf_amount, leaf_count)
+			SELECT UUID(), t.app_user_id, t.account_id, t.category_id, DATE_FORMAT(t.date, '%Y-%m'), t.type,
+			    COALESCE(SUM(t.amount), 0),
+			    COUNT(*),
+			    COALESCE(SUM(CASE WHEN t.parent_id IS NULL THEN t.amount ELSE 0 END), 0),
+			    SUM(CASE WHEN t.parent_id IS NULL THEN 1 ELSE 0 END),
+			    COALESCE(SUM(CASE WHEN t.has_children = 0 THEN t.amount ELSE 0 END), 0),
+			    SUM(CASE WHEN t.has_children = 0 THEN 1 ELSE 0 END)
+			FROM account_transactions t
+			WHERE t.app_user_id = :userId
+			  AND t.date >= :startDate
+			  AND t.date < :endDate
+			GROUP BY t.app_user_id, t.account_id, t.category_id, DATE_FORMAT(t.date, '%Y-%m'), t.type
+			""", nativeQuery = true)
+	int insertAggregatedRange(@Param("userId") String userId, @Param("startDate") LocalDateTime startDate,
+			@Param("endDate") LocalDateTime endDate);
+
+	/**
+	 * Ledger-backed equivalent of
+	 * {@link AccountTransactionRepository#getCategoryMonthlySpend}: same columns,
+	 * but reads O(categories x months) rollup rows instead of every transaction.
+	 */
+	@Query(value = """
+			SELECT
+			    c.id AS categoryId,
+			    c.name AS categoryName,
+			    c.parent_id AS parentId,
+			    l.ledger_month AS month,
+			    COALESCE(SUM(CASE
+			        WHEN l.type = 'CREDIT' THEN l.amount
+			        WHEN l.type = 'DEBIT' THEN -l.amount
+			        ELSE 0
+			    END), 0) AS total
+			FROM categories c
+			LEFT JOIN monthly_ledger l
+			    ON c.id = l.category_id
+			    AND l.app_user_id = :userId
+			    AND l.ledger_month >= :startMonth
+			WHERE c.id NOT IN (:excludedCategoryIds)
+			GROUP BY c.id, c.name, c.parent_id, l.ledger_month
+			ORDER BY c.name, month
+			""", nativeQuery = true)
+	List<CategoryMonthlyProjection> getCategoryMonthlySpend(@Param("userId") String userId,
+			@Param("startMonth") String startMonth, @Param("excludedCategoryIds") List<String> excludedCategoryIds);
+
+	/**
+	 * Ledger-backed equivalent of
+	 * {@link AccountTransactionRepository#sumLeafAmountsByCategoryMonthAndType}
+	 * for whole months. Returns: [categoryId, month, type, leafSum, leafCount]
+	 */
+	@Query("""
+		SELECT l.categoryId, l.month, l.type, SUM(l.leafAmount), SUM(l.leafCount)
+		FROM MonthlyLedgerEntry l
+		WHERE l.appUserId = :userId
+		  AND l.month >= :fromMonth
+		  AND l.month <= :toMonth
+		GROUP BY l.categoryId, l.month, l.type
+	""")
+	List<Object[]> findLeafTotalsByCategoryAndMonthRange(@Param("userId") String userId,
+			@Param("fromMonth") String fromMonth, @Param("toMonth") String toMonth);
+}
@@ -0,0 +1,22 @@
+package com.nklmthr.finance.personal.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.nklmthr.finance.personal.model.OpenAIResponseCacheEntry;
+
+@Repository
+public interface OpenAIResponseCacheRepository extends JpaRepository<OpenAIResponseCacheEntry, String> {
+
+	Optional<OpenAIResponseCacheEntry> findByCacheKey(String cacheKey);
+
+	@Modifying
+	@Query("DELETE FROM OpenAIResponseCacheEntry e WHERE e.createdAt < :cutoff")
+	int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -22,6 +22,8 @@ public interface PredictedTransactionRepository extends JpaRepository<PredictedT
 	
 	List<PredictedTransaction> findByAppUserAndPredictionMonthAndVisibleTrue(AppUser appUser, String predictionMonth);
 	
+	boolean existsByAppUserAndPredictionMonthAndVisibleTrue(AppUser appUser, String predictionMonth);
+	
 	List<PredictedTransaction> findByAppUserAndCategoryAndPredictionMonth(AppUser appUser, Category category, String predictionMonth);
 	
 	List<PredictedTransaction> findByPredictionRule(PredictionRule predictionRule);
@@ -30,6 +32,8 @@ public interface PredictedTransactionRepository extends JpaRepository<PredictedT
 	
 	void deleteByPredictionRule(PredictionRule predictionRule);
 	
+	List<PredictedTransaction> findByAppUserAndPredictionMonthBetween(AppUser appUser, String startMonth, String endMonth);
+	
 	@Query("SELECT pt FROM PredictedTransaction pt WHERE pt.appUser = :appUser " +
 	       "AND pt.predictionMonth >= :startMonth AND pt.predictionMonth <= :endMonth " +
 	       "AND pt.visible = true")
@@ -1,9 +1,13 @@
 package com.nklmthr.finance.personal.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.nklmthr.finance.personal.model.PredictedTransaction;
@@ -26,8 +30,13 @@ public interface PredictionActualTxnMappingRepository extends JpaRepository<Pred
 	
 	List<PredictionActualTxnMapping> findByActualTransaction(com.nklmthr.finance.personal.model.AccountTransaction actualTransaction);
 	
-	void deleteByPredictedTransaction(PredictedTransaction predictedTransaction);
+	@Modifying
+	@Query("DELETE FROM PredictionActualTxnMapping m WHERE m.predictedTransaction IN :predictions")
+	int deleteByPredictedTransactionIn(@Param("predictions") Collection<PredictedTransaction> predictions);
 	
-	void deleteByActualTransaction(com.nklmthr.finance.personal.model.AccountTransaction actualTransaction);
+	@Modifying
+	@Query("DELETE FROM PredictionActualTxnMapping m WHERE m.actualTransaction = :actualTransaction")
+	int deleteByActualTransaction(
+			@Param("actualTransaction") com.nklmthr.finance.personal.model.AccountTransaction actualTransaction);
 }
 
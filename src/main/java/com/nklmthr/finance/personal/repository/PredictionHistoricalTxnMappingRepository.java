@@ -1,9 +1,14 @@
 package com.nklmthr.finance.personal.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.nklmthr.finance.personal.model.PredictedTransaction;
@@ -24,6 +29,31 @@ public interface PredictionHistoricalTxnMappingRepository extends JpaRepository<
 	})
 	List<PredictionHistoricalTxnMapping> findByPredictedTransaction(PredictedTransaction predictedTransaction);
 	
-	void deleteByPredictedTransaction(PredictedTransaction predictedTransaction);
+	@Modifying
+	@Query("DELETE FROM PredictionHistoricalTxnMapping m WHERE m.predictedTransaction IN :predictions")
+	int deleteByPredictedTransactionIn(@Param("predictions") Collection<PredictedTransaction> predictions);
+
+	/**
+	 * Maps a prediction to its historical transactions straight from the
+	 * category/date filter: the user's leaf transactions in {@code categoryIds}
+	 * dated in [startDate, endDate). One set-based statement that loads no
+	 * entities; pairs that are already mapped are left as they are, so it is
+	 * safe to repeat. Returns the number of rows inserted.
+	 */
+	@Modifying
+	@Query(value = """
+			INSERT INTO prediction_historical_txn_mapping (id, predicted_transaction_id, historical_transaction_id, created_at)
+			SELECT UUID(), :predictionId, t.id, NOW()
+			FROM account_transactions t
+			WHERE t.app_user_id = :userId
+			  AND t.category_id IN (:categoryIds)
+			  AND t.date >= :startDate
+			  AND t.date < :endDate
+			  AND t.has_children = 0
+			ON DUPLICATE KEY UPDATE created_at = prediction_historical_txn_mapping.created_at
+			""", nativeQuery = true)
+	int insertFromLeafTransactions(@Param("predictionId") String predictionId, @Param("userId") String userId,
+			@Param("categoryIds") Collection<String> categoryIds, @Param("startDate") LocalDateTime startDate,
+			@Param("endDate") LocalDateTime endDate);
 }
 
@@ -1,5 +1,6 @@
 package com.nklmthr.finance.personal.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -24,5 +25,16 @@ public interface TransactionLabelRepository extends JpaRepository<TransactionLab
 	@Modifying
 	@Query("DELETE FROM TransactionLabel tl WHERE tl.label.id = :labelId AND tl.appUser.id = :appUserId")
 	void deleteByLabelIdAndAppUserId(@Param("labelId") String labelId, @Param("appUserId") String appUserId);
-}
 
+	@Modifying(flushAutomatically = true)
+	@Query("DELETE FROM TransactionLabel tl WHERE tl.transaction.id IN :transactionIds AND tl.appUser.id = :appUserId")
+	int deleteByTransactionIdInAndAppUserId(@Param("transactionIds") Collection<String> transactionIds,
+			@Param("appUserId") String appUserId);
+
+	/**
+	 * Label rows for a batch of transactions as {@code [transactionId, labelId, labelName]},
+	 * without hydrating TransactionLabel entities.
+	 */
+	@Query("SELECT tl.transaction.id, l.id, l.name FROM TransactionLabel tl JOIN tl.label l WHERE tl.transaction.id IN :transactionIds")
+	List<Object[]> findLabelRowsByTransactionIdIn(@Param("transactionIds") List<String> transactionIds);
+}
@@ -0,0 +1,111 @@
+package com.nklmthr.finance.personal.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+
+/**
+ * Flat row for the transactions list: one row per (transaction, label) with
+ * the account, category and GPT account columns inlined, so a page can be
+ * assembled without loading managed entities.
+ */
+public interface TransactionPageRowProjection {
+	String getId();
+
+	LocalDateTime getDate();
+
+	BigDecimal getAmount();
+
+	String getDescription();
+
+	String getExplanation();
+
+	TransactionType getType();
+
+	String getParentId();
+
+	String getLinkedTransferId();
+
+	BigDecimal getGptAmount();
+
+	String getGptDescription();
+
+	String getGptExplanation();
+
+	TransactionType getGptType();
+
+	String getCurrency();
+
+	String getGptCurrency();
+
+	Long getAttachmentCount();
+
+	String getAccountId();
+
+	String getAccountName();
+
+	BigDecimal getAccountBalance();
+
+	String getAccountNumber();
+
+	String getAccountKeywords();
+
+	String getAccountAliases();
+
+	Boolean getAccountStatementUploadAvailable();
+
+	String getAccountTypeId();
+
+	String getAccountTypeName();
+
+	String getAccountTypeDescription();
+
+	String getAccountTypeClassification();
+
+	String getInstitutionId();
+
+	String getInstitutionName();
+
+	String getInstitutionDescription();
+
+	String getGptAccountId();
+
+	String getGptAccountName();
+
+	BigDecimal getGptAccountBalance();
+
+	String getGptAccountNumber();
+
+	String getGptAccountKeywords();
+
+	String getGptAccountAliases();
+
+	Boolean getGptAccountStatementUploadAvailable();
+
+	String getGptAccountTypeId();
+
+	String getGptAccountTypeName();
+
+	String getGptAccountTypeDescription();
+
+	String getGptAccountTypeClassification();
+
+	String getGptInstitutionId();
+
+	String getGptInstitutionName();
+
+	String getGptInstitutionDescription();
+
+	String getCategoryId();
+
+	String getCategoryName();
+
+	String getCategoryParentId();
+
+	Boolean getCategorySystem();
+
+	String getLabelId();
+
+	String getLabelName();
+}
@@ -1,11 +1,13 @@
 package com.nklmthr.finance.personal.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,16 +18,18 @@ import com.nklmthr.finance.personal.model.UploadedStatement;
 @Repository
 public interface UploadedStatementRepository extends JpaRepository<UploadedStatement, String> {
 
-	// Find all statements uploaded by a user, sorted by status (UPLOADED, FAILED, PROCESSED) then by date desc
+	// Find all statements uploaded by a user, sorted by status (PROCESSING, UPLOADED, FAILED, PARTIAL, PROCESSED) then by date desc
 	@Query("""
 		SELECT s FROM UploadedStatement s 
 		WHERE s.appUser = :appUser 
 		ORDER BY 
 			CASE s.status 
+				WHEN 'PROCESSING' THEN 0 
 				WHEN 'UPLOADED' THEN 1 
 				WHEN 'FAILED' THEN 2 
-				WHEN 'PROCESSED' THEN 3 
-				ELSE 4 
+				WHEN 'PARTIAL' THEN 3 
+				WHEN 'PROCESSED' THEN 4 
+				ELSE 5 
 			END,
 			s.uploadedAt DESC
 	""")
@@ -37,10 +41,12 @@ public interface UploadedStatementRepository extends JpaRepository<UploadedState
 		WHERE s.appUser = :appUser 
 		ORDER BY 
 			CASE s.status 
+				WHEN 'PROCESSING' THEN 0 
 				WHEN 'UPLOADED' THEN 1 
 				WHEN 'FAILED' THEN 2 
-				WHEN 'PROCESSED' THEN 3 
-				ELSE 4 
+				WHEN 'PARTIAL' THEN 3 
+				WHEN 'PROCESSED' THEN 4 
+				ELSE 5 
 			END,
 			s.uploadedAt DESC
 	""")
@@ -54,4 +60,12 @@ public interface UploadedStatementRepository extends JpaRepository<UploadedState
 
 	// (Optional) If needed, check existence
 	boolean existsByAppUserAndId(AppUser appUser, String id);
+
+	// Atomically move a statement to PROCESSING so the same statement cannot be queued twice
+	@Modifying
+	@Query("UPDATE UploadedStatement s SET s.status = :target WHERE s.appUser = :appUser AND s.id = :id AND s.status IN :from")
+	int updateStatusIfIn(@Param("appUser") AppUser appUser, @Param("id") String id,
+			@Param("from") Collection<UploadedStatement.Status> from, @Param("target") UploadedStatement.Status target);
+
+	List<UploadedStatement> findByStatus(UploadedStatement.Status status);
 }
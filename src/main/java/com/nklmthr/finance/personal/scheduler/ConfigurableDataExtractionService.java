@@ -1,15 +1,35 @@
 package com.nklmthr.finance.personal.scheduler;
 
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jsoup.Jsoup;
@@ -22,30 +42,35 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.services.gmail.Gmail;
-import com.google.api.services.gmail.GmailScopes;
+import com.google.api.services.gmail.model.History;
+import com.google.api.services.gmail.model.HistoryMessageAdded;
+import com.google.api.services.gmail.model.ListHistoryResponse;
+import com.google.api.services.gmail.model.ListMessagesResponse;
 import com.google.api.services.gmail.model.Message;
 import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartHeader;
 
-import com.nklmthr.finance.personal.dto.AccountDTO;
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
 import com.nklmthr.finance.personal.model.Account;
 import com.nklmthr.finance.personal.model.AccountTransaction;
 import com.nklmthr.finance.personal.model.AppUser;
-import com.nklmthr.finance.personal.openai.OpenAIClient;
+import com.nklmthr.finance.personal.model.GmailSyncCheckpoint;
 import com.nklmthr.finance.personal.repository.AppUserRepository;
+import com.nklmthr.finance.personal.repository.GmailSyncCheckpointRepository;
 import com.nklmthr.finance.personal.scheduler.config.ExtractionConfig;
 import com.nklmthr.finance.personal.scheduler.config.ExtractionConfigRegistry;
+import com.nklmthr.finance.personal.scheduler.util.GmailQueryPlanner;
 import com.nklmthr.finance.personal.scheduler.util.PatternResult;
+import com.nklmthr.finance.personal.scheduler.util.TransactionExtraction;
 import com.nklmthr.finance.personal.scheduler.util.TransactionPatternLibrary;
 import com.nklmthr.finance.personal.service.AccountService;
 import com.nklmthr.finance.personal.service.AccountTransactionService;
 import com.nklmthr.finance.personal.service.CategoryService;
-import com.nklmthr.finance.personal.service.gmail.AppUserDataStoreFactory;
+import com.nklmthr.finance.personal.service.TransactionDedupIndex;
+import com.nklmthr.finance.personal.service.TransactionEnrichmentService;
+import com.nklmthr.finance.personal.service.gmail.GmailBatchMessageFetcher;
 import com.nklmthr.finance.personal.service.gmail.GmailServiceProvider;
 import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 import com.nklmthr.finance.personal.util.AccountFuzzyMatcher.MatchResult;
@@ -83,6 +108,12 @@ public class ConfigurableDataExtractionService {
 	@Autowired
 	private GmailServiceProvider gmailServiceProvider;
 
+	@Autowired
+	private GmailBatchMessageFetcher gmailBatchMessageFetcher;
+
+	@Autowired
+	private GmailSyncCheckpointRepository gmailSyncCheckpointRepository;
+
 	@Autowired
 	private AppUserRepository appUserRepository;
 
@@ -93,10 +124,20 @@ public class ConfigurableDataExtractionService {
 	private boolean openAIEnabled;
 
 	@Autowired(required = false)
-	private OpenAIClient openAIClient;
+	private TransactionEnrichmentService transactionEnrichmentService;
+
+	// Gmail calls in flight across all users, and per user
+	@Value("${gmail.ingestion.max-concurrency:8}")
+	private int maxConcurrency;
 
-	private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
-	private static final String CREDENTIALS_FILE_PATH = "/credentials.json";
+	@Value("${gmail.ingestion.per-user-concurrency:3}")
+	private int perUserConcurrency;
+
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	// Keeps the merged query well inside Gmail's URL length limit
+	private static final int MAX_QUERY_LENGTH = 1500;
+	private static final long LIST_PAGE_SIZE = 500L;
 
 	@Scheduled(cron = "${my.scheduler.cron}")
 	public void runTask() {
@@ -104,115 +145,420 @@ public class ConfigurableDataExtractionService {
 			logger.info("Scheduler is disabled, skipping ConfigurableDataExtractionService");
 			return;
 		}
-		run();
+		ingest(configRegistry.getAllConfigs(), "", true);
 	}
 
+	/**
+	 * Manual full run: rescans the whole lookback window for every config,
+	 * ignoring sync checkpoints.
+	 */
 	public void run() {
-		try {
- 			String requestId = UUID.randomUUID().toString();
-			MDC.put("requestId", requestId);
-			logger.info("Start: ConfigurableDataExtractionService");
-
-			// Process each configuration
-			for (ExtractionConfig config : configRegistry.getAllConfigs()) {
-				logger.info("Processing configuration: {}", config.getName());
-				processConfiguration(config);
-			}
-
-		} catch (Exception e) {
-			logger.error("Error during ConfigurableDataExtractionService execution", e);
-		} finally {
-			logger.info("Finish: ConfigurableDataExtractionService\n\n");
-			MDC.remove("requestId");
-		}
+		ingest(configRegistry.getAllConfigs(), "", false);
 	}
 
 	/**
 	 * Process only specific configurations by name
 	 */
 	public void runForSpecificConfigs(List<String> configNames) {
+		List<ExtractionConfig> configs = configRegistry.getAllConfigs().stream()
+			.filter(config -> configNames.contains(config.getName()))
+			.toList();
+		ingest(configs, " (specific configs: " + configNames + ")", false);
+	}
+
+	/**
+	 * Runs one ingestion pass over {@code configs} for every Gmail-connected
+	 * user. Each user, (user, config) pair and message fetch runs on its own
+	 * virtual thread; Gmail calls are capped per user and globally. Only one
+	 * pass runs at a time, so a manual trigger during a scheduled run is
+	 * skipped.
+	 *
+	 * When {@code incremental}, a config with a sync checkpoint only processes
+	 * messages Gmail reports as added since the checkpoint's historyId, and is
+	 * skipped entirely when there are none. Without a checkpoint, or when the
+	 * historyId has expired, it falls back to the lookback window.
+	 */
+	private void ingest(List<ExtractionConfig> configs, String scope, boolean incremental) {
+		if (!running.compareAndSet(false, true)) {
+			logger.warn("ConfigurableDataExtractionService is already running, skipping{}", scope);
+			return;
+		}
 		try {
 			String requestId = UUID.randomUUID().toString();
 			MDC.put("requestId", requestId);
-			logger.info("Start: ConfigurableDataExtractionService (specific configs: {})", configNames);
-
-			// Process only the requested configurations
-			for (ExtractionConfig config : configRegistry.getAllConfigs()) {
-				if (configNames.contains(config.getName())) {
-					logger.info("Processing configuration: {}", config.getName());
-					processConfiguration(config);
+			logger.info("Start: ConfigurableDataExtractionService{}", scope);
+			long start = System.currentTimeMillis();
+
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				IngestionRun ingestionRun = new IngestionRun(executor, new Semaphore(maxConcurrency),
+					MDC.getCopyOfContextMap());
+				List<Future<?>> tasks = new ArrayList<>();
+				for (AppUser appUser : appUserRepository.findAll()) {
+					tasks.add(executor.submit(ingestionRun.withMdc(() -> {
+						processUser(ingestionRun, appUser, configs, incremental);
+						return null;
+					})));
 				}
+				awaitAll(tasks);
+			}
+			logger.info("Processed {} configurations in {} ms", configs.size(), System.currentTimeMillis() - start);
+			if (transactionEnrichmentService != null) {
+				transactionEnrichmentService.requestDrain();
 			}
-
 		} catch (Exception e) {
 			logger.error("Error during ConfigurableDataExtractionService execution", e);
 		} finally {
 			logger.info("Finish: ConfigurableDataExtractionService\n\n");
 			MDC.remove("requestId");
+			running.set(false);
 		}
 	}
 
-	private void processConfiguration(ExtractionConfig config) throws Exception {
-		for (AppUser appUser : appUserRepository.findAll()) {
-			logger.info("Processing {} for user: {}", config.getName(), appUser.getUsername());
-
-			var clientSecrets = GoogleClientSecrets.load(
-				JSON_FACTORY,
-				new InputStreamReader(getClass().getResourceAsStream(CREDENTIALS_FILE_PATH))
-			);
-
-			AppUserDataStoreFactory factory = 
-				new AppUserDataStoreFactory(appUserRepository);
-
-			GoogleAuthorizationCodeFlow flow = 
-				new GoogleAuthorizationCodeFlow.Builder(
-					GoogleNetHttpTransport.newTrustedTransport(),
-					JSON_FACTORY,
-					clientSecrets,
-					List.of(GmailScopes.GMAIL_READONLY)
-				)
-				.setDataStoreFactory(factory)
-				.setAccessType("offline")
-				.build();
-
-			Credential credential = flow.loadCredential(appUser.getUsername());
+	/**
+	 * Loads the user's Gmail credential and the dedup keys of the lookback
+	 * window once per run; null when Gmail is not connected.
+	 */
+	private UserIngestion connectUser(AppUser appUser) {
+		try {
+			Credential credential = gmailServiceProvider.getCredential(appUser);
 			if (credential == null || 
 			    StringUtils.isBlank(credential.getAccessToken()) ||
 			    StringUtils.isAllBlank(credential.getRefreshToken())) {
 				logger.warn("Gmail not connected for user: {}", appUser.getUsername());
+				return null;
+			}
+
+			// A day of margin for the mail's own timezone and the 60s fuzzy-match window
+			TransactionDedupIndex dedupIndex = accountTransactionService.loadDedupIndex(appUser,
+				LocalDate.now().minusDays(gmailLookbackDays + 1L).atStartOfDay());
+			return new UserIngestion(appUser, gmailServiceProvider.getGmailService(appUser),
+				new Semaphore(perUserConcurrency), new ReentrantLock(), dedupIndex);
+		} catch (Exception e) {
+			logger.error("Failed to connect Gmail for user: {}", appUser.getUsername(), e);
+			return null;
+		}
+	}
+
+	private void processUser(IngestionRun ingestionRun, AppUser appUser, List<ExtractionConfig> configs,
+		boolean incremental) throws Exception {
+		UserIngestion user = connectUser(appUser);
+		if (user == null) {
+			return;
+		}
+
+		// Taken before listing so messages arriving during the run are picked up next time
+		Long mailboxHistoryId = currentHistoryId(ingestionRun, user);
+		Map<String, GmailSyncCheckpoint> checkpoints = gmailSyncCheckpointRepository.findByAppUser(appUser).stream()
+			.collect(Collectors.toMap(GmailSyncCheckpoint::getConfigName, Function.identity()));
+		// Configs synced together share a checkpoint, so each history range is listed once
+		Map<Long, Optional<Set<String>>> addedSince = new HashMap<>();
+
+		// Config name -> ids it may process; null means the whole lookback window
+		Map<String, Set<String>> allowedIds = new HashMap<>();
+		List<ExtractionConfig> activeConfigs = new ArrayList<>();
+		for (ExtractionConfig config : configs) {
+			GmailSyncCheckpoint checkpoint = checkpoints.get(config.getName());
+			Optional<Set<String>> newMessageIds = Optional.empty();
+			if (incremental && checkpoint != null && mailboxHistoryId != null) {
+				newMessageIds = addedSince.computeIfAbsent(checkpoint.getHistoryId(),
+					startHistoryId -> messagesAddedSince(ingestionRun, user, startHistoryId));
+			}
+			if (newMessageIds.isPresent() && newMessageIds.get().isEmpty()) {
+				logger.info("No new messages for {} and user {} since historyId {}", config.getName(),
+					appUser.getUsername(), checkpoint.getHistoryId());
+				saveCheckpoint(appUser, config, checkpoint, mailboxHistoryId);
 				continue;
 			}
+			activeConfigs.add(config);
+			allowedIds.put(config.getName(), newMessageIds.orElse(null));
+		}
+		if (activeConfigs.isEmpty()) {
+			return;
+		}
 
-			Gmail gmailService = gmailServiceProvider.getGmailService(appUser);
+		Map<String, Boolean> completed = processConfigurations(ingestionRun, user, activeConfigs, allowedIds);
+		if (mailboxHistoryId == null) {
+			return;
+		}
+		for (ExtractionConfig config : activeConfigs) {
+			if (completed.get(config.getName())) {
+				saveCheckpoint(appUser, config, checkpoints.get(config.getName()), mailboxHistoryId);
+			}
+		}
+	}
 
-			List<String> gmailAPIQueries = buildGmailQueries(config);
+	private Long currentHistoryId(IngestionRun ingestionRun, UserIngestion user) {
+		try {
+			BigInteger historyId = ingestionRun.throttled(user,
+				() -> user.gmail().users().getProfile("me").execute().getHistoryId());
+			return historyId != null ? historyId.longValue() : null;
+		} catch (Exception e) {
+			logger.warn("Could not read Gmail historyId for user {}, using the lookback window: {}",
+				user.appUser().getUsername(), e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Ids of messages added to the mailbox after {@code startHistoryId}, or
+	 * empty when Gmail can't answer (historyId expired, API error) and the
+	 * caller should rescan the lookback window.
+	 */
+	private Optional<Set<String>> messagesAddedSince(IngestionRun ingestionRun, UserIngestion user,
+		long startHistoryId) {
+		Set<String> added = new HashSet<>();
+		String pageToken = null;
+		try {
+			do {
+				String token = pageToken;
+				ListHistoryResponse response = ingestionRun.throttled(user,
+					() -> user.gmail().users().history().list("me")
+						.setStartHistoryId(BigInteger.valueOf(startHistoryId))
+						.setHistoryTypes(List.of("messageAdded"))
+						.setPageToken(token)
+						.execute());
+				if (response.getHistory() != null) {
+					for (History history : response.getHistory()) {
+						if (history.getMessagesAdded() != null) {
+							for (HistoryMessageAdded messageAdded : history.getMessagesAdded()) {
+								added.add(messageAdded.getMessage().getId());
+							}
+						}
+					}
+				}
+				pageToken = response.getNextPageToken();
+			} while (pageToken != null);
+			return Optional.of(added);
+		} catch (GoogleJsonResponseException e) {
+			if (e.getStatusCode() == 404) {
+				logger.info("Gmail historyId {} expired for user {}, resyncing the lookback window", startHistoryId,
+					user.appUser().getUsername());
+			} else {
+				logger.warn("Gmail history lookup failed for user {}, using the lookback window: {}",
+					user.appUser().getUsername(), e.getMessage());
+			}
+			return Optional.empty();
+		} catch (Exception e) {
+			logger.warn("Gmail history lookup failed for user {}, using the lookback window: {}",
+				user.appUser().getUsername(), e.getMessage());
+			return Optional.empty();
+		}
+	}
 
-			for (String query : gmailAPIQueries) {
-				List<Message> messages = 
-					gmailService.users().messages().list("me").setQ(query).execute().getMessages();
+	private void saveCheckpoint(AppUser appUser, ExtractionConfig config, GmailSyncCheckpoint existing,
+		long historyId) {
+		GmailSyncCheckpoint checkpoint = existing != null ? existing
+			: GmailSyncCheckpoint.builder().appUser(appUser).configName(config.getName()).build();
+		checkpoint.setHistoryId(historyId);
+		checkpoint.setSyncedAt(LocalDateTime.now());
+		gmailSyncCheckpointRepository.save(checkpoint);
+	}
 
-				if (messages == null || messages.isEmpty()) {
-					logger.info("No messages found for query: {}", query);
-					continue;
+	/**
+	 * Collects the user's messages for {@code configs}, fetches them in Gmail
+	 * batches and hands each message to every config it routes to (and is
+	 * allowed for). Configs that need the whole lookback window are listed
+	 * with the merged queries from {@link GmailQueryPlanner}. The new ids the
+	 * history API reports for the other configs cover every sender, so they
+	 * are first fetched as From and Subject only, and just the ones that
+	 * route to a config they are allowed for are fetched in full.
+	 * Returns, per config name, whether every one of its messages was fetched
+	 * (or no longer exists) and processed without error, so a checkpoint is
+	 * not advanced past a failure.
+	 */
+	private Map<String, Boolean> processConfigurations(IngestionRun ingestionRun, UserIngestion user,
+		List<ExtractionConfig> configs, Map<String, Set<String>> allowedIds) throws Exception {
+		Set<String> messageIds = new LinkedHashSet<>();
+		List<ExtractionConfig> windowConfigs = configs.stream()
+			.filter(config -> allowedIds.get(config.getName()) == null)
+			.toList();
+		if (!windowConfigs.isEmpty()) {
+			messageIds.addAll(listLookbackWindow(ingestionRun, user, windowConfigs));
+		}
+		Set<String> historyIds = new LinkedHashSet<>();
+		allowedIds.values().stream().filter(Objects::nonNull).forEach(historyIds::addAll);
+		historyIds.removeAll(messageIds);
+
+		// Messages already imported with current source info would only be found as duplicates
+		int listed = messageIds.size() + historyIds.size();
+		messageIds.removeIf(user.dedupIndex()::isSettled);
+		historyIds.removeIf(user.dedupIndex()::isSettled);
+		if (messageIds.size() + historyIds.size() < listed) {
+			logger.info("Skipping {} already imported messages for user {}",
+				listed - messageIds.size() - historyIds.size(), user.appUser().getUsername());
+		}
+
+		Map<String, Boolean> completed = new ConcurrentHashMap<>();
+		configs.forEach(config -> completed.put(config.getName(), true));
+		messageIds.addAll(routeHistoryIds(ingestionRun, user, configs, allowedIds, historyIds, completed));
+
+		Map<Future<?>, String> messageTasks = new LinkedHashMap<>();
+		List<String> ids = new ArrayList<>(messageIds);
+		int batchSize = gmailBatchMessageFetcher.getBatchSize();
+		// Fetch full messages one Gmail batch at a time; extraction of a batch's messages
+		// runs in parallel while the next batch is being fetched
+		for (int from = 0; from < ids.size(); from += batchSize) {
+			List<String> batchIds = ids.subList(from, Math.min(from + batchSize, ids.size()));
+			GmailBatchMessageFetcher.FetchResult result = ingestionRun.throttled(user,
+				() -> gmailBatchMessageFetcher.fetchFull(user.gmail(), batchIds));
+			Map<String, Message> fetched = result.messages();
+			// Messages deleted since listing are done; the rest still have to be processed
+			List<String> unfetched = batchIds.stream()
+				.filter(id -> !fetched.containsKey(id) && !result.notFound().contains(id))
+				.toList();
+			if (!unfetched.isEmpty()) {
+				logger.warn("Could not fetch {} of {} messages for user {}", unfetched.size(), batchIds.size(),
+					user.appUser().getUsername());
+				holdBack(configs, allowedIds, unfetched, completed);
+			}
+			for (Message message : fetched.values()) {
+				List<ExtractionConfig> routed = GmailQueryPlanner.route(configs, header(message, "From"),
+					header(message, "Subject"));
+				for (ExtractionConfig config : routed) {
+					Set<String> allowed = allowedIds.get(config.getName());
+					if (allowed != null && !allowed.contains(message.getId())) {
+						continue;
+					}
+					messageTasks.put(ingestionRun.executor().submit(ingestionRun.withMdc(() -> {
+						processMessage(user, message, config);
+						return null;
+					})), config.getName());
 				}
+			}
+		}
 
-				logger.info("{}: {} messages found.", query, messages.size());
+		for (Map.Entry<Future<?>, String> task : messageTasks.entrySet()) {
+			try {
+				task.getKey().get();
+			} catch (ExecutionException e) {
+				completed.put(task.getValue(), false);
+				logger.error("Data extraction task failed for {}", task.getValue(), e.getCause());
+			}
+		}
+		return completed;
+	}
 
-				for (Message message : messages) {
-					processMessage(gmailService, message, config, appUser);
+	/**
+	 * The history ids whose From and Subject route them to a config allowed
+	 * to see them. Ids whose headers could not be fetched hold back the
+	 * history configs that may own them; lookback configs never see history
+	 * ids they did not list.
+	 */
+	private List<String> routeHistoryIds(IngestionRun ingestionRun, UserIngestion user,
+		List<ExtractionConfig> configs, Map<String, Set<String>> allowedIds, Set<String> historyIds,
+		Map<String, Boolean> completed) throws Exception {
+		List<ExtractionConfig> historyConfigs = configs.stream()
+			.filter(config -> allowedIds.get(config.getName()) != null)
+			.toList();
+		List<String> routed = new ArrayList<>();
+		List<String> ids = new ArrayList<>(historyIds);
+		int batchSize = gmailBatchMessageFetcher.getBatchSize();
+		for (int from = 0; from < ids.size(); from += batchSize) {
+			List<String> batchIds = ids.subList(from, Math.min(from + batchSize, ids.size()));
+			GmailBatchMessageFetcher.FetchResult result = ingestionRun.throttled(user,
+				() -> gmailBatchMessageFetcher.fetchMetadata(user.gmail(), batchIds));
+			List<String> unfetched = batchIds.stream()
+				.filter(id -> !result.messages().containsKey(id) && !result.notFound().contains(id))
+				.toList();
+			if (!unfetched.isEmpty()) {
+				logger.warn("Could not fetch headers of {} of {} new messages for user {}", unfetched.size(),
+					batchIds.size(), user.appUser().getUsername());
+				holdBack(historyConfigs, allowedIds, unfetched, completed);
+			}
+			for (Message message : result.messages().values()) {
+				boolean wanted = GmailQueryPlanner
+					.route(historyConfigs, header(message, "From"), header(message, "Subject")).stream()
+					.anyMatch(config -> allowedIds.get(config.getName()).contains(message.getId()));
+				if (wanted) {
+					routed.add(message.getId());
 				}
 			}
 		}
+		logger.info("{} of {} new messages for user {} route to a config", routed.size(), ids.size(),
+			user.appUser().getUsername());
+		return routed;
+	}
+
+	/**
+	 * Marks incomplete every config that may own one of {@code unfetched}:
+	 * without headers they can't be routed.
+	 */
+	private void holdBack(List<ExtractionConfig> configs, Map<String, Set<String>> allowedIds,
+		List<String> unfetched, Map<String, Boolean> completed) {
+		for (ExtractionConfig config : configs) {
+			Set<String> allowed = allowedIds.get(config.getName());
+			if (allowed == null || unfetched.stream().anyMatch(allowed::contains)) {
+				completed.put(config.getName(), false);
+			}
+		}
+	}
+
+	/**
+	 * Ids of the messages the merged queries for {@code configs} return over
+	 * the lookback window.
+	 */
+	private Set<String> listLookbackWindow(IngestionRun ingestionRun, UserIngestion user,
+		List<ExtractionConfig> configs) throws Exception {
+		LocalDate today = LocalDate.now();
+		List<String> gmailAPIQueries = GmailQueryPlanner.plan(configs, today.minusDays(gmailLookbackDays),
+			today.plusDays(1), MAX_QUERY_LENGTH);
+		Set<String> messageIds = new LinkedHashSet<>();
+		for (String query : gmailAPIQueries) {
+			logger.debug("Gmail API query: {}", query);
+			String pageToken = null;
+			int found = 0;
+			do {
+				String token = pageToken;
+				ListMessagesResponse response = ingestionRun.throttled(user,
+					() -> user.gmail().users().messages().list("me").setQ(query).setMaxResults(LIST_PAGE_SIZE)
+						.setPageToken(token).execute());
+				if (response.getMessages() != null) {
+					for (Message message : response.getMessages()) {
+						messageIds.add(message.getId());
+					}
+					found += response.getMessages().size();
+				}
+				pageToken = response.getNextPageToken();
+			} while (pageToken != null);
+			logger.info("{} messages found for user {} with {} configs in one query", found,
+				user.appUser().getUsername(), configs.size());
+		}
+		return messageIds;
+	}
+
+	private String header(Message message, String name) {
+		if (message.getPayload() == null || message.getPayload().getHeaders() == null) {
+			return null;
+		}
+		return message.getPayload().getHeaders().stream()
+			.filter(header -> name.equalsIgnoreCase(header.getName()))
+			.map(MessagePartHeader::getValue)
+			.findFirst()
+			.orElse(null);
+	}
+
+	/**
+	 * Waits for every task and returns how many failed.
+	 */
+	private int awaitAll(List<Future<?>> tasks) throws InterruptedException {
+		int failed = 0;
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				failed++;
+				logger.error("Data extraction task failed", e.getCause());
+			}
+		}
+		return failed;
 	}
 
 	private void processMessage(
-		Gmail gmailService,
-		Message message,
-		ExtractionConfig config,
-		AppUser appUser
+		UserIngestion user,
+		Message mess,
+		ExtractionConfig config
 	) throws Exception {
-		Message mess = 
-			gmailService.users().messages().get("me", message.getId()).setFormat("full").execute();
+		AppUser appUser = user.appUser();
 
 		String emailContent = extractPlainText(mess);
 		logger.debug("Extracted content for message ID {}: {}", mess.getId(), emailContent);
@@ -226,7 +572,8 @@ public class ConfigurableDataExtractionService {
 
 		// IMPORTANT: Check for declined transactions FIRST before any processing
 		// This should be done BEFORE creating the transaction object
-		if (config.isSkipDeclinedTransactions() && shouldSkipBasedOnContent(emailContent, config)) {
+		TransactionExtraction extraction = TransactionPatternLibrary.extract(emailContent);
+		if (config.isSkipDeclinedTransactions() && extraction.isDeclined()) {
 			logger.info("Skipping declined/failed transaction for {} based on content filters", config.getName());
 			return;
 		}
@@ -247,7 +594,7 @@ public class ConfigurableDataExtractionService {
 		logger.info("Processing email ID: {} with config: {}", mess.getId(), config.getName());
 		
 		// Extract basic transaction data first (amount, description, date, type) - no account matching
-		accountTransaction = extractBasicTransactionData(accountTransaction, emailContent, config);
+		accountTransaction = extractBasicTransactionData(accountTransaction, extraction, config);
 
 		if (accountTransaction == null) {
 			logger.warn("Failed to extract basic transaction data from email ID: {}. Email content: {}", 
@@ -262,15 +609,7 @@ public class ConfigurableDataExtractionService {
 		}
 
 		// Check for duplicate BEFORE doing expensive account matching
-		var duplicateOpt = accountTransactionService.findDuplicate(accountTransaction, appUser);
-		if (duplicateOpt.isPresent()) {
-			logger.info("Skipping duplicate transaction: {}", accountTransaction.getDescription());
-			AccountTransaction existing = duplicateOpt.get();
-			if (StringUtils.isBlank(existing.getRawData())) {
-				logger.info("Updating missing rawData for duplicate transaction ID: {}", existing.getId());
-				existing.setRawData(emailContent);
-			}
-			accountTransactionService.mergeSourceInfoIfNeeded(existing, accountTransaction);
+		if (mergeIfDuplicate(user, accountTransaction, emailContent)) {
 			return; // Early return - skip account matching
 		}
 
@@ -281,10 +620,9 @@ public class ConfigurableDataExtractionService {
 			return;
 		}
 
-		// Call OpenAI for enrichment if enabled
+		// OpenAI enrichment runs after the save, in TransactionEnrichmentService
 		if (openAIEnabled) {
-			logger.debug("OpenAI enabled, calling for transaction enrichment");
-			openAIClient.getGptResponse(emailContent, accountTransaction);
+			accountTransaction.setEnrichmentStatus(EnrichmentStatus.PENDING);
 		} else {
 			logger.info("OpenAI disabled, skipping GPT enrichment");
 		}
@@ -296,26 +634,91 @@ public class ConfigurableDataExtractionService {
 			accountTransaction.setDescription("Unknown");
 		}
 
-		logger.info("Saving transaction: {}", accountTransaction);
-		accountTransactionService.save(accountTransaction, appUser);
+		// Re-check under the user's lock: another message of the same thread may have
+		// been saved while this one was being matched
+		user.saveLock().lock();
+		try {
+			if (mergeIfDuplicate(user, accountTransaction, emailContent)) {
+				return;
+			}
+			logger.info("Saving transaction: {}", accountTransaction);
+			accountTransactionService.save(accountTransaction, appUser);
+			user.dedupIndex().add(accountTransaction);
+		} finally {
+			user.saveLock().unlock();
+		}
 	}
 
-	private boolean shouldSkipBasedOnContent(String emailContent, ExtractionConfig config) {
-		String lowerContent = emailContent.toLowerCase();
-
-		// Skip declined transactions - check for various decline patterns
-		if (lowerContent.contains("has been declined") ||
-		    lowerContent.contains("declined as") ||  // e.g., "declined as amt exceeds limit"
-		    lowerContent.contains("declined due to") ||
-		    lowerContent.contains("incorrect pin") ||
-		    lowerContent.contains("transaction declined") ||
-		    lowerContent.contains("transaction failed") ||
-		    lowerContent.contains("txn") && lowerContent.contains("declined")) {  // e.g., "Txn...declined"
-			logger.info("Skipping declined/failed transaction for {}", config.getName());
+	/**
+	 * Dedup check and source merge for one user, serialized with that user's
+	 * saves so concurrent messages cannot both miss each other. The check runs
+	 * against the run's in-memory dedup index; the transaction is only loaded
+	 * when its source info still has to be merged.
+	 */
+	private boolean mergeIfDuplicate(UserIngestion user, AccountTransaction accountTransaction, String emailContent) {
+		user.saveLock().lock();
+		try {
+			var duplicateOpt = user.dedupIndex().findDuplicate(accountTransaction);
+			if (duplicateOpt.isEmpty()) {
+				return false;
+			}
+			logger.info("Skipping duplicate transaction: {}", accountTransaction.getDescription());
+			if (!user.dedupIndex().needsMerge(duplicateOpt.get())) {
+				return true;
+			}
+			accountTransactionService.findDuplicate(accountTransaction, user.appUser()).ifPresent(existing -> {
+				if (StringUtils.isBlank(existing.getRawData())) {
+					logger.info("Updating missing rawData for duplicate transaction ID: {}", existing.getId());
+					existing.setRawData(emailContent);
+				}
+				accountTransactionService.mergeSourceInfoIfNeeded(existing, accountTransaction);
+			});
+			user.dedupIndex().markSettled(duplicateOpt.get(), accountTransaction);
 			return true;
+		} finally {
+			user.saveLock().unlock();
 		}
+	}
 
-		return false;
+	/**
+	 * Per-run state shared by every task: the virtual-thread executor, the
+	 * global Gmail permit pool and the caller's MDC.
+	 */
+	private record IngestionRun(
+		ExecutorService executor,
+		Semaphore globalPermits,
+		Map<String, String> mdc
+	) {
+		<T> T throttled(UserIngestion user, Callable<T> call) throws Exception {
+			user.permits().acquire();
+			try {
+				globalPermits.acquire();
+				try {
+					return call.call();
+				} finally {
+					globalPermits.release();
+				}
+			} finally {
+				user.permits().release();
+			}
+		}
+
+		<T> Callable<T> withMdc(Callable<T> task) {
+			return () -> {
+				if (mdc != null) {
+					MDC.setContextMap(mdc);
+				}
+				try {
+					return task.call();
+				} finally {
+					MDC.clear();
+				}
+			};
+		}
+	}
+
+	private record UserIngestion(AppUser appUser, Gmail gmail, Semaphore permits, ReentrantLock saveLock,
+		TransactionDedupIndex dedupIndex) {
 	}
 
 	/**
@@ -324,18 +727,18 @@ public class ConfigurableDataExtractionService {
 	 */
 	private AccountTransaction extractBasicTransactionData(
 		AccountTransaction tx,
-		String emailContent,
+		TransactionExtraction extraction,
 		ExtractionConfig config
 	) {
 		try {
-			// Use pattern library for extraction
-			PatternResult<BigDecimal> amountResult = TransactionPatternLibrary.extractAmount(emailContent);
+			// Fields the pattern library found in its single pass over the email
+			PatternResult<BigDecimal> amountResult = extraction.getAmount();
 			if (amountResult.isPresent()) {
 				tx.setAmount(amountResult.getValue());
 				logger.debug("Extracted amount using pattern: {}", amountResult.getMatchedPattern());
 			}
 
-			PatternResult<String> descriptionResult = TransactionPatternLibrary.extractDescription(emailContent);
+			PatternResult<String> descriptionResult = extraction.getDescription();
 			if (descriptionResult.isPresent()) {
 				tx.setDescription(descriptionResult.getValue());
 				logger.debug("Extracted description using pattern: {}", descriptionResult.getMatchedPattern());
@@ -346,7 +749,7 @@ public class ConfigurableDataExtractionService {
 				tx.setType(config.getFixedTransactionType());
 				logger.debug("Using fixed transaction type: {}", config.getFixedTransactionType());
 			} else {
-				tx.setType(TransactionPatternLibrary.detectTransactionType(emailContent));
+				tx.setType(extraction.getType().getValue());
 				logger.debug("Auto-detected transaction type: {}", tx.getType());
 			}
 
@@ -369,9 +772,9 @@ public class ConfigurableDataExtractionService {
 	) {
 		try {
 			// Use fuzzy matching to find the best account
-			List<AccountDTO> accounts = accountService.getAllAccounts(appUser);
 			MatchResult matchResult = accountFuzzyMatcher.findBestMatch(
-				accounts,
+				appUser,
+				null,
 				emailContent,
 				tx.getDescription()
 			);
@@ -396,31 +799,6 @@ public class ConfigurableDataExtractionService {
 		}
 	}
 
-	private List<String> buildGmailQueries(ExtractionConfig config) {
-		List<String> queries = new ArrayList<>();
-		LocalDate today = LocalDate.now();
-		LocalDate lookbackDate = today.minusDays(gmailLookbackDays);
-
-		// Create a query for each combination of subject and sender
-		for (String subject : config.getEmailSubjects()) {
-			for (String sender : config.getSenders()) {
-				String gmailQuery = String.format("subject:(%s) from:(%s) after:%s before:%s",
-					subject,
-					sender,
-					formatDate(lookbackDate),
-					formatDate(today.plusDays(1))
-				);
-				queries.add(gmailQuery);
-				logger.debug("Gmail API query: {}", gmailQuery);
-			}
-		}
-		return queries;
-	}
-
-	private String formatDate(LocalDate date) {
-		return String.format("%d-%02d-%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
-	}
-
 	// Email text extraction methods (same as AbstractDataExtractionService)
 	private String extractPlainText(Message message) {
 		try {
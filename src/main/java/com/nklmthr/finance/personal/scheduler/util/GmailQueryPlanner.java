@@ -0,0 +1,103 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.nklmthr.finance.personal.scheduler.config.ExtractionConfig;
+
+/**
+ * Plans the Gmail list queries for one ingestion pass and routes the returned
+ * messages back to their extraction configs.
+ *
+ * Instead of one {@code subject:(..) from:(..)} query per subject/sender pair
+ * per config, configs sharing the same senders are merged into one
+ * {@code (from:(a) OR from:(b)) (subject:(x) OR subject:(y))} group, and the
+ * groups are OR-ed together into as few queries as fit {@code maxQueryLength}.
+ * Because the merged query can return a message for a subject of one config
+ * and a sender of another, every message is routed locally with
+ * {@link #route}, which applies the same rule the per-pair queries did.
+ */
+public final class GmailQueryPlanner {
+
+    private GmailQueryPlanner() {
+    }
+
+    public static List<String> plan(List<ExtractionConfig> configs, LocalDate after, LocalDate before,
+            int maxQueryLength) {
+        // Configs with identical sender sets share one group
+        Map<Set<String>, Set<String>> subjectsBySenders = new LinkedHashMap<>();
+        for (ExtractionConfig config : configs) {
+            subjectsBySenders.computeIfAbsent(new LinkedHashSet<>(config.getSenders()), k -> new LinkedHashSet<>())
+                .addAll(config.getEmailSubjects());
+        }
+        List<String> groups = new ArrayList<>();
+        subjectsBySenders.forEach((senders, subjects) -> groups.add("("
+            + anyOf(senders.stream().map(sender -> "from:(" + sender + ")").toList()) + " "
+            + anyOf(subjects.stream().map(subject -> "subject:(" + subject + ")").toList()) + ")"));
+
+        String dateRange = " after:" + formatDate(after) + " before:" + formatDate(before);
+        List<String> queries = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String group : groups) {
+            if (!current.isEmpty() && query(current, group, dateRange).length() > maxQueryLength) {
+                queries.add(query(current, null, dateRange));
+                current.clear();
+            }
+            current.add(group);
+        }
+        if (!current.isEmpty()) {
+            queries.add(query(current, null, dateRange));
+        }
+        return queries;
+    }
+
+    /**
+     * Configs whose query would have returned a message with these From and
+     * Subject headers: the From header contains one of the config's senders
+     * and the subject contains every word of one of its subjects, ignoring
+     * case and punctuation, as Gmail's {@code subject:(..)} does.
+     */
+    public static List<ExtractionConfig> route(List<ExtractionConfig> configs, String from, String subject) {
+        String fromLower = from == null ? "" : from.toLowerCase(Locale.ROOT);
+        Set<String> subjectWords = words(subject);
+        return configs.stream()
+            .filter(config -> config.getSenders().stream()
+                .anyMatch(sender -> fromLower.contains(sender.toLowerCase(Locale.ROOT))))
+            .filter(config -> config.getEmailSubjects().stream()
+                .anyMatch(configSubject -> subjectWords.containsAll(words(configSubject))))
+            .toList();
+    }
+
+    private static String query(List<String> groups, String extra, String dateRange) {
+        List<String> all = new ArrayList<>(groups);
+        if (extra != null) {
+            all.add(extra);
+        }
+        return anyOf(all) + dateRange;
+    }
+
+    private static String anyOf(List<String> terms) {
+        return terms.size() == 1 ? terms.get(0) : "(" + String.join(" OR ", terms) + ")";
+    }
+
+    private static Set<String> words(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            .filter(word -> !word.isEmpty())
+            .collect(Collectors.toSet());
+    }
+
+    private static String formatDate(LocalDate date) {
+        return String.format("%d-%02d-%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+}
@@ -0,0 +1,168 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed keyword set
+ * in one pass over the text, ignoring case.
+ *
+ * Case is folded per char with {@link Character#toLowerCase(char)}, so hit
+ * offsets are offsets into the original text. Keyword characters are mapped
+ * to a small alphabet and the automaton is compiled into a dense transition
+ * table, so the scan costs one table lookup per char plus one per hit.
+ */
+public final class KeywordScanner {
+
+    private final String[] keywords;
+    private final Map<String, Integer> indexByKeyword = new HashMap<>();
+    // Alphabet class per keyword char; class 0 is every char that occurs in no keyword
+    private final int[] asciiClass = new int[128];
+    private final Map<Character, Integer> otherClass = new HashMap<>();
+    private final int classes;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    public KeywordScanner(List<String> keywords) {
+        this.keywords = keywords.stream().map(KeywordScanner::lower).distinct().toArray(String[]::new);
+        int nextClass = 1;
+        for (int k = 0; k < this.keywords.length; k++) {
+            if (this.keywords[k].isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            indexByKeyword.put(this.keywords[k], k);
+            for (char c : this.keywords[k].toCharArray()) {
+                if (c < 128) {
+                    if (asciiClass[c] == 0) {
+                        asciiClass[c] = nextClass++;
+                    }
+                } else if (!otherClass.containsKey(c)) {
+                    otherClass.put(c, nextClass++);
+                }
+            }
+        }
+        classes = nextClass;
+
+        // Trie; a 0 child means "no edge" as no edge can lead back to the root
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new int[classes]);
+        nodeOutputs.add(new ArrayList<>());
+        for (int k = 0; k < this.keywords.length; k++) {
+            int node = 0;
+            for (char c : this.keywords[k].toCharArray()) {
+                int cls = classOf(c);
+                if (trie.get(node)[cls] == 0) {
+                    trie.add(new int[classes]);
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node)[cls] = trie.size() - 1;
+                }
+                node = trie.get(node)[cls];
+            }
+            nodeOutputs.get(node).add(k);
+        }
+
+        // Breadth-first failure links, turning the trie into a complete automaton
+        int[] fail = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int cls = 1; cls < classes; cls++) {
+            if (trie.get(0)[cls] != 0) {
+                queue.add(trie.get(0)[cls]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int cls = 1; cls < classes; cls++) {
+                int child = trie.get(node)[cls];
+                if (child != 0) {
+                    fail[child] = trie.get(fail[node])[cls];
+                    nodeOutputs.get(child).addAll(nodeOutputs.get(fail[child]));
+                    queue.add(child);
+                } else {
+                    trie.get(node)[cls] = trie.get(fail[node])[cls];
+                }
+            }
+        }
+
+        transitions = new int[trie.size() * classes];
+        outputs = new int[trie.size()][];
+        for (int node = 0; node < trie.size(); node++) {
+            System.arraycopy(trie.get(node), 0, transitions, node * classes, classes);
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Index of {@code keyword} in {@link Hits}, or -1 when it is not one of
+     * this scanner's keywords.
+     */
+    public int indexOf(String keyword) {
+        return indexByKeyword.getOrDefault(lower(keyword), -1);
+    }
+
+    public Hits scan(CharSequence text) {
+        Hits hits = new Hits(keywords.length);
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * classes + classOf(Character.toLowerCase(text.charAt(i)))];
+            for (int k : outputs[state]) {
+                hits.add(k, i - keywords[k].length() + 1);
+            }
+        }
+        return hits;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClass[c];
+        }
+        return otherClass.getOrDefault(c, 0);
+    }
+
+    private static String lower(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Start offsets of every keyword occurrence, ascending per keyword.
+     */
+    public static final class Hits {
+        private final int[][] offsets;
+        private final int[] counts;
+
+        private Hits(int keywords) {
+            offsets = new int[keywords][];
+            counts = new int[keywords];
+        }
+
+        private void add(int keyword, int offset) {
+            int[] current = offsets[keyword];
+            if (current == null) {
+                current = offsets[keyword] = new int[4];
+            } else if (counts[keyword] == current.length) {
+                current = offsets[keyword] = Arrays.copyOf(current, current.length * 2);
+            }
+            current[counts[keyword]++] = offset;
+        }
+
+        public boolean contains(int keyword) {
+            return keyword >= 0 && counts[keyword] > 0;
+        }
+
+        public int[] offsets(int keyword) {
+            if (!contains(keyword)) {
+                return new int[0];
+            }
+            return Arrays.copyOf(offsets[keyword], counts[keyword]);
+        }
+    }
+}
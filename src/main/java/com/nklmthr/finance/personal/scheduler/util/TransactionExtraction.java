@@ -0,0 +1,53 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import java.math.BigDecimal;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+
+/**
+ * Everything {@link TransactionPatternLibrary#extract} reads from one email,
+ * each field with the confidence and name of the pattern that produced it.
+ */
+public class TransactionExtraction {
+    private final PatternResult<BigDecimal> amount;
+    private final PatternResult<String> description;
+    private final PatternResult<TransactionType> type;
+    private final boolean declined;
+
+    TransactionExtraction(PatternResult<BigDecimal> amount, PatternResult<String> description,
+            PatternResult<TransactionType> type, boolean declined) {
+        this.amount = amount;
+        this.description = description;
+        this.type = type;
+        this.declined = declined;
+    }
+
+    public PatternResult<BigDecimal> getAmount() {
+        return amount;
+    }
+
+    public PatternResult<String> getDescription() {
+        return description;
+    }
+
+    /**
+     * DEBIT or CREDIT by keyword count; the confidence is the winning share of
+     * the keywords found, 0 when none were found and DEBIT is the default.
+     */
+    public PatternResult<TransactionType> getType() {
+        return type;
+    }
+
+    /**
+     * True when the email reports a declined or failed transaction.
+     */
+    public boolean isDeclined() {
+        return declined;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransactionExtraction{amount=%s, description=%s, type=%s, declined=%s}",
+            amount, description, type, declined);
+    }
+}
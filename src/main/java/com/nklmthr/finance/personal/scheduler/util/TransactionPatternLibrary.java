@@ -1,10 +1,12 @@
 package com.nklmthr.finance.personal.scheduler.util;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +22,13 @@ import com.nklmthr.finance.personal.enums.TransactionType;
  * - MERCHANT_* : Patterns for extracting merchant/payee names
  * - ACCOUNT_* : Patterns for extracting account identifiers
  * - UPI_* : Patterns for UPI-specific information
+ * 
+ * Every amount and description pattern declares the literal it starts with
+ * (or must contain). One {@link KeywordScanner} pass finds all of those
+ * anchors plus the type and decline keywords, and each regex is then only
+ * tried at its anchor offsets, with the same result as running
+ * {@link Matcher#find()} over the whole email. {@link #extract} returns every
+ * field from that single pass.
  */
 public class TransactionPatternLibrary {
     
@@ -34,47 +43,58 @@ public class TransactionPatternLibrary {
     private static final List<AmountPattern> AMOUNT_PATTERNS = List.of(
         // Format: "Total refund ₹1,057.30" - Amazon refund emails (highest priority for refunds)
         new AmountPattern("AMOUNT_TOTAL_REFUND", 
-            Pattern.compile("Total refund\\s*₹\\s*([\\d,]+\\.?\\d*)"), 96),
+            Pattern.compile("Total refund\\s*₹\\s*([\\d,]+\\.?\\d*)"), 96,
+            startsWith("Total refund")),
         
         // Standard format: "Transaction Amount: INR 340.50"
         new AmountPattern("AMOUNT_STANDARD_INR", 
-            Pattern.compile("Transaction Amount[:\\s]*INR\\s*([\\d,]+\\.?\\d*)"), 95),
+            Pattern.compile("Transaction Amount[:\\s]*INR\\s*([\\d,]+\\.?\\d*)"), 95,
+            startsWith("Transaction Amount")),
         
         // Format: "credited with INR 340.50" - MUST come before AMOUNT_WITH_INR for specificity
         new AmountPattern("AMOUNT_CREDITED_WITH_INR", 
-            Pattern.compile("(?:debited|credited) with INR\\s*([\\d,]+\\.?\\d*)"), 92),
+            Pattern.compile("(?:debited|credited) with INR\\s*([\\d,]+\\.?\\d*)"), 92,
+            startsWith("debited with INR", "credited with INR")),
         
         // Format: "INR 340.50 spent"
         new AmountPattern("AMOUNT_INR_PREFIX", 
-            Pattern.compile("INR\\s*([\\d,]+\\.?\\d*)\\s+(?:spent|debited|credited|paid)"), 90),
+            Pattern.compile("INR\\s*([\\d,]+\\.?\\d*)\\s+(?:spent|debited|credited|paid)"), 90,
+            startsWith("INR")),
         
         // Format: "for INR 340.50"
         new AmountPattern("AMOUNT_FOR_INR", 
-            Pattern.compile("for INR\\s*([\\d,]+\\.?\\d*)"), 85),
+            Pattern.compile("for INR\\s*([\\d,]+\\.?\\d*)"), 85,
+            startsWith("for INR")),
         
         // Format: "Rs.340.00" or "Rs 340"
         new AmountPattern("AMOUNT_RS_PREFIX", 
-            Pattern.compile("Rs\\.?\\s*([\\d,]+\\.?\\d*)"), 85),
+            Pattern.compile("Rs\\.?\\s*([\\d,]+\\.?\\d*)"), 85,
+            startsWith("Rs")),
         
         // Format: "₹340.50"
         new AmountPattern("AMOUNT_RUPEE_SYMBOL", 
-            Pattern.compile("₹\\s*([\\d,]+\\.?\\d*)"), 85),
+            Pattern.compile("₹\\s*([\\d,]+\\.?\\d*)"), 85,
+            startsWith("₹")),
         
         // Format: "Amount: INR 340.50" or "Amount = 340.50"
         new AmountPattern("AMOUNT_LABELED", 
-            Pattern.compile("Amount[:\\s=]+(?:INR|Rs\\.?)?\\s*([\\d,]+\\.?\\d*)"), 85),
+            Pattern.compile("Amount[:\\s=]+(?:INR|Rs\\.?)?\\s*([\\d,]+\\.?\\d*)"), 85,
+            startsWith("Amount")),
         
         // Format: "Amount Debited: INR 340.50"
         new AmountPattern("AMOUNT_DEBITED", 
-            Pattern.compile("Amount (?:Debited|Credited)[:\\s]+INR\\s*([\\d,]+\\.?\\d*)"), 90),
+            Pattern.compile("Amount (?:Debited|Credited)[:\\s]+INR\\s*([\\d,]+\\.?\\d*)"), 90,
+            startsWith("Amount ")),
         
         // Format: "340.50 has been debited" - Lower priority to avoid matching account numbers
         new AmountPattern("AMOUNT_REVERSE", 
-            Pattern.compile("([\\d,]+\\.\\d{2})\\s+has been (?:debited|credited)"), 75),
+            Pattern.compile("([\\d,]+\\.\\d{2})\\s+has been (?:debited|credited)"), 75,
+            contains("has been debited", "has been credited")),
         
         // Generic: Any amount with INR/Rs nearby
         new AmountPattern("AMOUNT_GENERIC", 
-            Pattern.compile("(?:INR|Rs\\.?)\\s*([\\d,]+\\.\\d{2})"), 70)
+            Pattern.compile("(?:INR|Rs\\.?)\\s*([\\d,]+\\.\\d{2})"), 70,
+            startsWith("INR", "Rs"))
     );
     
     // ==================== MERCHANT/DESCRIPTION EXTRACTION PATTERNS ====================
@@ -82,44 +102,54 @@ public class TransactionPatternLibrary {
     private static final List<DescriptionPattern> MERCHANT_PATTERNS = List.of(
         // Format: "your order: ORDER_NUMBER" - Amazon format (highest priority for Amazon emails)
         new DescriptionPattern("AMAZON_ORDER", 
-            Pattern.compile("your order[:\\s]+([\\d\\-]+)", Pattern.CASE_INSENSITIVE), 98),
+            Pattern.compile("your order[:\\s]+([\\d\\-]+)", Pattern.CASE_INSENSITIVE), 98,
+            startsWith("your order")),
         
         // Format: "reference number is: REF_NUMBER" - Amazon refund format
         new DescriptionPattern("REFUND_REFERENCE", 
-            Pattern.compile("refund reference number (?:is|:)[:\\s]+([\\d]+)", Pattern.CASE_INSENSITIVE), 97),
+            Pattern.compile("refund reference number (?:is|:)[:\\s]+([\\d]+)", Pattern.CASE_INSENSITIVE), 97,
+            startsWith("refund reference number ")),
         
         // Format: "Merchant Name: MERCHANT" or "Merchant: MERCHANT" - Check this first (highest confidence)
         new DescriptionPattern("MERCHANT_LABELED", 
-            Pattern.compile("\\bMerchant(?:\\s+Name|\\s+ID)?[:\\s]*:([A-Za-z0-9\\s&\\-]+?)(?=\\s+(?:Date|Axis|Card|on|\\d{2}/\\d{2}/\\d{4})|\\r?\\n|$)", Pattern.CASE_INSENSITIVE), 95),
+            Pattern.compile("\\bMerchant(?:\\s+Name|\\s+ID)?[:\\s]*:([A-Za-z0-9\\s&\\-]+?)(?=\\s+(?:Date|Axis|Card|on|\\d{2}/\\d{2}/\\d{4})|\\r?\\n|$)", Pattern.CASE_INSENSITIVE), 95,
+            startsWith("Merchant")),
         
         // Format: "Info: MERCHANT_NAME" - ICICI format (includes asterisk for PAY* patterns)
         // This should match "Info: PAY*Jubilant FoodWorks." and extract "PAY*Jubilant FoodWorks"
         new DescriptionPattern("INFO_LABELED", 
-            Pattern.compile("Info[:\\s]+([A-Za-z0-9\\s&\\-\\.*]+?)(?:\\.|$)"), 92),
+            Pattern.compile("Info[:\\s]+([A-Za-z0-9\\s&\\-\\.*]+?)(?:\\.|$)"), 92,
+            startsWith("Info")),
         
         // Format: "at MERCHANT_NAME" or "at ATM-WDL/AXPR/246" or "at PAY*MERCHANT" - Higher priority than BY_PAYEE
         new DescriptionPattern("MERCHANT_AT_ON", 
-            Pattern.compile("\\bat\\s+([A-Za-z0-9\\s&\\-\\./*]+?)(?:\\s+on\\s+\\d|\\s*\\.|$)"), 91),
+            Pattern.compile("\\bat\\s+([A-Za-z0-9\\s&\\-\\./*]+?)(?:\\s+on\\s+\\d|\\s*\\.|$)"), 91,
+            startsWith("at")),
         
         // Format: "Transaction Info: DESCRIPTION"
         new DescriptionPattern("TRANSACTION_INFO", 
-            Pattern.compile("Transaction Info[:\\s]+([A-Za-z0-9\\s/\\-]+)"), 90),
+            Pattern.compile("Transaction Info[:\\s]+([A-Za-z0-9\\s/\\-]+)"), 90,
+            startsWith("Transaction Info")),
         
         // Format: "by NEFT/RTGS/IMPS/PAYEE_NAME" - Exclude common phrases like "by you"
         new DescriptionPattern("BY_PAYEE", 
-            Pattern.compile("\\bby\\s+(?!you\\b)([A-Za-z0-9\\s&\\-/]+?)(?:\\s+on|\\s*\\.|$)"), 85),
+            Pattern.compile("\\bby\\s+(?!you\\b)([A-Za-z0-9\\s&\\-/]+?)(?:\\s+on|\\s*\\.|$)"), 85,
+            startsWith("by")),
         
         // Format: "UPI/P2A/123456/MERCHANT_NAME"
         new DescriptionPattern("UPI_MERCHANT", 
-            Pattern.compile("UPI/[^/]+/[^/]+/([A-Za-z0-9@\\s]+)"), 90),
+            Pattern.compile("UPI/[^/]+/[^/]+/([A-Za-z0-9@\\s]+)"), 90,
+            startsWith("UPI/")),
         
         // Format: "Reference no. - REFERENCE"
         new DescriptionPattern("REFERENCE_NO", 
-            Pattern.compile("Reference (?:no\\.|No\\.|number)[:\\s\\-]+([^\\s\\.]+)"), 80),
+            Pattern.compile("Reference (?:no\\.|No\\.|number)[:\\s\\-]+([^\\s\\.]+)"), 80,
+            startsWith("Reference ")),
         
         // Format: "Description = TEXT"
         new DescriptionPattern("DESCRIPTION_LABELED", 
-            Pattern.compile("Description[:\\s=]+([^\r\n]+)"), 85)
+            Pattern.compile("Description[:\\s=]+([^\r\n]+)"), 85,
+            startsWith("Description"))
     );
     
     // ==================== ACCOUNT IDENTIFIER PATTERNS ====================
@@ -138,8 +168,59 @@ public class TransactionPatternLibrary {
         Pattern.compile("Credit Card (?:no\\.|number)[:\\s]*(?:XX)?(\\d{4})")
     );
     
+    // ==================== KEYWORDS ====================
+    
+    private static final List<String> CREDIT_KEYWORDS = List.of(
+        "credited", "credit notification", "credit transaction",
+        "received", "refund", "cashback", "reward",
+        "deposit", "amount credited", "has been credited"
+    );
+    
+    private static final List<String> DEBIT_KEYWORDS = List.of(
+        "debited", "debit notification", "debit transaction",
+        "spent", "paid", "purchase", "transaction amount",
+        "withdrawn", "amount debited", "has been debited"
+    );
+    
+    private static final List<String> DECLINE_PHRASES = List.of(
+        "has been declined",
+        "declined as",  // e.g., "declined as amt exceeds limit"
+        "declined due to",
+        "incorrect pin",
+        "transaction declined",
+        "transaction failed"
+    );
+    
+    /**
+     * Finds every pattern anchor and keyword in one pass over the email.
+     */
+    private static final KeywordScanner SCANNER = new KeywordScanner(Stream.of(
+            AMOUNT_PATTERNS.stream().flatMap(p -> p.anchors.stream()),
+            MERCHANT_PATTERNS.stream().flatMap(p -> p.anchors.stream()),
+            CREDIT_KEYWORDS.stream(), DEBIT_KEYWORDS.stream(), DECLINE_PHRASES.stream(),
+            Stream.of("txn", "declined"))
+        .flatMap(keywords -> keywords)
+        .toList());
+    
     // ==================== PUBLIC API METHODS ====================
     
+    /**
+     * Extract amount, description, transaction type and the declined flag
+     * from one scan of the email content.
+     * 
+     * @param content Email content
+     * @return TransactionExtraction with every field and its confidence
+     */
+    public static TransactionExtraction extract(String content) {
+        if (content == null || content.isEmpty()) {
+            return new TransactionExtraction(PatternResult.empty(), PatternResult.empty(),
+                PatternResult.withConfidence(TransactionType.DEBIT, 0, "TYPE_DEFAULT"), false);
+        }
+        KeywordScanner.Hits hits = SCANNER.scan(content);
+        return new TransactionExtraction(extractAmount(content, hits), extractDescription(content, hits),
+            detectTransactionType(hits), isDeclined(hits));
+    }
+    
     /**
      * Extract transaction amount from email content.
      * Tries multiple patterns in order of confidence.
@@ -151,24 +232,7 @@ public class TransactionPatternLibrary {
         if (content == null || content.isEmpty()) {
             return PatternResult.empty();
         }
-        
-        for (AmountPattern ap : AMOUNT_PATTERNS) {
-            Matcher m = ap.pattern.matcher(content);
-            if (m.find()) {
-                try {
-                    String amountStr = m.group(1).replace(",", "");
-                    BigDecimal amount = new BigDecimal(amountStr);
-                    logger.debug("Extracted amount {} using pattern {}", amount, ap.name);
-                    return PatternResult.withConfidence(amount, ap.confidence, ap.name);
-                } catch (NumberFormatException e) {
-                    logger.debug("Failed to parse amount from matched string: {}", m.group(1));
-                    continue;
-                }
-            }
-        }
-        
-        logger.warn("No amount pattern matched in content");
-        return PatternResult.empty();
+        return extractAmount(content, SCANNER.scan(content));
     }
     
     /**
@@ -181,20 +245,7 @@ public class TransactionPatternLibrary {
         if (content == null || content.isEmpty()) {
             return PatternResult.empty();
         }
-        
-        for (DescriptionPattern dp : MERCHANT_PATTERNS) {
-            Matcher m = dp.pattern.matcher(content);
-            if (m.find()) {
-                String description = cleanDescription(m.group(1));
-                if (!description.isEmpty()) {
-                    logger.debug("Extracted description '{}' using pattern {}", description, dp.name);
-                    return PatternResult.withConfidence(description, dp.confidence, dp.name);
-                }
-            }
-        }
-        
-        logger.warn("No description pattern matched in content");
-        return PatternResult.empty();
+        return extractDescription(content, SCANNER.scan(content));
     }
     
     /**
@@ -230,47 +281,20 @@ public class TransactionPatternLibrary {
         if (content == null || content.isEmpty()) {
             return TransactionType.DEBIT; // Default
         }
-        
-        String lowerContent = content.toLowerCase();
-        
-        // Credit keywords (money received)
-        List<String> creditKeywords = List.of(
-            "credited", "credit notification", "credit transaction",
-            "received", "refund", "cashback", "reward",
-            "deposit", "amount credited", "has been credited"
-        );
-        
-        // Debit keywords (money spent)
-        List<String> debitKeywords = List.of(
-            "debited", "debit notification", "debit transaction",
-            "spent", "paid", "purchase", "transaction amount",
-            "withdrawn", "amount debited", "has been debited"
-        );
-        
-        // Count matches for each type
-        int creditScore = 0;
-        int debitScore = 0;
-        
-        for (String keyword : creditKeywords) {
-            if (lowerContent.contains(keyword)) {
-                creditScore++;
-            }
-        }
-        
-        for (String keyword : debitKeywords) {
-            if (lowerContent.contains(keyword)) {
-                debitScore++;
-            }
-        }
-        
-        // Return type with higher score
-        if (creditScore > debitScore) {
-            logger.debug("Detected CREDIT transaction (score: {} vs {})", creditScore, debitScore);
-            return TransactionType.CREDIT;
-        } else {
-            logger.debug("Detected DEBIT transaction (score: {} vs {})", debitScore, creditScore);
-            return TransactionType.DEBIT;
+        return detectTransactionType(SCANNER.scan(content)).getValue();
+    }
+    
+    /**
+     * Whether the email reports a declined or failed transaction.
+     * 
+     * @param content Email content
+     * @return true for declined/failed transaction emails
+     */
+    public static boolean isDeclined(String content) {
+        if (content == null || content.isEmpty()) {
+            return false;
         }
+        return isDeclined(SCANNER.scan(content));
     }
     
     /**
@@ -334,6 +358,88 @@ public class TransactionPatternLibrary {
     
     // ==================== HELPER METHODS ====================
     
+    private static PatternResult<BigDecimal> extractAmount(String content, KeywordScanner.Hits hits) {
+        for (AmountPattern ap : AMOUNT_PATTERNS) {
+            Matcher m = ap.firstMatch(content, hits);
+            if (m != null) {
+                try {
+                    String amountStr = m.group(1).replace(",", "");
+                    BigDecimal amount = new BigDecimal(amountStr);
+                    logger.debug("Extracted amount {} using pattern {}", amount, ap.name);
+                    return PatternResult.withConfidence(amount, ap.confidence, ap.name);
+                } catch (NumberFormatException e) {
+                    logger.debug("Failed to parse amount from matched string: {}", m.group(1));
+                    continue;
+                }
+            }
+        }
+        
+        logger.warn("No amount pattern matched in content");
+        return PatternResult.empty();
+    }
+    
+    private static PatternResult<String> extractDescription(String content, KeywordScanner.Hits hits) {
+        for (DescriptionPattern dp : MERCHANT_PATTERNS) {
+            Matcher m = dp.firstMatch(content, hits);
+            if (m != null) {
+                String description = cleanDescription(m.group(1));
+                if (!description.isEmpty()) {
+                    logger.debug("Extracted description '{}' using pattern {}", description, dp.name);
+                    return PatternResult.withConfidence(description, dp.confidence, dp.name);
+                }
+            }
+        }
+        
+        logger.warn("No description pattern matched in content");
+        return PatternResult.empty();
+    }
+    
+    /**
+     * Type by keyword count; the confidence is the winning share of the
+     * keywords found.
+     */
+    private static PatternResult<TransactionType> detectTransactionType(KeywordScanner.Hits hits) {
+        // Count matches for each type
+        int creditScore = count(CREDIT_KEYWORDS, hits);
+        int debitScore = count(DEBIT_KEYWORDS, hits);
+        int total = creditScore + debitScore;
+        
+        // Return type with higher score
+        if (creditScore > debitScore) {
+            logger.debug("Detected CREDIT transaction (score: {} vs {})", creditScore, debitScore);
+            return PatternResult.withConfidence(TransactionType.CREDIT, 100 * creditScore / total, "TYPE_CREDIT_KEYWORDS");
+        } else {
+            logger.debug("Detected DEBIT transaction (score: {} vs {})", debitScore, creditScore);
+            if (total == 0) {
+                return PatternResult.withConfidence(TransactionType.DEBIT, 0, "TYPE_DEFAULT");
+            }
+            return PatternResult.withConfidence(TransactionType.DEBIT, 100 * debitScore / total, "TYPE_DEBIT_KEYWORDS");
+        }
+    }
+    
+    private static boolean isDeclined(KeywordScanner.Hits hits) {
+        return count(DECLINE_PHRASES, hits) > 0
+            || hits.contains(SCANNER.indexOf("txn")) && hits.contains(SCANNER.indexOf("declined")); // e.g., "Txn...declined"
+    }
+    
+    private static int count(List<String> keywords, KeywordScanner.Hits hits) {
+        int found = 0;
+        for (String keyword : keywords) {
+            if (hits.contains(SCANNER.indexOf(keyword))) {
+                found++;
+            }
+        }
+        return found;
+    }
+    
+    private static Anchors startsWith(String... keywords) {
+        return new Anchors(true, List.of(keywords));
+    }
+    
+    private static Anchors contains(String... keywords) {
+        return new Anchors(false, List.of(keywords));
+    }
+    
     /**
      * Clean extracted description by removing common noise.
      */
@@ -366,33 +472,87 @@ public class TransactionPatternLibrary {
     // ==================== INTERNAL PATTERN CLASSES ====================
     
     /**
-     * Internal class to store amount patterns with metadata
+     * Literals a pattern needs: when {@code atStart}, every match begins with
+     * one of them, otherwise a match is only possible if one is present.
      */
-    private static class AmountPattern {
-        final String name;
-        final Pattern pattern;
-        final int confidence;
+    private static class Anchors {
+        final boolean atStart;
+        final List<String> keywords;
         
-        AmountPattern(String name, Pattern pattern, int confidence) {
-            this.name = name;
-            this.pattern = pattern;
-            this.confidence = confidence;
+        Anchors(boolean atStart, List<String> keywords) {
+            this.atStart = atStart;
+            this.keywords = keywords;
         }
     }
     
     /**
-     * Internal class to store description patterns with metadata
+     * Pattern with metadata and the anchors it is located by
      */
-    private static class DescriptionPattern {
+    private static class AnchoredPattern {
         final String name;
         final Pattern pattern;
         final int confidence;
+        final boolean anchoredAtStart;
+        final List<String> anchors;
         
-        DescriptionPattern(String name, Pattern pattern, int confidence) {
+        AnchoredPattern(String name, Pattern pattern, int confidence, Anchors anchors) {
             this.name = name;
             this.pattern = pattern;
             this.confidence = confidence;
+            this.anchoredAtStart = anchors.atStart;
+            this.anchors = anchors.keywords;
+        }
+        
+        /**
+         * The leftmost match, as {@link Matcher#find()} would return it, or
+         * null. Start-anchored patterns are only tried at anchor offsets, with
+         * transparent bounds so {@code \b} and lookarounds still see the whole text.
+         */
+        Matcher firstMatch(String content, KeywordScanner.Hits hits) {
+            int[] offsets = new int[0];
+            for (String anchor : anchors) {
+                int[] anchorOffsets = hits.offsets(SCANNER.indexOf(anchor));
+                int from = offsets.length;
+                offsets = Arrays.copyOf(offsets, from + anchorOffsets.length);
+                System.arraycopy(anchorOffsets, 0, offsets, from, anchorOffsets.length);
+            }
+            if (offsets.length == 0) {
+                return null;
+            }
+            
+            Matcher m = pattern.matcher(content);
+            if (!anchoredAtStart) {
+                return m.find() ? m : null;
+            }
+            if (anchors.size() > 1) {
+                Arrays.sort(offsets);
+            }
+            m.useTransparentBounds(true).useAnchoringBounds(false);
+            for (int offset : offsets) {
+                m.region(offset, content.length());
+                if (m.lookingAt()) {
+                    return m;
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Internal class to store amount patterns with metadata
+     */
+    private static class AmountPattern extends AnchoredPattern {
+        AmountPattern(String name, Pattern pattern, int confidence, Anchors anchors) {
+            super(name, pattern, confidence, anchors);
+        }
+    }
+    
+    /**
+     * Internal class to store description patterns with metadata
+     */
+    private static class DescriptionPattern extends AnchoredPattern {
+        DescriptionPattern(String name, Pattern pattern, int confidence, Anchors anchors) {
+            super(name, pattern, confidence, anchors);
         }
     }
 }
-
@@ -17,6 +17,7 @@ import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
 import com.nklmthr.finance.personal.repository.AccountTypeRepository;
 import com.nklmthr.finance.personal.repository.InstitutionRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 @Service
 public class AccountService {
@@ -39,6 +40,12 @@ public class AccountService {
     @Autowired
     private AccountMapper accountMapper;
 
+    @Autowired
+    private AccountFuzzyMatcher accountFuzzyMatcher;
+
+    @Autowired
+    private BalanceSheetService balanceSheetService;
+
     private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
 
     public List<AccountDTO> getAllAccounts() {
@@ -76,7 +83,10 @@ public class AccountService {
         }
         account.setAppUser(appUser);
         logger.info("Creating account for user: {} with name: {}", appUser.getUsername(), account.getName());
-        return accountMapper.toDTO(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        accountFuzzyMatcher.invalidate(appUser);
+        balanceSheetService.invalidate(appUser);
+        return accountMapper.toDTO(saved);
     }
 
     public AccountDTO updateAccount(String id, AccountDTO updatedAccountDTO) {
@@ -99,7 +109,10 @@ public class AccountService {
         }
         account.setAppUser(appUser);
         logger.info("Updating account with id: {} for user: {}", id, appUser.getUsername());
-        return accountMapper.toDTO(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        accountFuzzyMatcher.invalidate(appUser);
+        balanceSheetService.invalidate(appUser);
+        return accountMapper.toDTO(saved);
     }
 
     public void deleteAccount(String id) {
@@ -110,6 +123,8 @@ public class AccountService {
         }
         logger.info("Deleting account with id: {} for user: {}", id, appUser.getUsername());
         accountRepository.deleteById(id);
+        accountFuzzyMatcher.invalidate(appUser);
+        balanceSheetService.invalidate(appUser);
     }
 
     public List<AccountDTO> getFilteredAccounts(String accountTypeId, String institutionId) {
@@ -157,5 +172,7 @@ public class AccountService {
         account.setAppUser(appUser);
         logger.info("Saving account for user: {} with name: {}", appUser.getUsername(), account.getName());
         accountRepository.save(account);
+        accountFuzzyMatcher.invalidate(appUser);
+        balanceSheetService.invalidate(appUser);
     }
 }
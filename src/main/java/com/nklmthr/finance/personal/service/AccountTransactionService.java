@@ -1,36 +1,60 @@
 package com.nklmthr.finance.personal.service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nklmthr.finance.personal.dto.AccountDTO;
 import com.nklmthr.finance.personal.dto.AccountTransactionDTO;
+import com.nklmthr.finance.personal.dto.AccountTypeDTO;
 import com.nklmthr.finance.personal.dto.BulkLabelsRequest;
 import com.nklmthr.finance.personal.dto.BulkUpdateResponse;
+import com.nklmthr.finance.personal.dto.CategoryDTO;
+import com.nklmthr.finance.personal.dto.InstitutionDTO;
 import com.nklmthr.finance.personal.dto.LabelDTO;
 import com.nklmthr.finance.personal.dto.TransactionPageDTO;
 import com.nklmthr.finance.personal.dto.TransferRequest;
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
+import com.nklmthr.finance.personal.enums.ExportFormat;
 import com.nklmthr.finance.personal.enums.TransactionType;
 import com.nklmthr.finance.personal.mapper.AccountMapper;
 import com.nklmthr.finance.personal.mapper.AccountTransactionMapper;
@@ -38,14 +62,22 @@ import com.nklmthr.finance.personal.mapper.CategoryMapper;
 import com.nklmthr.finance.personal.model.Account;
 import com.nklmthr.finance.personal.model.AccountTransaction;
 import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.model.TransactionLabel;
 import com.nklmthr.finance.personal.model.UploadedStatement;
 import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
 import com.nklmthr.finance.personal.repository.AccountTransactionSpecifications;
 import com.nklmthr.finance.personal.repository.AttachmentRepository;
+import com.nklmthr.finance.personal.repository.TransactionLabelRepository;
+import com.nklmthr.finance.personal.repository.TransactionPageRowProjection;
+import com.nklmthr.finance.personal.util.TransactionCursor;
+import com.opencsv.CSVWriter;
 
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
@@ -88,9 +120,24 @@ public class AccountTransactionService {
 	@Autowired
 	private PredictionService predictionService;
 
+	@Autowired
+	private MonthlyLedgerService monthlyLedgerService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private TransactionSearchService transactionSearchService;
+
 	@Autowired
 	private AttachmentRepository attachmentRepository;
 
+	@Autowired
+	private TransactionLabelRepository transactionLabelRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@PersistenceContext
 	private EntityManager entityManager;
 
@@ -102,6 +149,17 @@ public class AccountTransactionService {
 	// Fuzzy match time window in seconds
 	private static final long MATCH_TIME_WINDOW_SECONDS = 60;
 
+	// Rows per keyset query and per label/flush chunk when streaming exports
+	private static final int EXPORT_CHUNK_SIZE = 500;
+
+	// Upper bound on IN-list size for the bulk editors
+	private static final int BULK_CHUNK_SIZE = 1000;
+
+	public static final String SORT_RELEVANCE = "relevance";
+
+	private static final String[] EXPORT_CSV_HEADER = { "Id", "Date", "Amount", "Type", "Description", "Explanation",
+			"Account", "Category", "Parent Id", "Linked Transfer Id", "Currency", "Labels" };
+
 	private void processLabels(AccountTransaction entity, AccountTransactionDTO dto, AppUser appUser) {
 		if (dto.labels() != null && !dto.labels().isEmpty()) {
 			List<com.nklmthr.finance.personal.model.Label> labels = dto.labels().stream()
@@ -196,6 +254,7 @@ public class AccountTransactionService {
 		// Save both with the links
 		accountTransactionRepository.save(debit);
 		accountTransactionRepository.save(credit);
+		markLedgerDirty(appUser, debit.getDate());
 		
 		logger.info("Transfer created. Debit ID: {}, Credit ID: {}, Amount: {}", 
 			debit.getId(), credit.getId(), debit.getAmount());
@@ -236,24 +295,27 @@ public class AccountTransactionService {
 		}
 
 		// All validation passed — now mutate
+		List<LocalDateTime> touchedDates = new ArrayList<>();
+		touchedDates.add(parent.getDate());
 		for (AccountTransaction child : existingChildren) {
+			touchedDates.add(child.getDate());
 			child.setParent(null);
 			accountTransactionRepository.delete(child);
 		}
 
-		// Reverse any prediction contribution the parent transaction had before we
-		// re-categorise it to SPLIT, otherwise the prediction running totals will be
-		// stale (parent will no longer match the rule's category).
+		// Prediction progress is computed on read over leaf transactions, so the
+		// parent drops out once it has children; only legacy mapping rows go.
 		try {
-			predictionService.removePredictionAdjustmentForTransaction(parent);
+			predictionService.deleteActualMappingsForTransaction(parent);
 		} catch (Exception e) {
-			logger.warn("Failed to remove prediction adjustment for split parent {}: {}",
+			logger.warn("Failed to delete prediction mappings for split parent {}: {}",
 				parent.getId(), e.getMessage());
 		}
 
 		// Set parent amount to the validated total and assign split category
 		parent.setAmount(restoredAmount);
 		parent.setCategory(categoryService.getSplitTrnsactionCategory());
+		parent.setHasChildren(true);
 
 		// Create new children and deduct their amounts from parent
 		for (AccountTransactionDTO st : splitTransactions) {
@@ -273,13 +335,8 @@ public class AccountTransactionService {
 			// Deduct child amount from parent
 			parent.setAmount(parent.getAmount().subtract(st.amount()));
 
-			AccountTransaction savedChild = accountTransactionRepository.save(child);
-
-			// Keep prediction running totals in sync. The parent's prior contribution was
-			// already reversed above (its category now becomes SPLIT), so we need each
-			// child to feed back into the prediction of its own category (or any ancestor
-			// like Grocery) the same way a regular leaf transaction would.
-			applyPredictionAdjustment(savedChild);
+			accountTransactionRepository.save(child);
+			touchedDates.add(child.getDate());
 		}
 
 		// Parent amount should now be zero
@@ -292,6 +349,7 @@ public class AccountTransactionService {
 			parent.setGptAccount(parent.getAccount());
 		}
 		accountTransactionRepository.save(parent);
+		markLedgerDirty(appUser, touchedDates.toArray(new LocalDateTime[0]));
 		logger.info("Split transaction successful. Parent ID: {}, Children count: {}, Parent final amount: {}", 
 			parent.getId(), splitTransactions.size(), parent.getAmount());
 		return ResponseEntity.ok("Split successful");
@@ -312,6 +370,7 @@ public class AccountTransactionService {
 			BigDecimal oldAmount = existingTx.getAmount();
 			TransactionType oldType = existingTx.getType();
 			Account oldAccount = existingTx.getAccount();
+			LocalDateTime oldDate = existingTx.getDate();
 			Account newAccount = accountRepository.findByAppUserAndId(appUser, txUpdate.account().id()).get();
 			TransactionType newType = txUpdate.type();
 			BigDecimal newAmount = txUpdate.amount();
@@ -385,6 +444,7 @@ public class AccountTransactionService {
 				Account linkedOldAccount = linkedTx.getAccount();
 				BigDecimal linkedOldAmount = linkedTx.getAmount();
 				TransactionType linkedOldType = linkedTx.getType();
+				markLedgerDirty(appUser, linkedTx.getDate(), txUpdate.date());
 				
 				// Reverse old balances for linked transaction
 				if (linkedOldAccount != null) {
@@ -475,15 +535,28 @@ public class AccountTransactionService {
 			}
 
 			AccountTransaction saved = accountTransactionRepository.save(existingTx);
-
-			// Recompute prediction running totals so edits to amount/category/date
-			// flow through to the matching predicted transaction. Idempotent.
-			applyPredictionAdjustment(saved);
+			markLedgerDirty(appUser, oldDate, saved.getDate());
 
 			return accountTransactionMapper.toDTO(saved);
 		});
 	}
 
+	/**
+	 * The current user's mail-imported transactions per OpenAI enrichment
+	 * state; PENDING is the enrichment backlog.
+	 */
+	public Map<EnrichmentStatus, Long> getEnrichmentBacklog() {
+		AppUser appUser = appUserService.getCurrentUser();
+		Map<EnrichmentStatus, Long> counts = new LinkedHashMap<>();
+		for (EnrichmentStatus status : EnrichmentStatus.values()) {
+			counts.put(status, 0L);
+		}
+		for (Object[] row : accountTransactionRepository.countEnrichmentStatusesByAppUser(appUser)) {
+			counts.put((EnrichmentStatus) row[0], ((Number) row[1]).longValue());
+		}
+		return counts;
+	}
+
 	public Optional<AccountTransactionDTO> getById(String id) {
 		AppUser appUser = appUserService.getCurrentUser();
 		return accountTransactionRepository.findByAppUserAndId(appUser, id).map(accountTransactionMapper::toDTO);
@@ -523,30 +596,49 @@ public class AccountTransactionService {
 		transaction.setAppUser(appUser);
 		accountRepository.save(account);
 		AccountTransaction saved = accountTransactionRepository.save(transaction);
-
-		// Keep prediction running totals in sync for any persistence path that lands here
-		// (auto email/SMS imports, uploaded statements, split children, DTO saves, ...).
-		// The call is idempotent so it's safe even when invoked again from outer flows.
-		applyPredictionAdjustment(saved);
+		markLedgerDirty(appUser, saved.getDate());
 
 		return accountTransactionMapper.toDTO(saved);
 	}
 
 	/**
-	 * Run prediction adjustment for a freshly saved/updated transaction without
-	 * letting prediction failures break the underlying transaction save.
+	 * Queue the months of {@code dates} for a monthly ledger refresh once the
+	 * surrounding transaction commits, and publish a
+	 * {@link TransactionsChangedEvent} per month for the after-commit
+	 * listeners. Neither may break the transaction write itself. Other services
+	 * that write account_transactions directly go through this as well.
 	 */
-	private void applyPredictionAdjustment(AccountTransaction entity) {
-		if (entity == null || entity.getCategory() == null) {
+	public void markLedgerDirty(AppUser appUser, LocalDateTime... dates) {
+		try {
+			monthlyLedgerService.markDirty(appUser, dates);
+		} catch (Exception e) {
+			logger.warn("Failed to mark monthly ledger dirty for user {}: {}",
+					appUser != null ? appUser.getUsername() : null, e.getMessage());
+		}
+		if (appUser == null || dates == null) {
 			return;
 		}
 		try {
-			predictionService.adjustPredictionForActualTransaction(entity);
+			Arrays.stream(dates).filter(Objects::nonNull).map(YearMonth::from).distinct()
+					.forEach(month -> eventPublisher.publishEvent(new TransactionsChangedEvent(appUser, month)));
 		} catch (Exception e) {
-			logger.warn("Failed to adjust prediction for transaction {}: {}", entity.getId(), e.getMessage());
+			logger.warn("Failed to publish transaction changes for user {}: {}", appUser.getUsername(),
+					e.getMessage());
 		}
 	}
 
+	/**
+	 * Brings has_children in line with parent_id for rows written before the
+	 * column existed. Runs ahead of the monthly ledger backfill, which reads it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@Transactional
+	public void backfillHasChildren() {
+		int updated = accountTransactionRepository.syncAllHasChildren();
+		logger.info("Backfilled has_children flag on {} transactions", updated);
+	}
+
 	@Transactional
 	public List<AccountTransactionDTO> save(List<AccountTransactionDTO> transactions) {
 		AppUser appUser = appUserService.getCurrentUser();
@@ -576,6 +668,9 @@ public class AccountTransactionService {
 			entity = accountTransactionRepository.findByAppUserAndId(appUser, transaction.id())
 					.orElseThrow(() -> new IllegalArgumentException("Transaction not found for user: " + appUser.getUsername()));
 			
+			// The ledger month the row moves out of; save() marks the new one
+			markLedgerDirty(appUser, entity.getDate());
+
 			// Update fields from DTO
 			entity.setDate(transaction.date());
 			entity.setAmount(transaction.amount());
@@ -684,29 +779,70 @@ public class AccountTransactionService {
 			parent.setAmount(parent.getAmount().add(existingTransaction.getAmount()));
 			logger.info("Updated parent transaction ID: {} amount to: {}", parent.getId(), parent.getAmount());
 			parent.setDescription(parent.getDescription() + " ||deleted:" + existingTransaction.getDescription()+"|"+existingTransaction.getAmount());
+			// Deleting the last child turns the split parent back into a leaf
+			parent.setHasChildren(accountTransactionRepository.existsByAppUserAndParentAndIdNot(appUser,
+					parent.getId(), existingTransaction.getId()));
 			// Default gptAccount to account if null (for old records)
 			if (parent.getGptAccount() == null) {
 				parent.setGptAccount(parent.getAccount());
 			}
 			accountTransactionRepository.save(parent);
+			markLedgerDirty(appUser, parent.getDate());
 		}
 	if (accountTransactionRepository.findByParentAndAppUser(existingTransaction.getId(), appUser).size() > 0) {
 		throw new IllegalArgumentException(
 				"Cannot delete transaction with children. Please delete children first.");
 	}
 	
-	// Remove prediction adjustments if this transaction was applied to any predictions
+	// Legacy prediction mapping rows still reference the transaction
 	try {
-		predictionService.removePredictionAdjustmentForTransaction(existingTransaction);
+		predictionService.deleteActualMappingsForTransaction(existingTransaction);
 	} catch (Exception e) {
-		// Log but don't fail the delete if prediction adjustment removal fails
-		logger.warn("Failed to remove prediction adjustment for transaction {}: {}", 
+		// Log but don't fail the delete if the mapping cleanup fails
+		logger.warn("Failed to delete prediction mappings for transaction {}: {}", 
 			existingTransaction.getId(), e.getMessage());
 	}
 	
 	accountTransactionRepository.deleteByAppUserAndId(appUser, id);
+	// Covers the linked transfer side and the split parent, which share or
+	// sit in their own months
+	markLedgerDirty(appUser, existingTransaction.getDate(), linkedTx != null ? linkedTx.getDate() : null);
 }
 
+	/**
+	 * Row fields the bulk editors classify on; see
+	 * {@link AccountTransactionRepository#findBulkUpdateRows}.
+	 */
+	private record BulkUpdateRow(String id, LocalDateTime date, String categoryId, boolean transfer,
+			boolean splitParent) {
+	}
+
+	private Map<String, BulkUpdateRow> loadBulkUpdateRows(AppUser appUser, List<String> ids) {
+		Map<String, BulkUpdateRow> rows = new HashMap<>();
+		for (List<String> chunk : chunks(ids)) {
+			for (Object[] row : accountTransactionRepository.findBulkUpdateRows(appUser, chunk)) {
+				String id = (String) row[0];
+				boolean transfer = row[3] != null || ((Number) row[5]).longValue() > 0;
+				rows.put(id, new BulkUpdateRow(id, (LocalDateTime) row[1], (String) row[2], transfer,
+						Boolean.TRUE.equals(row[4])));
+			}
+		}
+		return rows;
+	}
+
+	private static List<List<String>> chunks(List<String> ids) {
+		List<List<String>> chunks = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i += BULK_CHUNK_SIZE) {
+			chunks.add(ids.subList(i, Math.min(ids.size(), i + BULK_CHUNK_SIZE)));
+		}
+		return chunks;
+	}
+
+	/**
+	 * Bulk re-categorisation, set-based: one classification query and one
+	 * UPDATE per {@value #BULK_CHUNK_SIZE} ids, then one ledger and prediction
+	 * progress invalidation for the affected months.
+	 */
 	@Transactional
 	public BulkUpdateResponse bulkAssignCategory(List<String> transactionIds, String categoryId) {
 		AppUser appUser = appUserService.getCurrentUser();
@@ -719,50 +855,53 @@ public class AccountTransactionService {
 			throw new IllegalArgumentException("Category not found");
 		}
 
-		List<BulkUpdateResponse.SkippedItem> skipped = new ArrayList<>();
-		int updated = 0;
+		List<String> requestedIds = transactionIds.stream().distinct().toList();
+		Map<String, BulkUpdateRow> rows = loadBulkUpdateRows(appUser, requestedIds);
 
-		for (String id : transactionIds) {
-			Optional<AccountTransaction> opt = accountTransactionRepository.findByAppUserAndId(appUser, id);
-			if (opt.isEmpty()) {
+		List<BulkUpdateResponse.SkippedItem> skipped = new ArrayList<>();
+		List<String> toUpdate = new ArrayList<>();
+		List<LocalDateTime> touchedDates = new ArrayList<>();
+		for (String id : requestedIds) {
+			BulkUpdateRow row = rows.get(id);
+			if (row == null) {
 				skipped.add(new BulkUpdateResponse.SkippedItem(id, "Transaction not found"));
 				continue;
 			}
-			AccountTransaction tx = opt.get();
-
 			// Skip transfer transactions (either side) — their category is locked to TRANSFER.
-			boolean isTransfer = tx.getLinkedTransferId() != null
-					|| accountTransactionRepository.findByAppUserAndLinkedTransferId(appUser, tx.getId()).isPresent();
-			if (isTransfer) {
+			if (row.transfer()) {
 				skipped.add(new BulkUpdateResponse.SkippedItem(id,
 						"Cannot change category of a transfer transaction"));
 				continue;
 			}
-
 			// Skip split parents (their children carry the real category) to avoid silently
 			// changing aggregated rows.
-			List<AccountTransaction> children = accountTransactionRepository
-					.findByAppUserAndParent(appUser, tx.getId());
-			if (!children.isEmpty()) {
+			if (row.splitParent()) {
 				skipped.add(new BulkUpdateResponse.SkippedItem(id,
 						"Cannot change category of a split parent — change its children instead"));
 				continue;
 			}
-
-			tx.setCategory(category);
-			if (tx.getGptAccount() == null) {
-				tx.setGptAccount(tx.getAccount());
+			toUpdate.add(id);
+			if (row.date() != null) {
+				touchedDates.add(row.date());
 			}
-			AccountTransaction saved = accountTransactionRepository.save(tx);
-			applyPredictionAdjustment(saved);
-			updated++;
 		}
 
+		int updated = 0;
+		for (List<String> chunk : chunks(toUpdate)) {
+			updated += accountTransactionRepository.updateCategoryByAppUserAndIdIn(appUser, category, chunk);
+		}
+		markLedgerDirty(appUser, touchedDates.toArray(new LocalDateTime[0]));
+
 		logger.info("Bulk category update for user {}: requested={}, updated={}, skipped={}",
 				appUser.getUsername(), transactionIds.size(), updated, skipped.size());
 		return new BulkUpdateResponse(transactionIds.size(), updated, skipped);
 	}
 
+	/**
+	 * Bulk label edit, set-based: existing label pairs are read in one query
+	 * per chunk, REPLACE clears them with one DELETE, and the missing pairs are
+	 * inserted as a JDBC batch.
+	 */
 	@Transactional
 	public BulkUpdateResponse bulkUpdateLabels(List<String> transactionIds,
 			List<LabelDTO> labels, BulkLabelsRequest.Mode mode) {
@@ -790,42 +929,46 @@ public class AccountTransactionService {
 					.collect(Collectors.toList());
 		}
 
+		List<String> requestedIds = transactionIds.stream().distinct().toList();
+		Map<String, BulkUpdateRow> rows = loadBulkUpdateRows(appUser, requestedIds);
 		List<BulkUpdateResponse.SkippedItem> skipped = new ArrayList<>();
-		int updated = 0;
-
-		for (String id : transactionIds) {
-			Optional<AccountTransaction> opt = accountTransactionRepository.findByAppUserAndId(appUser, id);
-			if (opt.isEmpty()) {
+		List<String> toUpdate = new ArrayList<>();
+		for (String id : requestedIds) {
+			if (rows.containsKey(id)) {
+				toUpdate.add(id);
+			} else {
 				skipped.add(new BulkUpdateResponse.SkippedItem(id, "Transaction not found"));
-				continue;
 			}
-			AccountTransaction tx = opt.get();
+		}
 
-			List<com.nklmthr.finance.personal.model.Label> nextLabels;
+		List<TransactionLabel> inserts = new ArrayList<>();
+		for (List<String> chunk : chunks(toUpdate)) {
+			Set<String> existingPairs = new HashSet<>();
 			if (mode == BulkLabelsRequest.Mode.REPLACE) {
-				nextLabels = new ArrayList<>(resolved);
+				transactionLabelRepository.deleteByTransactionIdInAndAppUserId(chunk, appUser.getId());
 			} else {
 				// ADD mode: union of existing and new (deduplicate by id).
-				nextLabels = new ArrayList<>(tx.getLabels() != null ? tx.getLabels() : List.of());
-				for (com.nklmthr.finance.personal.model.Label newLabel : resolved) {
-					boolean already = nextLabels.stream()
-							.anyMatch(l -> l != null && l.getId() != null && l.getId().equals(newLabel.getId()));
-					if (!already) {
-						nextLabels.add(newLabel);
-					}
+				for (Object[] row : transactionLabelRepository.findLabelRowsByTransactionIdIn(chunk)) {
+					existingPairs.add(row[0] + "|" + row[1]);
 				}
 			}
-			tx.setLabels(nextLabels, appUser);
-			if (tx.getGptAccount() == null) {
-				tx.setGptAccount(tx.getAccount());
+			for (String id : chunk) {
+				for (com.nklmthr.finance.personal.model.Label label : resolved) {
+					if (existingPairs.add(id + "|" + label.getId())) {
+						inserts.add(TransactionLabel.builder()
+								.transaction(entityManager.getReference(AccountTransaction.class, id))
+								.label(label)
+								.appUser(appUser)
+								.build());
+					}
+				}
 			}
-			accountTransactionRepository.save(tx);
-			updated++;
 		}
+		transactionLabelRepository.saveAll(inserts);
 
-		logger.info("Bulk label update for user {}: mode={}, requested={}, updated={}, skipped={}",
-				appUser.getUsername(), mode, transactionIds.size(), updated, skipped.size());
-		return new BulkUpdateResponse(transactionIds.size(), updated, skipped);
+		logger.info("Bulk label update for user {}: mode={}, requested={}, updated={}, skipped={}, inserted={}",
+				appUser.getUsername(), mode, transactionIds.size(), toUpdate.size(), skipped.size(), inserts.size());
+		return new BulkUpdateResponse(transactionIds.size(), toUpdate.size(), skipped);
 	}
 
 	/**
@@ -887,6 +1030,116 @@ public class AccountTransactionService {
 		return false;
 	}
 
+	public record StatementImportResult(int saved, int duplicates) {
+	}
+
+	/**
+	 * Imports parsed statement rows for one account as a set:
+	 * <ol>
+	 * <li>one query prefetches the dedup keys of every existing transaction in
+	 * the statement's date span (plus the match window),</li>
+	 * <li>rows are deduplicated in memory on (amount, type, normalized
+	 * explanation) within {@value #MATCH_TIME_WINDOW_SECONDS}s, using the same
+	 * rules as {@link #isStatementTransactionDuplicate}, including against rows
+	 * earlier in the same statement,</li>
+	 * <li>new rows are inserted with saveAll (JDBC batched),</li>
+	 * <li>the account balance gets one net delta,</li>
+	 * <li>predictions are recalculated once per touched month.</li>
+	 * </ol>
+	 */
+	@Transactional
+	public StatementImportResult importStatementTransactions(AppUser appUser, Account statementAccount,
+			List<AccountTransaction> parsed, Category category) {
+		Account account = accountRepository.findByAppUserAndId(appUser, statementAccount.getId())
+				.orElseThrow(() -> new IllegalArgumentException("Account not found"));
+
+		LocalDateTime minDate = null;
+		LocalDateTime maxDate = null;
+		for (AccountTransaction tx : parsed) {
+			if (tx.getDate() != null) {
+				minDate = minDate == null || tx.getDate().isBefore(minDate) ? tx.getDate() : minDate;
+				maxDate = maxDate == null || tx.getDate().isAfter(maxDate) ? tx.getDate() : maxDate;
+			}
+		}
+
+		Map<String, List<LocalDateTime>> existingKeys = new HashMap<>();
+		if (minDate != null) {
+			for (Object[] row : accountTransactionRepository.findDedupKeysByAccountAndDateBetween(account,
+					minDate.minusSeconds(MATCH_TIME_WINDOW_SECONDS), maxDate.plusSeconds(MATCH_TIME_WINDOW_SECONDS))) {
+				String key = statementDedupKey((BigDecimal) row[0], (TransactionType) row[1], (String) row[2]);
+				if (key != null) {
+					existingKeys.computeIfAbsent(key, k -> new ArrayList<>()).add((LocalDateTime) row[3]);
+				}
+			}
+		}
+
+		List<AccountTransaction> toInsert = new ArrayList<>();
+		BigDecimal balanceDelta = BigDecimal.ZERO;
+		int duplicates = 0;
+		for (AccountTransaction tx : parsed) {
+			if (tx.getType() == null) {
+				throw new IllegalArgumentException("Transaction type cannot be null");
+			} else if (tx.getAmount() == null) {
+				throw new IllegalArgumentException("Transaction amount cannot be null");
+			}
+			String key = statementDedupKey(tx.getAmount(), tx.getType(), tx.getExplanation());
+			if (key != null && tx.getDate() != null && withinMatchWindow(existingKeys.get(key), tx.getDate())) {
+				logger.info("Skipping duplicate transaction: date={}, amount={}, explanation={}", tx.getDate(),
+						tx.getAmount(), tx.getExplanation().substring(0, Math.min(50, tx.getExplanation().length())));
+				duplicates++;
+				continue;
+			}
+			if (key != null && tx.getDate() != null) {
+				existingKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(tx.getDate());
+			}
+
+			tx.setAppUser(appUser);
+			tx.setAccount(account);
+			tx.setCategory(category);
+			if (tx.getDataVersionId() == null) {
+				tx.setDataVersionId(DATA_VERSION_V20);
+			}
+			if (tx.getGptAccount() == null) {
+				tx.setGptAccount(account);
+			}
+			balanceDelta = tx.getType() == TransactionType.DEBIT
+					? balanceDelta.subtract(tx.getAmount())
+					: balanceDelta.add(tx.getAmount());
+			toInsert.add(tx);
+		}
+
+		if (!toInsert.isEmpty()) {
+			accountTransactionRepository.saveAll(toInsert);
+			account.setBalance(account.getBalance().add(balanceDelta));
+			accountRepository.save(account);
+
+			markLedgerDirty(appUser, toInsert.stream().map(AccountTransaction::getDate).toArray(LocalDateTime[]::new));
+		}
+		logger.info("Imported statement rows for account {}: parsed={}, saved={}, duplicates={}, balanceDelta={}",
+				account.getName(), parsed.size(), toInsert.size(), duplicates, balanceDelta);
+		return new StatementImportResult(toInsert.size(), duplicates);
+	}
+
+	/**
+	 * Hash key for statement dedup; null when the explanation is blank, since
+	 * such rows never count as duplicates.
+	 */
+	private String statementDedupKey(BigDecimal amount, TransactionType type, String explanation) {
+		String normalized = normalizeDescription(explanation);
+		if (amount == null || type == null || StringUtils.isBlank(normalized)) {
+			return null;
+		}
+		return amount.stripTrailingZeros().toPlainString() + "|" + type + "|" + normalized;
+	}
+
+	private boolean withinMatchWindow(List<LocalDateTime> dates, LocalDateTime date) {
+		if (dates == null) {
+			return false;
+		}
+		return dates.stream().anyMatch(existing -> existing != null
+				&& Math.abs(ChronoUnit.SECONDS.between(existing, date)) <= MATCH_TIME_WINDOW_SECONDS);
+	}
+
 	@Transactional
 	public boolean isTransactionAlreadyPresent(AccountTransaction newTransaction, AppUser appUser) {
 		return findDuplicate(newTransaction, appUser)
@@ -897,6 +1150,22 @@ public class AccountTransactionService {
 				.orElse(false);
 	}
 
+	/**
+	 * Dedup keys of the user's mail-sourced transactions dated or received
+	 * since {@code since}, for one ingestion run to check messages against in
+	 * memory instead of calling {@link #findDuplicate} per message.
+	 */
+	public TransactionDedupIndex loadDedupIndex(AppUser appUser, LocalDateTime since) {
+		TransactionDedupIndex index = new TransactionDedupIndex(MATCH_TIME_WINDOW_SECONDS, DATA_VERSION_V11);
+		for (Object[] row : accountTransactionRepository.findMailDedupKeysByAppUserSince(appUser, since)) {
+			index.put(new TransactionDedupIndex.DedupKey((String) row[0], (String) row[1], (String) row[2],
+					(LocalDateTime) row[3], (BigDecimal) row[4], (TransactionType) row[5],
+					TransactionDedupIndex.normalize((String) row[6]), (String) row[7], (String) row[8],
+					(String) row[9]));
+		}
+		return index;
+	}
+
 	@Transactional
 	public Optional<AccountTransaction> findDuplicate(AccountTransaction newTransaction, AppUser appUser) {
 		// Null-safety guards
@@ -994,6 +1263,7 @@ public class AccountTransactionService {
 				.toDTOList(accountTransactionRepository.findByAppUserAndUploadedStatement(appUser, statement));
 	}
 
+	@Transactional
 	public void deleteAll(List<AccountTransactionDTO> transactions) {
 		if (transactions == null || transactions.isEmpty()) {
 			return;
@@ -1001,11 +1271,31 @@ public class AccountTransactionService {
 		AppUser appUser = appUserService.getCurrentUser();
 		accountTransactionRepository.deleteAllByAppUserAndIdIn(appUser,
 				transactions.stream().map(AccountTransactionDTO::id).toList());
+		Set<String> parentIds = transactions.stream()
+				.map(AccountTransactionDTO::parentId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+		if (!parentIds.isEmpty()) {
+			accountTransactionRepository.syncHasChildren(parentIds);
+		}
+		markLedgerDirty(appUser, transactions.stream().map(AccountTransactionDTO::date).toArray(LocalDateTime[]::new));
 	}
 
 private Specification<AccountTransaction> buildTransactionSpec(String month, String date, String startDate, String endDate,
             String accountId, String type, String search, String categoryId, String labelId, boolean rootOnly,
             Boolean hasAttachments) {
+		return buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId,
+				rootOnly, hasAttachments, rankedSearchIds(search));
+	}
+
+	/**
+	 * Variant for callers that need the full-text matches themselves (relevance
+	 * ordering): {@code rankedIds} is the {@link #rankedSearchIds} result for
+	 * {@code search}, computed once per request.
+	 */
+	private Specification<AccountTransaction> buildTransactionSpec(String month, String date, String startDate,
+			String endDate, String accountId, String type, String search, String categoryId, String labelId,
+			boolean rootOnly, Boolean hasAttachments, Optional<List<String>> rankedIds) {
 
 		AppUser appUser = appUserService.getCurrentUser();
 		Specification<AccountTransaction> spec = Specification.where(null);
@@ -1049,7 +1339,7 @@ private Specification<AccountTransaction> buildTransactionSpec(String month, Str
         spec = spec.and(AccountTransactionSpecifications.dateBetween(start, end));
     }
 		if (StringUtils.isNotBlank(search)) {
-			spec = spec.and(AccountTransactionSpecifications.matchesSearch(search));
+			spec = spec.and(transactionSearchService.searchSpecification(appUser, search, rankedIds));
 		}
 		spec = spec.and(AccountTransactionSpecifications.belongsToUser(appUser));
 		return spec;
@@ -1070,97 +1360,435 @@ public List<AccountTransactionDTO> getFilteredTransactionsForExport(String month
 		return accountTransactionMapper.toDTOList(list);
 	}
 
+	/**
+	 * Streams the export to {@code out} as NDJSON (one transaction DTO per line)
+	 * or CSV. Rows are read in keyset chunks of {@value #EXPORT_CHUNK_SIZE},
+	 * newest first, each continuing after the last (date, id) of the previous
+	 * one, so no server-side cursor is held open. Every chunk gets its labels in
+	 * one query, is written and flushed, and its entities are detached so heap
+	 * stays flat regardless of the export size.
+	 */
+	@Transactional
+	public void streamTransactionsForExport(ExportFormat format, OutputStream out, String month, String date,
+			String startDate, String endDate, String accountId, String type, String categoryId, String labelId,
+			String search, Boolean hasAttachments) throws IOException {
+		logger.info(
+				"Streaming {} export for month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, search: {}, categoryId: {}, labelId: {}, hasAttachments: {}",
+				format, month, date, startDate, endDate, accountId, type, search, categoryId, labelId, hasAttachments);
+		Specification<AccountTransaction> spec = StringUtils.isNotBlank(categoryId)
+				? buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId, false, hasAttachments)
+				: buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, null, labelId, true, hasAttachments);
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		CSVWriter csvWriter = format == ExportFormat.CSV ? new CSVWriter(writer) : null;
+		if (csvWriter != null) {
+			csvWriter.writeNext(EXPORT_CSV_HEADER);
+			csvWriter.flush();
+		}
+
+		// Dated rows seek on (date, id); rows without a date come last, by id
+		long exported = writeExportChunks(spec.and(AccountTransactionSpecifications.hasDate()), true, writer,
+				csvWriter);
+		exported += writeExportChunks(spec.and(Specification.not(AccountTransactionSpecifications.hasDate())), false,
+				writer, csvWriter);
+		logger.info("Streamed {} transactions for export", exported);
+	}
+
+	private long writeExportChunks(Specification<AccountTransaction> spec, boolean dated, Writer writer,
+			CSVWriter csvWriter) throws IOException {
+		long exported = 0;
+		Specification<AccountTransaction> chunkSpec = spec;
+		List<AccountTransaction> chunk;
+		do {
+			chunk = findExportChunk(chunkSpec);
+			if (!chunk.isEmpty()) {
+				AccountTransaction last = chunk.get(chunk.size() - 1);
+				String lastId = last.getId();
+				chunkSpec = dated
+						? spec.and(AccountTransactionSpecifications.seekAfter("date", last.getDate(), lastId, false))
+						: spec.and(AccountTransactionSpecifications.seekAfter("id", lastId, lastId, false));
+			}
+			exported += writeExportChunk(chunk, writer, csvWriter);
+		} while (chunk.size() == EXPORT_CHUNK_SIZE);
+		return exported;
+	}
+
+	/**
+	 * One export chunk: up to {@value #EXPORT_CHUNK_SIZE} rows matching
+	 * {@code spec}, newest first, with their to-one associations loaded.
+	 */
+	List<AccountTransaction> findExportChunk(Specification<AccountTransaction> spec) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<AccountTransaction> query = cb.createQuery(AccountTransaction.class);
+		Root<AccountTransaction> root = query.from(AccountTransaction.class);
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		query.select(root);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(cb.desc(root.get("date")), cb.desc(root.get("id")));
+
+		// To-one associations only; labels are fetched per chunk so the query
+		// never carries a collection join
+		EntityGraph<AccountTransaction> graph = entityManager.createEntityGraph(AccountTransaction.class);
+		graph.addAttributeNodes("category", "gptAccount");
+		graph.addSubgraph("account").addAttributeNodes("accountType", "institution");
+
+		return entityManager.createQuery(query)
+				.setMaxResults(EXPORT_CHUNK_SIZE)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.setHint("jakarta.persistence.fetchgraph", graph)
+				.getResultList();
+	}
+
+	private int writeExportChunk(List<AccountTransaction> chunk, Writer writer, CSVWriter csvWriter)
+			throws IOException {
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+		Map<String, List<LabelDTO>> labelsByTxId = new HashMap<>();
+		List<String> ids = chunk.stream().map(AccountTransaction::getId).toList();
+		for (Object[] row : transactionLabelRepository.findLabelRowsByTransactionIdIn(ids)) {
+			labelsByTxId.computeIfAbsent((String) row[0], k -> new ArrayList<>())
+					.add(new LabelDTO((String) row[1], (String) row[2]));
+		}
+
+		for (AccountTransaction tx : chunk) {
+			List<LabelDTO> labels = labelsByTxId.getOrDefault(tx.getId(), List.of());
+			if (csvWriter != null) {
+				csvWriter.writeNext(new String[] {
+						tx.getId(),
+						tx.getDate() != null ? tx.getDate().toString() : "",
+						tx.getAmount() != null ? tx.getAmount().toPlainString() : "",
+						tx.getType() != null ? tx.getType().name() : "",
+						tx.getDescription(),
+						tx.getExplanation(),
+						tx.getAccount() != null ? tx.getAccount().getName() : "",
+						tx.getCategory() != null ? tx.getCategory().getName() : "",
+						tx.getParent(),
+						tx.getLinkedTransferId(),
+						tx.getCurrency(),
+						labels.stream().map(LabelDTO::name).collect(Collectors.joining("; ")) });
+			} else {
+				writer.write(objectMapper.writeValueAsString(toExportDTO(tx, labels)));
+				writer.write('\n');
+			}
+			entityManager.detach(tx);
+		}
+		if (csvWriter != null) {
+			csvWriter.flush();
+		} else {
+			writer.flush();
+		}
+		return chunk.size();
+	}
+
+	private AccountTransactionDTO toExportDTO(AccountTransaction tx, List<LabelDTO> labels) {
+		return new AccountTransactionDTO(
+				tx.getId(),
+				tx.getDate(),
+				tx.getAmount(),
+				tx.getDescription(),
+				null,
+				tx.getExplanation(),
+				null,
+				tx.getType(),
+				accountMapper.toDTO(tx.getAccount()),
+				categoryMapper.toDTO(tx.getCategory()),
+				tx.getParent(),
+				null,
+				tx.getLinkedTransferId(),
+				tx.getGptAmount(),
+				tx.getGptDescription(),
+				tx.getGptExplanation(),
+				tx.getGptType(),
+				tx.getCurrency(),
+				accountMapper.toDTO(tx.getGptAccount()),
+				tx.getGptCurrency(),
+				labels,
+				null);
+	}
+
 public TransactionPageDTO getFilteredTransactions(Pageable pageable, String month, String date, String startDate, String endDate,
             String accountId, String type, String search, String categoryId, String labelId, Boolean hasAttachments) {
 		logger.info("Fetching transactions for month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, search: {}, categoryId: {}, labelId: {}, hasAttachments: {}",
 				month, date, startDate, endDate, accountId, type, search, categoryId, labelId, hasAttachments);
+		// Full-text matches feed both the filter and the relevance ordering
+		Optional<List<String>> rankedIds = rankedSearchIds(search);
         Specification<AccountTransaction> spec = StringUtils.isNotBlank(categoryId)
-                ? buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId, false, hasAttachments)
-                : buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, null, labelId, true, hasAttachments);
+                ? buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId, false, hasAttachments, rankedIds)
+                : buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, null, labelId, true, hasAttachments, rankedIds);
+
+		// Three round trips per page: page ids, count + running total, and one
+		// projection query for the rows, their children, labels and attachments.
+		List<String> pageIds;
+		if (pageable.getSort().getOrderFor(SORT_RELEVANCE) != null) {
+			pageIds = findRelevancePageIds(spec, rankedIds, pageable);
+		} else {
+			Sort sort = pageable.getSort().getOrderFor("id") == null
+					? pageable.getSort().and(Sort.by("id"))
+					: pageable.getSort();
+			pageIds = findPageIds(spec, sort, pageable.getOffset(), pageable.getPageSize());
+		}
+		PageTotals totals = resolveTotals(spec, month, date, startDate, endDate, accountId, type, search, categoryId,
+				labelId, hasAttachments);
+		logger.info("Total transactions found: {}", totals.count());
+
+		List<AccountTransactionDTO> formatted = assemblePageContent(pageIds);
+		int totalPages = (int) ((totals.count() + pageable.getPageSize() - 1) / pageable.getPageSize());
+		return new TransactionPageDTO(formatted, totalPages, totals.count(), pageable.getPageNumber(),
+				pageable.getPageSize(), totals.total().setScale(2, RoundingMode.HALF_UP));
+	}
 
-		Page<AccountTransaction> page = accountTransactionRepository.findAll(spec, pageable);
-		logger.info("Total transactions found: {}", page.getTotalElements());
 
-		List<String> pageIds = page.getContent().stream()
-			.map(AccountTransaction::getId)
-			.toList();
+	/**
+	 * Keyset (seek) variant of {@link #getFilteredTransactions}. Instead of an
+	 * OFFSET scan it continues after the row encoded in {@code cursor}, fetching
+	 * {@code size + 1} rows to learn whether another page exists. The COUNT and
+	 * running total are only computed when {@code includeTotal} is set, so deep
+	 * scrolling costs the same as the first page.
+	 */
+	public TransactionPageDTO getFilteredTransactionsByCursor(String cursor, int size, String sortBy, String sortDir,
+			boolean includeTotal, String month, String date, String startDate, String endDate, String accountId,
+			String type, String search, String categoryId, String labelId, Boolean hasAttachments) {
+		logger.info("Fetching transactions by cursor - size: {}, sortBy: {}, sortDir: {}, includeTotal: {}, month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, search: {}, categoryId: {}, labelId: {}, hasAttachments: {}",
+				size, sortBy, sortDir, includeTotal, month, date, startDate, endDate, accountId, type, search, categoryId, labelId, hasAttachments);
+		if (size < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1");
+		}
+		String sortField = TransactionCursor.SORT_AMOUNT.equalsIgnoreCase(sortBy)
+				? TransactionCursor.SORT_AMOUNT
+				: TransactionCursor.SORT_DATE;
+		boolean ascending = "asc".equalsIgnoreCase(sortDir);
+
+		Specification<AccountTransaction> spec = StringUtils.isNotBlank(categoryId)
+				? buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId, false, hasAttachments)
+				: buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, null, labelId, true, hasAttachments);
+
+		Specification<AccountTransaction> seekSpec = spec;
+		if (StringUtils.isNotBlank(cursor)) {
+			TransactionCursor position = TransactionCursor.decode(cursor);
+			if (!position.sortField().equals(sortField) || position.ascending() != ascending) {
+				throw new IllegalArgumentException("Cursor does not match the requested sort");
+			}
+			seekSpec = position.isAmountSort()
+					? spec.and(AccountTransactionSpecifications.seekAfter(sortField, position.amountValue(), position.id(), ascending))
+					: spec.and(AccountTransactionSpecifications.seekAfter(sortField, position.dateValue(), position.id(), ascending));
+		}
 
-		// Batch-fetch children
-		Map<String, List<AccountTransactionDTO>> childrenByParent = new HashMap<>();
-		if (!pageIds.isEmpty()) {
-			AppUser currentUser = appUserService.getCurrentUser();
-			List<AccountTransaction> allChildren = accountTransactionRepository
-				.findByAppUserAndParentIn(currentUser, pageIds);
-			for (AccountTransaction child : allChildren) {
-				childrenByParent
-					.computeIfAbsent(child.getParent(), k -> new ArrayList<>())
-					.add(accountTransactionMapper.toDTO(child));
+		Sort sort = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, sortField, "id");
+		List<String> pageIds = findPageIds(seekSpec, sort, 0, size + 1);
+		boolean hasNext = pageIds.size() > size;
+		if (hasNext) {
+			pageIds = pageIds.subList(0, size);
+		}
+		List<AccountTransactionDTO> content = assemblePageContent(pageIds);
+		String nextCursor = null;
+		if (hasNext && !content.isEmpty()) {
+			AccountTransactionDTO last = content.get(content.size() - 1);
+			nextCursor = TransactionCursor.after(sortField, ascending, last.date(), last.amount(), last.id()).encode();
+		}
+
+		long totalElements = -1;
+		int totalPages = -1;
+		BigDecimal currentTotal = null;
+		if (includeTotal) {
+			PageTotals totals = resolveTotals(spec, month, date, startDate, endDate, accountId, type, search,
+					categoryId, labelId, hasAttachments);
+			totalElements = totals.count();
+			totalPages = (int) ((totalElements + size - 1) / size);
+			currentTotal = totals.total().setScale(2, RoundingMode.HALF_UP);
+		}
+		logger.info("Cursor page returned {} transactions, hasNext: {}", content.size(), hasNext);
+		return new TransactionPageDTO(content, totalPages, totalElements, 0, size, currentTotal, nextCursor);
+	}
+
+	/**
+	 * Builds list DTOs for a page of transaction ids straight from projection
+	 * rows: one query brings back the page rows, their split children, label
+	 * names and attachment counts, and no managed entities are loaded. The
+	 * returned list keeps the order of {@code pageIds}.
+	 */
+	List<AccountTransactionDTO> assemblePageContent(List<String> pageIds) {
+		if (pageIds.isEmpty()) {
+			return List.of();
+		}
+		AppUser currentUser = appUserService.getCurrentUser();
+		List<TransactionPageRowProjection> rows = accountTransactionRepository.findPageRowsWithChildren(currentUser,
+				pageIds);
+
+		// Collapse the (transaction, label) rows back into one entry per transaction
+		Map<String, TransactionPageRowProjection> rowById = new LinkedHashMap<>();
+		Map<String, List<LabelDTO>> labelsById = new HashMap<>();
+		for (TransactionPageRowProjection row : rows) {
+			rowById.putIfAbsent(row.getId(), row);
+			List<LabelDTO> labels = labelsById.computeIfAbsent(row.getId(), k -> new ArrayList<>());
+			if (row.getLabelId() != null) {
+				labels.add(new LabelDTO(row.getLabelId(), row.getLabelName()));
 			}
 		}
 
-		// Batch-fetch labels — separate query avoids HHH90003004 in-memory pagination
-		Map<String, List<AccountTransaction>> labelsByTxId = new HashMap<>();
-		if (!pageIds.isEmpty()) {
-			List<AccountTransaction> withLabels = accountTransactionRepository.findWithLabelsByIdIn(pageIds);
-			for (AccountTransaction tx : withLabels) {
-				labelsByTxId.put(tx.getId(), List.of(tx));
+		Set<String> pageIdSet = Set.copyOf(pageIds);
+		Map<String, AccountDTO> accountsById = new HashMap<>();
+		Map<String, List<AccountTransactionDTO>> childrenByParent = new HashMap<>();
+		for (TransactionPageRowProjection row : rowById.values()) {
+			if (row.getParentId() != null && pageIdSet.contains(row.getParentId())) {
+				childrenByParent.computeIfAbsent(row.getParentId(), k -> new ArrayList<>())
+						.add(toPageDTO(row, labelsById.get(row.getId()), List.of(), accountsById));
 			}
 		}
 
-		// Batch-fetch attachment counts — single grouped query keeps this O(1)
-		// per page instead of N+1. Used by the UI to show a distinct icon for
-		// transactions that already have receipts uploaded.
-		Map<String, Integer> attachmentCountByTxId = new HashMap<>();
-		if (!pageIds.isEmpty()) {
-			List<Object[]> rows = attachmentRepository.countByTransactionIdIn(pageIds);
-			for (Object[] row : rows) {
-				String txId = (String) row[0];
-				Long cnt = (Long) row[1];
-				attachmentCountByTxId.put(txId, cnt != null ? cnt.intValue() : 0);
+		List<AccountTransactionDTO> formatted = new ArrayList<>(pageIds.size());
+		for (String id : pageIds) {
+			TransactionPageRowProjection row = rowById.get(id);
+			if (row != null) {
+				formatted.add(toPageDTO(row, labelsById.get(id), childrenByParent.getOrDefault(id, List.of()),
+						accountsById));
 			}
 		}
+		return formatted;
+	}
+
+	private AccountTransactionDTO toPageDTO(TransactionPageRowProjection row, List<LabelDTO> labels,
+			List<AccountTransactionDTO> children, Map<String, AccountDTO> accountsById) {
+		AccountDTO account = accountsById.computeIfAbsent(row.getAccountId(),
+				k -> new AccountDTO(row.getAccountId(), row.getAccountName(), row.getAccountBalance(),
+						new AccountTypeDTO(row.getAccountTypeId(), row.getAccountTypeName(),
+								row.getAccountTypeDescription(), row.getAccountTypeClassification(), null),
+						new InstitutionDTO(row.getInstitutionId(), row.getInstitutionName(),
+								row.getInstitutionDescription()),
+						row.getAccountNumber(), row.getAccountKeywords(), row.getAccountAliases(),
+						Boolean.TRUE.equals(row.getAccountStatementUploadAvailable())));
+		AccountDTO gptAccount = row.getGptAccountId() == null ? null
+				: accountsById.computeIfAbsent(row.getGptAccountId(),
+						k -> new AccountDTO(row.getGptAccountId(), row.getGptAccountName(), row.getGptAccountBalance(),
+								new AccountTypeDTO(row.getGptAccountTypeId(), row.getGptAccountTypeName(),
+										row.getGptAccountTypeDescription(), row.getGptAccountTypeClassification(), null),
+								new InstitutionDTO(row.getGptInstitutionId(), row.getGptInstitutionName(),
+										row.getGptInstitutionDescription()),
+								row.getGptAccountNumber(), row.getGptAccountKeywords(), row.getGptAccountAliases(),
+								Boolean.TRUE.equals(row.getGptAccountStatementUploadAvailable())));
+		CategoryDTO category = row.getCategoryId() == null ? null
+				: new CategoryDTO(row.getCategoryId(), row.getCategoryName(), row.getCategoryParentId(),
+						Boolean.TRUE.equals(row.getCategorySystem()), new ArrayList<>());
+		Long attachmentCount = row.getAttachmentCount();
+
+		return new AccountTransactionDTO(
+				row.getId(),
+				row.getDate(),
+				row.getAmount(),
+				row.getDescription(),
+				null,
+				row.getExplanation(),
+				null,
+				row.getType(),
+				account,
+				category,
+				row.getParentId(),
+				children,
+				row.getLinkedTransferId(),
+				row.getGptAmount(),
+				row.getGptDescription(),
+				row.getGptExplanation(),
+				row.getGptType(),
+				row.getCurrency(),
+				gptAccount,
+				row.getGptCurrency(),
+				labels != null ? labels : List.of(),
+				attachmentCount != null ? attachmentCount.intValue() : 0);
+	}
+
+	/**
+	 * Runs the spec for ids only, with a LIMIT and no COUNT query. Spring Data's
+	 * {@code findAll(spec, pageable)} always counts once a page is full and
+	 * hydrates full entities, neither of which the list endpoint needs.
+	 */
+	List<String> findPageIds(Specification<AccountTransaction> spec, Sort sort, long offset, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<String> query = cb.createQuery(String.class);
+		Root<AccountTransaction> root = query.from(AccountTransaction.class);
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		query.select(root.<String>get("id"));
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+		return entityManager.createQuery(query)
+				.setFirstResult((int) offset)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	/**
+	 * Full-text matches for {@code search}, best first; empty when there is no
+	 * search or the full-text path cannot answer it.
+	 */
+	private Optional<List<String>> rankedSearchIds(String search) {
+		return StringUtils.isNotBlank(search)
+				? transactionSearchService.rankedTransactionIds(appUserService.getCurrentUser(), search)
+				: Optional.empty();
+	}
+
+	/**
+	 * Page ids for {@code sortBy=relevance}: full-text hits in score order
+	 * first, then the rows that only matched on account, category or type name,
+	 * newest first. Without a ranked search everything is ordered by date.
+	 */
+	private List<String> findRelevancePageIds(Specification<AccountTransaction> spec, Optional<List<String>> ranked,
+			Pageable pageable) {
+		Sort byDate = Sort.by(Sort.Direction.DESC, "date", "id");
+		if (ranked.isEmpty() || ranked.get().isEmpty()) {
+			return findPageIds(spec, byDate, pageable.getOffset(), pageable.getPageSize());
+		}
+		List<String> rankedIds = ranked.get();
+		// The candidate list is capped, so apply the other filters to it in one
+		// query and restore the rank order in memory
+		Set<String> filtered = new HashSet<>(findPageIds(spec.and(AccountTransactionSpecifications.hasIdIn(rankedIds)),
+				Sort.by("id"), 0, rankedIds.size()));
+		List<String> rankedMatches = rankedIds.stream().filter(filtered::contains).toList();
+
+		long offset = pageable.getOffset();
+		int size = pageable.getPageSize();
+		List<String> pageIds = new ArrayList<>();
+		if (offset < rankedMatches.size()) {
+			pageIds.addAll(rankedMatches.subList((int) offset, (int) Math.min(rankedMatches.size(), offset + size)));
+		}
+		if (pageIds.size() < size) {
+			long restOffset = Math.max(0, offset - rankedMatches.size());
+			pageIds.addAll(findPageIds(
+					spec.and(Specification.not(AccountTransactionSpecifications.hasIdIn(rankedIds))), byDate,
+					restOffset, size - pageIds.size()));
+		}
+		return pageIds;
+	}
 
-		List<AccountTransactionDTO> formatted = page.getContent().stream()
-			    .map(tx -> {
-			        List<AccountTransactionDTO> children = childrenByParent.getOrDefault(tx.getId(), List.of());
-					List<AccountTransaction> labelSource = labelsByTxId.get(tx.getId());
-					List<com.nklmthr.finance.personal.dto.LabelDTO> labels = labelSource != null && !labelSource.isEmpty()
-						? labelMapper.toDTOList(labelSource.get(0).getLabels())
-						: List.of();
-					Integer attachmentCount = attachmentCountByTxId.getOrDefault(tx.getId(), 0);
-
-		        return new AccountTransactionDTO(
-		            tx.getId(),
-		            tx.getDate(),
-		            tx.getAmount(),
-		            tx.getDescription(),
-		            null,
-		            tx.getExplanation(),
-		            null,
-		            tx.getType(),
-		            accountMapper.toDTO(tx.getAccount()),
-		            categoryMapper.toDTO(tx.getCategory()),
-		            tx.getParent(),
-		            children,
-		            tx.getLinkedTransferId(),
-		            tx.getGptAmount(),
-		            tx.getGptDescription(),
-		            tx.getGptExplanation(),
-		            tx.getGptType(),
-		            tx.getCurrency(),
-		            accountMapper.toDTO(tx.getGptAccount()),
-		            tx.getGptCurrency(),
-		            labels,
-		            attachmentCount
-		        );
-			    })
-			    .toList();
-
-		BigDecimal currentTotal = calculateTotalWithSpec(spec).setScale(2, RoundingMode.HALF_UP);
-		return new TransactionPageDTO(formatted, page.getTotalPages(), page.getTotalElements(),
-				page.getNumber(), page.getSize(), currentTotal);
+	record PageTotals(long count, BigDecimal total) {
 	}
 
+	/**
+	 * COUNT and the signed running total for a spec in a single aggregate
+	 * query, replacing the separate Spring Data count query.
+	 */
+	PageTotals calculateCountAndTotalWithSpec(Specification<AccountTransaction> spec) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<AccountTransaction> root = query.from(AccountTransaction.class);
+		Predicate predicate = spec.toPredicate(root, query, cb);
+
+		Expression<BigDecimal> caseExpression = cb.<BigDecimal>selectCase()
+				.when(cb.equal(root.get("type"), TransactionType.CREDIT), root.get("amount"))
+				.otherwise(cb.neg(root.get("amount")));
+		query.multiselect(cb.count(root), cb.coalesce(cb.sum(caseExpression), BigDecimal.ZERO));
+		if (predicate != null) {
+			query.where(predicate);
+		}
+
+		Tuple result = entityManager.createQuery(query).getSingleResult();
+		Long count = result.get(0, Long.class);
+		BigDecimal total = result.get(1, BigDecimal.class);
+		return new PageTotals(count != null ? count : 0L, total != null ? total : BigDecimal.ZERO);
+	}
 
 public BigDecimal getCurrentTotal(String month, String date, String startDate, String endDate, String accountId, String type, String search, String categoryId, String labelId, Boolean hasAttachments) {
         logger.info("Calculating current total for month: {}, date: {}, startDate: {}, endDate: {}, accountId: {}, type: {}, search: {}, categoryId: {}, labelId: {}, hasAttachments: {}",
@@ -1170,45 +1798,69 @@ public BigDecimal getCurrentTotal(String month, String date, String startDate, S
                 ? buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, categoryId, labelId, false, hasAttachments)
                 : buildTransactionSpec(month, date, startDate, endDate, accountId, type, search, null, labelId, true, hasAttachments);
         
-        // Calculate total using database-level aggregation
-        BigDecimal total = calculateTotalWithSpec(spec);
+        // Calculate total using database-level aggregation (or the monthly ledger)
+        BigDecimal total = resolveTotals(spec, month, date, startDate, endDate, accountId, type, search, categoryId,
+                labelId, hasAttachments).total();
         
         logger.info("Current total calculated: {}", total);
         return total.setScale(2, RoundingMode.HALF_UP);
     }
     
-    /**
-     * Calculate total amount using database-level aggregation with Specification
-     * This is much more efficient than fetching all records and summing in Java
-     */
-    private BigDecimal calculateTotalWithSpec(Specification<AccountTransaction> spec) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<BigDecimal> query = cb.createQuery(BigDecimal.class);
-        Root<AccountTransaction> root = query.from(AccountTransaction.class);
-
-        // Apply the same filters from the specification
-        Predicate predicate = spec.toPredicate(root, query, cb);
-
-        // Create CASE expression: 
-        // CASE WHEN type = 'CREDIT' THEN amount ELSE -amount END
-        Expression<BigDecimal> caseExpression = cb.<BigDecimal>selectCase()
-                .when(cb.equal(root.get("type"), TransactionType.CREDIT), root.get("amount"))
-                .otherwise(cb.neg(root.get("amount")));
-
-        // Sum the case expression
-        Expression<BigDecimal> sum = cb.sum(caseExpression);
-        
-        // Use COALESCE to return 0 if no results
-        Expression<BigDecimal> total = cb.coalesce(sum, BigDecimal.ZERO);
+	private record MonthRange(YearMonth from, YearMonth to) {
+	}
 
-        query.select(total);
-        if (predicate != null) {
-            query.where(predicate);
-        }
+	/**
+	 * Count and running total for the list filters. When the filters line up
+	 * with whole months and only touch dimensions the monthly ledger keeps
+	 * (account, type, category), the answer comes from the rollup; search,
+	 * label, attachment, single-day and partial-month filters scan
+	 * account_transactions as before.
+	 */
+	private PageTotals resolveTotals(Specification<AccountTransaction> spec, String month, String date,
+			String startDate, String endDate, String accountId, String type, String search, String categoryId,
+			String labelId, Boolean hasAttachments) {
+		if (StringUtils.isBlank(search) && StringUtils.isBlank(labelId) && !Boolean.TRUE.equals(hasAttachments)) {
+			Optional<MonthRange> range = ledgerMonthRange(month, date, startDate, endDate);
+			if (range.isPresent()) {
+				boolean byCategory = StringUtils.isNotBlank(categoryId);
+				Optional<MonthlyLedgerService.LedgerTotals> ledgerTotals = monthlyLedgerService.totals(
+						appUserService.getCurrentUser(), range.get().from(), range.get().to(),
+						StringUtils.isNotBlank(accountId) ? accountId : null,
+						StringUtils.isNotBlank(type) && !"ALL".equalsIgnoreCase(type) ? TransactionType.valueOf(type) : null,
+						byCategory ? categoryService.getAllDescendantCategoryIds(categoryId) : null,
+						byCategory);
+				if (ledgerTotals.isPresent()) {
+					return new PageTotals(ledgerTotals.get().count(), ledgerTotals.get().total());
+				}
+			}
+		}
+		return calculateCountAndTotalWithSpec(spec);
+	}
 
-        BigDecimal result = entityManager.createQuery(query).getSingleResult();
-        return result != null ? result : BigDecimal.ZERO;
-    }
+	/**
+	 * Month span of the date filter, following the same precedence as
+	 * buildTransactionSpec. Empty when the filter does not cover whole months;
+	 * a range with null bounds when there is no date filter at all.
+	 */
+	private Optional<MonthRange> ledgerMonthRange(String month, String date, String startDate, String endDate) {
+		if (StringUtils.isNotBlank(startDate) && StringUtils.isNotBlank(endDate)) {
+			LocalDate start = LocalDate.parse(startDate);
+			LocalDate end = LocalDate.parse(endDate);
+			YearMonth endMonth = YearMonth.from(end);
+			if (start.getDayOfMonth() != 1 || !end.equals(endMonth.atEndOfMonth())) {
+				return Optional.empty();
+			}
+			return Optional.of(new MonthRange(YearMonth.from(start), endMonth));
+		}
+		if (StringUtils.isNotBlank(date)) {
+			return Optional.empty();
+		}
+		if (StringUtils.isNotBlank(month)) {
+			YearMonth ym = YearMonth.parse(month);
+			return Optional.of(new MonthRange(ym, ym));
+		}
+		return Optional.of(new MonthRange(null, null));
+	}
 
 // --- Backward-compatible overloads (without 'date' and 'labelId') for existing tests/integrations ---
 public TransactionPageDTO getFilteredTransactions(Pageable pageable, String month, String accountId,
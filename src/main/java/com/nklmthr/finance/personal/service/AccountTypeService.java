@@ -20,6 +20,7 @@ import com.nklmthr.finance.personal.model.AccountType;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTypeRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +34,8 @@ public class AccountTypeService {
     private final AccountTypeRepository accountTypeRepository;
     private final AccountRepository accountRepository;
     private final AccountTypeMapper accountTypeMapper;
+    private final AccountFuzzyMatcher accountFuzzyMatcher;
+    private final BalanceSheetService balanceSheetService;
 
     private static final Logger logger = LoggerFactory.getLogger(AccountTypeService.class);
 
@@ -126,6 +129,10 @@ public class AccountTypeService {
         logger.info("Updating account type with id: " + id + " for user: " + appUser.getUsername());
 
         AccountType saved = accountTypeRepository.save(existing);
+        // Account matching scores the account type name
+        accountFuzzyMatcher.invalidate(appUser);
+        // Cached balance sheet months are grouped by classification
+        balanceSheetService.invalidate(appUser);
         // Recompute the derived balance so the PUT response matches what a
         // subsequent GET would return — keeps the UI consistent without an
         // extra refetch round-trip.
@@ -140,5 +147,6 @@ public class AccountTypeService {
         }
         logger.info("Deleting account type with id: " + id + " for user: " + appUser.getUsername());
         accountTypeRepository.deleteByAppUserAndId(appUser, id);
+        balanceSheetService.invalidate(appUser);
     }
 }
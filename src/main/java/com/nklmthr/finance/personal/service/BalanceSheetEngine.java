@@ -0,0 +1,80 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountBalanceSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reduces account balance snapshots spanning many months into
+ * per-classification totals per month in one pass.
+ *
+ * A month's balance comes from the snapshots taken within
+ * {@link #WINDOW_DAYS} days either side of the first day of the next month, so
+ * end-of-month and start-of-next-month snapshots both count. Windows of
+ * consecutive months never overlap, which lets each snapshot be assigned to at
+ * most one month from its date alone.
+ */
+@Slf4j
+final class BalanceSheetEngine {
+
+	static final int WINDOW_DAYS = 7;
+
+	private final Map<YearMonth, Map<String, BigDecimal>> totalsByMonth = new HashMap<>();
+
+	/**
+	 * Start (inclusive) of the snapshot window for {@code month}.
+	 */
+	static LocalDateTime windowStart(YearMonth month) {
+		return month.plusMonths(1).atDay(1).minusDays(WINDOW_DAYS).atStartOfDay();
+	}
+
+	/**
+	 * End (exclusive) of the snapshot window for {@code month}.
+	 */
+	static LocalDateTime windowEnd(YearMonth month) {
+		return month.plusMonths(1).atDay(1).plusDays(WINDOW_DAYS).atStartOfDay();
+	}
+
+	/**
+	 * The month whose window contains {@code snapshotDate}, or null when it
+	 * falls between windows.
+	 */
+	static YearMonth balanceMonth(LocalDateTime snapshotDate) {
+		LocalDateTime shifted = snapshotDate.plusDays(WINDOW_DAYS);
+		if (shifted.getDayOfMonth() > 2 * WINDOW_DAYS) {
+			return null;
+		}
+		return YearMonth.from(shifted).minusMonths(1);
+	}
+
+	void add(AccountBalanceSnapshot snapshot) {
+		YearMonth month = balanceMonth(snapshot.getSnapshotDate());
+		if (month == null) {
+			return;
+		}
+		Account account = snapshot.getAccount();
+		if (account.getAccountType() == null || account.getAccountType().getClassification() == null) {
+			log.warn("Account or AccountType classification is null for account: {}", account.getName());
+			return;
+		}
+		BigDecimal balance = snapshot.getBalance() != null ? snapshot.getBalance() : BigDecimal.ZERO;
+		totalsByMonth.computeIfAbsent(month, k -> new LinkedHashMap<>())
+				.merge(account.getAccountType().getClassification(), balance, BigDecimal::add);
+	}
+
+	/**
+	 * Totals of {@code month} by classification, in the order classifications
+	 * were first seen; empty when the month had no snapshots.
+	 */
+	Map<String, BigDecimal> totals(YearMonth month) {
+		return totalsByMonth.getOrDefault(month, Map.of());
+	}
+}
@@ -2,106 +2,195 @@ package com.nklmthr.finance.personal.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.nklmthr.finance.personal.dto.BalanceSheetDTO;
 import com.nklmthr.finance.personal.dto.BalanceSheetMonthlyDTO;
-import com.nklmthr.finance.personal.model.Account;
 import com.nklmthr.finance.personal.model.AccountBalanceSnapshot;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.repository.AccountBalanceSnapshotRepository;
 
+/**
+ * Month-end balance sheets by account classification.
+ *
+ * {@link #generateBalanceSheet} loads every snapshot of the requested span in
+ * one query and reduces them with {@link BalanceSheetEngine}. Months whose
+ * snapshot window has closed are cached per (user, month): snapshots are only
+ * ever taken at the current time, so a closed window never changes. The totals
+ * are grouped by the accounts' current classification though, so account and
+ * account type writes call {@link #invalidate} to drop the user's months.
+ */
 @Service
 public class BalanceSheetService {
 
+	static final String CACHE_NAME = "balanceSheetMonth";
+
 	@Autowired
 	private AppUserService appUserService;
 
 	@Autowired
 	private AccountBalanceSnapshotRepository accountBalanceSnapshotRepository;
 
+	@Autowired
+	private CacheManager cacheManager;
+
 	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BalanceSheetService.class);
 
+	// Months cached per user, so invalidate can evict exactly those keys
+	private final Map<String, Set<YearMonth>> cachedMonths = new ConcurrentHashMap<>();
+	// Bumped by invalidate so totals loaded before a change are not cached
+	private final Map<String, long[]> generations = new ConcurrentHashMap<>();
+
 	public List<BalanceSheetDTO> generateBalanceSheet(int year) {
-		List<BalanceSheetDTO> result = new ArrayList<>();
-		int currentYear = LocalDate.now().getYear();
+		List<YearMonth> months = new ArrayList<>();
+		YearMonth currentMonth = YearMonth.now();
 
-		if (year == currentYear) {
+		if (year == currentMonth.getYear()) {
 			// Rolling last 12 months including current month
-			logger.debug("Generating balance sheet for the last 12 months including current month");
 			for (int i = 0; i <= 11; i++) {
-				LocalDate targetMonth = LocalDate.now().minusMonths(i).withDayOfMonth(1);
-				BalanceSheetDTO dto = generateMonthlyBalanceSheet(targetMonth);
-				result.add(dto);
+				months.add(currentMonth.minusMonths(i));
 			}
 		} else {
 			// All 12 months of given year
-			logger.debug("Generating balance sheet for all 12 months of year: " + year);
 			for (int month = 12; month > 0; month--) {
-				LocalDate targetMonth = LocalDate.of(year, month, 1);
-				BalanceSheetDTO dto = generateMonthlyBalanceSheet(targetMonth);
-				result.add(dto);
+				months.add(YearMonth.of(year, month));
 			}
 		}
 
+		AppUser appUser = appUserService.getCurrentUser();
+		Map<YearMonth, Map<String, BigDecimal>> totalsByMonth = loadMonthTotals(appUser, months);
+
+		List<BalanceSheetDTO> result = new ArrayList<>();
+		for (YearMonth month : months) {
+			result.add(toDto(formatMonth(month.atDay(1)), totalsByMonth.get(month)));
+		}
 		return result;
 	}
 
 	public BalanceSheetDTO generateMonthlyBalanceSheet(LocalDate date) {
 		AppUser appUser = appUserService.getCurrentUser();
-
-		String monthLabel = formatMonth(date);
+		YearMonth month = YearMonth.from(date);
 
 		// Search around first day of next month ±7 days
 		// This catches snapshots taken at end of current month or beginning of next month
-		LocalDate nextMonthFirst = date.plusMonths(1).withDayOfMonth(1);
-		LocalDate fromDate = nextMonthFirst.minusDays(7);
-		LocalDate toDate = nextMonthFirst.plusDays(7);
-		
-		logger.info("=== Generating balance sheet for user: " + appUser.getUsername() + " for month: " + monthLabel);
-		logger.info("=== Target date: " + date + ", Next month first: " + nextMonthFirst);
-		logger.info("=== Searching from: " + fromDate + " to: " + toDate);
-		logger.info("=== Searching from datetime: " + fromDate.atStartOfDay() + " to: " + toDate.atStartOfDay());
-		
 		List<AccountBalanceSnapshot> snapshots = accountBalanceSnapshotRepository.findByAppUserAndSnapshotRange(appUser,
-				fromDate.atStartOfDay(), toDate.atStartOfDay());
+				BalanceSheetEngine.windowStart(month), BalanceSheetEngine.windowEnd(month));
 
-		logger.info("=== Found " + snapshots.size() + " snapshots for month: " + monthLabel);
-		snapshots.forEach(s -> logger.info("===   Snapshot date: " + s.getSnapshotDate() + ", Account: " + s.getAccount().getName() + ", Balance: " + s.getBalance()));
+		BalanceSheetEngine engine = new BalanceSheetEngine();
+		snapshots.forEach(engine::add);
+		return toDto(formatMonth(date), engine.totals(month));
+	}
 
-		Map<String, BigDecimal> classificationTotals = new LinkedHashMap<>();
-		BigDecimal total = BigDecimal.ZERO;
+	/**
+	 * Classification totals of each month: closed months from the cache, the
+	 * rest from a single snapshot query spanning all of them.
+	 */
+	private Map<YearMonth, Map<String, BigDecimal>> loadMonthTotals(AppUser appUser, List<YearMonth> months) {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		long[] generation = generations.computeIfAbsent(appUser.getId(), id -> new long[1]);
+		long seen;
+		synchronized (generation) {
+			seen = generation[0];
+		}
+		Map<YearMonth, Map<String, BigDecimal>> totalsByMonth = new HashMap<>();
+		List<YearMonth> missing = new ArrayList<>();
+		for (YearMonth month : months) {
+			@SuppressWarnings("unchecked")
+			Map<String, BigDecimal> cached = cache != null ? cache.get(key(appUser.getId(), month), Map.class) : null;
+			if (cached != null) {
+				totalsByMonth.put(month, cached);
+			} else {
+				missing.add(month);
+			}
+		}
+		if (missing.isEmpty()) {
+			logger.debug("Balance sheet for user {} served from cache for {} months", appUser.getId(), months.size());
+			return totalsByMonth;
+		}
 
-		for (AccountBalanceSnapshot snapshot : snapshots) {
-			Account account = snapshot.getAccount();
-			if (account.getAccountType() == null || account.getAccountType().getClassification() == null) {
-				logger.warn("Account or AccountType classification is null for account: " + account.getName());
-				continue;
+		YearMonth from = missing.stream().min(YearMonth::compareTo).get();
+		YearMonth to = missing.stream().max(YearMonth::compareTo).get();
+		List<AccountBalanceSnapshot> snapshots = accountBalanceSnapshotRepository.findByAppUserAndSnapshotRange(appUser,
+				BalanceSheetEngine.windowStart(from), BalanceSheetEngine.windowEnd(to));
+
+		BalanceSheetEngine engine = new BalanceSheetEngine();
+		snapshots.forEach(engine::add);
+
+		LocalDateTime now = LocalDateTime.now();
+		for (YearMonth month : missing) {
+			Map<String, BigDecimal> totals = engine.totals(month);
+			totalsByMonth.put(month, totals);
+			if (cache != null && !BalanceSheetEngine.windowEnd(month).isAfter(now)) {
+				synchronized (generation) {
+					if (generation[0] == seen) {
+						cache.put(key(appUser.getId(), month), totals);
+						cachedMonths.computeIfAbsent(appUser.getId(), id -> ConcurrentHashMap.newKeySet()).add(month);
+					}
+				}
 			}
+		}
+		logger.debug("Balance sheet for user {}: {} snapshots reduced into {} months, {} months from cache",
+				appUser.getId(), snapshots.size(), missing.size(), months.size() - missing.size());
+		return totalsByMonth;
+	}
 
-			String classification = account.getAccountType().getClassification();
-			BigDecimal balance = snapshot.getBalance() != null ? snapshot.getBalance() : BigDecimal.ZERO;
+	/**
+	 * Evicts the user's cached months; the next balance sheet reloads them from
+	 * the snapshots. Inside a transaction they are evicted again after commit,
+	 * so totals read from the pre-commit classification do not survive.
+	 */
+	public void invalidate(AppUser appUser) {
+		String userId = appUser.getId();
+		evict(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict(userId);
+				}
+			});
+		}
+	}
 
-			classificationTotals.merge(classification, balance, BigDecimal::add);
-			total = total.add(balance);
+	private void evict(String userId) {
+		long[] generation = generations.computeIfAbsent(userId, id -> new long[1]);
+		synchronized (generation) {
+			generation[0]++;
+			Set<YearMonth> months = cachedMonths.remove(userId);
+			Cache cache = cacheManager.getCache(CACHE_NAME);
+			if (months != null && cache != null) {
+				months.forEach(month -> cache.evict(key(userId, month)));
+			}
 		}
+	}
 
+	private BalanceSheetDTO toDto(String monthLabel, Map<String, BigDecimal> classificationTotals) {
 		List<BalanceSheetMonthlyDTO> rows = classificationTotals.entrySet().stream()
 				.map(e -> new BalanceSheetMonthlyDTO(e.getKey(), Map.of(monthLabel, e.getValue())))
 				.collect(Collectors.toList());
+		BigDecimal total = classificationTotals.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+		return new BalanceSheetDTO(rows, Map.of(monthLabel, total));
+	}
 
-		Map<String, BigDecimal> summaryRow = Map.of(monthLabel, total);
-		logger.debug("Generated balance sheet for month: " + monthLabel + " with total: " + total);
-		return new BalanceSheetDTO(rows, summaryRow);
+	private static String key(String userId, YearMonth month) {
+		return userId + "_" + month;
 	}
 
 	private String formatMonth(LocalDate date) {
@@ -1,6 +1,7 @@
 package com.nklmthr.finance.personal.service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,14 +33,21 @@ public class CategorySpendService {
 	@Autowired
 	private AccountTransactionRepository accountTransactionRepository;
 
+	@Autowired
+	private MonthlyLedgerService monthlyLedgerService;
+
 	public List<CategorySpendDTO> getCategorySpendingLastMonths(int months) {
 		AppUser user = appUserService.getCurrentUser();
 		logger.info("Fetching category spending for last {} months for user: {}", months, user.getUsername());
 		LocalDate startDate = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1);
-		List<CategoryMonthlyProjection> projections = accountTransactionRepository.getCategoryMonthlySpend(user.getId(),
-				startDate,
-				List.of(categoryService.getTransferCategory().getId(),
-						categoryService.getSplitTrnsactionCategory().getId()));
+		List<String> excludedCategoryIds = List.of(categoryService.getTransferCategory().getId(),
+				categoryService.getSplitTrnsactionCategory().getId());
+		// startDate is always the first of a month, so the pre-aggregated ledger
+		// can serve this when it is up to date for the user
+		List<CategoryMonthlyProjection> projections = monthlyLedgerService
+				.categoryMonthlySpend(user, YearMonth.from(startDate), excludedCategoryIds)
+				.orElseGet(() -> accountTransactionRepository.getCategoryMonthlySpend(user.getId(), startDate,
+						excludedCategoryIds));
 		logger.info("Found {} category monthly projections for user: {}", projections.size(), user.getUsername());
 		Map<String, CategorySpendDTO> dtoMap = new HashMap<>();
 
@@ -0,0 +1,122 @@
+package com.nklmthr.finance.personal.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Startup check that every hot repository query has an index to seek on.
+ *
+ * Each {@link AccessPattern} names the query and the columns its WHERE clause
+ * pins down. A pattern is covered when some index on the table starts with
+ * exactly those columns (in any order). Uncovered patterns are logged as
+ * warnings so a missing migration shows up in the startup log instead of as a
+ * slow full scan later. Nothing is created or changed here.
+ */
+@Service
+public class IndexCoverageService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndexCoverageService.class);
+
+	record AccessPattern(String query, String table, List<String> columns) {
+	}
+
+	static final List<AccessPattern> ACCESS_PATTERNS = List.of(
+			new AccessPattern("AccountTransactionService list/total filters by date", "account_transactions",
+					List.of("app_user_id", "date")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndCategoryIdsAndDateBetween",
+					"account_transactions", List.of("app_user_id", "category_id")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndParent", "account_transactions",
+					List.of("parent_id", "app_user_id")),
+			new AccessPattern("AccountTransactionRepository.syncHasChildren", "account_transactions",
+					List.of("parent_id")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndSourceThreadId", "account_transactions",
+					List.of("app_user_id", "source_thread_id")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndLinkedTransferId", "account_transactions",
+					List.of("app_user_id", "linked_transfer_id")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndUploadedStatement", "account_transactions",
+					List.of("app_user_id", "uploaded_statement_id")),
+			new AccessPattern("AccountTransactionRepository.findByAccountAndDateBetween", "account_transactions",
+					List.of("account_id", "date")),
+			new AccessPattern("AccountTransactionRepository.findByAppUserAndAccountId", "account_transactions",
+					List.of("account_id")),
+			new AccessPattern("MonthlyLedgerRepository month range reads", "monthly_ledger",
+					List.of("app_user_id", "ledger_month")));
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void reportMissingIndexes() {
+		try {
+			Map<String, List<List<String>>> indexesByTable = new LinkedHashMap<>();
+			for (AccessPattern pattern : ACCESS_PATTERNS) {
+				indexesByTable.computeIfAbsent(pattern.table(), this::loadIndexColumns);
+			}
+			List<AccessPattern> uncovered = uncovered(ACCESS_PATTERNS, indexesByTable);
+			if (uncovered.isEmpty()) {
+				logger.info("Index check: all {} repository access patterns have a supporting index",
+						ACCESS_PATTERNS.size());
+				return;
+			}
+			for (AccessPattern pattern : uncovered) {
+				logger.warn("Index check: no index on {}({}) for {}", pattern.table(),
+						String.join(", ", pattern.columns()), pattern.query());
+			}
+			logger.warn("Index check: {} of {} access patterns lack a supporting index; see sql/add_account_transactions_indexes.sql",
+					uncovered.size(), ACCESS_PATTERNS.size());
+		} catch (Exception e) {
+			logger.warn("Index check skipped: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Ordered column lists of every index on {@code table}, primary key
+	 * included.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<List<String>> loadIndexColumns(String table) {
+		List<Object[]> rows = entityManager.createNativeQuery(
+				"SELECT index_name, column_name FROM information_schema.statistics "
+						+ "WHERE table_schema = DATABASE() AND table_name = :tableName "
+						+ "ORDER BY index_name, seq_in_index")
+				.setParameter("tableName", table)
+				.getResultList();
+		Map<String, List<String>> columnsByIndex = new LinkedHashMap<>();
+		for (Object[] row : rows) {
+			columnsByIndex.computeIfAbsent((String) row[0], k -> new ArrayList<>())
+					.add(((String) row[1]).toLowerCase());
+		}
+		return new ArrayList<>(columnsByIndex.values());
+	}
+
+	static List<AccessPattern> uncovered(List<AccessPattern> patterns, Map<String, List<List<String>>> indexesByTable) {
+		List<AccessPattern> uncovered = new ArrayList<>();
+		for (AccessPattern pattern : patterns) {
+			List<List<String>> indexes = indexesByTable.getOrDefault(pattern.table(), List.of());
+			boolean covered = indexes.stream().anyMatch(index -> leadsWith(index, pattern.columns()));
+			if (!covered) {
+				uncovered.add(pattern);
+			}
+		}
+		return uncovered;
+	}
+
+	private static boolean leadsWith(List<String> indexColumns, List<String> columns) {
+		if (indexColumns.size() < columns.size()) {
+			return false;
+		}
+		return new HashSet<>(indexColumns.subList(0, columns.size())).equals(new HashSet<>(columns));
+	}
+}
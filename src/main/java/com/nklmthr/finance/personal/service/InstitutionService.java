@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.model.Institution;
 import com.nklmthr.finance.personal.repository.InstitutionRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 @Service
 public class InstitutionService {
@@ -18,6 +19,9 @@ public class InstitutionService {
 	@Autowired
 	private InstitutionRepository institutionRepository;
 
+	@Autowired
+	private AccountFuzzyMatcher accountFuzzyMatcher;
+
 	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(InstitutionService.class);
 
 	public List<Institution> getAllInstitutions() {
@@ -50,7 +54,10 @@ public class InstitutionService {
 			institution.setDescription(updatedInstitution.getDescription());
 			institution.setAppUser(appUser);
 			logger.info("Updating institution with id: {} for user: {}", id, appUser.getUsername());
-			return institutionRepository.save(institution);
+			Institution saved = institutionRepository.save(institution);
+			// Account matching scores the institution name
+			accountFuzzyMatcher.invalidate(appUser);
+			return saved;
 		}).orElseThrow(() -> new IllegalArgumentException("Institution not found with id " + id));
 	}
 
@@ -0,0 +1,301 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.MonthlyLedgerEntry;
+import com.nklmthr.finance.personal.repository.AppUserRepository;
+import com.nklmthr.finance.personal.repository.CategoryMonthlyProjection;
+import com.nklmthr.finance.personal.repository.MonthlyLedgerRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Maintains the {@code monthly_ledger} rollup and answers month-aligned
+ * total/spend questions from it.
+ *
+ * Writers call {@link #markDirty} with the dates they touched; the affected
+ * (user, month) buckets are re-aggregated once, after the surrounding
+ * transaction commits, in a transaction of their own. A full rebuild runs at
+ * startup and nightly to heal any drift. Refreshes and rebuilds of one user run
+ * one at a time, so concurrent writers (statement jobs, Gmail ingestion) never
+ * race each other's DELETE and INSERT on the same month range; a deadlock
+ * against other writers is retried. Until the startup backfill finishes,
+ * or after a refresh fails for a user, {@link #isAvailable} returns false and
+ * callers fall back to scanning account_transactions.
+ */
+@Service
+public class MonthlyLedgerService {
+
+	private static final Logger logger = LoggerFactory.getLogger(MonthlyLedgerService.class);
+
+	private static final String PENDING_MONTHS_KEY = MonthlyLedgerService.class.getName() + ".pendingMonths";
+
+	private static final LocalDateTime LEDGER_START = LocalDateTime.of(1900, 1, 1, 0, 0);
+	private static final LocalDateTime LEDGER_END = LocalDateTime.of(3000, 1, 1, 0, 0);
+
+	private static final int MAX_REFRESH_ATTEMPTS = 3;
+
+	@Autowired
+	private MonthlyLedgerRepository monthlyLedgerRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private volatile boolean backfilled = false;
+
+	private final Set<String> staleUsers = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, ReentrantLock> userLocks = new ConcurrentHashMap<>();
+
+	public record LedgerTotals(long count, BigDecimal total) {
+	}
+
+	public boolean isAvailable(AppUser appUser) {
+		return backfilled && appUser != null && !staleUsers.contains(appUser.getId());
+	}
+
+	/**
+	 * Records that transactions dated on {@code dates} changed for this user.
+	 * Inside a transaction the months are collected and refreshed once after
+	 * commit (so a bulk import refreshes each month once, and a rollback
+	 * refreshes nothing); outside a transaction they are refreshed immediately.
+	 */
+	@SuppressWarnings("unchecked")
+	public void markDirty(AppUser appUser, LocalDateTime... dates) {
+		if (appUser == null || dates == null) {
+			return;
+		}
+		Set<YearMonth> months = new TreeSet<>();
+		for (LocalDateTime date : dates) {
+			if (date != null) {
+				months.add(YearMonth.from(date));
+			}
+		}
+		if (months.isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			refreshMonths(appUser.getId(), months);
+			return;
+		}
+
+		Map<String, Set<YearMonth>> pending = (Map<String, Set<YearMonth>>) TransactionSynchronizationManager
+				.getResource(PENDING_MONTHS_KEY);
+		if (pending == null) {
+			Map<String, Set<YearMonth>> toRefresh = new HashMap<>();
+			pending = toRefresh;
+			TransactionSynchronizationManager.bindResource(PENDING_MONTHS_KEY, toRefresh);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					toRefresh.forEach(MonthlyLedgerService.this::refreshMonths);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_MONTHS_KEY);
+				}
+			});
+		}
+		pending.computeIfAbsent(appUser.getId(), k -> new TreeSet<>()).addAll(months);
+	}
+
+	/**
+	 * Re-aggregates the given months for one user in a new transaction, under
+	 * the user's refresh lock. A lock-wait timeout or deadlock is retried up to
+	 * {@value #MAX_REFRESH_ATTEMPTS} times; any other failure, or running out of
+	 * attempts, marks the user stale so reads fall back to the raw scan until
+	 * the next full rebuild.
+	 */
+	public void refreshMonths(String userId, Set<YearMonth> months) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		ReentrantLock lock = userLock(userId);
+		lock.lock();
+		try {
+			for (int attempt = 1;; attempt++) {
+				try {
+					template.executeWithoutResult(status -> {
+						for (YearMonth month : months) {
+							monthlyLedgerRepository.deleteMonthRange(userId, month.toString(), month.toString());
+							monthlyLedgerRepository.insertAggregatedRange(userId, month.atDay(1).atStartOfDay(),
+									month.plusMonths(1).atDay(1).atStartOfDay());
+						}
+					});
+					logger.debug("Refreshed monthly ledger for user {} months {}", userId, months);
+					return;
+				} catch (PessimisticLockingFailureException e) {
+					if (attempt >= MAX_REFRESH_ATTEMPTS) {
+						markStale(userId, months, e);
+						return;
+					}
+					logger.info("Monthly ledger refresh for user {} months {} hit a lock conflict, retrying (attempt {} of {})",
+							userId, months, attempt + 1, MAX_REFRESH_ATTEMPTS);
+				} catch (Exception e) {
+					markStale(userId, months, e);
+					return;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void rebuildUser(String userId) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		ReentrantLock lock = userLock(userId);
+		lock.lock();
+		try {
+			template.executeWithoutResult(status -> {
+				monthlyLedgerRepository.deleteMonthRange(userId, "0000-00", "9999-99");
+				monthlyLedgerRepository.insertAggregatedRange(userId, LEDGER_START, LEDGER_END);
+			});
+			staleUsers.remove(userId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private ReentrantLock userLock(String userId) {
+		return userLocks.computeIfAbsent(userId, k -> new ReentrantLock());
+	}
+
+	private void markStale(String userId, Set<YearMonth> months, Exception e) {
+		staleUsers.add(userId);
+		logger.warn("Failed to refresh monthly ledger for user {} months {}; falling back to raw scans: {}", userId,
+				months, e.getMessage());
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillOnStartup() {
+		rebuildAll();
+		backfilled = true;
+	}
+
+	@Scheduled(cron = "${ledger.rebuild.cron:0 30 3 * * *}")
+	public void rebuildAll() {
+		long start = System.currentTimeMillis();
+		int rebuilt = 0;
+		for (AppUser user : appUserRepository.findAll()) {
+			try {
+				rebuildUser(user.getId());
+				rebuilt++;
+			} catch (Exception e) {
+				staleUsers.add(user.getId());
+				logger.error("Monthly ledger rebuild failed for user {}: {}", user.getUsername(), e.getMessage(), e);
+			}
+		}
+		logger.info("Rebuilt monthly ledger for {} users in {} ms", rebuilt, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Count and signed total (CREDIT positive, DEBIT negative) over whole
+	 * months. {@code leaf} selects leaf-row measures (category filters),
+	 * otherwise root-row measures (the unfiltered list). Null filters and null
+	 * months are unconstrained.
+	 */
+	public Optional<LedgerTotals> totals(AppUser appUser, YearMonth fromMonth, YearMonth toMonth, String accountId,
+			TransactionType type, Set<String> categoryIds, boolean leaf) {
+		if (!isAvailable(appUser)) {
+			return Optional.empty();
+		}
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<MonthlyLedgerEntry> root = query.from(MonthlyLedgerEntry.class);
+
+		Expression<BigDecimal> amount = root.get(leaf ? "leafAmount" : "rootAmount");
+		Expression<Long> count = root.get(leaf ? "leafCount" : "rootCount");
+		Expression<BigDecimal> signed = cb.<BigDecimal>selectCase()
+				.when(cb.equal(root.get("type"), TransactionType.CREDIT), amount)
+				.otherwise(cb.neg(amount));
+
+		List<Predicate> predicates = new ArrayList<>();
+		predicates.add(cb.equal(root.get("appUserId"), appUser.getId()));
+		if (fromMonth != null) {
+			predicates.add(cb.greaterThanOrEqualTo(root.get("month"), fromMonth.toString()));
+		}
+		if (toMonth != null) {
+			predicates.add(cb.lessThanOrEqualTo(root.get("month"), toMonth.toString()));
+		}
+		if (accountId != null) {
+			predicates.add(cb.equal(root.get("accountId"), accountId));
+		}
+		if (type != null) {
+			predicates.add(cb.equal(root.get("type"), type));
+		}
+		if (categoryIds != null) {
+			predicates.add(root.get("categoryId").in(categoryIds));
+		}
+		query.multiselect(cb.coalesce(cb.sum(count), 0L), cb.coalesce(cb.sum(signed), BigDecimal.ZERO))
+				.where(predicates.toArray(new Predicate[0]));
+
+		Tuple result = entityManager.createQuery(query).getSingleResult();
+		Long total = result.get(0, Long.class);
+		BigDecimal sum = result.get(1, BigDecimal.class);
+		return Optional.of(new LedgerTotals(total != null ? total : 0L, sum != null ? sum : BigDecimal.ZERO));
+	}
+
+	public Optional<List<CategoryMonthlyProjection>> categoryMonthlySpend(AppUser appUser, YearMonth startMonth,
+			List<String> excludedCategoryIds) {
+		if (!isAvailable(appUser)) {
+			return Optional.empty();
+		}
+		return Optional.of(monthlyLedgerRepository.getCategoryMonthlySpend(appUser.getId(), startMonth.toString(),
+				excludedCategoryIds));
+	}
+
+	/**
+	 * Leaf [categoryId, month, type, sum, count] rows over whole months, shaped
+	 * like the raw {@code sumLeafAmountsByCategoryMonthAndType} query, for bulk
+	 * prediction generation.
+	 */
+	public Optional<List<Object[]>> leafTotalsByCategoryAndMonth(AppUser appUser, YearMonth fromMonth,
+			YearMonth toMonth) {
+		if (!isAvailable(appUser)) {
+			return Optional.empty();
+		}
+		return Optional.of(monthlyLedgerRepository.findLeafTotalsByCategoryAndMonthRange(appUser.getId(),
+				fromMonth.toString(), toMonth.toString()));
+	}
+}
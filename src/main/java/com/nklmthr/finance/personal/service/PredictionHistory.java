@@ -0,0 +1,71 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+
+/**
+ * A user's leaf-transaction history over a month range, loaded once so that
+ * bulk prediction generation can answer every (rule, target month) window in
+ * memory: net totals (DEBIT positive, CREDIT negative) and counts per
+ * (category, month).
+ */
+final class PredictionHistory {
+
+	/**
+	 * History of a category subtree over a month window.
+	 */
+	record Window(BigDecimal net, long count) {
+	}
+
+	private static final class Bucket {
+		private BigDecimal net = BigDecimal.ZERO;
+		private long count;
+	}
+
+	private final Map<String, Map<YearMonth, Bucket>> bucketsByCategory = new HashMap<>();
+
+	/**
+	 * Adds one [categoryId, month (yyyy-MM), type, sum, count] row.
+	 */
+	void addTotals(Object[] row) {
+		if (row[0] == null || row[1] == null || row[3] == null) {
+			return;
+		}
+		Bucket bucket = bucket((String) row[0], YearMonth.parse((String) row[1]));
+		BigDecimal sum = (BigDecimal) row[3];
+		bucket.net = row[2] == TransactionType.CREDIT ? bucket.net.subtract(sum) : bucket.net.add(sum);
+		bucket.count += ((Number) row[4]).longValue();
+	}
+
+	/**
+	 * Totals of {@code categoryIds} in [from, to].
+	 */
+	Window window(Set<String> categoryIds, YearMonth from, YearMonth to) {
+		BigDecimal net = BigDecimal.ZERO;
+		long count = 0;
+		for (String categoryId : categoryIds) {
+			Map<YearMonth, Bucket> months = bucketsByCategory.get(categoryId);
+			if (months == null) {
+				continue;
+			}
+			for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+				Bucket bucket = months.get(month);
+				if (bucket != null) {
+					net = net.add(bucket.net);
+					count += bucket.count;
+				}
+			}
+		}
+		return new Window(net, count);
+	}
+
+	private Bucket bucket(String categoryId, YearMonth month) {
+		return bucketsByCategory.computeIfAbsent(categoryId, k -> new HashMap<>())
+				.computeIfAbsent(month, k -> new Bucket());
+	}
+}
@@ -0,0 +1,101 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read side of prediction progress: a user's leaf-transaction totals for one
+ * month by category and type, from a single grouped SUM, cached per
+ * (user, month).
+ *
+ * {@link PredictionService} derives a prediction's actual and remaining
+ * amounts from these totals over the rule category's subtree when it is read.
+ * Transaction writers never touch the cache directly: they publish a
+ * {@link TransactionsChangedEvent}, and {@link PredictionRecomputeWorker}
+ * evicts the month after commit and recomputes it in the background.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PredictionProgressService {
+
+	static final String CACHE_NAME = "predictionProgress";
+
+	private final AccountTransactionRepository accountTransactionRepository;
+	private final CacheManager cacheManager;
+
+	/**
+	 * Leaf-transaction totals of one month per category id, by type.
+	 */
+	public record MonthTotals(Map<String, BigDecimal> debitByCategory, Map<String, BigDecimal> creditByCategory) {
+
+		public BigDecimal sum(Set<String> categoryIds, TransactionType type) {
+			Map<String, BigDecimal> totals = type == TransactionType.CREDIT ? creditByCategory : debitByCategory;
+			BigDecimal sum = BigDecimal.ZERO;
+			for (String categoryId : categoryIds) {
+				BigDecimal total = totals.get(categoryId);
+				if (total != null) {
+					sum = sum.add(total);
+				}
+			}
+			return sum;
+		}
+	}
+
+	@Cacheable(value = CACHE_NAME, key = "#appUser.id + '_' + #month")
+	public MonthTotals monthTotals(AppUser appUser, YearMonth month) {
+		return loadMonthTotals(appUser, month);
+	}
+
+	/**
+	 * The month's totals straight from the database, bypassing the cache.
+	 */
+	public MonthTotals loadMonthTotals(AppUser appUser, YearMonth month) {
+		Map<String, BigDecimal> debits = new HashMap<>();
+		Map<String, BigDecimal> credits = new HashMap<>();
+		for (Object[] row : accountTransactionRepository.sumLeafAmountsByCategoryAndType(appUser,
+				month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay())) {
+			Map<String, BigDecimal> totals = row[1] == TransactionType.CREDIT ? credits : debits;
+			totals.put((String) row[0], (BigDecimal) row[2]);
+		}
+		log.debug("Loaded prediction progress totals for user {} in {}: {} debit and {} credit categories",
+				appUser.getId(), month, debits.size(), credits.size());
+		return new MonthTotals(debits, credits);
+	}
+
+	public void store(AppUser appUser, YearMonth month, MonthTotals totals) {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache != null) {
+			cache.put(key(appUser, month), totals);
+		}
+	}
+
+	/**
+	 * Drops the cached totals of one month so the next read reloads them.
+	 */
+	public void invalidate(AppUser appUser, YearMonth month) {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache != null) {
+			cache.evict(key(appUser, month));
+		}
+	}
+
+	private static String key(AppUser appUser, YearMonth month) {
+		return appUser.getId() + "_" + month;
+	}
+}
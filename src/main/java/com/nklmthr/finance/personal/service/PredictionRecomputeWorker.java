@@ -0,0 +1,106 @@
+package com.nklmthr.finance.personal.service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.PredictedTransactionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps prediction progress warm after transaction writes.
+ *
+ * Each committed {@link TransactionsChangedEvent} evicts the month's cached
+ * totals at once, so reads never see the old figures, and queues the
+ * (user, month) for a recompute. Events for a month already queued fold into
+ * the same entry, and an entry is only recomputed once it is
+ * {@code prediction.recompute.debounce-ms} old, so an import that saves
+ * hundreds of rows into a month costs one grouped SUM, not one per row.
+ * Months without visible predictions are not recomputed; their totals load
+ * on the next read, if any.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PredictionRecomputeWorker {
+
+	private record Pending(AppUser appUser, YearMonth month, long dueAt) {
+	}
+
+	private final PredictionProgressService predictionProgressService;
+	private final PredictedTransactionRepository predictedTransactionRepository;
+
+	@Value("${prediction.recompute.debounce-ms:2000}")
+	private long debounceMs;
+
+	private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onTransactionsChanged(TransactionsChangedEvent event) {
+		if (event.appUser() == null) {
+			return;
+		}
+		// Queue before evicting: a recompute racing with this event then either
+		// sees the entry and skips storing, or stores totals that the queued
+		// entry replaces once it is due
+		pending.putIfAbsent(key(event.appUser(), event.month()),
+				new Pending(event.appUser(), event.month(), System.currentTimeMillis() + debounceMs));
+		predictionProgressService.invalidate(event.appUser(), event.month());
+	}
+
+	@Scheduled(fixedDelayString = "${prediction.recompute.poll-interval-ms:500}")
+	public void recomputeDue() {
+		long now = System.currentTimeMillis();
+		int recomputed = 0;
+		for (Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Pending> entry = it.next();
+			Pending due = entry.getValue();
+			if (due.dueAt() > now) {
+				continue;
+			}
+			it.remove();
+			try {
+				if (recompute(entry.getKey(), due)) {
+					recomputed++;
+				}
+			} catch (Exception e) {
+				log.warn("Failed to recompute prediction progress for user {} in {}: {}", due.appUser().getId(),
+						due.month(), e.getMessage());
+			}
+		}
+		if (recomputed > 0) {
+			log.debug("Recomputed prediction progress for {} month(s), {} still queued", recomputed, pending.size());
+		}
+	}
+
+	private boolean recompute(String key, Pending due) {
+		if (!predictedTransactionRepository.existsByAppUserAndPredictionMonthAndVisibleTrue(due.appUser(),
+				due.month().format(DateTimeFormatter.ofPattern("yyyy-MM")))) {
+			return false;
+		}
+		PredictionProgressService.MonthTotals totals = predictionProgressService.loadMonthTotals(due.appUser(),
+				due.month());
+		// A write that landed meanwhile has queued the month again; its
+		// recompute will store the newer totals
+		if (pending.containsKey(key)) {
+			return false;
+		}
+		predictionProgressService.store(due.appUser(), due.month(), totals);
+		return true;
+	}
+
+	private static String key(AppUser appUser, YearMonth month) {
+		return appUser.getId() + "_" + month;
+	}
+}
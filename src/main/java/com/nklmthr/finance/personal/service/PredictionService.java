@@ -6,76 +6,44 @@ import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.nklmthr.finance.personal.dto.PredictedTransactionDTO;
 import com.nklmthr.finance.personal.enums.PredictionType;
 import com.nklmthr.finance.personal.enums.TransactionType;
 import com.nklmthr.finance.personal.model.AccountTransaction;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.model.Category;
 import com.nklmthr.finance.personal.model.PredictedTransaction;
-import com.nklmthr.finance.personal.model.PredictionActualTxnMapping;
-import com.nklmthr.finance.personal.model.PredictionHistoricalTxnMapping;
 import com.nklmthr.finance.personal.model.PredictionRule;
 import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
 import com.nklmthr.finance.personal.repository.PredictedTransactionRepository;
 import com.nklmthr.finance.personal.repository.PredictionActualTxnMappingRepository;
 import com.nklmthr.finance.personal.repository.PredictionHistoricalTxnMappingRepository;
 import com.nklmthr.finance.personal.repository.PredictionRuleRepository;
+import com.nklmthr.finance.personal.service.PredictionProgressService.MonthTotals;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * TODO(prediction-concurrency): The prediction running totals are derived data
- * that we currently denormalize into mutable counters on {@link PredictedTransaction}
- * ({@code actualSpent} / {@code remainingAmount}) and rebuild via delete-then-insert
- * on {@code prediction_actual_txn_mapping}. This is race-prone under any genuine
- * concurrency (e.g. {@link com.nklmthr.finance.personal.scheduler.ConfigurableDataExtractionService}
- * importing a transaction while the user edits another in the same category, or
- * the same user editing from multiple browser tabs). Three known gaps:
+ * Prediction rules and their monthly predicted transactions.
  *
- *   1. NO OPTIMISTIC LOCKING. {@link PredictedTransaction} has no {@code @Version}.
- *      Two concurrent flows that both read {@code actualSpent = X} and write
- *      {@code X.add(amountA)} / {@code X.add(amountB)} silently lose one update —
- *      the row ends up with the wrong total, no exception thrown.
- *      Quick fix: add {@code @Version Long version} to PredictedTransaction and
- *      let callers retry on {@link org.springframework.orm.ObjectOptimisticLockingFailureException}.
- *
- *   2. DELETE-THEN-INSERT ON A UNIQUE-KEYED TABLE.
- *      {@link #adjustPredictionForActualTransaction} calls
- *      {@link #removePredictionAdjustmentForTransaction} (which deletes mapping
- *      rows) and then re-inserts new rows. {@code prediction_actual_txn_mapping}
- *      has a unique index on {@code (predicted_transaction_id, actual_transaction_id)},
- *      so under InnoDB this acquires gap locks on the unique index and is the
- *      classic deadlock recipe (SQLState 40001 / Error 1213). The duplicate UI
- *      PUTs that hit production on 2026-06-02 surfaced this; the cron-driven
- *      email/SMS extractor concurrent with a user edit will too.
- *      Fix: replace delete + insert with an upsert (MERGE / INSERT ... ON DUPLICATE
- *      KEY UPDATE), so the operation is a single idempotent statement.
- *
- *   3. {@code @Transactional(noRollbackFor = Exception.class)} BELOW IS MISLEADING.
- *      The intent (per its Javadoc) is "don't let prediction failures roll back
- *      the caller's account_transaction save". But the failing INSERT is queued
- *      in the persistence context and only executes during the OUTER transaction's
- *      commit/flush — after {@code AccountTransactionService.applyPredictionAdjustment}'s
- *      catch block has already returned. The outer transaction is therefore still
- *      marked rollback-only on a deadlock, and the user-facing transaction save
- *      is also lost. The 2026-06-02 incident only "looked fine" because the
- *      duplicate edits were no-ops. Fix: address (1) and (2); the noRollbackFor
- *      guard becomes meaningful once the inner write can no longer fail at flush.
- *
- *   PREFERRED LONG-TERM FIX: stop denormalizing {@code actualSpent} /
- *   {@code remainingAmount} entirely. Compute them on read via
- *   {@code SUM(amount_applied)} over {@code prediction_actual_txn_mapping} (or
- *   {@code SUM} over {@code account_transaction} filtered by category descendants
- *   + month). This removes the shared mutable row, makes the whole flow naturally
- *   idempotent, and obviates the need for both @Version and the upsert.
+ * A prediction row stores only what was known when it was generated: the
+ * predicted amount and the historical transactions behind it. Progress
+ * against it ({@code actualSpent} / {@code remainingAmount}) is computed on
+ * read from {@link PredictionProgressService}'s cached monthly leaf totals
+ * over the rule category's subtree, so transaction writes never update a
+ * prediction row; they only publish a {@link TransactionsChangedEvent} for
+ * the months they touch.
  */
 @Service
 @RequiredArgsConstructor
@@ -89,6 +57,8 @@ public class PredictionService {
 	private final PredictionHistoricalTxnMappingRepository historicalMappingRepository;
 	private final PredictionActualTxnMappingRepository actualMappingRepository;
 	private final CategoryService categoryService;
+	private final MonthlyLedgerService monthlyLedgerService;
+	private final PredictionProgressService predictionProgressService;
 
 	/**
 	 * Get all prediction rules for a user
@@ -140,12 +110,10 @@ public class PredictionService {
 			// Get all predicted transactions for this rule
 			List<PredictedTransaction> predictions = predictedTransactionRepository.findByPredictionRule(rule);
 			
-			// Delete mappings for each predicted transaction first
-			for (PredictedTransaction prediction : predictions) {
-				// Delete historical mappings
-				historicalMappingRepository.deleteByPredictedTransaction(prediction);
-				// Delete actual mappings
-				actualMappingRepository.deleteByPredictedTransaction(prediction);
+			// Delete the mappings of all its predictions first, one statement each
+			if (!predictions.isEmpty()) {
+				historicalMappingRepository.deleteByPredictedTransactionIn(predictions);
+				actualMappingRepository.deleteByPredictedTransactionIn(predictions);
 			}
 			
 			// Now delete predicted transactions
@@ -186,106 +154,136 @@ public class PredictionService {
 		}
 		
 		PredictionRule rule = ruleOpt.get();
-		YearMonth currentMonth = YearMonth.now();
+		// Start from the current month to allow generating predictions for it
+		generateInBulk(rule.getAppUser(), List.of(rule), monthsFromNow(monthsAhead), true);
+	}
 
-		// Start from i=0 to allow generating predictions for the current month
-		for (int i = 0; i <= monthsAhead; i++) {
-			YearMonth targetMonth = currentMonth.plusMonths(i);
-			
-			// Skip if this is a yearly prediction and current month doesn't match
-			if (rule.getPredictionType() == PredictionType.YEARLY) {
-				if (rule.getSpecificMonth() == null || 
-				    rule.getSpecificMonth() != targetMonth.getMonthValue()) {
+	/**
+	 * Generates predictions for every applicable (rule, target month) pair in
+	 * one pass: one grouped read of the user's leaf totals over the combined
+	 * lookback horizon (from the monthly ledger when available), rolling
+	 * averages in memory, saveAll for the predictions so Hibernate sends them
+	 * as JDBC batches, and one INSERT ... SELECT per prediction for its
+	 * historical mappings. An existing prediction for the same (rule, month) is
+	 * replaced when {@code replaceExisting}, otherwise it is kept.
+	 */
+	private void generateInBulk(AppUser user, List<PredictionRule> rules, List<YearMonth> targetMonths,
+			boolean replaceExisting) {
+		long start = System.currentTimeMillis();
+		YearMonth firstTarget = Collections.min(targetMonths);
+		YearMonth lastTarget = Collections.max(targetMonths);
+		Map<String, PredictedTransaction> existingByRuleMonth = new HashMap<>();
+		for (PredictedTransaction existing : predictedTransactionRepository.findByAppUserAndPredictionMonthBetween(
+				user, formatMonth(firstTarget), formatMonth(lastTarget))) {
+			existingByRuleMonth.put(existing.getPredictionRule().getId() + "_" + existing.getPredictionMonth(), existing);
+		}
+
+		List<PredictionRule> pairRules = new ArrayList<>();
+		List<YearMonth> pairMonths = new ArrayList<>();
+		List<PredictedTransaction> replaced = new ArrayList<>();
+		YearMonth horizonStart = null;
+		for (PredictionRule rule : rules) {
+			for (YearMonth targetMonth : targetMonths) {
+				// Skip if this is a yearly prediction and the month doesn't match
+				if (rule.getPredictionType() == PredictionType.YEARLY
+						&& (rule.getSpecificMonth() == null || rule.getSpecificMonth() != targetMonth.getMonthValue())) {
 					continue;
 				}
+				PredictedTransaction existing = existingByRuleMonth.get(rule.getId() + "_" + formatMonth(targetMonth));
+				if (existing != null) {
+					if (!replaceExisting) {
+						log.debug("Prediction already exists for rule {} and month {}, skipping", rule.getId(),
+							formatMonth(targetMonth));
+						continue;
+					}
+					replaced.add(existing);
+				}
+				pairRules.add(rule);
+				pairMonths.add(targetMonth);
+				YearMonth windowStart = targetMonth.minusMonths(rule.getLookbackMonths());
+				if (horizonStart == null || windowStart.isBefore(horizonStart)) {
+					horizonStart = windowStart;
+				}
 			}
-			
-			String monthString = targetMonth.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-			
-			// Delete existing prediction and its mappings if any
-			Optional<PredictedTransaction> existingPredictionOpt = 
-				predictedTransactionRepository.findByPredictionRuleAndPredictionMonth(rule, monthString);
-			
-			if (existingPredictionOpt.isPresent()) {
-				PredictedTransaction existingPrediction = existingPredictionOpt.get();
-				// Delete mappings first (cascade should handle this, but being explicit)
-				historicalMappingRepository.deleteByPredictedTransaction(existingPrediction);
-				actualMappingRepository.deleteByPredictedTransaction(existingPrediction);
-				predictedTransactionRepository.delete(existingPrediction);
-				// Force flush to ensure deletion is committed before inserting new prediction
-				predictedTransactionRepository.flush();
-				log.debug("Deleted existing prediction for rule {} and month {}", ruleId, monthString);
-			}
-			
-			// Calculate and create new prediction
-			PredictedTransaction prediction = calculatePrediction(rule.getAppUser(), rule, targetMonth);
+		}
+		if (pairRules.isEmpty()) {
+			return;
+		}
+
+		if (!replaced.isEmpty()) {
+			// Mappings first, then the predictions; bulk deletes run right away,
+			// ahead of the inserts that reuse the same (rule, month) keys
+			historicalMappingRepository.deleteByPredictedTransactionIn(replaced);
+			actualMappingRepository.deleteByPredictedTransactionIn(replaced);
+			predictedTransactionRepository.deleteAllInBatch(replaced);
+		}
+
+		// The lookback window ends the month before the target, so the history
+		// never includes the last target month itself
+		YearMonth horizonEnd = lastTarget.minusMonths(1);
+		LocalDateTime startDate = horizonStart.atDay(1).atStartOfDay();
+		LocalDateTime endDate = lastTarget.atDay(1).atStartOfDay();
+		PredictionHistory history = new PredictionHistory();
+		monthlyLedgerService.leafTotalsByCategoryAndMonth(user, horizonStart, horizonEnd)
+			.orElseGet(() -> accountTransactionRepository.sumLeafAmountsByCategoryMonthAndType(user, startDate, endDate))
+			.forEach(history::addTotals);
+
+		Map<String, Set<String>> descendantsByCategory = new HashMap<>();
+		List<PredictedTransaction> predictions = new ArrayList<>();
+		List<Set<String>> predictionCategoryIds = new ArrayList<>();
+		for (int i = 0; i < pairRules.size(); i++) {
+			PredictionRule rule = pairRules.get(i);
+			YearMonth targetMonth = pairMonths.get(i);
+			Category category = rule.getCategory();
+			Set<String> categoryIds = descendantsByCategory.computeIfAbsent(category.getId(),
+				id -> categoryService.getAllDescendantCategoryIds(user, id));
+			PredictionHistory.Window window = history.window(categoryIds,
+				targetMonth.minusMonths(rule.getLookbackMonths()), targetMonth.minusMonths(1));
+			PredictedTransaction prediction = buildPrediction(user, rule, targetMonth, window, categoryIds.size());
 			if (prediction != null) {
-				// Save prediction first
-				PredictedTransaction savedPrediction = predictedTransactionRepository.save(prediction);
-				// Then create historical mappings
-				createHistoricalMappings(savedPrediction, rule, targetMonth);
-				
-				// Automatically recalculate actual transactions for this month
-				try {
-					recalculatePredictionsForMonth(monthString);
-					log.info("Auto-recalculated actual transactions for prediction month {}", monthString);
-				} catch (Exception e) {
-					log.warn("Failed to auto-recalculate actual transactions for month {}: {}", 
-						monthString, e.getMessage());
-				}
+				predictions.add(prediction);
+				predictionCategoryIds.add(categoryIds);
 			}
 		}
+
+		// Flushed so the mapping inserts below can reference the new rows
+		List<PredictedTransaction> saved = predictedTransactionRepository.saveAllAndFlush(predictions);
+		// Mappings are materialised in SQL from the same leaf filter; both DEBIT
+		// and CREDIT, since both are used in the net average
+		int mappings = 0;
+		for (int i = 0; i < saved.size(); i++) {
+			PredictedTransaction prediction = saved.get(i);
+			YearMonth targetMonth = YearMonth.parse(prediction.getPredictionMonth());
+			mappings += historicalMappingRepository.insertFromLeafTransactions(prediction.getId(), user.getId(),
+				predictionCategoryIds.get(i),
+				targetMonth.minusMonths(prediction.getPredictionRule().getLookbackMonths()).atDay(1).atStartOfDay(),
+				targetMonth.atDay(1).atStartOfDay());
+		}
+
+		log.info("Generated {} predictions ({} replaced) with {} historical mappings for {} rule(s) x {} month(s) in {} ms",
+			saved.size(), replaced.size(), mappings, rules.size(), targetMonths.size(),
+			System.currentTimeMillis() - start);
 	}
 
 	/**
-	 * Calculate prediction based on historical transactions
+	 * Build the prediction for a rule and month from the net history of its
+	 * lookback window, or null when there is no history to average.
 	 */
-	private PredictedTransaction calculatePrediction(AppUser user, PredictionRule rule, YearMonth targetMonth) {
+	private PredictedTransaction buildPrediction(AppUser user, PredictionRule rule, YearMonth targetMonth,
+			PredictionHistory.Window window, int categoryCount) {
 		Category category = rule.getCategory();
 		int lookbackMonths = rule.getLookbackMonths();
-		
-		// Calculate the date range for lookback
-		YearMonth startMonth = targetMonth.minusMonths(lookbackMonths);
-		LocalDateTime startDate = startMonth.atDay(1).atStartOfDay();
-		LocalDateTime endDate = targetMonth.minusMonths(1).atEndOfMonth().atTime(23, 59, 59);
-		
-		// Get historical transactions sum across this category and all descendants
-		Set<String> categoryIds = categoryService.getAllDescendantCategoryIds(user, category.getId());
-		List<Object[]> results = accountTransactionRepository
-			.findAverageAmountByCategoryIdsAndDateRange(user, categoryIds, startDate, endDate);
-		
-		if (results.isEmpty() || results.get(0) == null) {
-			log.debug("No historical data found for category: {} in date range: {} to {}", 
-				category.getName(), startDate, endDate);
+		if (window.count() == 0 || window.net().compareTo(BigDecimal.ZERO) == 0) {
+			log.debug("No historical data found for category: {} in the {} month(s) before {}",
+				category.getName(), lookbackMonths, targetMonth);
 			return null;
 		}
 		
-		Object[] result = results.get(0);
-		
-		// Convert to BigDecimal - handle both Double and BigDecimal from database
-		BigDecimal totalSum;
-		if (result[0] instanceof Double) {
-			totalSum = BigDecimal.valueOf((Double) result[0]);
-		} else if (result[0] instanceof BigDecimal) {
-			totalSum = (BigDecimal) result[0];
-		} else if (result[0] == null) {
-			return null;
-		} else {
-			// Fallback: try to parse as string
-			totalSum = new BigDecimal(result[0].toString());
-		}
-		
-		// Get transaction type - result[1] is a String from the CASE statement
-		String txTypeString = (String) result[1];
-		TransactionType txType = TransactionType.valueOf(txTypeString);
-		Long count = (Long) result[2];
-		
-		if (totalSum == null || totalSum.compareTo(BigDecimal.ZERO) == 0) {
-			return null;
-		}
+		// The net sign decides the type: spending categories come out as DEBIT
+		TransactionType txType = window.net().signum() >= 0 ? TransactionType.DEBIT : TransactionType.CREDIT;
 		
 		// Calculate monthly average by dividing total sum by lookback months
-		BigDecimal monthlyAverage = totalSum.divide(
+		BigDecimal monthlyAverage = window.net().divide(
 			BigDecimal.valueOf(lookbackMonths), 
 			2, 
 			RoundingMode.HALF_UP
@@ -298,173 +296,37 @@ public class PredictionService {
 		
 		String explanation = String.format(
 			"Based on monthly average of %d transaction(s) from past %d month(s) across %d category(ies)",
-			count, lookbackMonths, categoryIds.size());
+			window.count(), lookbackMonths, categoryCount);
 		
-		// Create predicted transaction
-		PredictedTransaction prediction = PredictedTransaction.builder()
+		return PredictedTransaction.builder()
 			.appUser(user)
 			.predictionRule(rule)
 			.category(category)
 			.predictedAmount(monthlyAverage)
-			.remainingAmount(monthlyAverage)  // Initially, remaining equals predicted
-			.actualSpent(BigDecimal.ZERO)  // No spending yet
+			.remainingAmount(monthlyAverage)  // Generation-time value; progress is computed on read
+			.actualSpent(BigDecimal.ZERO)
 			.transactionType(txType)
-			.predictionMonth(targetMonth.format(DateTimeFormatter.ofPattern("yyyy-MM")))
+			.predictionMonth(formatMonth(targetMonth))
 			.description(description)
 			.explanation(explanation)
 			.currency("INR")
 			.calculationDate(LocalDateTime.now())
-			.basedOnTransactionCount(count.intValue())
+			.basedOnTransactionCount((int) window.count())
 			.visible(true)
 			.build();
-		
-		// Note: We don't save prediction here or create mappings
-		// The caller (regeneratePredictionsForRule or generatePredictions) will save it
-		// and call createHistoricalMappings afterwards
-		return prediction;
-	}
-	
-	/**
-	 * Create mappings between a predicted transaction and the historical transactions used for calculation
-	 * Includes ALL transactions (both DEBIT and CREDIT) since they all contribute to the net average
-	 */
-	@Transactional
-	public void createHistoricalMappings(PredictedTransaction prediction, PredictionRule rule, YearMonth targetMonth) {
-		AppUser user = prediction.getAppUser();
-		Category category = rule.getCategory();
-		int lookbackMonths = rule.getLookbackMonths();
-		
-		// Calculate the same date range used for prediction
-		YearMonth startMonth = targetMonth.minusMonths(lookbackMonths);
-		LocalDateTime startDate = startMonth.atDay(1).atStartOfDay();
-		LocalDateTime endDate = targetMonth.minusMonths(1).atEndOfMonth().atTime(23, 59, 59);
-		
-		// Get all historical transactions across this category and all descendants
-		// Include both DEBIT and CREDIT since both are used in net average calculation
-		Set<String> categoryIds = categoryService.getAllDescendantCategoryIds(user, category.getId());
-		List<AccountTransaction> historicalTxns = accountTransactionRepository
-			.findByAppUserAndCategoryIdsAndDateBetween(user, categoryIds, startDate, endDate);
-		
-		// Create mappings for each historical transaction
-		for (AccountTransaction historicalTxn : historicalTxns) {
-			PredictionHistoricalTxnMapping mapping = PredictionHistoricalTxnMapping.builder()
-				.predictedTransaction(prediction)
-				.historicalTransaction(historicalTxn)
-				.build();
-			historicalMappingRepository.save(mapping);
-		}
-		
-		log.debug("Created {} historical transaction mappings for prediction {} (includes all transaction types)", 
-			historicalTxns.size(), prediction.getId());
 	}
 
-	/**
-	 * Adjust predicted transaction when an actual transaction is added or updated.
-	 * Reduces remainingAmount and increases actualSpent.
-	 *
-	 * Idempotent: any prior adjustment recorded for this transaction (e.g. from a
-	 * previous save with a different category/amount) is reversed first so we never
-	 * double-count when this method is invoked from create, update, split, or import flows.
-	 *
-	 * {@code noRollbackFor = Exception.class} ensures any failure inside prediction
-	 * bookkeeping cannot mark the caller's transaction as rollback-only. The caller
-	 * ({@code AccountTransactionService.applyPredictionAdjustment}) already swallows
-	 * exceptions so the underlying transaction save stays committed.
-	 *
-	 * TODO(prediction-concurrency): see class-level TODOs (gaps 2 and 3). The
-	 * delete-then-insert pattern via {@link #removePredictionAdjustmentForTransaction}
-	 * + {@code actualMappingRepository.save(...)} below is what deadlocks under
-	 * concurrent edits, and {@code noRollbackFor} cannot rescue a flush-time
-	 * deadlock — by then the outer transaction is already rollback-only.
-	 */
-	@Transactional(noRollbackFor = Exception.class)
-	public void adjustPredictionForActualTransaction(AccountTransaction actualTransaction) {
-		// Reverse any existing adjustment for this transaction first so the method is
-		// safe to call from update flows (e.g. user changed category or amount).
-		removePredictionAdjustmentForTransaction(actualTransaction);
-
-		// Get the transaction's year-month
-		LocalDateTime txDate = actualTransaction.getDate();
-		YearMonth txMonth = YearMonth.from(txDate);
-		String monthString = txMonth.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-		
-		// Collect ALL applicable predictions: exact category match + any ancestor-rule matches
-		// This ensures a transaction in "Vegetables" also reduces the "Grocery" parent prediction.
-		// Use the transaction's own appUser instead of pulling from the security context so that
-		// scheduled flows (email/SMS extraction, etc.) which run without an HTTP auth context
-		// can still walk the category ancestor chain.
-		AppUser appUser = actualTransaction.getAppUser();
-		List<PredictedTransaction> predictions = new ArrayList<>();
-		predictions.addAll(predictedTransactionRepository
-			.findByAppUserAndCategoryAndPredictionMonth(
-				appUser,
-				actualTransaction.getCategory(),
-				monthString
-			));
-
-		String parentId = actualTransaction.getCategory().getParent();
-		while (parentId != null) {
-			Category parentCategory = categoryService.getCategoryById(appUser, parentId);
-			if (parentCategory == null) break;
-			predictions.addAll(predictedTransactionRepository
-				.findByAppUserAndCategoryAndPredictionMonth(
-					appUser,
-					parentCategory,
-					monthString
-				));
-			parentId = parentCategory.getParent();
-		}
-
-		if (predictions.isEmpty()) {
-			log.debug("No prediction found for category {} or its ancestors in month {}",
-				actualTransaction.getCategory().getName(), monthString);
-			return;
+	private static List<YearMonth> monthsFromNow(int monthsAhead) {
+		YearMonth currentMonth = YearMonth.now();
+		List<YearMonth> months = new ArrayList<>();
+		for (int i = 0; i <= monthsAhead; i++) {
+			months.add(currentMonth.plusMonths(i));
 		}
+		return months;
+	}
 
-		for (PredictedTransaction prediction : predictions) {
-			// Only adjust for transactions of the same type (DEBIT/CREDIT)
-			if (!prediction.getTransactionType().equals(actualTransaction.getType())) {
-				continue;
-			}
-
-			BigDecimal txAmount = actualTransaction.getAmount();
-
-			// Update actual spent
-			BigDecimal newActualSpent = prediction.getActualSpent().add(txAmount);
-			prediction.setActualSpent(newActualSpent);
-
-			// Update remaining amount
-			BigDecimal newRemaining = prediction.getPredictedAmount().subtract(newActualSpent);
-			prediction.setRemainingAmount(newRemaining);
-
-			// TODO(prediction-concurrency, gap 1): read-modify-write on a counter
-			// without @Version on PredictedTransaction. Two concurrent flows can
-			// both read actualSpent=X and write X+amountA / X+amountB, silently
-			// losing one update. Add @Version to PredictedTransaction (or compute
-			// these on read; see class-level TODO) before relying on these totals.
-			predictedTransactionRepository.save(prediction);
-
-			// Create mapping to track this actual transaction
-			// TODO(prediction-concurrency, gap 2): this insert, paired with the
-			// preceding deleteByActualTransaction, races against the unique index
-			// on (predicted_transaction_id, actual_transaction_id) under InnoDB
-			// and produces SQLState 40001 / Error 1213 deadlocks. Replace with an
-			// upsert (INSERT ... ON DUPLICATE KEY UPDATE) once we move off the
-			// delete-then-insert pattern.
-			PredictionActualTxnMapping actualMapping = PredictionActualTxnMapping.builder()
-				.predictedTransaction(prediction)
-				.actualTransaction(actualTransaction)
-				.amountApplied(txAmount)
-				.build();
-			actualMappingRepository.save(actualMapping);
-
-			log.info("Adjusted prediction for category {} in {}: predicted={}, actual={}, remaining={}",
-				prediction.getCategory().getName(),
-				monthString,
-				prediction.getPredictedAmount(),
-				newActualSpent,
-				newRemaining);
-		}
+	private static String formatMonth(YearMonth month) {
+		return month.format(DateTimeFormatter.ofPattern("yyyy-MM"));
 	}
 
 	/**
@@ -484,103 +346,62 @@ public class PredictionService {
 	}
 	
 	/**
-	 * Remove transaction from prediction when deleting the transaction
-	 * This reverses the adjustment made when the transaction was created
+	 * Delete the prediction_actual_txn_mapping rows of a transaction. Progress
+	 * is no longer tracked there, but rows written before it was computed on
+	 * read still reference the transaction and would block deleting it.
 	 */
 	@Transactional
-	public void removePredictionAdjustmentForTransaction(AccountTransaction transaction) {
-		// Find if this transaction is mapped to any prediction
-		List<PredictionActualTxnMapping> mappings = actualMappingRepository
-			.findByActualTransaction(transaction);
-		
-		if (mappings.isEmpty()) {
-			log.debug("No prediction mappings found for transaction {}", transaction.getId());
-			return;
-		}
-		
-		for (PredictionActualTxnMapping mapping : mappings) {
-			PredictedTransaction prediction = mapping.getPredictedTransaction();
-			BigDecimal txAmount = mapping.getAmountApplied();
-			
-			// Reverse the adjustment
-			BigDecimal newActualSpent = prediction.getActualSpent().subtract(txAmount);
-			prediction.setActualSpent(newActualSpent);
-			
-			BigDecimal newRemaining = prediction.getPredictedAmount().subtract(newActualSpent);
-			prediction.setRemainingAmount(newRemaining);
-			
-			predictedTransactionRepository.save(prediction);
-			
-			log.info("Reversed prediction adjustment for category {} in {}: removed ₹{}, new remaining: ₹{}", 
-				prediction.getCategory().getName(), 
-				prediction.getPredictionMonth(),
-				txAmount,
-				newRemaining);
-		}
-		
-		// Delete the mappings
+	public void deleteActualMappingsForTransaction(AccountTransaction transaction) {
 		actualMappingRepository.deleteByActualTransaction(transaction);
 	}
 
 	/**
-	 * Recalculate all predictions for a specific month by reapplying actual transactions
-	 * Useful for fixing predictions after data imports or bulk updates
+	 * Drop the cached progress of a month so the next read recomputes it from
+	 * the transactions, e.g. after data was changed outside the application.
 	 */
-	@Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
 	public void recalculatePredictionsForMonth(String month) {
 		AppUser user = appUserService.getCurrentUser();
-		
-		// Get all predictions for this month
-		List<PredictedTransaction> predictions = predictedTransactionRepository
-			.findByAppUserAndPredictionMonthAndVisibleTrue(user, month);
-		
+		predictionProgressService.invalidate(user, YearMonth.parse(month));
+		log.info("Invalidated prediction progress for user {} in {}", user.getUsername(), month);
+	}
+
+	/**
+	 * Fill {@code actualSpent} and {@code remainingAmount} of {@code predictions}
+	 * from the month's leaf transactions of the same type in the category and
+	 * its descendants.
+	 */
+	public List<PredictedTransactionDTO> applyProgress(List<PredictedTransactionDTO> predictions) {
 		if (predictions.isEmpty()) {
-			log.info("No predictions found for month {}", month);
-			return;
+			return predictions;
 		}
-		
-		for (PredictedTransaction prediction : predictions) {
-			// Reset actualSpent and remainingAmount
-			prediction.setActualSpent(BigDecimal.ZERO);
-			prediction.setRemainingAmount(prediction.getPredictedAmount());
-			
-			// Delete existing actual transaction mappings and flush so re-inserts don't hit duplicate key
-			actualMappingRepository.deleteByPredictedTransaction(prediction);
-			actualMappingRepository.flush();
-
-			// Get all actual transactions across this category and all descendants
-			YearMonth targetMonth = YearMonth.parse(month);
-			LocalDateTime startDate = targetMonth.atDay(1).atStartOfDay();
-			LocalDateTime endDate = targetMonth.atEndOfMonth().atTime(23, 59, 59);
-			String ruleCategoryId = prediction.getPredictionRule().getCategory().getId();
-			Set<String> categoryIds = categoryService.getAllDescendantCategoryIds(user, ruleCategoryId);
-			List<AccountTransaction> actualTxns = accountTransactionRepository
-				.findByAppUserAndCategoryIdsAndDateBetween(user, categoryIds, startDate, endDate);
-			
-			// Filter by transaction type to match prediction
-			List<AccountTransaction> matchingTxns = actualTxns.stream()
-				.filter(txn -> txn.getType() == prediction.getTransactionType())
-				.toList();
-			
-			// Apply each transaction
-			for (AccountTransaction txn : matchingTxns) {
-				BigDecimal txAmount = txn.getAmount();
-				prediction.setActualSpent(prediction.getActualSpent().add(txAmount));
-				prediction.setRemainingAmount(prediction.getPredictedAmount().subtract(prediction.getActualSpent()));
-				
-				// Create mapping
-				PredictionActualTxnMapping mapping = PredictionActualTxnMapping.builder()
-					.predictedTransaction(prediction)
-					.actualTransaction(txn)
-					.amountApplied(txAmount)
-					.build();
-				actualMappingRepository.save(mapping);
-			}
-			
-			predictedTransactionRepository.save(prediction);
-			log.info("Recalculated prediction for category {} in month {}: {} transactions applied, remaining: {}",
-				prediction.getCategory().getName(), month, matchingTxns.size(), prediction.getRemainingAmount());
+		AppUser user = appUserService.getCurrentUser();
+		Map<String, MonthTotals> totalsByMonth = new HashMap<>();
+		for (PredictedTransactionDTO prediction : predictions) {
+			MonthTotals totals = totalsByMonth.computeIfAbsent(prediction.getPredictionMonth(),
+				month -> predictionProgressService.monthTotals(user, YearMonth.parse(month)));
+			BigDecimal actualSpent = totals.sum(
+				categoryService.getAllDescendantCategoryIds(user, prediction.getCategoryId()),
+				prediction.getTransactionType());
+			prediction.setActualSpent(actualSpent);
+			prediction.setRemainingAmount(prediction.getPredictedAmount().subtract(actualSpent));
 		}
+		return predictions;
+	}
+
+	/**
+	 * The transactions counting towards a prediction: the month's leaf
+	 * transactions of the same type in the category and its descendants.
+	 */
+	public List<AccountTransaction> getActualTransactions(AppUser user, String categoryId, String month,
+			TransactionType type) {
+		YearMonth targetMonth = YearMonth.parse(month);
+		return accountTransactionRepository
+			.findByAppUserAndCategoryIdsAndDateBetween(user,
+				categoryService.getAllDescendantCategoryIds(user, categoryId),
+				targetMonth.atDay(1).atStartOfDay(), targetMonth.atEndOfMonth().atTime(23, 59, 59))
+			.stream()
+			.filter(txn -> txn.getType() == type)
+			.toList();
 	}
 
 	/**
@@ -590,30 +411,11 @@ public class PredictionService {
 	public void generatePredictions(int monthsAhead) {
 		AppUser user = appUserService.getCurrentUser();
 		List<PredictionRule> enabledRules = getEnabledRulesForUser(user);
-		YearMonth currentMonth = YearMonth.now();
-
-		for (PredictionRule rule : enabledRules) {
-			// Start from i=0 to allow generating predictions for the current month
-			for (int i = 0; i <= monthsAhead; i++) {
-				YearMonth targetMonth = currentMonth.plusMonths(i);
-				
-				// Skip if this is a yearly prediction and current month doesn't match
-				if (rule.getPredictionType() == PredictionType.YEARLY) {
-					if (rule.getSpecificMonth() == null || 
-					    rule.getSpecificMonth() != targetMonth.getMonthValue()) {
-						continue;
-					}
-				}
-				
-				PredictedTransaction prediction = calculatePrediction(user, rule, targetMonth);
-				if (prediction != null) {
-					// Save prediction first
-					PredictedTransaction savedPrediction = predictedTransactionRepository.save(prediction);
-					// Then create historical mappings
-					createHistoricalMappings(savedPrediction, rule, targetMonth);
-				}
-			}
+		if (enabledRules.isEmpty()) {
+			return;
 		}
+		// Start from the current month to allow generating predictions for it
+		generateInBulk(user, enabledRules, monthsFromNow(monthsAhead), false);
 	}
 	
 	/**
@@ -629,14 +431,7 @@ public class PredictionService {
 		}
 		
 		PredictionRule rule = ruleOpt.get();
-		YearMonth targetMonth;
-		
-		// Parse target month or use current month if not provided
-		if (targetMonthStr != null && !targetMonthStr.isEmpty()) {
-			targetMonth = YearMonth.parse(targetMonthStr, DateTimeFormatter.ofPattern("yyyy-MM"));
-		} else {
-			targetMonth = YearMonth.now();
-		}
+		YearMonth targetMonth = parseTargetMonth(targetMonthStr);
 		
 		// Skip if this is a yearly prediction and target month doesn't match the specific month
 		if (rule.getPredictionType() == PredictionType.YEARLY) {
@@ -648,40 +443,7 @@ public class PredictionService {
 			}
 		}
 		
-		String monthString = targetMonth.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-		
-		// Delete existing prediction and its mappings if any
-		Optional<PredictedTransaction> existingPredictionOpt = 
-			predictedTransactionRepository.findByPredictionRuleAndPredictionMonth(rule, monthString);
-		
-		if (existingPredictionOpt.isPresent()) {
-			PredictedTransaction existingPrediction = existingPredictionOpt.get();
-			// Delete mappings first (cascade should handle this, but being explicit)
-			historicalMappingRepository.deleteByPredictedTransaction(existingPrediction);
-			actualMappingRepository.deleteByPredictedTransaction(existingPrediction);
-			predictedTransactionRepository.delete(existingPrediction);
-			// Force flush to ensure deletion is committed before inserting new prediction
-			predictedTransactionRepository.flush();
-			log.debug("Deleted existing prediction for rule {} and month {}", ruleId, monthString);
-		}
-		
-		// Calculate and create new prediction
-		PredictedTransaction prediction = calculatePrediction(rule.getAppUser(), rule, targetMonth);
-		if (prediction != null) {
-			// Save prediction first
-			PredictedTransaction savedPrediction = predictedTransactionRepository.save(prediction);
-			// Then create historical mappings
-			createHistoricalMappings(savedPrediction, rule, targetMonth);
-			
-			// Automatically recalculate actual transactions for this month
-			try {
-				recalculatePredictionsForMonth(monthString);
-				log.info("Auto-recalculated actual transactions for prediction month {}", monthString);
-			} catch (Exception e) {
-				log.warn("Failed to auto-recalculate actual transactions for month {}: {}", 
-					monthString, e.getMessage());
-			}
-		}
+		generateInBulk(rule.getAppUser(), List.of(rule), List.of(targetMonth), true);
 	}
 	
 	/**
@@ -692,43 +454,20 @@ public class PredictionService {
 	public void generatePredictionsByMonth(String targetMonthStr) {
 		AppUser user = appUserService.getCurrentUser();
 		List<PredictionRule> enabledRules = getEnabledRulesForUser(user);
-		YearMonth targetMonth;
-		
-		// Parse target month or use current month if not provided
-		if (targetMonthStr != null && !targetMonthStr.isEmpty()) {
-			targetMonth = YearMonth.parse(targetMonthStr, DateTimeFormatter.ofPattern("yyyy-MM"));
-		} else {
-			targetMonth = YearMonth.now();
+		if (enabledRules.isEmpty()) {
+			return;
 		}
-		
-		for (PredictionRule rule : enabledRules) {
-			// Skip if this is a yearly prediction and target month doesn't match the specific month
-			if (rule.getPredictionType() == PredictionType.YEARLY) {
-				if (rule.getSpecificMonth() == null || 
-				    rule.getSpecificMonth() != targetMonth.getMonthValue()) {
-					continue;
-				}
-			}
-			
-			String monthString = targetMonth.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-			
-			// Check if prediction already exists
-			Optional<PredictedTransaction> existingPredictionOpt = 
-				predictedTransactionRepository.findByPredictionRuleAndPredictionMonth(rule, monthString);
-			
-			if (existingPredictionOpt.isPresent()) {
-				log.debug("Prediction already exists for rule {} and month {}, skipping", rule.getId(), monthString);
-				continue;
-			}
-			
-			PredictedTransaction prediction = calculatePrediction(user, rule, targetMonth);
-			if (prediction != null) {
-				// Save prediction first
-				PredictedTransaction savedPrediction = predictedTransactionRepository.save(prediction);
-				// Then create historical mappings
-				createHistoricalMappings(savedPrediction, rule, targetMonth);
-			}
+		// Rules that already have a prediction for the month are skipped
+		generateInBulk(user, enabledRules, List.of(parseTargetMonth(targetMonthStr)), false);
+	}
+
+	/**
+	 * Parse a yyyy-MM target month, defaulting to the current month
+	 */
+	private static YearMonth parseTargetMonth(String targetMonthStr) {
+		if (targetMonthStr != null && !targetMonthStr.isEmpty()) {
+			return YearMonth.parse(targetMonthStr, DateTimeFormatter.ofPattern("yyyy-MM"));
 		}
+		return YearMonth.now();
 	}
 }
-
@@ -0,0 +1,261 @@
+package com.nklmthr.finance.personal.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nklmthr.finance.personal.dto.StatementJobDTO;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.model.UploadedStatement;
+import com.nklmthr.finance.personal.model.UploadedStatement.Status;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.UploadedStatementRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs statement processing in the background.
+ *
+ * {@link #submit} moves the statement to PROCESSING and queues a job on a
+ * small bounded pool of virtual threads, returning straight away. The job
+ * parses the statement and imports the rows in chunks of {@value #CHUNK_SIZE},
+ * each in its own transaction, so a failing chunk is counted and skipped
+ * instead of rolling back the chunks already saved. Re-processing a PARTIAL
+ * statement is safe because already imported rows are skipped as duplicates.
+ *
+ * Job progress lives in memory; finished jobs are evicted after an hour. A
+ * statement left in PROCESSING by a restart is moved to PARTIAL or FAILED on
+ * startup.
+ */
+@Service
+public class StatementJobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(StatementJobService.class);
+
+	static final int CHUNK_SIZE = 500;
+
+	private static final Set<Status> PROCESSABLE = EnumSet.of(Status.UPLOADED, Status.FAILED, Status.PARTIAL);
+
+	private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+	@Autowired
+	private UploadedStatementService uploadedStatementService;
+
+	@Autowired
+	private UploadedStatementRepository uploadedStatementRepository;
+
+	@Autowired
+	private AccountTransactionService accountTransactionService;
+
+	@Autowired
+	private AccountTransactionRepository accountTransactionRepository;
+
+	@Autowired
+	private AppUserService appUserService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${statement.jobs.workers:2}")
+	private int workers;
+
+	@Value("${statement.jobs.queue-capacity:50}")
+	private int queueCapacity;
+
+	private ThreadPoolExecutor executor;
+
+	private final Map<String, StatementJob> jobs = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void startExecutor() {
+		executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("statement-job-", 0).factory());
+	}
+
+	@PreDestroy
+	void stopExecutor() {
+		executor.shutdownNow();
+	}
+
+	public StatementJobDTO submit(String statementId) {
+		AppUser appUser = appUserService.getCurrentUser();
+		UploadedStatement statement = uploadedStatementRepository.findByAppUserAndId(appUser, statementId)
+				.orElseThrow(() -> new IllegalArgumentException("Statement not found: " + statementId));
+		Status previousStatus = statement.getStatus();
+
+		int claimed = requiresNew().execute(status -> uploadedStatementRepository.updateStatusIfIn(appUser,
+				statementId, PROCESSABLE, Status.PROCESSING));
+		if (claimed == 0) {
+			logger.error("Statement with id: {} is not in UPLOADED, FAILED or PARTIAL status", statementId);
+			throw new IllegalStateException("Only uploaded, failed or partially processed statements can be processed.");
+		}
+
+		StatementJob job = new StatementJob(UUID.randomUUID().toString(), statementId, appUser);
+		jobs.put(job.id, job);
+		try {
+			executor.execute(() -> run(job));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.id);
+			updateStatus(appUser, statementId, previousStatus);
+			throw new IllegalStateException("Too many statements are queued for processing, try again shortly.");
+		}
+		logger.info("Queued statement {} for processing as job {}", statementId, job.id);
+		return job.toDTO();
+	}
+
+	public StatementJobDTO getJob(String jobId) {
+		AppUser appUser = appUserService.getCurrentUser();
+		StatementJob job = jobs.get(jobId);
+		if (job == null || !job.appUser.getId().equals(appUser.getId())) {
+			throw new IllegalArgumentException("Job not found: " + jobId);
+		}
+		return job.toDTO();
+	}
+
+	void run(StatementJob job) {
+		AppUser appUser = job.appUser;
+		try {
+			UploadedStatement statement = uploadedStatementRepository.findByAppUserAndId(appUser, job.statementId)
+					.orElseThrow(() -> new IllegalArgumentException("Statement not found: " + job.statementId));
+			logger.info("Processing statement with id: {} for user: {}", job.statementId, appUser.getUsername());
+
+			List<AccountTransaction> transactions = uploadedStatementService.parseStatement(statement);
+			job.parsed.set(transactions.size());
+			if (transactions.isEmpty()) {
+				throw new IllegalStateException("No transactions could be parsed from the statement.");
+			}
+
+			Category nonClassified = categoryService.getNonClassifiedCategory(appUser);
+			for (int from = 0; from < transactions.size(); from += CHUNK_SIZE) {
+				List<AccountTransaction> chunk = transactions.subList(from, Math.min(from + CHUNK_SIZE, transactions.size()));
+				try {
+					AccountTransactionService.StatementImportResult result = requiresNew()
+							.execute(status -> accountTransactionService.importStatementTransactions(appUser,
+									statement.getAccount(), chunk, nonClassified));
+					job.saved.addAndGet(result.saved());
+					job.duplicates.addAndGet(result.duplicates());
+				} catch (Exception e) {
+					job.failed.addAndGet(chunk.size());
+					job.error = e.getMessage();
+					logger.error("Failed to import rows {}-{} of statement {}: {}", from + 1, from + chunk.size(),
+							job.statementId, e.getMessage(), e);
+				}
+			}
+
+			Status outcome = job.failed.get() == 0 ? Status.PROCESSED
+					: job.failed.get() < transactions.size() ? Status.PARTIAL : Status.FAILED;
+			finish(job, outcome);
+			logger.info("Parsed {} transactions from statement {}. Saved: {}, Duplicates skipped: {}, Failed: {}",
+					job.parsed.get(), job.statementId, job.saved.get(), job.duplicates.get(), job.failed.get());
+		} catch (Exception e) {
+			job.error = e.getMessage();
+			logger.error("Error processing statement with id: {}", job.statementId, e);
+			finish(job, Status.FAILED);
+		}
+	}
+
+	private void finish(StatementJob job, Status outcome) {
+		try {
+			updateStatus(job.appUser, job.statementId, outcome);
+		} catch (Exception e) {
+			logger.error("Failed to record status {} for statement {}: {}", outcome, job.statementId, e.getMessage());
+		}
+		job.finishedAt = LocalDateTime.now();
+		job.status = outcome;
+		logger.info("Statement {} finished processing with status {}", job.statementId, outcome);
+	}
+
+	private void updateStatus(AppUser appUser, String statementId, Status status) {
+		requiresNew().executeWithoutResult(tx -> uploadedStatementRepository.findByAppUserAndId(appUser, statementId)
+				.ifPresent(statement -> {
+					statement.setStatus(status);
+					uploadedStatementRepository.save(statement);
+				}));
+	}
+
+	private TransactionTemplate requiresNew() {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return template;
+	}
+
+	@Scheduled(fixedDelay = 600_000)
+	public void evictFinishedJobs() {
+		LocalDateTime cutoff = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+		jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+	}
+
+	/**
+	 * Settles statements whose job was lost to a restart. The PROCESSING and
+	 * PARTIAL statuses come from sql/add_statement_processing_status.sql.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recoverInterruptedJobs() {
+		try {
+			requiresNew().executeWithoutResult(tx -> {
+				for (UploadedStatement statement : uploadedStatementRepository.findByStatus(Status.PROCESSING)) {
+					Status recovered = accountTransactionRepository.existsByUploadedStatement(statement) ? Status.PARTIAL
+							: Status.FAILED;
+					statement.setStatus(recovered);
+					uploadedStatementRepository.save(statement);
+					logger.warn("Statement {} was left PROCESSING by a restart, marked {}", statement.getId(), recovered);
+				}
+			});
+		} catch (Exception e) {
+			logger.warn("Could not recover interrupted statement jobs: {}", e.getMessage());
+		}
+	}
+
+	static class StatementJob {
+		final String id;
+		final String statementId;
+		final AppUser appUser;
+		final LocalDateTime submittedAt = LocalDateTime.now();
+		final AtomicInteger parsed = new AtomicInteger();
+		final AtomicInteger saved = new AtomicInteger();
+		final AtomicInteger duplicates = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		volatile Status status = Status.PROCESSING;
+		volatile String error;
+		volatile LocalDateTime finishedAt;
+
+		StatementJob(String id, String statementId, AppUser appUser) {
+			this.id = id;
+			this.statementId = statementId;
+			this.appUser = appUser;
+		}
+
+		StatementJobDTO toDTO() {
+			return new StatementJobDTO(id, statementId, status, parsed.get(), saved.get(), duplicates.get(),
+					failed.get(), error, submittedAt, finishedAt);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+
+/**
+ * In-memory dedup keys of one user's mail-sourced transactions, loaded once
+ * per ingestion run by {@link AccountTransactionService#loadDedupIndex}.
+ *
+ * {@link #findDuplicate} applies the same rules as
+ * {@link AccountTransactionService#findDuplicate} (exact sourceId within the
+ * thread, then date/amount/description/type/account/currency) without a query
+ * per message. Transactions saved during the run are added with {@link #add}
+ * so later messages of the same thread see them.
+ */
+public class TransactionDedupIndex {
+
+	public record DedupKey(String id, String sourceId, String sourceThreadId, LocalDateTime date, BigDecimal amount,
+			TransactionType type, String description, String accountId, String currency, String dataVersionId) {
+	}
+
+	private final long matchWindowSeconds;
+	private final String settledDataVersion;
+	private final Map<String, List<DedupKey>> byThread = new ConcurrentHashMap<>();
+	private final Map<String, DedupKey> bySourceId = new ConcurrentHashMap<>();
+
+	TransactionDedupIndex(long matchWindowSeconds, String settledDataVersion) {
+		this.matchWindowSeconds = matchWindowSeconds;
+		this.settledDataVersion = settledDataVersion;
+	}
+
+	void put(DedupKey key) {
+		if (key.sourceThreadId() == null) {
+			return;
+		}
+		byThread.computeIfAbsent(key.sourceThreadId(), k -> new CopyOnWriteArrayList<>()).add(key);
+		if (key.sourceId() != null) {
+			bySourceId.put(key.sourceId(), key);
+		}
+	}
+
+	public void add(AccountTransaction saved) {
+		put(new DedupKey(saved.getId(), saved.getSourceId(), saved.getSourceThreadId(), saved.getDate(),
+				saved.getAmount(), saved.getType(), normalize(saved.getDescription()),
+				saved.getAccount() != null ? saved.getAccount().getId() : null, saved.getCurrency(),
+				saved.getDataVersionId()));
+	}
+
+	/**
+	 * Records that {@code source}'s message ids were merged into the existing
+	 * transaction of {@code key}, as
+	 * {@link AccountTransactionService#mergeSourceInfoIfNeeded} does, so later
+	 * duplicates of it need no database round trip.
+	 */
+	public void markSettled(DedupKey key, AccountTransaction source) {
+		List<DedupKey> thread = byThread.get(key.sourceThreadId());
+		if (thread != null) {
+			thread.remove(key);
+		}
+		if (key.sourceId() != null) {
+			bySourceId.remove(key.sourceId(), key);
+		}
+		put(new DedupKey(key.id(), source.getSourceId(), source.getSourceThreadId(), key.date(), key.amount(),
+				key.type(), key.description(), key.accountId(), key.currency(), settledDataVersion));
+	}
+
+	/**
+	 * True when a transaction already exists for this Gmail message and its
+	 * source info is current, so processing the message again would only find
+	 * it as a duplicate and change nothing.
+	 */
+	public boolean isSettled(String sourceId) {
+		DedupKey key = bySourceId.get(sourceId);
+		return key != null && settledDataVersion.equals(key.dataVersionId());
+	}
+
+	public boolean needsMerge(DedupKey key) {
+		return !settledDataVersion.equals(key.dataVersionId());
+	}
+
+	public Optional<DedupKey> findDuplicate(AccountTransaction candidate) {
+		if (candidate == null || candidate.getSourceThreadId() == null) {
+			return Optional.empty();
+		}
+		List<DedupKey> thread = byThread.get(candidate.getSourceThreadId());
+		if (thread == null || thread.isEmpty()) {
+			return Optional.empty();
+		}
+
+		for (DedupKey key : thread) {
+			if (key.sourceId() != null && key.sourceId().equals(candidate.getSourceId())) {
+				return Optional.of(key);
+			}
+		}
+
+		String description = normalize(candidate.getDescription());
+		String accountId = candidate.getAccount() != null ? candidate.getAccount().getId() : null;
+		for (DedupKey key : thread) {
+			boolean isDateClose = key.date() != null && candidate.getDate() != null
+					&& Math.abs(ChronoUnit.SECONDS.between(key.date(), candidate.getDate())) <= matchWindowSeconds;
+			boolean isAmountEqual = key.amount() != null && candidate.getAmount() != null
+					&& key.amount().compareTo(candidate.getAmount()) == 0;
+			boolean isDescriptionEqual = StringUtils.isNotBlank(key.description())
+					&& key.description().equals(description);
+			boolean isTypeEqual = key.type() != null && key.type().equals(candidate.getType());
+			boolean isAccountOk = key.accountId() == null || accountId == null || key.accountId().equals(accountId);
+			boolean isCurrencyOk = key.currency() == null || candidate.getCurrency() == null
+					|| key.currency().equals(candidate.getCurrency());
+			if (isDateClose && isAmountEqual && isDescriptionEqual && isTypeEqual && isAccountOk && isCurrencyOk) {
+				return Optional.of(key);
+			}
+		}
+		return Optional.empty();
+	}
+
+	static String normalize(String input) {
+		if (input == null) {
+			return "";
+		}
+		String trimmed = input.trim();
+		if (trimmed.isEmpty()) {
+			return "";
+		}
+		return trimmed.replaceAll("\\s+", " ").toLowerCase();
+	}
+}
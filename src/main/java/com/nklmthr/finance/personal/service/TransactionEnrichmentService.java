@@ -0,0 +1,182 @@
+package com.nklmthr.finance.personal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.openai.OpenAIClient;
+import com.nklmthr.finance.personal.openai.OpenAIClient.GptResponse;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background OpenAI enrichment of transactions saved by Gmail ingestion.
+ *
+ * Ingestion saves transactions straight from regex extraction as PENDING.
+ * A drain, started after each ingestion run and on a fixed delay, takes the
+ * oldest PENDING rows in batches of {@code openai.enrichment.batch-size} and
+ * enriches up to {@code openai.enrichment.workers} batches concurrently. No
+ * database transaction is held while the model answers; the gpt* fields are
+ * written back per batch and the row moves to ENRICHED, or to FAILED when the
+ * response is not a transaction. When a request fails the drain stops and the
+ * rows stay PENDING for the next one.
+ */
+@Service
+@ConditionalOnProperty(name = "openai.enabled", havingValue = "true")
+public class TransactionEnrichmentService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TransactionEnrichmentService.class);
+
+	@Autowired
+	private OpenAIClient openAIClient;
+
+	@Autowired
+	private AccountTransactionRepository accountTransactionRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${openai.enrichment.workers:4}")
+	private int workers;
+
+	@Value("${openai.enrichment.batch-size:5}")
+	private int batchSize;
+
+	private ExecutorService executor;
+
+	private final AtomicBoolean draining = new AtomicBoolean(false);
+
+	@PostConstruct
+	void startExecutor() {
+		executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("enrichment-", 0).factory());
+	}
+
+	@PreDestroy
+	void stopExecutor() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Starts a drain in the background unless one is already running.
+	 */
+	public void requestDrain() {
+		if (!draining.get()) {
+			Thread.ofVirtual().name("enrichment-drain").start(this::drainPending);
+		}
+	}
+
+	/**
+	 * Picks up rows still pending. The drain itself runs in the background,
+	 * so a long backlog under the OpenAI rate limit never holds the shared
+	 * scheduler thread the other jobs run on.
+	 */
+	@Scheduled(fixedDelayString = "${openai.enrichment.poll-interval-ms:300000}")
+	public void pollPending() {
+		requestDrain();
+	}
+
+	void drainPending() {
+		if (!draining.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long backlog = accountTransactionRepository.countByEnrichmentStatus(EnrichmentStatus.PENDING);
+			if (backlog == 0) {
+				return;
+			}
+			logger.info("Enriching {} pending transactions", backlog);
+			long start = System.currentTimeMillis();
+			int enriched = 0;
+			while (true) {
+				List<String> ids = accountTransactionRepository.findIdsByEnrichmentStatus(EnrichmentStatus.PENDING,
+						PageRequest.of(0, batchSize * workers));
+				if (ids.isEmpty()) {
+					break;
+				}
+				List<Future<Integer>> batches = new ArrayList<>();
+				for (int from = 0; from < ids.size(); from += batchSize) {
+					List<String> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+					batches.add(executor.submit(() -> enrichBatch(batch)));
+				}
+				boolean failed = false;
+				for (Future<Integer> batch : batches) {
+					try {
+						enriched += batch.get();
+					} catch (ExecutionException e) {
+						logger.warn("OpenAI enrichment request failed, leaving rows pending", e.getCause());
+						failed = true;
+					}
+				}
+				if (failed) {
+					break;
+				}
+			}
+			logger.info("Enriched {} transactions in {} ms, {} still pending", enriched,
+					System.currentTimeMillis() - start,
+					accountTransactionRepository.countByEnrichmentStatus(EnrichmentStatus.PENDING));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			draining.set(false);
+		}
+	}
+
+	/**
+	 * Enriches one batch and returns the number of rows that left PENDING.
+	 */
+	int enrichBatch(List<String> ids) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		List<String> pendingIds = new ArrayList<>();
+		List<String> emailContents = new ArrayList<>();
+		template.executeWithoutResult(status -> accountTransactionRepository.findAllById(ids).forEach(transaction -> {
+			if (transaction.getEnrichmentStatus() != EnrichmentStatus.PENDING) {
+				return;
+			}
+			if (StringUtils.isBlank(transaction.getRawData())) {
+				transaction.setEnrichmentStatus(EnrichmentStatus.FAILED);
+				return;
+			}
+			pendingIds.add(transaction.getId());
+			emailContents.add(transaction.getRawData());
+		}));
+		if (pendingIds.isEmpty()) {
+			return ids.size();
+		}
+
+		List<GptResponse> responses = openAIClient.fetchResponses(emailContents);
+
+		return ids.size() - pendingIds.size() + template.execute(status -> {
+			int settled = 0;
+			for (int i = 0; i < pendingIds.size(); i++) {
+				AccountTransaction transaction = accountTransactionRepository.findById(pendingIds.get(i)).orElse(null);
+				if (transaction == null || transaction.getEnrichmentStatus() != EnrichmentStatus.PENDING) {
+					continue;
+				}
+				boolean applied = openAIClient.applyResponse(responses.get(i), transaction);
+				transaction.setEnrichmentStatus(applied ? EnrichmentStatus.ENRICHED : EnrichmentStatus.FAILED);
+				settled++;
+			}
+			return settled;
+		});
+	}
+}
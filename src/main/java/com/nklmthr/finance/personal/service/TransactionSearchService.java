@@ -0,0 +1,164 @@
+package com.nklmthr.finance.personal.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.repository.AccountRepository;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.AccountTransactionSpecifications;
+import com.nklmthr.finance.personal.repository.CategoryRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Resolves the transaction list's free-text search.
+ *
+ * Description and explanation are matched through a MySQL FULLTEXT index in
+ * boolean mode with every word treated as a prefix, which returns candidate
+ * ids ranked by relevance. Account, category and type names are matched
+ * against the user's (small) account and category lists in memory. The
+ * result is fed back into the Specification pipeline as IN lists, so the
+ * other filters, paging and totals work unchanged.
+ *
+ * The old LIKE '%term%' predicate is still used for amount searches, when the
+ * index is missing, when no search word is long enough for the index, and
+ * when a term is so broad that the candidate list hits its cap.
+ */
+@Service
+public class TransactionSearchService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TransactionSearchService.class);
+
+	static final String FULLTEXT_INDEX = "ft_account_transactions_text";
+
+	// InnoDB ignores shorter words (innodb_ft_min_token_size defaults to 3)
+	private static final int MIN_TOKEN_LENGTH = 3;
+
+	static final int CANDIDATE_LIMIT = 5000;
+
+	@Autowired
+	private AccountTransactionRepository accountTransactionRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private volatile boolean fullTextAvailable = false;
+
+	/**
+	 * Enables the full-text path when the index from
+	 * sql/add_transaction_fulltext_index.sql is present. Only reads the
+	 * catalog; the index itself is created by the migration script.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void detectFullTextIndex() {
+		try {
+			Number existing = (Number) entityManager.createNativeQuery(
+					"SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() "
+							+ "AND table_name = 'account_transactions' AND index_name = :indexName")
+					.setParameter("indexName", FULLTEXT_INDEX).getSingleResult();
+			fullTextAvailable = existing.longValue() > 0;
+			if (!fullTextAvailable) {
+				logger.warn("FULLTEXT index {} is missing (see sql/add_transaction_fulltext_index.sql), "
+						+ "transaction search falls back to LIKE scans", FULLTEXT_INDEX);
+			}
+		} catch (Exception e) {
+			logger.warn("Full-text transaction search unavailable, falling back to LIKE scans: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Filter for {@code search}. {@code textMatches} is the caller's
+	 * {@link #rankedTransactionIds} result, so a request that also orders by
+	 * relevance runs the MATCH query once; empty falls back to LIKE matching.
+	 */
+	public Specification<AccountTransaction> searchSpecification(AppUser appUser, String search,
+			Optional<List<String>> textMatches) {
+		if (textMatches.isEmpty()) {
+			return AccountTransactionSpecifications.matchesSearch(search);
+		}
+		String needle = search.toLowerCase(Locale.ROOT);
+		Set<String> accountIds = accountRepository.findAllByAppUser(appUser, Sort.unsorted()).stream()
+				.filter(account -> account.getName() != null && account.getName().toLowerCase(Locale.ROOT).contains(needle))
+				.map(Account::getId)
+				.collect(Collectors.toSet());
+		Set<String> categoryIds = categoryRepository.findByAppUser(appUser).stream()
+				.filter(category -> category.getName() != null && category.getName().toLowerCase(Locale.ROOT).contains(needle))
+				.map(Category::getId)
+				.collect(Collectors.toSet());
+		List<TransactionType> types = Arrays.stream(TransactionType.values())
+				.filter(type -> type.name().toLowerCase(Locale.ROOT).contains(needle))
+				.toList();
+		return AccountTransactionSpecifications.matchesSearchCandidates(textMatches.get(), accountIds, categoryIds,
+				types);
+	}
+
+	/**
+	 * Description/explanation matches for {@code search}, best first. Empty
+	 * when the full-text path cannot answer and callers should use the LIKE
+	 * predicate instead.
+	 */
+	public Optional<List<String>> rankedTransactionIds(AppUser appUser, String search) {
+		if (!fullTextAvailable || StringUtils.isBlank(search) || isAmountSearch(search)) {
+			return Optional.empty();
+		}
+		String booleanQuery = toBooleanQuery(search);
+		if (booleanQuery.isEmpty()) {
+			return Optional.empty();
+		}
+		List<String> ids = accountTransactionRepository.findIdsByFullTextSearch(appUser.getId(), booleanQuery,
+				CANDIDATE_LIMIT);
+		if (ids.size() >= CANDIDATE_LIMIT) {
+			logger.debug("Search '{}' matched at least {} transactions, using LIKE scan", search, CANDIDATE_LIMIT);
+			return Optional.empty();
+		}
+		return Optional.of(ids);
+	}
+
+	/**
+	 * "amazon pri" becomes "+amazon* +pri*": every word required, each as a
+	 * prefix. Boolean-mode operators are stripped by splitting on anything
+	 * that is not a letter or digit.
+	 */
+	static String toBooleanQuery(String search) {
+		return Arrays.stream(search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+				.filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+				.map(token -> "+" + token + "*")
+				.collect(Collectors.joining(" "));
+	}
+
+	private static boolean isAmountSearch(String search) {
+		try {
+			new BigDecimal(search);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
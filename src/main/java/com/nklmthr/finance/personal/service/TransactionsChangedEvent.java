@@ -0,0 +1,13 @@
+package com.nklmthr.finance.personal.service;
+
+import java.time.YearMonth;
+
+import com.nklmthr.finance.personal.model.AppUser;
+
+/**
+ * Published by {@link AccountTransactionService} for each month whose
+ * transactions a write touched. Listeners that care about the write being
+ * visible use {@code @TransactionalEventListener} so they run after commit.
+ */
+public record TransactionsChangedEvent(AppUser appUser, YearMonth month) {
+}
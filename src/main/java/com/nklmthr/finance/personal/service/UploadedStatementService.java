@@ -8,12 +8,12 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -40,9 +40,6 @@ public class UploadedStatementService {
 	@Autowired
 	private AppUserService appUserService;
 
-	@Autowired
-	private CategoryService categoryService;
-
 	@Autowired
 	private AccountRepository accountRepository;
 	
@@ -123,18 +120,12 @@ public class UploadedStatementService {
 		return uploadedStatementRepository.findAllByAppUser(appUser, pageable);
 	}
 
-	@Transactional
-	public void process(String id) {
-		AppUser appUser = appUserService.getCurrentUser();
-
-		UploadedStatement statement = uploadedStatementRepository.findByAppUserAndId(appUser, id)
-				.orElseThrow(() -> new IllegalArgumentException("Statement not found: " + id));
-		logger.info("Processing statement with id: {} for user: {}", id, appUser.getUsername());
-		if (!Status.UPLOADED.equals(statement.getStatus()) && !Status.FAILED.equals(statement.getStatus())) {
-			logger.error("Statement with id: {} is not in UPLOADED or FAILED status", id);
-			throw new IllegalStateException("Only uploaded or failed statements can be processed.");
-		}
-
+	/**
+	 * Picks the parser for the statement's account and parses the stored
+	 * content. Nothing is saved here; {@link StatementJobService} imports the
+	 * rows in chunks.
+	 */
+	public List<AccountTransaction> parseStatement(UploadedStatement statement) {
 		StatementParser parser;
 		String accountName = statement.getAccount().getName().toLowerCase();
 		logger.info("Determining parser for account: {}", accountName);
@@ -168,58 +159,8 @@ public class UploadedStatementService {
 		} else {
 			throw new IllegalStateException("Statement has no content to process");
 		}
-		
-		List<AccountTransaction> transactions;
-		try {
-			transactions = parser.parse(inputStream, statement);
-		} catch (Exception e) {
-			markFailed(statement);
-			throw new RuntimeException("Parsing failed: " + e.getMessage() + ". Statement marked as FAILED.", e);
-		}
-
-		if (transactions.isEmpty()) {
-			markFailed(statement);
-			throw new IllegalStateException("No transactions could be parsed from the statement. Statement marked as FAILED.");
-		}
-
-		try {
-			int savedCount = 0;
-			int duplicateCount = 0;
-
-			for (AccountTransaction tx : transactions) {
-				tx.setAppUser(appUser);
-				tx.setCategory(categoryService.getNonClassifiedCategory());
-
-				if (accountTransactionService.isStatementTransactionDuplicate(tx, appUser)) {
-					logger.info("Skipping duplicate transaction: date={}, amount={}, explanation={}",
-							tx.getDate(), tx.getAmount(),
-							tx.getExplanation() != null ? tx.getExplanation().substring(0, Math.min(50, tx.getExplanation().length())) : "null");
-					duplicateCount++;
-				} else {
-					accountTransactionService.save(tx, appUser);
-					savedCount++;
-					logger.info("Saved new transaction: date={}, amount={}, description={}",
-							tx.getDate(), tx.getAmount(), tx.getDescription());
-				}
-			}
-
-			logger.info("Parsed {} transactions from statement {}. Saved: {}, Duplicates skipped: {}",
-					transactions.size(), id, savedCount, duplicateCount);
-
-			statement.setStatus(Status.PROCESSED);
-			uploadedStatementRepository.save(statement);
-			logger.info("Statement {} processed successfully", id);
-		} catch (Exception e) {
-			markFailed(statement);
-			throw new RuntimeException("Failed to save transactions: " + e.getMessage() + ". Statement marked as FAILED.", e);
-		}
-	}
 
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
-	public void markFailed(UploadedStatement statement) {
-		statement.setStatus(Status.FAILED);
-		uploadedStatementRepository.save(statement);
-		logger.error("Statement {} marked as FAILED", statement.getId());
+		return parser.parse(inputStream, statement);
 	}
 
 	@Transactional
@@ -228,9 +169,9 @@ public class UploadedStatementService {
 		UploadedStatement statement = uploadedStatementRepository.findByAppUserAndId(appUser, id)
 				.orElseThrow(() -> new IllegalArgumentException("Statement not found: " + id));
 		
-		if (!Status.PROCESSED.equals(statement.getStatus())) {
-			logger.error("Statement with id: {} is not in PROCESSED status", id);
-			throw new IllegalStateException("Only processed statements can have transactions unlinked.");
+		if (!Status.PROCESSED.equals(statement.getStatus()) && !Status.PARTIAL.equals(statement.getStatus())) {
+			logger.error("Statement with id: {} is not in PROCESSED or PARTIAL status", id);
+			throw new IllegalStateException("Only processed or partially processed statements can have transactions unlinked.");
 		}
 		
 		logger.info("Unlinking transactions for statement with id: {} for user: {}", id, appUser.getUsername());
@@ -310,6 +251,8 @@ public class UploadedStatementService {
 		// Then delete the parent transactions from the statement
 		logger.info("Deleting {} parent transactions from statement", statementTransactionIds.size());
 		accountTransactionRepository.deleteAllByAppUserAndIdIn(appUser, statementTransactionIds);
+		accountTransactionService.markLedgerDirty(appUser, Stream.concat(transactions.stream(), childTransactions.stream())
+				.map(AccountTransaction::getDate).toArray(LocalDateTime[]::new));
 		
 		logger.info("Unlinked and deleted {} transactions for statement {}", transactions.size(), id);
 		statement.setStatus(Status.UPLOADED); // Reset status after unlinking
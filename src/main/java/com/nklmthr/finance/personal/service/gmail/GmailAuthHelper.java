@@ -1,19 +1,11 @@
 package com.nklmthr.finance.personal.service.gmail;
 
-import java.io.InputStreamReader;
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.gmail.GmailScopes;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.service.AppUserService;
 
@@ -27,14 +19,13 @@ public class GmailAuthHelper {
 
 	private final AppUserService appUserService;
 
-	public GmailAuthHelper(AppUserService appUserService) {
+	private final GmailServiceProvider gmailServiceProvider;
+
+	public GmailAuthHelper(AppUserService appUserService, GmailServiceProvider gmailServiceProvider) {
 		this.appUserService = appUserService;
+		this.gmailServiceProvider = gmailServiceProvider;
 	}
 
-	private static final String CREDENTIALS_FILE_PATH = "/credentials.json";
-	private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
-	private static final List<String> SCOPES = List.of(GmailScopes.GMAIL_READONLY);
-
 	public String getAuthorizationUrl(AppUser user) throws Exception {
 		GoogleAuthorizationCodeFlow flow = buildFlow(user);
 		logger.info("Generating authorization URL for user: {}, redirectUri: {}", user.getUsername(), redirectUri);
@@ -50,18 +41,12 @@ public class GmailAuthHelper {
 
 		// Store credential under username (unique per user)
 		flow.createAndStoreCredential(tokenResponse, user.getUsername());
+		gmailServiceProvider.invalidate(user);
 	}
 
 	public GoogleAuthorizationCodeFlow buildFlow(AppUser appUser) throws Exception {
-		var clientSecrets = GoogleClientSecrets.load(JSON_FACTORY,
-				new InputStreamReader(getClass().getResourceAsStream(CREDENTIALS_FILE_PATH)));
-
-		logger.debug("Building GoogleAuthorizationCodeFlow for user: {}", appUser.getUsername());
-
-		return new GoogleAuthorizationCodeFlow.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY,
-				clientSecrets, SCOPES)
-				.setDataStoreFactory(new AppUserDataStoreFactory(appUserService.getRepository()))
-				.setAccessType("offline").build();
+		logger.debug("Using shared GoogleAuthorizationCodeFlow for user: {}", appUser.getUsername());
+		return gmailServiceProvider.getFlow();
 	}
 
 	public boolean isUserConnected() {
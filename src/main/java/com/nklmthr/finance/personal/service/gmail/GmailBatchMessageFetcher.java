@@ -0,0 +1,173 @@
+package com.nklmthr.finance.personal.service.gmail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+
+/**
+ * Fetches Gmail messages through batch requests, up to
+ * {@code gmail.batch.size} messages.get calls per HTTP round trip, either in
+ * full or as just their From and Subject headers.
+ *
+ * Items rejected with a rate-limit error (429, or 403 rateLimitExceeded /
+ * userRateLimitExceeded) are collected and retried in a new batch after an
+ * exponential backoff with jitter; a 429 on the whole batch retries every item
+ * in it. Messages Gmail answers with 404 (deleted since they were listed)
+ * are reported separately, so callers can count them as done. Other per-item
+ * failures are logged and the message is left out of the result, as a failed
+ * messages.get was before.
+ */
+@Component
+public class GmailBatchMessageFetcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(GmailBatchMessageFetcher.class);
+
+	private static final List<String> ROUTING_HEADERS = List.of("From", "Subject");
+
+	// Gmail accepts up to 100 calls per batch but recommends no more than 50
+	@Value("${gmail.batch.size:50}")
+	private int batchSize = 50;
+
+	@Value("${gmail.batch.max-attempts:5}")
+	private int maxAttempts = 5;
+
+	@Value("${gmail.batch.initial-backoff-ms:1000}")
+	private long initialBackoffMs = 1000;
+
+	/**
+	 * Fetched messages in request order, and the ids Gmail no longer has.
+	 */
+	public record FetchResult(Map<String, Message> messages, Set<String> notFound) {
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Full-format messages for {@code messageIds}, in request order. Ids that
+	 * could not be fetched are missing from the map; those that returned 404
+	 * are listed in {@link FetchResult#notFound()}.
+	 */
+	public FetchResult fetchFull(Gmail gmail, List<String> messageIds)
+			throws IOException, InterruptedException {
+		return fetch(gmail, messageIds, "full");
+	}
+
+	/**
+	 * Like {@link #fetchFull}, but each message carries only its From and
+	 * Subject headers, enough to route it without downloading the body.
+	 */
+	public FetchResult fetchMetadata(Gmail gmail, List<String> messageIds)
+			throws IOException, InterruptedException {
+		return fetch(gmail, messageIds, "metadata");
+	}
+
+	private FetchResult fetch(Gmail gmail, List<String> messageIds, String format)
+			throws IOException, InterruptedException {
+		Map<String, Message> fetched = new HashMap<>();
+		Set<String> notFound = new HashSet<>();
+		List<String> pending = messageIds.stream().distinct().toList();
+		long backoffMs = initialBackoffMs;
+
+		for (int attempt = 1; !pending.isEmpty(); attempt++) {
+			List<String> rateLimited = new ArrayList<>();
+			for (int from = 0; from < pending.size(); from += batchSize) {
+				List<String> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+				executeBatch(gmail, chunk, format, fetched, notFound, rateLimited);
+			}
+			if (rateLimited.isEmpty()) {
+				break;
+			}
+			if (attempt >= maxAttempts) {
+				logger.warn("Giving up on {} rate-limited Gmail messages after {} attempts", rateLimited.size(), attempt);
+				break;
+			}
+			long sleepMs = backoffMs + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+			logger.info("{} Gmail messages rate limited, retrying in {} ms (attempt {} of {})", rateLimited.size(),
+					sleepMs, attempt + 1, maxAttempts);
+			Thread.sleep(sleepMs);
+			backoffMs *= 2;
+			pending = rateLimited;
+		}
+
+		Map<String, Message> ordered = new LinkedHashMap<>();
+		for (String id : messageIds) {
+			Message message = fetched.get(id);
+			if (message != null) {
+				ordered.put(id, message);
+			}
+		}
+		return new FetchResult(ordered, notFound);
+	}
+
+	private void executeBatch(Gmail gmail, List<String> ids, String format, Map<String, Message> fetched,
+			Set<String> notFound, List<String> rateLimited) throws IOException {
+		BatchRequest batch = gmail.batch();
+		for (String id : ids) {
+			Gmail.Users.Messages.Get get = gmail.users().messages().get("me", id).setFormat(format);
+			if ("metadata".equals(format)) {
+				get.setMetadataHeaders(ROUTING_HEADERS);
+			}
+			get.queue(batch, new JsonBatchCallback<Message>() {
+				@Override
+				public void onSuccess(Message message, HttpHeaders responseHeaders) {
+					fetched.put(id, message);
+				}
+
+				@Override
+				public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+					if (isRateLimited(error)) {
+						rateLimited.add(id);
+					} else if (error != null && error.getCode() == 404) {
+						logger.info("Gmail message {} no longer exists, skipping it", id);
+						notFound.add(id);
+					} else if (error != null) {
+						logger.warn("Failed to fetch Gmail message {}: {} {}", id, error.getCode(), error.getMessage());
+					} else {
+						logger.warn("Failed to fetch Gmail message {}: no error details", id);
+					}
+				}
+			});
+		}
+		try {
+			batch.execute();
+		} catch (HttpResponseException e) {
+			if (e.getStatusCode() != 429) {
+				throw e;
+			}
+			rateLimited.addAll(ids.stream().filter(id -> !fetched.containsKey(id) && !rateLimited.contains(id)).toList());
+		}
+	}
+
+	static boolean isRateLimited(GoogleJsonError error) {
+		if (error == null) {
+			return false;
+		}
+		if (error.getCode() == 429) {
+			return true;
+		}
+		return error.getCode() == 403 && error.getErrors() != null && error.getErrors().stream()
+				.anyMatch(detail -> "rateLimitExceeded".equals(detail.getReason())
+						|| "userRateLimitExceeded".equals(detail.getReason()));
+	}
+}
@@ -1,14 +1,23 @@
 package com.nklmthr.finance.personal.service.gmail;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.auth.oauth2.CredentialRefreshListener;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
@@ -17,41 +26,139 @@ import com.google.api.services.gmail.GmailScopes;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.repository.AppUserRepository;
 
+/**
+ * Gmail clients per user over the shared {@code googleHttpTransport}.
+ *
+ * The client secrets and the authorization code flow are loaded once. Each
+ * user's credential and Gmail client are cached by username and rebuilt
+ * after {@link #invalidate}, which callers invoke when the user reconnects or
+ * disconnects Gmail; a failed token refresh invalidates the entry too.
+ */
 @Component
 public class GmailServiceProvider {
 
+    private static final Logger logger = LoggerFactory.getLogger(GmailServiceProvider.class);
+
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final String CREDENTIALS_FILE_PATH = "/credentials.json";
+
+    private record GmailClient(Credential credential, Gmail gmail) {
+    }
 
     @Autowired
     private AppUserRepository appUserRepository;
 
-    public Gmail getGmailService(AppUser appUser) throws Exception {
-        // Use username as key (better than hardcoded "user")
-        String userKey = appUser.getUsername();
+    @Autowired
+    private NetHttpTransport googleHttpTransport;
+
+    @Value("${gmail.http.connect-timeout-ms:10000}")
+    private int connectTimeoutMs;
+
+    @Value("${gmail.http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    private volatile GoogleAuthorizationCodeFlow flow;
+
+    private final Map<String, GmailClient> clients = new ConcurrentHashMap<>();
 
-        // Load credentials.json from resources
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(
-                JSON_FACTORY,
-                new InputStreamReader(getClass().getResourceAsStream("/credentials.json"))
-        );
+    /**
+     * The shared authorization code flow, storing credentials on
+     * {@link AppUser} through {@link AppUserDataStoreFactory}.
+     */
+    public GoogleAuthorizationCodeFlow getFlow() throws IOException {
+        GoogleAuthorizationCodeFlow current = flow;
+        if (current == null) {
+            synchronized (this) {
+                current = flow;
+                if (current == null) {
+                    GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY,
+                            new InputStreamReader(getClass().getResourceAsStream(CREDENTIALS_FILE_PATH)));
+                    current = flow = new GoogleAuthorizationCodeFlow.Builder(
+                            googleHttpTransport,
+                            JSON_FACTORY,
+                            clientSecrets,
+                            List.of(GmailScopes.GMAIL_READONLY)
+                    )
+                    .setAccessType("offline")
+                    .setDataStoreFactory(new AppUserDataStoreFactory(appUserRepository))
+                    .addRefreshListener(new InvalidateOnRefreshError())
+                    .build();
+                }
+            }
+        }
+        return current;
+    }
 
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+    /**
+     * The user's stored credential, or null when Gmail is not connected.
+     */
+    public Credential getCredential(AppUser appUser) throws IOException {
+        GmailClient client = client(appUser);
+        return client == null ? null : client.credential();
+    }
 
-        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport,
-                JSON_FACTORY,
-                clientSecrets,
-                List.of(GmailScopes.GMAIL_READONLY)
-        )
-        .setAccessType("offline")
-        .setDataStoreFactory(new AppUserDataStoreFactory(appUserRepository))
-        .build();
+    public Gmail getGmailService(AppUser appUser) throws Exception {
+        GmailClient client = client(appUser);
+        if (client == null) {
+            return new Gmail.Builder(googleHttpTransport, JSON_FACTORY, null)
+                    .setApplicationName("Finance App")
+                    .build();
+        }
+        return client.gmail();
+    }
 
-        // Load credentials for this user
-        var credential = flow.loadCredential(userKey);
+    /**
+     * Drops the user's cached client so the next call reloads the credential.
+     */
+    public void invalidate(AppUser appUser) {
+        if (clients.remove(appUser.getUsername()) != null) {
+            logger.info("Dropped cached Gmail client for user: {}", appUser.getUsername());
+        }
+    }
 
-        return new Gmail.Builder(httpTransport, JSON_FACTORY, credential)
+    private GmailClient client(AppUser appUser) throws IOException {
+        // Use username as key (better than hardcoded "user")
+        String userKey = appUser.getUsername();
+        GmailClient cached = clients.get(userKey);
+        if (cached != null) {
+            return cached;
+        }
+        Credential credential = getFlow().loadCredential(userKey);
+        if (credential == null) {
+            return null;
+        }
+        Gmail gmail = new Gmail.Builder(googleHttpTransport, JSON_FACTORY, request -> {
+                    credential.initialize(request);
+                    request.setConnectTimeout(connectTimeoutMs);
+                    request.setReadTimeout(readTimeoutMs);
+                })
                 .setApplicationName("Finance App")
                 .build();
+        GmailClient client = new GmailClient(credential, gmail);
+        GmailClient existing = clients.putIfAbsent(userKey, client);
+        return existing != null ? existing : client;
+    }
+
+    /**
+     * A refresh token that was revoked or expired will not work again; drop
+     * the client so the next run reloads whatever the user stores next.
+     */
+    private final class InvalidateOnRefreshError implements CredentialRefreshListener {
+
+        @Override
+        public void onTokenResponse(Credential credential, TokenResponse tokenResponse) {
+        }
+
+        @Override
+        public void onTokenErrorResponse(Credential credential, TokenErrorResponse tokenErrorResponse) {
+            clients.entrySet().removeIf(entry -> {
+                boolean failed = entry.getValue().credential() == credential;
+                if (failed) {
+                    logger.warn("Gmail token refresh failed for user {}: {}", entry.getKey(),
+                            tokenErrorResponse == null ? null : tokenErrorResponse.getError());
+                }
+                return failed;
+            });
+        }
     }
 }
@@ -1,17 +1,32 @@
 package com.nklmthr.finance.personal.util;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.text.similarity.FuzzyScore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.nklmthr.finance.personal.dto.AccountDTO;
+import com.nklmthr.finance.personal.mapper.AccountMapper;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.AccountRepository;
+import com.nklmthr.finance.personal.util.AccountMatchIndex.Entry;
 
 /**
  * Utility class for fuzzy matching accounts based on transaction data.
  * Uses account attributes like name, number, keywords, and aliases to find the best match.
+ * 
+ * Each user's accounts are kept as an {@link AccountMatchIndex} with their
+ * attributes pre-normalized, built on first use and dropped by
+ * {@link #invalidate} whenever an account, institution or account type of the
+ * user changes. Only the index's candidate accounts for an email are scored.
  */
 @Component
 public class AccountFuzzyMatcher {
@@ -22,6 +37,16 @@ public class AccountFuzzyMatcher {
     private static final int EXACT_MATCH_BONUS = 10; // Bonus for exact substring matches
     private static final int ACCOUNT_NUMBER_BONUS = 100; // Very high bonus for account number matches
 
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountMapper accountMapper;
+
+    private final Map<String, AccountMatchIndex> indexes = new ConcurrentHashMap<>();
+    // Bumped by invalidate so a load that raced with a change is not cached
+    private final Map<String, long[]> generations = new ConcurrentHashMap<>();
+
     /**
      * Match result containing the matched account and confidence score
      */
@@ -45,28 +70,104 @@ public class AccountFuzzyMatcher {
             String accountDetail,
             String rawData, 
             String description) {
+        return findBestMatch(new AccountMatchIndex(accounts), accountDetail, rawData, description);
+    }
+
+    /**
+     * Find the best matching account among the user's accounts, using the
+     * user's cached index instead of loading and normalizing every account.
+     * 
+     * @param appUser Owner of the accounts
+     * @param accountDetail Optional account detail from GPT or other source
+     * @param rawData The raw transaction email content
+     * @param description The extracted transaction description
+     * @return MatchResult with best match and score
+     */
+    public MatchResult findBestMatch(
+            AppUser appUser,
+            String accountDetail,
+            String rawData,
+            String description) {
+        return findBestMatch(indexFor(appUser), accountDetail, rawData, description);
+    }
+
+    /**
+     * Drops the user's cached index; the next match rebuilds it from the
+     * database. Inside a transaction it is dropped again after commit, so an
+     * index built from the pre-commit rows does not survive.
+     */
+    public void invalidate(AppUser appUser) {
+        String userId = appUser.getId();
+        drop(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop(userId);
+                }
+            });
+        }
+    }
+
+    private void drop(String userId) {
+        long[] generation = generations.computeIfAbsent(userId, id -> new long[1]);
+        synchronized (generation) {
+            generation[0]++;
+            indexes.remove(userId);
+        }
+    }
+
+    private AccountMatchIndex indexFor(AppUser appUser) {
+        AccountMatchIndex index = indexes.get(appUser.getId());
+        if (index != null) {
+            return index;
+        }
+        long[] generation = generations.computeIfAbsent(appUser.getId(), id -> new long[1]);
+        long seen;
+        synchronized (generation) {
+            seen = generation[0];
+        }
+        logger.debug("Building account match index for user: {}", appUser.getUsername());
+        index = new AccountMatchIndex(
+                accountMapper.toDTOList(accountRepository.findAllByAppUser(appUser, Sort.by("name").ascending())));
+        synchronized (generation) {
+            if (generation[0] == seen) {
+                indexes.put(appUser.getId(), index);
+            }
+        }
+        return index;
+    }
+
+    private MatchResult findBestMatch(
+            AccountMatchIndex index,
+            String accountDetail,
+            String rawData,
+            String description) {
 
         String normalizedAccountDetail = normalize(accountDetail);
         String normalizedRawData = normalize(rawData);
         String normalizedDescription = normalize(description);
 
+        List<Entry> candidates = index.candidates(normalizedAccountDetail, normalizedRawData, normalizedDescription);
+        logger.debug("Scoring {} of {} accounts", candidates.size(), index.entries().size());
+
         int highestScore = 0;
         AccountDTO bestMatch = null;
 
-        for (AccountDTO account : accounts) {
+        for (Entry candidate : candidates) {
             int score = calculateAccountScore(
-                account, 
+                candidate, 
                 normalizedAccountDetail, 
                 normalizedRawData, 
                 normalizedDescription
             );
 
             // Log score for each account for debugging
-            logger.debug("Fuzzy score for '{}': {}", account.name(), score);
+            logger.debug("Fuzzy score for '{}': {}", candidate.account().name(), score);
 
             if (score > highestScore) {
                 highestScore = score;
-                bestMatch = account;
+                bestMatch = candidate.account();
             }
         }
 
@@ -89,18 +190,18 @@ public class AccountFuzzyMatcher {
      * Calculate match score for a single account.
      */
     private int calculateAccountScore(
-            AccountDTO account,
+            Entry account,
             String normalizedAccountDetail,
             String rawData,
             String description) {
 
         int score = 0;
 
-        // Match against basic account attributes
-        String accName = normalize(account.name());
-        String accType = normalize(account.accountType().name());
-        String instName = normalize(account.institution().name());
-        String accNumber = normalize(account.accountNumber());
+        // Match against basic account attributes, normalized when the index was built
+        String accName = account.name();
+        String accType = account.type();
+        String instName = account.institution();
+        String accNumber = account.number();
 
         // Score based on account detail (if provided, e.g., from GPT)
         if (!normalizedAccountDetail.isEmpty()) {
@@ -135,7 +236,7 @@ public class AccountFuzzyMatcher {
         }
 
         // Account number matching (highest weight - critical for credit cards)
-        if (account.accountNumber() != null && !account.accountNumber().trim().isEmpty()) {
+        if (accNumber != null) {
             if (!normalizedAccountDetail.isEmpty()) {
                 score += safeFuzzyScore(normalizedAccountDetail, accNumber) * 5;
                 // High bonus for exact match in account detail
@@ -155,53 +256,43 @@ public class AccountFuzzyMatcher {
         }
 
         // Account keywords matching (medium weight)
-        if (account.accountKeywords() != null && !account.accountKeywords().trim().isEmpty()) {
-            for (String keyword : account.accountKeywords().split(",")) {
-                String normalizedKeyword = normalize(keyword.trim());
-                if (!normalizedKeyword.isEmpty()) {
-                    if (!normalizedAccountDetail.isEmpty()) {
-                        score += safeFuzzyScore(normalizedAccountDetail, normalizedKeyword) * 2;
-                        // Bonus for exact match
-                        if (normalizedAccountDetail.contains(normalizedKeyword)) {
-                            score += EXACT_MATCH_BONUS;
-                        }
-                    }
-                    score += safeFuzzyScore(normalizedKeyword, rawData) * 2;
-                    score += safeFuzzyScore(normalizedKeyword, description) * 2;
-                    // Bonus for exact matches in transaction data
-                    if (rawData.contains(normalizedKeyword)) {
-                        score += EXACT_MATCH_BONUS;
-                    }
-                    if (description.contains(normalizedKeyword)) {
-                        score += EXACT_MATCH_BONUS / 2;
-                    }
+        for (String normalizedKeyword : account.keywords()) {
+            if (!normalizedAccountDetail.isEmpty()) {
+                score += safeFuzzyScore(normalizedAccountDetail, normalizedKeyword) * 2;
+                // Bonus for exact match
+                if (normalizedAccountDetail.contains(normalizedKeyword)) {
+                    score += EXACT_MATCH_BONUS;
                 }
             }
+            score += safeFuzzyScore(normalizedKeyword, rawData) * 2;
+            score += safeFuzzyScore(normalizedKeyword, description) * 2;
+            // Bonus for exact matches in transaction data
+            if (rawData.contains(normalizedKeyword)) {
+                score += EXACT_MATCH_BONUS;
+            }
+            if (description.contains(normalizedKeyword)) {
+                score += EXACT_MATCH_BONUS / 2;
+            }
         }
 
         // Account aliases matching (medium weight)
-        if (account.accountAliases() != null && !account.accountAliases().trim().isEmpty()) {
-            for (String alias : account.accountAliases().split(",")) {
-                String normalizedAlias = normalize(alias.trim());
-                if (!normalizedAlias.isEmpty()) {
-                    if (!normalizedAccountDetail.isEmpty()) {
-                        score += safeFuzzyScore(normalizedAccountDetail, normalizedAlias) * 2;
-                        // Bonus for exact match
-                        if (normalizedAccountDetail.contains(normalizedAlias)) {
-                            score += EXACT_MATCH_BONUS;
-                        }
-                    }
-                    score += safeFuzzyScore(normalizedAlias, rawData) * 2;
-                    score += safeFuzzyScore(normalizedAlias, description) * 2;
-                    // Bonus for exact matches in transaction data
-                    if (rawData.contains(normalizedAlias)) {
-                        score += EXACT_MATCH_BONUS;
-                    }
-                    if (description.contains(normalizedAlias)) {
-                        score += EXACT_MATCH_BONUS / 2;
-                    }
+        for (String normalizedAlias : account.aliases()) {
+            if (!normalizedAccountDetail.isEmpty()) {
+                score += safeFuzzyScore(normalizedAccountDetail, normalizedAlias) * 2;
+                // Bonus for exact match
+                if (normalizedAccountDetail.contains(normalizedAlias)) {
+                    score += EXACT_MATCH_BONUS;
                 }
             }
+            score += safeFuzzyScore(normalizedAlias, rawData) * 2;
+            score += safeFuzzyScore(normalizedAlias, description) * 2;
+            // Bonus for exact matches in transaction data
+            if (rawData.contains(normalizedAlias)) {
+                score += EXACT_MATCH_BONUS;
+            }
+            if (description.contains(normalizedAlias)) {
+                score += EXACT_MATCH_BONUS / 2;
+            }
         }
 
         return score;
@@ -210,7 +301,7 @@ public class AccountFuzzyMatcher {
     /**
      * Normalize string for fuzzy matching by converting to lowercase and removing special characters.
      */
-    private static String normalize(String input) {
+    static String normalize(String input) {
         if (input == null || input.isEmpty()) {
             return "";
         }
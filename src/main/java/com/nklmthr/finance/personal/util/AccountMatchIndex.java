@@ -0,0 +1,166 @@
+package com.nklmthr.finance.personal.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.nklmthr.finance.personal.dto.AccountDTO;
+
+/**
+ * One user's accounts with every attribute the {@link AccountFuzzyMatcher}
+ * scores already normalized, plus lookups to pick the accounts worth scoring
+ * for an email.
+ *
+ * An account is a candidate when the email, description or account detail
+ * could earn it one of the exact-match bonuses: one of its name, institution,
+ * keyword or alias terms occurs in the text (every trigram of the term is
+ * among the text's trigrams, or for terms under three chars a plain contains),
+ * its account number occurs in a digit run of the text, or its type matches
+ * the "credit card"/"savings" wording. Everything else could only score
+ * through FuzzyScore noise and is skipped.
+ */
+final class AccountMatchIndex {
+
+    /**
+     * Normalized attributes of one account, in the order of the source list.
+     */
+    record Entry(int order, AccountDTO account, String name, String type, String institution, String number,
+            List<String> keywords, List<String> aliases) {
+    }
+
+    private record Term(Entry entry, String text, Set<String> trigrams) {
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Term> terms = new ArrayList<>();
+    private final Map<String, List<Entry>> entriesByNumber = new HashMap<>();
+    private final TreeSet<Integer> numberLengths = new TreeSet<>();
+    private final Map<String, List<Entry>> entriesByType = new HashMap<>();
+
+    AccountMatchIndex(List<AccountDTO> accounts) {
+        for (AccountDTO account : accounts) {
+            boolean hasNumber = account.accountNumber() != null && !account.accountNumber().trim().isEmpty();
+            Entry entry = new Entry(entries.size(), account,
+                    AccountFuzzyMatcher.normalize(account.name()),
+                    AccountFuzzyMatcher.normalize(account.accountType().name()),
+                    AccountFuzzyMatcher.normalize(account.institution().name()),
+                    hasNumber ? AccountFuzzyMatcher.normalize(account.accountNumber()) : null,
+                    splitNormalized(account.accountKeywords()),
+                    splitNormalized(account.accountAliases()));
+            entries.add(entry);
+
+            addTerm(entry, entry.name());
+            addTerm(entry, entry.institution());
+            entry.keywords().forEach(keyword -> addTerm(entry, keyword));
+            entry.aliases().forEach(alias -> addTerm(entry, alias));
+            if (entry.number() != null) {
+                if (entry.number().chars().allMatch(Character::isDigit)) {
+                    entriesByNumber.computeIfAbsent(entry.number(), k -> new ArrayList<>()).add(entry);
+                    numberLengths.add(entry.number().length());
+                } else {
+                    addTerm(entry, entry.number());
+                }
+            }
+            entriesByType.computeIfAbsent(entry.type(), k -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Accounts worth scoring against the normalized texts, in source order;
+     * every account when none qualifies, so a weak match is still reported.
+     */
+    List<Entry> candidates(String accountDetail, String rawData, String description) {
+        Set<Entry> found = new HashSet<>();
+        String[] texts = { accountDetail, rawData, description };
+
+        Set<String> trigrams = new HashSet<>();
+        for (String text : texts) {
+            trigrams.addAll(trigrams(text));
+        }
+        for (Term term : terms) {
+            if (found.contains(term.entry())) {
+                continue;
+            }
+            boolean present = term.trigrams().isEmpty()
+                    ? Arrays.stream(texts).anyMatch(text -> text.contains(term.text()))
+                    : trigrams.containsAll(term.trigrams());
+            if (present) {
+                found.add(term.entry());
+            }
+        }
+
+        if (!entriesByNumber.isEmpty()) {
+            for (String text : texts) {
+                addNumberMatches(text, found);
+            }
+        }
+
+        if (rawData.contains("credit card")) {
+            found.addAll(entriesByType.getOrDefault("cca", List.of()));
+        }
+        if (rawData.contains("savings")) {
+            found.addAll(entriesByType.getOrDefault("svg", List.of()));
+        }
+
+        if (found.isEmpty()) {
+            return entries;
+        }
+        return entries.stream().filter(found::contains).toList();
+    }
+
+    private void addNumberMatches(String text, Set<Entry> found) {
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+            String run = text.substring(start, i);
+            for (int length : numberLengths.headSet(run.length(), true)) {
+                for (int from = 0; from + length <= run.length(); from++) {
+                    List<Entry> matches = entriesByNumber.get(run.substring(from, from + length));
+                    if (matches != null) {
+                        found.addAll(matches);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addTerm(Entry entry, String text) {
+        if (!text.isEmpty()) {
+            terms.add(new Term(entry, text, trigrams(text)));
+        }
+    }
+
+    private static List<String> splitNormalized(String values) {
+        if (values == null || values.trim().isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(values.split(","))
+                .map(value -> AccountFuzzyMatcher.normalize(value.trim()))
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,73 @@
+package com.nklmthr.finance.personal.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the transactions list.
+ *
+ * Encodes the sort key of the last row on a page together with its id so the
+ * next page can seek past it ({@code (date, id) < (:date, :id)}) instead of
+ * skipping rows with OFFSET. The sort field and direction are carried inside
+ * the cursor so a cursor cannot silently be replayed against a different sort.
+ */
+public record TransactionCursor(String sortField, boolean ascending, String sortValue, String id) {
+
+	public static final String SORT_DATE = "date";
+	public static final String SORT_AMOUNT = "amount";
+
+	private static final String SEPARATOR = "|";
+
+	public static TransactionCursor after(String sortField, boolean ascending, LocalDateTime date, BigDecimal amount,
+			String id) {
+		String value = SORT_AMOUNT.equals(sortField) ? amount.toPlainString() : date.toString();
+		return new TransactionCursor(sortField, ascending, value, id);
+	}
+
+	public String encode() {
+		String raw = String.join(SEPARATOR, sortField, ascending ? "asc" : "desc", sortValue, id);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static TransactionCursor decode(String cursor) {
+		String raw;
+		try {
+			raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Malformed cursor");
+		}
+		String[] parts = raw.split("\\" + SEPARATOR, -1);
+		if (parts.length != 4 || parts[3].isBlank()
+				|| !(SORT_DATE.equals(parts[0]) || SORT_AMOUNT.equals(parts[0]))
+				|| !("asc".equals(parts[1]) || "desc".equals(parts[1]))) {
+			throw new IllegalArgumentException("Malformed cursor");
+		}
+		TransactionCursor decoded = new TransactionCursor(parts[0], "asc".equals(parts[1]), parts[2], parts[3]);
+		try {
+			// Validate eagerly so a tampered cursor is a 400, not a query failure
+			if (decoded.isAmountSort()) {
+				decoded.amountValue();
+			} else {
+				decoded.dateValue();
+			}
+		} catch (NumberFormatException | DateTimeParseException e) {
+			throw new IllegalArgumentException("Malformed cursor");
+		}
+		return decoded;
+	}
+
+	public boolean isAmountSort() {
+		return SORT_AMOUNT.equals(sortField);
+	}
+
+	public BigDecimal amountValue() {
+		return new BigDecimal(sortValue);
+	}
+
+	public LocalDateTime dateValue() {
+		return LocalDateTime.parse(sortValue);
+	}
+}
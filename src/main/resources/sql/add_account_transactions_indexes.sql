@@ -0,0 +1,32 @@
+-- Migration script to add composite indexes for the account_transactions access patterns
+-- Every hot query is scoped by app_user_id, so it leads each index.
+-- The same set is declared on AccountTransaction (@Table indexes) and verified at startup
+-- by IndexCoverageService, which logs any access pattern without a supporting index.
+
+-- Transaction list, month/date-range filters, monthly ledger rebuild
+CREATE INDEX idx_at_user_date
+ON account_transactions(app_user_id, date);
+
+-- Category filter and prediction history (category set + date range)
+CREATE INDEX idx_at_user_category_date
+ON account_transactions(app_user_id, category_id, date);
+
+-- Split children lookups and has_children maintenance (parent_id IN (...))
+CREATE INDEX idx_at_parent_user
+ON account_transactions(parent_id, app_user_id);
+
+-- Gmail dedup lookups (findByAppUserAndSourceThreadId)
+CREATE INDEX idx_at_user_source_thread
+ON account_transactions(app_user_id, source_thread_id);
+
+-- Transfer pair lookups (findByAppUserAndLinkedTransferId)
+CREATE INDEX idx_at_user_linked_transfer
+ON account_transactions(app_user_id, linked_transfer_id);
+
+-- Statement unlink and statement transaction listing
+CREATE INDEX idx_at_user_statement
+ON account_transactions(app_user_id, uploaded_statement_id);
+
+-- Statement upload duplicate detection (findByAccountAndDateBetween)
+CREATE INDEX idx_at_account_date
+ON account_transactions(account_id, date);
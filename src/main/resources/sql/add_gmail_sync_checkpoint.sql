@@ -0,0 +1,14 @@
+-- Migration script to add the gmail_sync_checkpoint table for incremental Gmail sync
+-- One row per (user, extraction config) holding the mailbox historyId the config was last synced to.
+-- Scheduled runs only process messages added since then (users.history.list); without a row, or when
+-- Gmail reports the historyId as expired, the config falls back to the gmail.lookback.days window.
+
+CREATE TABLE gmail_sync_checkpoint (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    app_user_id VARCHAR(255) NOT NULL,
+    config_name VARCHAR(100) NOT NULL,
+    history_id BIGINT NOT NULL,
+    synced_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_gmail_sync_user_config UNIQUE (app_user_id, config_name),
+    CONSTRAINT fk_gmail_sync_user FOREIGN KEY (app_user_id) REFERENCES app_user (id)
+);
@@ -0,0 +1,13 @@
+-- Migration script to add the has_children flag for split parents
+-- Leaf-transaction filters read this column instead of a correlated subquery on parent_id.
+-- AccountTransactionService keeps it in sync on split/delete and re-runs the backfill on startup.
+
+ALTER TABLE account_transactions
+ADD COLUMN has_children BIT(1) NOT NULL DEFAULT 0;
+
+-- Backfill existing split parents
+UPDATE account_transactions t
+JOIN (
+    SELECT DISTINCT parent_id FROM account_transactions WHERE parent_id IS NOT NULL
+) c ON c.parent_id = t.id
+SET t.has_children = 1;
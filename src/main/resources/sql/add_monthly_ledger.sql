@@ -0,0 +1,24 @@
+-- Migration script to add the monthly_ledger rollup table
+-- One row per (user, account, category, month, type) with the summed amount and row count.
+-- Rows are rebuilt per month by MonthlyLedgerService after each transaction write,
+-- and fully on startup and nightly, so the table can be dropped and recreated safely.
+
+CREATE TABLE monthly_ledger (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    app_user_id VARCHAR(255) NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    category_id VARCHAR(255) NULL,
+    ledger_month VARCHAR(7) NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    amount DECIMAL(19,4) NOT NULL,
+    txn_count BIGINT NOT NULL,
+    root_amount DECIMAL(19,4) NOT NULL,
+    root_count BIGINT NOT NULL,
+    leaf_amount DECIMAL(19,4) NOT NULL,
+    leaf_count BIGINT NOT NULL,
+    CONSTRAINT uk_monthly_ledger_bucket UNIQUE (app_user_id, account_id, category_id, ledger_month, type)
+);
+
+-- Range scans by user and month for totals, category spend and prediction history
+CREATE INDEX idx_monthly_ledger_user_month
+ON monthly_ledger(app_user_id, ledger_month);
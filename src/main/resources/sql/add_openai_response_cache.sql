@@ -0,0 +1,15 @@
+-- Migration script to add the openai_response_cache table for OpenAI enrichment responses
+-- One row per (model, system prompt, normalized email content), keyed by the SHA-256 of the three.
+-- Re-processing an email after an unlink/reimport or a restart reuses the stored completion instead of
+-- calling /v1/chat/completions again; rows older than openai.cache.ttl-days are purged daily.
+
+CREATE TABLE openai_response_cache (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    cache_key VARCHAR(64) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    response TEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_openai_response_cache_key UNIQUE (cache_key)
+);
+
+CREATE INDEX idx_openai_response_cache_created ON openai_response_cache (created_at);
@@ -0,0 +1,6 @@
+-- Migration script for background statement processing
+-- Adds the PROCESSING and PARTIAL statuses. Hibernate created the column as an ENUM and
+-- ddl-auto=update does not alter column types, so run this before deploying background processing.
+
+ALTER TABLE uploaded_statement
+MODIFY COLUMN status ENUM('UPLOADED', 'PROCESSING', 'PROCESSED', 'PARTIAL', 'FAILED');
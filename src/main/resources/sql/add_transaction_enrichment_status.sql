@@ -0,0 +1,9 @@
+-- Migration script for background OpenAI enrichment
+-- Gmail ingestion saves transactions straight from regex extraction with enrichment_status = 'PENDING';
+-- TransactionEnrichmentService fills in the gpt_* columns later and moves the row to ENRICHED or FAILED.
+-- Rows from before this change, and rows not imported from mail, keep NULL.
+
+ALTER TABLE account_transactions
+ADD COLUMN enrichment_status VARCHAR(20) NULL;
+
+CREATE INDEX idx_at_enrichment_status ON account_transactions (enrichment_status, source_time);
@@ -0,0 +1,6 @@
+-- Migration script to add the FULLTEXT index used by transaction search
+-- Required for full-text transaction search; without it TransactionSearchService falls back to LIKE scans.
+
+-- Prefix-matched, relevance-ranked search over description and explanation
+ALTER TABLE account_transactions
+ADD FULLTEXT INDEX ft_account_transactions_text (description, explanation);
@@ -1,14 +1,20 @@
 package com.nklmthr.finance.personal.controller;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,12 +35,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nklmthr.finance.personal.dto.AccountDTO;
 import com.nklmthr.finance.personal.dto.AccountTransactionDTO;
 import com.nklmthr.finance.personal.dto.CategoryDTO;
 import com.nklmthr.finance.personal.dto.TransactionPageDTO;
+import com.nklmthr.finance.personal.enums.ExportFormat;
 import com.nklmthr.finance.personal.enums.TransactionType;
 import com.nklmthr.finance.personal.service.AccountTransactionService;
 import com.nklmthr.finance.personal.security.SecurityConfig;
@@ -68,6 +76,29 @@ class AccountTransactionControllerTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    void list_keysetModeUsesCursorPath() throws Exception {
+        TransactionPageDTO page = new TransactionPageDTO(List.of(), -1, -1, 0, 10, null, "next");
+        when(service.getFilteredTransactionsByCursor(Mockito.isNull(), Mockito.eq(10), Mockito.any(), Mockito.any(),
+                Mockito.eq(false), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+            .thenReturn(page);
+        mvc.perform(get("/api/transactions").param("pagination", "keyset"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void list_badCursorReturns400() throws Exception {
+        when(service.getFilteredTransactionsByCursor(Mockito.eq("bad"), Mockito.anyInt(), Mockito.any(), Mockito.any(),
+                Mockito.anyBoolean(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+            .thenThrow(new IllegalArgumentException("Malformed cursor"));
+        mvc.perform(get("/api/transactions").param("cursor", "bad"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Malformed cursor"));
+    }
+
     @Test
     void export_returnsList() throws Exception {
         when(service.getFilteredTransactionsForExport(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
@@ -76,6 +107,52 @@ class AccountTransactionControllerTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    void export_csvStreamsAttachment() throws Exception {
+        Mockito.doAnswer(inv -> {
+            OutputStream out = inv.getArgument(1);
+            out.write("\"Id\",\"Description\"\n\"t1\",\"Coffee, \"\"large\"\"\"\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(service).streamTransactionsForExport(Mockito.eq(ExportFormat.CSV), Mockito.any(), Mockito.eq("2026-03"),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any());
+
+        MvcResult started = mvc.perform(get("/api/transactions/export").param("format", "csv").param("month", "2026-03"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""))
+            .andExpect(content().string("\"Id\",\"Description\"\n\"t1\",\"Coffee, \"\"large\"\"\"\n"));
+    }
+
+    @Test
+    void export_ndjsonStreamsOneObjectPerLine() throws Exception {
+        Mockito.doAnswer(inv -> {
+            OutputStream out = inv.getArgument(1);
+            out.write("{\"id\":\"t1\"}\n{\"id\":\"t2\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(service).streamTransactionsForExport(Mockito.eq(ExportFormat.NDJSON), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any());
+
+        MvcResult started = mvc.perform(get("/api/transactions/export").param("format", "NDJSON"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.ndjson\""))
+            .andExpect(content().string("{\"id\":\"t1\"}\n{\"id\":\"t2\"}\n"));
+    }
+
+    @Test
+    void export_unsupportedFormatReturns400() throws Exception {
+        mvc.perform(get("/api/transactions/export").param("format", "xml"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getById_found() throws Exception {
         AccountTransactionDTO dto = new AccountTransactionDTO("t1", java.time.LocalDateTime.now(), BigDecimal.ONE, "d", null, null, null, TransactionType.DEBIT, new AccountDTO("a","A", BigDecimal.ZERO, null, null, null, null, null, false), new CategoryDTO(), null, List.of(), null, null, null, null, null, null, null, null, null, null);
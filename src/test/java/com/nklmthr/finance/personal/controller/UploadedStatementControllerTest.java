@@ -0,0 +1,111 @@
+package com.nklmthr.finance.personal.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.client.servlet.OAuth2ClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.nklmthr.finance.personal.dto.StatementJobDTO;
+import com.nklmthr.finance.personal.model.UploadedStatement.Status;
+import com.nklmthr.finance.personal.service.StatementJobService;
+import com.nklmthr.finance.personal.service.UploadedStatementService;
+import com.nklmthr.finance.personal.security.SecurityConfig;
+import com.nklmthr.finance.personal.security.JwtAuthenticationFilter;
+
+@WebMvcTest(controllers = UploadedStatementController.class,
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SecurityConfig.class),
+    excludeAutoConfiguration = {
+    SecurityAutoConfiguration.class,
+    SecurityFilterAutoConfiguration.class,
+    OAuth2ClientAutoConfiguration.class,
+    OAuth2ResourceServerAutoConfiguration.class,
+    UserDetailsServiceAutoConfiguration.class
+})
+@ActiveProfiles("dev")
+@org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc(addFilters = false)
+@ExtendWith(SpringExtension.class)
+class UploadedStatementControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+    @MockBean
+    UploadedStatementService statementService;
+    @MockBean
+    StatementJobService statementJobService;
+    @MockBean
+    JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Test
+    void process_queuedReturns202WithJob() throws Exception {
+        when(statementJobService.submit("s1")).thenReturn(job(Status.PROCESSING, null));
+
+        mvc.perform(post("/api/uploaded-statements/s1/process"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.jobId").value("job-1"))
+            .andExpect(jsonPath("$.statementId").value("s1"))
+            .andExpect(jsonPath("$.status").value("PROCESSING"));
+    }
+
+    @Test
+    void process_alreadyClaimedReturns409() throws Exception {
+        when(statementJobService.submit("s1")).thenThrow(
+            new IllegalStateException("Only uploaded, failed or partially processed statements can be processed."));
+
+        mvc.perform(post("/api/uploaded-statements/s1/process"))
+            .andExpect(status().isConflict())
+            .andExpect(content().string("Only uploaded, failed or partially processed statements can be processed."));
+    }
+
+    @Test
+    void process_fullQueueReturns409() throws Exception {
+        when(statementJobService.submit("s1")).thenThrow(
+            new IllegalStateException("Too many statements are queued for processing, try again shortly."));
+
+        mvc.perform(post("/api/uploaded-statements/s1/process"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getJob_returnsProgress() throws Exception {
+        when(statementJobService.getJob("job-1")).thenReturn(job(Status.PARTIAL, LocalDateTime.of(2026, 3, 1, 10, 5)));
+
+        mvc.perform(get("/api/uploaded-statements/jobs/job-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("PARTIAL"))
+            .andExpect(jsonPath("$.rowsSaved").value(490))
+            .andExpect(jsonPath("$.rowsFailed").value(100));
+    }
+
+    @Test
+    void getJob_unknownJobReturns404() throws Exception {
+        when(statementJobService.getJob("missing")).thenThrow(new IllegalArgumentException("Job not found: missing"));
+
+        mvc.perform(get("/api/uploaded-statements/jobs/missing"))
+            .andExpect(status().isNotFound());
+    }
+
+    private StatementJobDTO job(Status status, LocalDateTime finishedAt) {
+        return new StatementJobDTO("job-1", "s1", status, 600, 490, 10, 100, null,
+            LocalDateTime.of(2026, 3, 1, 10, 0), finishedAt);
+    }
+}
@@ -0,0 +1,85 @@
+package com.nklmthr.finance.personal.openai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nklmthr.finance.personal.model.OpenAIResponseCacheEntry;
+import com.nklmthr.finance.personal.repository.OpenAIResponseCacheRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OpenAIResponseCacheTest {
+
+    @Mock
+    private OpenAIResponseCacheRepository repository;
+
+    @InjectMocks
+    private OpenAIResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlDays", 90);
+    }
+
+    @Test
+    void key_ignoresWhitespaceButNotCaseOrAmounts() {
+        String key = OpenAIResponseCache.key("gpt-4o-mini", "prompt", "INR 340.00 spent\r\n at  Amazon ");
+
+        assertThat(OpenAIResponseCache.key("gpt-4o-mini", "prompt", " INR 340.00 spent at Amazon")).isEqualTo(key);
+        assertThat(OpenAIResponseCache.key("gpt-4o-mini", "prompt", "INR 340.00 spent at amazon")).isNotEqualTo(key);
+        assertThat(OpenAIResponseCache.key("gpt-4o-mini", "prompt", "INR 341.00 spent at Amazon")).isNotEqualTo(key);
+        assertThat(OpenAIResponseCache.key("gpt-4o", "prompt", "INR 340.00 spent at Amazon")).isNotEqualTo(key);
+    }
+
+    @Test
+    void get_servesMemoryThenDatabaseAndSkipsExpiredRows() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        cache.put("k1", "gpt-4o-mini", "{\"amount\":1}");
+
+        assertThat(cache.get("k1")).contains("{\"amount\":1}");
+        assertThat(cache.getMemoryHits()).isEqualTo(1);
+
+        when(repository.findByCacheKey("k2")).thenReturn(Optional.of(entry("k2", LocalDateTime.now().minusDays(1))));
+        when(repository.findByCacheKey("k3")).thenReturn(Optional.of(entry("k3", LocalDateTime.now().minusDays(91))));
+
+        assertThat(cache.get("k2")).contains("{}");
+        assertThat(cache.get("k3")).isEmpty();
+        assertThat(cache.getDatabaseHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        verify(repository).save(any(OpenAIResponseCacheEntry.class));
+    }
+
+    @Test
+    void memoryTierIsBounded() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        cache.put("k1", "m", "r1");
+        cache.put("k2", "m", "r2");
+        cache.put("k3", "m", "r3");
+        clearInvocations(repository);
+
+        assertThat(cache.get("k3")).contains("r3");
+        assertThat(cache.get("k1")).isEmpty();
+        verify(repository, never()).findByCacheKey("k3");
+    }
+
+    private static OpenAIResponseCacheEntry entry(String key, LocalDateTime createdAt) {
+        return OpenAIResponseCacheEntry.builder().cacheKey(key).model("gpt-4o-mini").response("{}")
+            .createdAt(createdAt).build();
+    }
+}
@@ -0,0 +1,431 @@
+package com.nklmthr.finance.personal.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.History;
+import com.google.api.services.gmail.model.HistoryMessageAdded;
+import com.google.api.services.gmail.model.ListHistoryResponse;
+import com.google.api.services.gmail.model.ListMessagesResponse;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+import com.google.api.services.gmail.model.MessagePartHeader;
+import com.google.api.services.gmail.model.Profile;
+import com.nklmthr.finance.personal.dto.AccountDTO;
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.model.GmailSyncCheckpoint;
+import com.nklmthr.finance.personal.repository.AppUserRepository;
+import com.nklmthr.finance.personal.repository.GmailSyncCheckpointRepository;
+import com.nklmthr.finance.personal.scheduler.config.ExtractionConfig;
+import com.nklmthr.finance.personal.scheduler.config.ExtractionConfigRegistry;
+import com.nklmthr.finance.personal.service.AccountService;
+import com.nklmthr.finance.personal.service.AccountTransactionService;
+import com.nklmthr.finance.personal.service.CategoryService;
+import com.nklmthr.finance.personal.service.TransactionDedupIndex;
+import com.nklmthr.finance.personal.service.gmail.GmailBatchMessageFetcher;
+import com.nklmthr.finance.personal.service.gmail.GmailBatchMessageFetcher.FetchResult;
+import com.nklmthr.finance.personal.service.gmail.GmailServiceProvider;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher.MatchResult;
+
+/**
+ * Drives ingestion end to end against stubbed Gmail clients, one per user.
+ */
+@ExtendWith(MockitoExtension.class)
+class ConfigurableDataExtractionServiceTest {
+
+    private static final String AXIS_ALERT = "Transaction Amount: INR 3480 Merchant Name: MADHULOKA L "
+        + "Axis Bank Credit Card No. XX0434 Date & Time: 23-10-2025, 16:10:58 IST";
+
+    @Mock private ExtractionConfigRegistry configRegistry;
+    @Mock private AccountFuzzyMatcher accountFuzzyMatcher;
+    @Mock private AccountService accountService;
+    @Mock private CategoryService categoryService;
+    @Mock private AccountTransactionService accountTransactionService;
+    @Mock private GmailServiceProvider gmailServiceProvider;
+    @Mock private GmailBatchMessageFetcher gmailBatchMessageFetcher;
+    @Mock private GmailSyncCheckpointRepository gmailSyncCheckpointRepository;
+    @Mock private AppUserRepository appUserRepository;
+
+    @InjectMocks
+    private ConfigurableDataExtractionService service;
+
+    private final ExtractionConfig axisCard = new ExtractionConfig("axis-card", List.of("Transaction alert"),
+        List.of("alerts@axisbank.com"), null, true);
+
+    // Messages each user's stubbed mailbox holds, by id
+    private final Map<Gmail, Map<String, Message>> mailboxes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "schedulerEnabled", true);
+        ReflectionTestUtils.setField(service, "gmailLookbackDays", 7);
+        ReflectionTestUtils.setField(service, "openAIEnabled", false);
+        ReflectionTestUtils.setField(service, "maxConcurrency", 8);
+        ReflectionTestUtils.setField(service, "perUserConcurrency", 3);
+        lenient().when(gmailBatchMessageFetcher.getBatchSize()).thenReturn(50);
+        lenient().when(categoryService.getNonClassifiedCategory(any())).thenReturn(new Category());
+        Account account = new Account();
+        account.setId("acc-1");
+        account.setName("Axis Card");
+        lenient().when(accountFuzzyMatcher.findBestMatch(any(AppUser.class), any(), anyString(), any()))
+            .thenReturn(new MatchResult(new AccountDTO("acc-1", "Axis Card", BigDecimal.ZERO, null, null, "0434",
+                null, null, false), 100));
+        lenient().when(accountService.getAccountByName(eq("Axis Card"), any())).thenReturn(account);
+    }
+
+    @Test
+    void run_sameMessageRoutedToTwoConfigsIsSavedOnce() throws Exception {
+        ExtractionConfig axisCardCopy = new ExtractionConfig("axis-card-copy", List.of("Transaction alert"),
+            List.of("alerts@axisbank.com"), null, true);
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 500L);
+        listed(gmail, message("m1", "thread-1"));
+        when(accountTransactionService.save(any(AccountTransaction.class), eq(user))).thenAnswer(inv -> {
+            Thread.sleep(50);
+            return null;
+        });
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard, axisCardCopy));
+
+        service.run();
+
+        ArgumentCaptor<AccountTransaction> saved = ArgumentCaptor.forClass(AccountTransaction.class);
+        verify(accountTransactionService, times(1)).save(saved.capture(), eq(user));
+        assertThat(saved.getValue().getSourceId()).isEqualTo("m1");
+        assertThat(saved.getValue().getAmount()).isEqualByComparingTo("3480");
+        verify(gmailBatchMessageFetcher, times(1)).fetchFull(eq(gmail), anyList());
+    }
+
+    @Test
+    void run_gmailCallsNeverExceedGlobalLimit() throws Exception {
+        ReflectionTestUtils.setField(service, "maxConcurrency", 2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<AppUser> users = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            AppUser user = user("u" + i);
+            Gmail gmail = connect(user, 500L);
+            listed(gmail, message("m" + i, "thread-" + i));
+            users.add(user);
+        }
+        doAnswer(inv -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            active.decrementAndGet();
+            return fetch(inv.getArgument(0), inv.getArgument(1));
+        }).when(gmailBatchMessageFetcher).fetchFull(any(), anyList());
+        when(appUserRepository.findAll()).thenReturn(users);
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.run();
+
+        assertThat(maxActive.get()).isEqualTo(2);
+        verify(gmailBatchMessageFetcher, times(4)).fetchFull(any(), anyList());
+        verify(accountTransactionService, times(4)).save(any(AccountTransaction.class), any());
+    }
+
+    @Test
+    void run_perUserLimitDoesNotSerialiseOtherUsers() throws Exception {
+        ReflectionTestUtils.setField(service, "perUserConcurrency", 1);
+        Map<Gmail, AtomicInteger> activePerUser = new ConcurrentHashMap<>();
+        AtomicInteger maxPerUser = new AtomicInteger();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<AppUser> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            AppUser user = user("u" + i);
+            Gmail gmail = connect(user, 500L);
+            listed(gmail, message("m" + i, "thread-" + i));
+            users.add(user);
+        }
+        doAnswer(inv -> {
+            Gmail gmail = inv.getArgument(0);
+            AtomicInteger mine = activePerUser.computeIfAbsent(gmail, g -> new AtomicInteger());
+            maxPerUser.accumulateAndGet(mine.incrementAndGet(), Math::max);
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            active.decrementAndGet();
+            mine.decrementAndGet();
+            return fetch(gmail, inv.getArgument(1));
+        }).when(gmailBatchMessageFetcher).fetchFull(any(), anyList());
+        when(appUserRepository.findAll()).thenReturn(users);
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.run();
+
+        assertThat(maxPerUser.get()).isEqualTo(1);
+        assertThat(maxActive.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void runTask_advancesCheckpointFromHistoryWithoutListing() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"));
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmail.users().messages(), never()).list(anyString());
+        verify(gmailBatchMessageFetcher).fetchFull(gmail, List.of("m1"));
+        verify(accountTransactionService).save(any(AccountTransaction.class), eq(user));
+        verify(gmailSyncCheckpointRepository).save(checkpoint);
+        assertThat(checkpoint.getHistoryId()).isEqualTo(900L);
+    }
+
+    @Test
+    void runTask_fetchesOnlyRoutedHistoryMessagesInFull() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"), message("m2", "thread-2", "Sam <sam@example.com>", "Dinner"));
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmailBatchMessageFetcher).fetchMetadata(gmail, List.of("m1", "m2"));
+        verify(gmailBatchMessageFetcher).fetchFull(gmail, List.of("m1"));
+        verify(gmailSyncCheckpointRepository).save(checkpoint);
+        assertThat(checkpoint.getHistoryId()).isEqualTo(900L);
+    }
+
+    @Test
+    void runTask_keepsCheckpointWhenHeadersCouldNotBeFetched() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"), message("m2", "thread-2"));
+        doReturn(new FetchResult(Map.of("m1", mailboxes.get(gmail).get("m1")), Set.of()))
+            .when(gmailBatchMessageFetcher).fetchMetadata(eq(gmail), anyList());
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmailBatchMessageFetcher).fetchFull(gmail, List.of("m1"));
+        verify(gmailSyncCheckpointRepository, never()).save(any());
+    }
+
+    @Test
+    void runTask_keepsCheckpointWhenAMessageCouldNotBeFetched() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"), message("m2", "thread-2"));
+        doReturn(new FetchResult(Map.of("m1", mailboxes.get(gmail).get("m1")), Set.of()))
+            .when(gmailBatchMessageFetcher).fetchFull(eq(gmail), anyList());
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(accountTransactionService).save(any(AccountTransaction.class), eq(user));
+        verify(gmailSyncCheckpointRepository, never()).save(any());
+        assertThat(checkpoint.getHistoryId()).isEqualTo(500L);
+    }
+
+    @Test
+    void runTask_keepsCheckpointWhenAMessageFailsToProcess() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"));
+        when(accountTransactionService.save(any(AccountTransaction.class), eq(user)))
+            .thenThrow(new IllegalStateException("Deadlock found when trying to get lock"));
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmailSyncCheckpointRepository, never()).save(any());
+    }
+
+    @Test
+    void runTask_deletedMessageStillAdvancesCheckpoint() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail, message("m1", "thread-1"), message("m2", "thread-2"));
+        doReturn(new FetchResult(Map.of("m1", mailboxes.get(gmail).get("m1")), Set.of("m2")))
+            .when(gmailBatchMessageFetcher).fetchFull(eq(gmail), anyList());
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmailSyncCheckpointRepository).save(checkpoint);
+        assertThat(checkpoint.getHistoryId()).isEqualTo(900L);
+    }
+
+    @Test
+    void runTask_expiredHistoryIdFallsBackToLookbackWindow() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        when(gmail.users().history().list("me").setStartHistoryId(any()).setHistoryTypes(any()).setPageToken(any())
+            .execute()).thenThrow(new GoogleJsonResponseException(
+                new HttpResponseException.Builder(404, "Not Found", new HttpHeaders()), null));
+        listed(gmail, message("m1", "thread-1"));
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        // m1 only reaches the fetcher through the lookback listing
+        verify(gmailBatchMessageFetcher).fetchFull(gmail, List.of("m1"));
+        verify(accountTransactionService).save(any(AccountTransaction.class), eq(user));
+        verify(gmailSyncCheckpointRepository).save(checkpoint);
+        assertThat(checkpoint.getHistoryId()).isEqualTo(900L);
+    }
+
+    @Test
+    void runTask_skipsConfigWithNothingNew() throws Exception {
+        AppUser user = user("u1");
+        Gmail gmail = connect(user, 900L);
+        GmailSyncCheckpoint checkpoint = checkpoint(user, 500L);
+        when(gmailSyncCheckpointRepository.findByAppUser(user)).thenReturn(List.of(checkpoint));
+        history(gmail);
+        when(appUserRepository.findAll()).thenReturn(List.of(user));
+        when(configRegistry.getAllConfigs()).thenReturn(List.of(axisCard));
+
+        service.runTask();
+
+        verify(gmailBatchMessageFetcher, never()).fetchMetadata(any(), anyList());
+        verify(gmailBatchMessageFetcher, never()).fetchFull(any(), anyList());
+        verify(gmail.users().messages(), never()).list(anyString());
+        verify(gmailSyncCheckpointRepository).save(checkpoint);
+        assertThat(checkpoint.getHistoryId()).isEqualTo(900L);
+    }
+
+    private AppUser user(String id) {
+        return AppUser.builder().id(id).username("user-" + id).password("p").role("USER")
+            .email(id + "@example.com").build();
+    }
+
+    private GmailSyncCheckpoint checkpoint(AppUser user, long historyId) {
+        return GmailSyncCheckpoint.builder().appUser(user).configName(axisCard.getName()).historyId(historyId)
+            .syncedAt(LocalDateTime.of(2026, 3, 1, 9, 0)).build();
+    }
+
+    /**
+     * Connects {@code user} to a stubbed mailbox whose current historyId is
+     * {@code historyId}; its messages are served by the batch fetcher.
+     */
+    private Gmail connect(AppUser user, long historyId) throws Exception {
+        Credential credential = mock(Credential.class);
+        lenient().when(credential.getAccessToken()).thenReturn("access");
+        lenient().when(credential.getRefreshToken()).thenReturn("refresh");
+        Gmail gmail = mock(Gmail.class, RETURNS_DEEP_STUBS);
+        lenient().when(gmailServiceProvider.getCredential(user)).thenReturn(credential);
+        lenient().when(gmailServiceProvider.getGmailService(user)).thenReturn(gmail);
+        lenient().when(accountTransactionService.loadDedupIndex(eq(user), any(LocalDateTime.class)))
+            .thenAnswer(inv -> BeanUtils.instantiateClass(
+                TransactionDedupIndex.class.getDeclaredConstructor(long.class, String.class), 60L, "v1"));
+        lenient().when(gmail.users().getProfile("me").execute())
+            .thenReturn(new Profile().setHistoryId(BigInteger.valueOf(historyId)));
+        mailboxes.put(gmail, new LinkedHashMap<>());
+        lenient().when(gmailBatchMessageFetcher.fetchFull(eq(gmail), anyList()))
+            .thenAnswer(inv -> fetch(gmail, inv.getArgument(1)));
+        lenient().when(gmailBatchMessageFetcher.fetchMetadata(eq(gmail), anyList()))
+            .thenAnswer(inv -> fetch(gmail, inv.getArgument(1)));
+        return gmail;
+    }
+
+    private void listed(Gmail gmail, Message... messages) throws Exception {
+        List<Message> ids = new ArrayList<>();
+        for (Message message : messages) {
+            mailboxes.get(gmail).put(message.getId(), message);
+            ids.add(new Message().setId(message.getId()));
+        }
+        when(gmail.users().messages().list("me").setQ(anyString()).setMaxResults(anyLong()).setPageToken(any())
+            .execute()).thenReturn(new ListMessagesResponse().setMessages(ids));
+    }
+
+    private void history(Gmail gmail, Message... messages) throws Exception {
+        List<HistoryMessageAdded> added = new ArrayList<>();
+        for (Message message : messages) {
+            mailboxes.get(gmail).put(message.getId(), message);
+            added.add(new HistoryMessageAdded().setMessage(new Message().setId(message.getId())));
+        }
+        when(gmail.users().history().list("me").setStartHistoryId(any()).setHistoryTypes(any()).setPageToken(any())
+            .execute()).thenReturn(new ListHistoryResponse().setHistory(List.of(new History().setMessagesAdded(added))));
+    }
+
+    private FetchResult fetch(Gmail gmail, List<String> ids) {
+        Map<String, Message> fetched = new HashMap<>();
+        ids.forEach(id -> fetched.put(id, mailboxes.get(gmail).get(id)));
+        return new FetchResult(fetched, Set.of());
+    }
+
+    private Message message(String id, String threadId) {
+        return message(id, threadId, "Axis Bank <alerts@axisbank.com>", "Transaction alert on your card");
+    }
+
+    private Message message(String id, String threadId, String from, String subject) {
+        MessagePart payload = new MessagePart()
+            .setMimeType("text/plain")
+            .setHeaders(List.of(
+                new MessagePartHeader().setName("From").setValue(from),
+                new MessagePartHeader().setName("Subject").setValue(subject)))
+            .setBody(new MessagePartBody().setData(
+                Base64.getUrlEncoder().encodeToString(AXIS_ALERT.getBytes(StandardCharsets.UTF_8))));
+        return new Message().setId(id).setThreadId(threadId).setInternalDate(1_772_355_600_000L).setPayload(payload);
+    }
+}
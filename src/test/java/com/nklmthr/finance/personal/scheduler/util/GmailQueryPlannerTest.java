@@ -0,0 +1,75 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.nklmthr.finance.personal.scheduler.config.ExtractionConfig;
+import com.nklmthr.finance.personal.scheduler.config.ExtractionConfigRegistry;
+
+class GmailQueryPlannerTest {
+
+    private static final LocalDate AFTER = LocalDate.of(2024, 3, 1);
+    private static final LocalDate BEFORE = LocalDate.of(2024, 3, 9);
+
+    private final List<ExtractionConfig> configs = new ExtractionConfigRegistry().getAllConfigs();
+
+    private ExtractionConfig config(String name) {
+        return configs.stream().filter(c -> c.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void plan_mergesAllConfigsIntoOneOrTwoQueries() {
+        List<String> queries = GmailQueryPlanner.plan(configs, AFTER, BEFORE, 1500);
+
+        assertThat(queries).hasSizeBetween(1, 2);
+        assertThat(queries).allSatisfy(query -> {
+            assertThat(query).hasSizeLessThanOrEqualTo(1500);
+            assertThat(query).endsWith(" after:2024-03-01 before:2024-03-09");
+        });
+        // Axis credit card and savings share senders, so the sender clause appears once
+        assertThat(String.join(" ", queries)).containsOnlyOnce("(from:(alerts@axis.bank.in) OR from:(alerts@axisbank.com))");
+    }
+
+    @Test
+    void plan_singleSenderSingleSubjectHasNoOrGroups() {
+        String query = GmailQueryPlanner.plan(List.of(config("SBICC")), AFTER, BEFORE, 1500).get(0);
+
+        assertThat(query).isEqualTo(
+            "(from:(onlinesbicard@sbicard.com) subject:(Transaction Alert from SBI Card)) after:2024-03-01 before:2024-03-09");
+    }
+
+    @Test
+    void plan_splitsGroupsThatDoNotFit() {
+        List<String> queries = GmailQueryPlanner.plan(List.of(config("SBICC"), config("YesBankCC")), AFTER, BEFORE, 120);
+
+        assertThat(queries).hasSize(2);
+    }
+
+    @Test
+    void route_matchesSenderAndAllSubjectWords() {
+        List<ExtractionConfig> routed = GmailQueryPlanner.route(configs,
+            "Axis Bank Alerts <alerts@axisbank.com>", "INR 500 was debited from your A/c no. XX2804");
+
+        assertThat(routed).extracting(ExtractionConfig::getName).containsExactly("AxisSaving");
+    }
+
+    @Test
+    void route_rejectsSubjectOfOneConfigFromSenderOfAnother() {
+        List<ExtractionConfig> routed = GmailQueryPlanner.route(configs,
+            "alerts@yesbank.in", "Transaction Alert from SBI Card");
+
+        assertThat(routed).isEmpty();
+    }
+
+    @Test
+    void route_distinguishesConfigsSharingASender() {
+        List<ExtractionConfig> routed = GmailQueryPlanner.route(configs,
+            "no-reply@amazonpay.in", "Refund for your Amazon Pay transaction");
+
+        assertThat(routed).extracting(ExtractionConfig::getName).containsExactly("AmazonPayRefund");
+    }
+}
@@ -0,0 +1,33 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeywordScannerTest {
+
+    @Test
+    void scan_findsOverlappingKeywordsIgnoringCase() {
+        KeywordScanner scanner = new KeywordScanner(List.of("he", "she", "his", "hers"));
+
+        KeywordScanner.Hits hits = scanner.scan("uSHErs and HIS");
+
+        assertThat(hits.offsets(scanner.indexOf("she"))).containsExactly(1);
+        assertThat(hits.offsets(scanner.indexOf("he"))).containsExactly(2);
+        assertThat(hits.offsets(scanner.indexOf("hers"))).containsExactly(2);
+        assertThat(hits.offsets(scanner.indexOf("HIS"))).containsExactly(11);
+    }
+
+    @Test
+    void scan_reportsEveryOccurrenceInOrder() {
+        KeywordScanner scanner = new KeywordScanner(List.of("₹", "aa"));
+
+        KeywordScanner.Hits hits = scanner.scan("aaa ₹1 ₹2");
+
+        assertThat(hits.offsets(scanner.indexOf("aa"))).containsExactly(0, 1);
+        assertThat(hits.offsets(scanner.indexOf("₹"))).containsExactly(4, 7);
+        assertThat(hits.contains(scanner.indexOf("missing"))).isFalse();
+    }
+}
@@ -0,0 +1,116 @@
+package com.nklmthr.finance.personal.scheduler.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares {@link TransactionPatternLibrary#extract} with the per-pattern
+ * loop it replaced, which ran {@code find()} for every amount and description
+ * regex over the whole email and {@code contains()} for every keyword. Both
+ * sides use the library's own patterns and keywords.
+ *
+ * Not a test, so surefire skips it. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.nklmthr.finance.personal.scheduler.util.TransactionPatternLibraryBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransactionPatternLibraryBenchmark {
+
+    private static final String ALERT = "Transaction Amount: INR 3480 Merchant Name: MADHULOKA L "
+        + "Axis Bank Credit Card No. XX0434 Date & Time: 23-10-2025, 16:10:58 IST";
+
+    // Repeated to give the size of a bank's HTML email after tag stripping
+    private static final String BOILERPLATE = "Dear Customer, thank you for banking with us. "
+        + "Always open to help you 24x7. Reach us at our helpline for any concerns regarding your card. "
+        + "Never share your OTP, PIN or CVV with anyone. View terms and conditions on our website. ";
+
+    @Param({"alert", "html"})
+    private String email;
+
+    private String content;
+
+    private List<Pattern> amountPatterns;
+
+    private List<Pattern> descriptionPatterns;
+
+    private List<String> keywords;
+
+    @Setup
+    public void setUp() {
+        content = "alert".equals(email) ? ALERT : BOILERPLATE.repeat(40) + ALERT + " " + BOILERPLATE.repeat(20);
+        amountPatterns = patterns("AMOUNT_PATTERNS");
+        descriptionPatterns = patterns("MERCHANT_PATTERNS");
+        keywords = List.of("CREDIT_KEYWORDS", "DEBIT_KEYWORDS", "DECLINE_PHRASES").stream()
+            .flatMap(name -> TransactionPatternLibraryBenchmark.<List<String>>field(name).stream())
+            .toList();
+    }
+
+    @Benchmark
+    public TransactionExtraction keywordScan() {
+        return TransactionPatternLibrary.extract(content);
+    }
+
+    @Benchmark
+    public void perPatternFind(Blackhole blackhole) {
+        blackhole.consume(firstMatch(amountPatterns));
+        blackhole.consume(firstMatch(descriptionPatterns));
+        String lowerContent = content.toLowerCase(Locale.ROOT);
+        for (String keyword : keywords) {
+            blackhole.consume(lowerContent.contains(keyword.toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    private String firstMatch(List<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            Matcher m = pattern.matcher(content);
+            if (m.find()) {
+                return m.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static List<Pattern> patterns(String name) {
+        return TransactionPatternLibraryBenchmark.<List<?>>field(name).stream()
+            .map(p -> (Pattern) ReflectionTestUtils.getField(p, "pattern"))
+            .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T field(String name) {
+        return (T) ReflectionTestUtils.getField(TransactionPatternLibrary.class, name);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TransactionPatternLibraryBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -384,5 +384,52 @@ class TransactionPatternLibraryTest {
         assertThat(account.get()).isEqualTo("9057");
         assertThat(type).isEqualTo(TransactionType.CREDIT);
     }
-}
 
+    // ==================== SINGLE-PASS EXTRACTION TESTS ====================
+
+    @Test
+    void extract_returnsEveryFieldFromOneScan() {
+        String content = "Transaction Amount: INR 340.50 on your Axis Bank Credit Card no. XX0434 at TESTMERCHANT on 28-09-2025";
+        TransactionExtraction result = TransactionPatternLibrary.extract(content);
+
+        assertThat(result.getAmount().getValue()).isEqualByComparingTo("340.50");
+        assertThat(result.getAmount().getMatchedPattern()).isEqualTo("AMOUNT_STANDARD_INR");
+        assertThat(result.getDescription().getValue()).isEqualTo("TESTMERCHANT");
+        assertThat(result.getType().getValue()).isEqualTo(TransactionType.DEBIT);
+        assertThat(result.getType().getConfidenceScore()).isEqualTo(100);
+        assertThat(result.isDeclined()).isFalse();
+    }
+
+    @Test
+    void extract_triesAnchoredPatternsOnlyAtWordBoundaries() {
+        // "at" inside "Date" and "that" must not start a MERCHANT_AT_ON match
+        String content = "Date that matters: Rs.12.00 spent at Cafe Coffee Day on 01-01-2025";
+        TransactionExtraction result = TransactionPatternLibrary.extract(content);
+
+        assertThat(result.getDescription().getValue()).isEqualTo("Cafe Coffee Day");
+        assertThat(result.getDescription().getMatchedPattern()).isEqualTo("MERCHANT_AT_ON");
+    }
+
+    @Test
+    void extract_caseInsensitivePatternsMatchAnyCase() {
+        TransactionExtraction result = TransactionPatternLibrary.extract("Thanks for YOUR ORDER: 402-1234567");
+
+        assertThat(result.getDescription().getValue()).isEqualTo("402-1234567");
+    }
+
+    @Test
+    void extract_detectsDeclinedTransactions() {
+        assertThat(TransactionPatternLibrary.extract("Your Txn of INR 500.00 was declined").isDeclined()).isTrue();
+        assertThat(TransactionPatternLibrary.isDeclined("Transaction failed due to incorrect PIN")).isTrue();
+        assertThat(TransactionPatternLibrary.isDeclined("INR 500.00 spent at Store")).isFalse();
+    }
+
+    @Test
+    void extract_emptyContent() {
+        TransactionExtraction result = TransactionPatternLibrary.extract("");
+
+        assertThat(result.getAmount().isPresent()).isFalse();
+        assertThat(result.getType().getValue()).isEqualTo(TransactionType.DEBIT);
+        assertThat(result.getType().getConfidenceScore()).isZero();
+    }
+}
@@ -32,6 +32,7 @@ import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
 import com.nklmthr.finance.personal.repository.AccountTypeRepository;
 import com.nklmthr.finance.personal.repository.InstitutionRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 @ExtendWith(MockitoExtension.class)
 class AccountServiceTest {
@@ -42,6 +43,8 @@ class AccountServiceTest {
     @Mock private AccountTypeRepository accountTypeRepository;
     @Mock private AccountTransactionRepository accountTransactionRepository;
     @Mock private AccountMapper accountMapper;
+    @Mock private AccountFuzzyMatcher accountFuzzyMatcher;
+    @Mock private BalanceSheetService balanceSheetService;
 
     @InjectMocks private AccountService service;
 
@@ -57,6 +60,8 @@ class AccountServiceTest {
         ReflectionTestUtils.setField(service, "accountTypeRepository", accountTypeRepository);
         ReflectionTestUtils.setField(service, "acountTransactionRepository", accountTransactionRepository);
         ReflectionTestUtils.setField(service, "accountMapper", accountMapper);
+        ReflectionTestUtils.setField(service, "accountFuzzyMatcher", accountFuzzyMatcher);
+        ReflectionTestUtils.setField(service, "balanceSheetService", balanceSheetService);
     }
 
     private Account make(String id, String name, BigDecimal balance) {
@@ -143,6 +148,7 @@ class AccountServiceTest {
         AccountDTO result = service.updateAccount("a1", new AccountDTO("a1","New", new BigDecimal("150"), null, null, "123","k","al", false));
         assertThat(result.name()).isEqualTo("New");
         verify(accountRepository).save(existing);
+        verify(balanceSheetService).invalidate(user);
     }
 
     @Test
@@ -156,6 +162,7 @@ class AccountServiceTest {
         when(accountTransactionRepository.findByAppUserAndAccountId(user, "a1")).thenReturn(List.of());
         service.deleteAccount("a1");
         verify(accountRepository).deleteById("a1");
+        verify(balanceSheetService).invalidate(user);
     }
 
     @Test
@@ -5,16 +5,26 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,14 +33,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nklmthr.finance.personal.dto.AccountDTO;
 import com.nklmthr.finance.personal.dto.AccountTransactionDTO;
+import com.nklmthr.finance.personal.dto.BulkUpdateResponse;
 import com.nklmthr.finance.personal.dto.CategoryDTO;
 import com.nklmthr.finance.personal.dto.LabelDTO;
 import com.nklmthr.finance.personal.dto.TransferRequest;
+import com.nklmthr.finance.personal.enums.ExportFormat;
 import com.nklmthr.finance.personal.enums.TransactionType;
 import com.nklmthr.finance.personal.mapper.AccountMapper;
 import com.nklmthr.finance.personal.mapper.AccountTransactionMapper;
@@ -44,6 +61,10 @@ import com.nklmthr.finance.personal.model.Institution;
 import com.nklmthr.finance.personal.model.Label;
 import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.TransactionLabelRepository;
+import com.nklmthr.finance.personal.repository.TransactionPageRowProjection;
+
+import jakarta.persistence.EntityManager;
 
 @ExtendWith(MockitoExtension.class)
 class AccountTransactionServiceTest {
@@ -72,6 +93,21 @@ class AccountTransactionServiceTest {
     @Mock
     private CategoryMapper categoryMapper;
 
+    @Mock
+    private TransactionLabelRepository transactionLabelRepository;
+
+    @Mock
+    private TransactionSearchService transactionSearchService;
+
+    @Mock
+    private MonthlyLedgerService monthlyLedgerService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private AccountTransactionService service;
 
@@ -97,6 +133,12 @@ class AccountTransactionServiceTest {
         ReflectionTestUtils.setField(service, "accountTransactionMapper", accountTransactionMapper);
         ReflectionTestUtils.setField(service, "accountMapper", accountMapper);
         ReflectionTestUtils.setField(service, "categoryMapper", categoryMapper);
+        ReflectionTestUtils.setField(service, "transactionLabelRepository", transactionLabelRepository);
+        ReflectionTestUtils.setField(service, "transactionSearchService", transactionSearchService);
+        ReflectionTestUtils.setField(service, "monthlyLedgerService", monthlyLedgerService);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
     }
 
     private Account createAccount(String id, BigDecimal balance) {
@@ -409,6 +451,7 @@ class AccountTransactionServiceTest {
         assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
         verify(accountTransactionRepository, times(3)).save(any(AccountTransaction.class)); // two children + parent
         verify(accountTransactionRepository, times(1)).save(parent); // parent saved once
+        assertThat(parent.isHasChildren()).isTrue();
     }
 
     @Test
@@ -739,10 +782,40 @@ class AccountTransactionServiceTest {
         service.delete("t1");
 
         assertThat(parent.getAmount()).isEqualByComparingTo("250");
+        assertThat(parent.isHasChildren()).isFalse();
         verify(accountTransactionRepository).save(parent);
         verify(accountTransactionRepository).deleteByAppUserAndId(currentUser, "t1");
     }
 
+    @Test
+    void delete_keepsParentFlagWhileOtherChildrenRemain() {
+        Account acc = createAccount("a1", new BigDecimal("1000"));
+        AccountTransaction parent = AccountTransaction.builder()
+            .id("p1")
+            .amount(new BigDecimal("200"))
+            .account(acc)
+            .appUser(currentUser)
+            .description("Parent")
+            .hasChildren(true)
+            .build();
+        AccountTransaction child = AccountTransaction.builder()
+            .id("t1")
+            .amount(new BigDecimal("50"))
+            .parent("p1")
+            .account(acc)
+            .appUser(currentUser)
+            .description("Child")
+            .build();
+        when(accountTransactionRepository.findByAppUserAndId(currentUser, "t1")).thenReturn(Optional.of(child));
+        when(accountTransactionRepository.findByAppUserAndId(currentUser, "p1")).thenReturn(Optional.of(parent));
+        when(accountTransactionRepository.existsByAppUserAndParentAndIdNot(currentUser, "p1", "t1")).thenReturn(true);
+        when(accountTransactionRepository.findByParentAndAppUser("t1", currentUser)).thenReturn(List.of());
+
+        service.delete("t1");
+
+        assertThat(parent.isHasChildren()).isTrue();
+    }
+
     // ============ Transfer Bidirectional Linking Tests ============
 
     @Test
@@ -1995,6 +2068,217 @@ class AccountTransactionServiceTest {
         assertThat(result.labels().get(0).name()).isEqualTo("BrandNewLabel");
         verify(labelService).findOrCreateLabel(currentUser, "BrandNewLabel");
     }
-}
 
+    @Test
+    void bulkAssignCategory_classifiesInOneQueryAndUpdatesEligibleRows() {
+        Category food = new Category();
+        food.setId("food");
+        food.setName("Food");
+        when(categoryService.getCategoryById(currentUser, "food")).thenReturn(food);
+        LocalDateTime date = LocalDateTime.of(2024, 3, 10, 12, 0);
+        List<Object[]> rows = List.of(
+            new Object[] { "t1", date, "nc", null, false, 0L },
+            new Object[] { "t2", date, "transfer", "t9", false, 0L },
+            new Object[] { "t3", date, "split", null, true, 0L },
+            new Object[] { "t4", date, "transfer", null, false, 1L });
+        when(accountTransactionRepository.findBulkUpdateRows(currentUser, List.of("t1", "t2", "t3", "t4", "missing")))
+            .thenReturn(rows);
+        when(accountTransactionRepository.updateCategoryByAppUserAndIdIn(currentUser, food, List.of("t1")))
+            .thenReturn(1);
+
+        BulkUpdateResponse response = service.bulkAssignCategory(List.of("t1", "t2", "t3", "t4", "missing"), "food");
+
+        assertThat(response.updated()).isEqualTo(1);
+        assertThat(response.skipped()).extracting(BulkUpdateResponse.SkippedItem::id)
+            .containsExactly("t2", "t3", "t4", "missing");
+        verify(accountTransactionRepository, never()).findByAppUserAndId(any(), anyString());
+        verify(accountTransactionRepository, never()).save(any(AccountTransaction.class));
+    }
+
+    @Test
+    void importStatementTransactions_dedupsInMemoryAndAppliesOneBalanceDelta() {
+        Account account = createAccount("acc-1", new BigDecimal("1000.00"));
+        Category nonClassified = new Category();
+        nonClassified.setId("nc");
+        when(accountRepository.findByAppUserAndId(currentUser, "acc-1")).thenReturn(Optional.of(account));
+        LocalDateTime date = LocalDateTime.of(2024, 3, 10, 12, 0);
+        List<Object[]> existing = new ArrayList<>();
+        existing.add(new Object[] { new BigDecimal("50.00"), TransactionType.DEBIT, "UPI  Coffee", date.plusSeconds(30) });
+        when(accountTransactionRepository.findDedupKeysByAccountAndDateBetween(account, date.minusSeconds(60),
+            date.plusMinutes(5).plusSeconds(60))).thenReturn(existing);
+
+        AccountTransaction duplicate = AccountTransaction.builder().account(account).date(date)
+            .amount(new BigDecimal("50")).type(TransactionType.DEBIT).explanation("upi coffee").build();
+        AccountTransaction salary = AccountTransaction.builder().account(account).date(date.plusMinutes(1))
+            .amount(new BigDecimal("300")).type(TransactionType.CREDIT).explanation("Salary").build();
+        AccountTransaction salaryRepeat = AccountTransaction.builder().account(account).date(date.plusMinutes(1))
+            .amount(new BigDecimal("300")).type(TransactionType.CREDIT).explanation("Salary").build();
+        AccountTransaction rent = AccountTransaction.builder().account(account).date(date.plusMinutes(5))
+            .amount(new BigDecimal("100")).type(TransactionType.DEBIT).explanation("Rent").build();
+
+        AccountTransactionService.StatementImportResult result = service.importStatementTransactions(currentUser,
+            account, List.of(duplicate, salary, salaryRepeat, rent), nonClassified);
+
+        assertThat(result.saved()).isEqualTo(2);
+        assertThat(result.duplicates()).isEqualTo(2);
+        verify(accountTransactionRepository).saveAll(List.of(salary, rent));
+        verify(accountRepository, times(1)).save(account);
+        assertThat(account.getBalance()).isEqualByComparingTo("1200.00");
+        assertThat(salary.getCategory()).isSameAs(nonClassified);
+        assertThat(salary.getAppUser()).isSameAs(currentUser);
+        verify(accountTransactionRepository, never()).findByAccountAndDateBetween(any(), any(), any());
+    }
 
+    @Test
+    void assemblePageContent_keepsIdOrderAndAttachesChildrenLabelsAndAttachmentCounts() {
+        List<String> pageIds = List.of("p2", "p1");
+        when(accountTransactionRepository.findPageRowsWithChildren(currentUser, pageIds)).thenReturn(List.of(
+            pageRow("p1", null, "l1", "Groceries", null),
+            pageRow("p1", null, "l2", "Shared", null),
+            pageRow("c1", "p1", "l3", "Reimbursable", 1L),
+            pageRow("p2", null, null, null, 2L)));
+
+        List<AccountTransactionDTO> page = service.assemblePageContent(pageIds);
+
+        assertThat(page).extracting(AccountTransactionDTO::id).containsExactly("p2", "p1");
+        AccountTransactionDTO p2 = page.get(0);
+        assertThat(p2.children()).isEmpty();
+        assertThat(p2.labels()).isEmpty();
+        assertThat(p2.attachmentCount()).isEqualTo(2);
+        AccountTransactionDTO p1 = page.get(1);
+        assertThat(p1.labels()).extracting(LabelDTO::name).containsExactly("Groceries", "Shared");
+        assertThat(p1.attachmentCount()).isZero();
+        assertThat(p1.children()).extracting(AccountTransactionDTO::id).containsExactly("c1");
+        assertThat(p1.children().get(0).labels()).containsExactly(new LabelDTO("l3", "Reimbursable"));
+        assertThat(p1.children().get(0).attachmentCount()).isEqualTo(1);
+        assertThat(p1.account()).isSameAs(p2.account());
+        assertThat(p1.account().name()).isEqualTo("Checking");
+    }
+
+    @Test
+    void assemblePageContent_emptyPageSkipsQuery() {
+        assertThat(service.assemblePageContent(List.of())).isEmpty();
+        verify(accountTransactionRepository, never()).findPageRowsWithChildren(any(), any());
+    }
+
+    @Test
+    void getFilteredTransactions_relevanceSortRunsRankingQueryOnce() {
+        Optional<List<String>> ranked = Optional.of(List.of("t3", "t1", "t2"));
+        when(transactionSearchService.rankedTransactionIds(currentUser, "amazon")).thenReturn(ranked);
+        when(transactionSearchService.searchSpecification(currentUser, "amazon", ranked))
+            .thenReturn((root, query, cb) -> null);
+        AccountTransactionService spyService = spy(service);
+        doReturn(List.of("t1", "t3")).when(spyService).findPageIds(any(), eq(Sort.by("id")), eq(0L), eq(3));
+        doReturn(List.of("t9")).when(spyService)
+            .findPageIds(any(), eq(Sort.by(Sort.Direction.DESC, "date", "id")), eq(0L), eq(1));
+        doReturn(new AccountTransactionService.PageTotals(3, new BigDecimal("-30.00"))).when(spyService)
+            .calculateCountAndTotalWithSpec(any());
+        doReturn(List.of()).when(spyService).assemblePageContent(any());
+
+        spyService.getFilteredTransactions(PageRequest.of(0, 3, Sort.by("relevance")), null, null, null, null, null,
+            null, "amazon", null, null, null);
+
+        verify(transactionSearchService, times(1)).rankedTransactionIds(any(), anyString());
+        verify(spyService).assemblePageContent(List.of("t3", "t1", "t9"));
+    }
+
+    @Test
+    void markLedgerDirty_publishesOneEventPerMonth() {
+        LocalDateTime[] dates = { LocalDateTime.of(2026, 3, 30, 9, 0), LocalDateTime.of(2026, 4, 1, 9, 0),
+            LocalDateTime.of(2026, 3, 2, 9, 0), null };
+
+        service.markLedgerDirty(currentUser, dates);
+
+        verify(monthlyLedgerService).markDirty(currentUser, dates);
+        verify(eventPublisher).publishEvent(new TransactionsChangedEvent(currentUser, YearMonth.of(2026, 3)));
+        verify(eventPublisher).publishEvent(new TransactionsChangedEvent(currentUser, YearMonth.of(2026, 4)));
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    private TransactionPageRowProjection pageRow(String id, String parentId, String labelId, String labelName,
+            Long attachmentCount) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("Id", id);
+        values.put("ParentId", parentId);
+        values.put("LabelId", labelId);
+        values.put("LabelName", labelName);
+        values.put("AttachmentCount", attachmentCount);
+        values.put("Date", LocalDateTime.of(2026, 3, 1, 10, 0));
+        values.put("Amount", new BigDecimal("10.00"));
+        values.put("Type", TransactionType.DEBIT);
+        values.put("AccountId", "acc-1");
+        values.put("AccountName", "Checking");
+        values.put("AccountTypeId", "type-1");
+        values.put("InstitutionId", "inst-1");
+        return (TransactionPageRowProjection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { TransactionPageRowProjection.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "row-" + id;
+                default -> values.get(method.getName().substring(3));
+            });
+    }
+
+    @Test
+    void streamTransactionsForExport_csvWritesHeaderAndEscapesFields() throws Exception {
+        Account account = createAccount("a1", BigDecimal.ZERO);
+        AccountTransaction coffee = exportRow("t1", account, "Coffee, \"large\"");
+        AccountTransaction rent = exportRow("t2", account, "Rent");
+        AccountTransactionService exporter = spy(service);
+        doReturn(List.of(coffee, rent)).doReturn(List.of()).when(exporter).findExportChunk(any());
+        when(transactionLabelRepository.findLabelRowsByTransactionIdIn(List.of("t1", "t2"))).thenReturn(List.of(
+            new Object[] { "t1", "l1", "Food" },
+            new Object[] { "t1", "l2", "Shared" }));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.streamTransactionsForExport(ExportFormat.CSV, out, null, null, null, null, null, null, null, null,
+            null, null);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("\"Id\",\"Date\",\"Amount\",\"Type\",\"Description\",\"Explanation\","
+            + "\"Account\",\"Category\",\"Parent Id\",\"Linked Transfer Id\",\"Currency\",\"Labels\"");
+        assertThat(lines[1]).startsWith("\"t1\",").contains("\"Coffee, \"\"large\"\"\"").endsWith("\"Food; Shared\"");
+        assertThat(lines[2]).startsWith("\"t2\",").contains("\"Rent\"").endsWith("\"\"");
+    }
+
+    @Test
+    void streamTransactionsForExport_ndjsonWritesOneLinePerRowAcrossChunks() throws Exception {
+        Account account = createAccount("a1", BigDecimal.ZERO);
+        List<AccountTransaction> firstChunk = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            firstChunk.add(exportRow("t" + i, account, "Row " + i));
+        }
+        AccountTransaction tail = exportRow("t500", account, "Row 500");
+        AccountTransactionService exporter = spy(service);
+        doReturn(firstChunk).doReturn(List.of(tail)).doReturn(List.of()).when(exporter).findExportChunk(any());
+        when(transactionLabelRepository.findLabelRowsByTransactionIdIn(
+            firstChunk.stream().map(AccountTransaction::getId).toList())).thenReturn(List.of());
+        when(transactionLabelRepository.findLabelRowsByTransactionIdIn(List.of("t500")))
+            .thenReturn(List.<Object[]>of(new Object[] { "t500", "l1", "Food" }));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.streamTransactionsForExport(ExportFormat.NDJSON, out, null, null, null, null, null, null, null, null,
+            null, null);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(501);
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(lines[0]).get("id").asText()).isEqualTo("t0");
+        JsonNode last = mapper.readTree(lines[500]);
+        assertThat(last.get("id").asText()).isEqualTo("t500");
+        assertThat(last.get("description").asText()).isEqualTo("Row 500");
+        assertThat(last.get("labels").get(0).get("name").asText()).isEqualTo("Food");
+        // One label query per chunk; the dated pass stops on the short chunk,
+        // then the undated pass runs once
+        verify(transactionLabelRepository, times(2)).findLabelRowsByTransactionIdIn(any());
+        verify(exporter, times(3)).findExportChunk(any());
+    }
+
+    private AccountTransaction exportRow(String id, Account account, String description) {
+        return AccountTransaction.builder()
+            .id(id).date(LocalDateTime.of(2026, 3, 1, 10, 0)).amount(new BigDecimal("12.50"))
+            .type(TransactionType.DEBIT).description(description).account(account).appUser(currentUser).build();
+    }
+}
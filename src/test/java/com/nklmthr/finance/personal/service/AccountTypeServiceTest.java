@@ -26,6 +26,7 @@ import com.nklmthr.finance.personal.model.AccountType;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.repository.AccountRepository;
 import com.nklmthr.finance.personal.repository.AccountTypeRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 @ExtendWith(MockitoExtension.class)
 class AccountTypeServiceTest {
@@ -42,6 +43,12 @@ class AccountTypeServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountFuzzyMatcher accountFuzzyMatcher;
+
+    @Mock
+    private BalanceSheetService balanceSheetService;
+
     @InjectMocks
     private AccountTypeService accountTypeService;
 
@@ -208,6 +215,7 @@ class AccountTypeServiceTest {
         assertThat(existing.getClassification()).isEqualTo("LIABILITY");
         assertThat(existing.getAppUser()).isEqualTo(currentUser);
         verify(accountTypeRepository).save(existing);
+        verify(balanceSheetService).invalidate(currentUser);
     }
 
     @Test
@@ -228,6 +236,7 @@ class AccountTypeServiceTest {
         accountTypeService.delete(id);
 
         verify(accountTypeRepository, times(1)).deleteByAppUserAndId(currentUser, id);
+        verify(balanceSheetService).invalidate(currentUser);
     }
 
     @Test
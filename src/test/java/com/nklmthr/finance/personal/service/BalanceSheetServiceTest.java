@@ -1,7 +1,11 @@
 package com.nklmthr.finance.personal.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
@@ -15,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.nklmthr.finance.personal.dto.BalanceSheetDTO;
@@ -39,6 +44,7 @@ class BalanceSheetServiceTest {
         lenient().when(appUserService.getCurrentUser()).thenReturn(user);
         ReflectionTestUtils.setField(service, "appUserService", appUserService);
         ReflectionTestUtils.setField(service, "accountBalanceSnapshotRepository", snapshotRepository);
+        ReflectionTestUtils.setField(service, "cacheManager", new ConcurrentMapCacheManager(BalanceSheetService.CACHE_NAME));
     }
 
     @Test
@@ -46,12 +52,62 @@ class BalanceSheetServiceTest {
         AccountType at = AccountType.builder().id("t1").name("Checking").classification("ASSET").appUser(user).build();
         Account acc = new Account();
         acc.setId("a1"); acc.setName("A"); acc.setAccountType(at);
-        AccountBalanceSnapshot s1 = AccountBalanceSnapshot.builder().account(acc).balance(new BigDecimal("100")).snapshotDate(LocalDate.now().atStartOfDay()).appUser(user).build();
+        AccountBalanceSnapshot s1 = AccountBalanceSnapshot.builder().account(acc).balance(new BigDecimal("100")).snapshotDate(LocalDate.now().plusMonths(1).withDayOfMonth(1).atStartOfDay()).appUser(user).build();
         when(snapshotRepository.findByAppUserAndSnapshotRange(org.mockito.ArgumentMatchers.eq(user), org.mockito.ArgumentMatchers.any(LocalDateTime.class), org.mockito.ArgumentMatchers.any(LocalDateTime.class))).thenReturn(List.of(s1));
 
         BalanceSheetDTO dto = service.generateMonthlyBalanceSheet(LocalDate.now());
         assertThat(dto.getSummaryByMonth().values().iterator().next()).isEqualByComparingTo(new BigDecimal("100"));
     }
-}
 
+    @Test
+    void generateBalanceSheet_reducesOneQueryIntoMonthsAndCachesClosedMonths() {
+        AccountType asset = AccountType.builder().id("t1").name("Checking").classification("ASSET").appUser(user).build();
+        AccountType liability = AccountType.builder().id("t2").name("Card").classification("LIABILITY").appUser(user).build();
+        Account checking = new Account();
+        checking.setId("a1"); checking.setName("Checking"); checking.setAccountType(asset);
+        Account card = new Account();
+        card.setId("a2"); card.setName("Card"); card.setAccountType(liability);
+        List<AccountBalanceSnapshot> snapshots = List.of(
+            snapshot(checking, "100", LocalDateTime.of(2024, 1, 30, 9, 0)),
+            snapshot(card, "-40", LocalDateTime.of(2024, 2, 2, 9, 0)),
+            snapshot(checking, "150", LocalDateTime.of(2024, 3, 1, 9, 0)),
+            snapshot(checking, "999", LocalDateTime.of(2024, 2, 15, 9, 0)));
+        when(snapshotRepository.findByAppUserAndSnapshotRange(eq(user), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(snapshots);
+
+        List<BalanceSheetDTO> sheet = service.generateBalanceSheet(2024);
+        List<BalanceSheetDTO> again = service.generateBalanceSheet(2024);
+
+        verify(snapshotRepository, times(1)).findByAppUserAndSnapshotRange(user,
+            LocalDateTime.of(2024, 1, 25, 0, 0), LocalDateTime.of(2025, 1, 8, 0, 0));
+        assertThat(sheet).hasSize(12);
+        assertThat(sheet.get(11).getSummaryByMonth()).containsEntry("01-Jan-2024", new BigDecimal("60"));
+        assertThat(sheet.get(11).getRows()).hasSize(2);
+        assertThat(sheet.get(10).getSummaryByMonth()).containsEntry("01-Feb-2024", new BigDecimal("150"));
+        assertThat(sheet.get(0).getSummaryByMonth()).containsEntry("01-Dec-2024", BigDecimal.ZERO);
+        assertThat(again).isEqualTo(sheet);
+    }
+
+    @Test
+    void invalidate_reloadsClosedMonthsWithNewClassification() {
+        AccountType type = AccountType.builder().id("t1").name("Wallet").classification("ASSET").appUser(user).build();
+        Account wallet = new Account();
+        wallet.setId("a1"); wallet.setName("Wallet"); wallet.setAccountType(type);
+        when(snapshotRepository.findByAppUserAndSnapshotRange(eq(user), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(snapshot(wallet, "100", LocalDateTime.of(2024, 1, 30, 9, 0))));
+
+        service.generateBalanceSheet(2024);
+        type.setClassification("LIABILITY");
+        service.invalidate(user);
+        List<BalanceSheetDTO> reloaded = service.generateBalanceSheet(2024);
+
+        verify(snapshotRepository, times(2)).findByAppUserAndSnapshotRange(eq(user), any(LocalDateTime.class),
+            any(LocalDateTime.class));
+        assertThat(reloaded.get(11).getRows()).singleElement()
+            .satisfies(row -> assertThat(row.getClassification()).isEqualTo("LIABILITY"));
+    }
 
+    private AccountBalanceSnapshot snapshot(Account account, String balance, LocalDateTime date) {
+        return AccountBalanceSnapshot.builder().account(account).balance(new BigDecimal(balance)).snapshotDate(date).appUser(user).build();
+    }
+}
@@ -26,6 +26,7 @@ class CategorySpendServiceTest {
     @Mock private AppUserService appUserService;
     @Mock private CategoryService categoryService;
     @Mock private AccountTransactionRepository repo;
+    @Mock private MonthlyLedgerService monthlyLedgerService;
     @InjectMocks private CategorySpendService service;
 
     private AppUser user;
@@ -37,6 +38,7 @@ class CategorySpendServiceTest {
         ReflectionTestUtils.setField(service, "appUserService", appUserService);
         ReflectionTestUtils.setField(service, "categoryService", categoryService);
         ReflectionTestUtils.setField(service, "accountTransactionRepository", repo);
+        ReflectionTestUtils.setField(service, "monthlyLedgerService", monthlyLedgerService);
     }
 
     @Test
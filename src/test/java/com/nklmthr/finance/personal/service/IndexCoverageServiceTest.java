@@ -0,0 +1,42 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class IndexCoverageServiceTest {
+
+    private static final IndexCoverageService.AccessPattern BY_THREAD = new IndexCoverageService.AccessPattern(
+        "findByAppUserAndSourceThreadId", "account_transactions", List.of("app_user_id", "source_thread_id"));
+    private static final IndexCoverageService.AccessPattern BY_PARENT = new IndexCoverageService.AccessPattern(
+        "findByAppUserAndParent", "account_transactions", List.of("app_user_id", "parent_id"));
+
+    @Test
+    void uncovered_acceptsLeadingColumnsInAnyOrder() {
+        Map<String, List<List<String>>> indexes = Map.of("account_transactions", List.of(
+            List.of("id"),
+            List.of("source_thread_id", "app_user_id"),
+            List.of("parent_id", "app_user_id", "date")));
+
+        assertThat(IndexCoverageService.uncovered(List.of(BY_THREAD, BY_PARENT), indexes)).isEmpty();
+    }
+
+    @Test
+    void uncovered_reportsPatternsWhoseColumnsAreNotAPrefix() {
+        // Single-column foreign key index, and the pattern column buried behind another
+        Map<String, List<List<String>>> indexes = Map.of("account_transactions", List.of(
+            List.of("app_user_id"),
+            List.of("date", "source_thread_id", "app_user_id")));
+
+        assertThat(IndexCoverageService.uncovered(List.of(BY_THREAD, BY_PARENT), indexes))
+            .containsExactly(BY_THREAD, BY_PARENT);
+    }
+
+    @Test
+    void uncovered_reportsEverythingForUnknownTable() {
+        assertThat(IndexCoverageService.uncovered(List.of(BY_THREAD), Map.of())).containsExactly(BY_THREAD);
+    }
+}
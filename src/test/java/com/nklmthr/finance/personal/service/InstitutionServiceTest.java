@@ -21,6 +21,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import com.nklmthr.finance.personal.model.AppUser;
 import com.nklmthr.finance.personal.model.Institution;
 import com.nklmthr.finance.personal.repository.InstitutionRepository;
+import com.nklmthr.finance.personal.util.AccountFuzzyMatcher;
 
 @ExtendWith(MockitoExtension.class)
 class InstitutionServiceTest {
@@ -31,6 +32,9 @@ class InstitutionServiceTest {
     @Mock
     private InstitutionRepository institutionRepository;
 
+    @Mock
+    private AccountFuzzyMatcher accountFuzzyMatcher;
+
     @InjectMocks
     private InstitutionService institutionService;
 
@@ -50,6 +54,7 @@ class InstitutionServiceTest {
         // Ensure @Autowired fields are set on the service
         ReflectionTestUtils.setField(institutionService, "appUserService", appUserService);
         ReflectionTestUtils.setField(institutionService, "institutionRepository", institutionRepository);
+        ReflectionTestUtils.setField(institutionService, "accountFuzzyMatcher", accountFuzzyMatcher);
     }
 
     @Test
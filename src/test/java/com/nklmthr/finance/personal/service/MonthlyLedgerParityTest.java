@@ -0,0 +1,205 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AccountType;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.model.Institution;
+import com.nklmthr.finance.personal.repository.AccountRepository;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.AccountTransactionSpecifications;
+import com.nklmthr.finance.personal.repository.AccountTypeRepository;
+import com.nklmthr.finance.personal.repository.AppUserRepository;
+import com.nklmthr.finance.personal.repository.CategoryMonthlyProjection;
+import com.nklmthr.finance.personal.repository.CategoryRepository;
+import com.nklmthr.finance.personal.repository.InstitutionRepository;
+import com.nklmthr.finance.personal.service.MonthlyLedgerService.LedgerTotals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Checks the ledger against the raw account_transactions queries it replaces,
+ * on a real MySQL since both sides are MySQL-specific SQL. Skipped when Docker
+ * is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(MonthlyLedgerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MonthlyLedgerParityTest {
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired private MonthlyLedgerService ledgerService;
+    @Autowired private AppUserRepository appUserRepository;
+    @Autowired private AccountTypeRepository accountTypeRepository;
+    @Autowired private InstitutionRepository institutionRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private AccountTransactionRepository accountTransactionRepository;
+    @Autowired private EntityManager entityManager;
+
+    private AppUser user;
+    private Account checking;
+    private Category food;
+    private Category dining;
+    private Category salary;
+    private Category transfer;
+
+    @BeforeEach
+    void setUp() {
+        accountTransactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        categoryRepository.deleteAll();
+        accountTypeRepository.deleteAll();
+        institutionRepository.deleteAll();
+        appUserRepository.deleteAll();
+
+        user = appUserRepository.save(AppUser.builder().username("jane").password("p").role("USER")
+            .email("jane@example.com").build());
+        AccountType type = accountTypeRepository.save(AccountType.builder().name("Checking")
+            .classification("ASSET").appUser(user).build());
+        Institution bank = institutionRepository.save(Institution.builder().name("Bank").appUser(user).build());
+        Account account = new Account();
+        account.setName("Checking");
+        account.setBalance(BigDecimal.ZERO);
+        account.setAccountType(type);
+        account.setInstitution(bank);
+        account.setAppUser(user);
+        checking = accountRepository.save(account);
+
+        food = category("Food", null);
+        dining = category("Dining", food.getId());
+        salary = category("Salary", null);
+        transfer = category("Transfer", null);
+
+        transaction("Feb groceries", "10.00", TransactionType.DEBIT, food, LocalDateTime.of(2026, 2, 28, 12, 0), null, false);
+        transaction("Groceries", "100.00", TransactionType.DEBIT, food, LocalDateTime.of(2026, 3, 3, 9, 0), null, false);
+        transaction("Payroll", "5000.00", TransactionType.CREDIT, salary, LocalDateTime.of(2026, 3, 10, 9, 0), null, false);
+        AccountTransaction split = transaction("Supermarket", "300.00", TransactionType.DEBIT, null,
+            LocalDateTime.of(2026, 3, 15, 18, 30), null, true);
+        transaction("Supermarket cafe", "200.00", TransactionType.DEBIT, dining, LocalDateTime.of(2026, 3, 15, 18, 30),
+            split.getId(), false);
+        transaction("Supermarket food", "100.00", TransactionType.DEBIT, food, LocalDateTime.of(2026, 3, 15, 18, 30),
+            split.getId(), false);
+        transaction("Lunch", "40.00", TransactionType.DEBIT, dining, LocalDateTime.of(2026, 4, 2, 13, 0), null, false);
+        transaction("To savings", "60.00", TransactionType.DEBIT, transfer, LocalDateTime.of(2026, 4, 30, 23, 59), null,
+            false);
+
+        ledgerService.backfillOnStartup();
+    }
+
+    @Test
+    void totals_matchRawRootTotals() {
+        Specification<AccountTransaction> raw = AccountTransactionSpecifications.isRootTransaction()
+            .and(AccountTransactionSpecifications.dateBetween(LocalDateTime.of(2026, 3, 1, 0, 0),
+                YearMonth.of(2026, 4).atEndOfMonth().atTime(LocalTime.MAX)))
+            .and(AccountTransactionSpecifications.belongsToUser(user));
+
+        LedgerTotals ledger = ledgerService.totals(user, YearMonth.of(2026, 3), YearMonth.of(2026, 4), null, null, null,
+            false).orElseThrow();
+
+        LedgerTotals expected = rawTotals(raw);
+        assertThat(ledger.count()).isEqualTo(expected.count()).isEqualTo(5);
+        assertThat(ledger.total()).isEqualByComparingTo(expected.total()).isEqualByComparingTo("4500.00");
+    }
+
+    @Test
+    void totals_matchRawLeafTotalsForCategorySubtree() {
+        Set<String> foodTree = Set.of(food.getId(), dining.getId());
+        Specification<AccountTransaction> raw = AccountTransactionSpecifications.hasCategory(foodTree)
+            .and(AccountTransactionSpecifications.isLeafTransaction())
+            .and(AccountTransactionSpecifications.hasTransactionType(TransactionType.DEBIT))
+            .and(AccountTransactionSpecifications.dateBetween(LocalDateTime.of(2026, 3, 1, 0, 0),
+                YearMonth.of(2026, 3).atEndOfMonth().atTime(LocalTime.MAX)))
+            .and(AccountTransactionSpecifications.belongsToUser(user));
+
+        LedgerTotals ledger = ledgerService.totals(user, YearMonth.of(2026, 3), YearMonth.of(2026, 3), null,
+            TransactionType.DEBIT, foodTree, true).orElseThrow();
+
+        LedgerTotals expected = rawTotals(raw);
+        assertThat(ledger.count()).isEqualTo(expected.count()).isEqualTo(3);
+        assertThat(ledger.total()).isEqualByComparingTo(expected.total()).isEqualByComparingTo("-400.00");
+    }
+
+    @Test
+    void categoryMonthlySpend_matchesRawQuery() {
+        List<String> excluded = List.of(transfer.getId());
+
+        List<CategoryMonthlyProjection> ledger = ledgerService.categoryMonthlySpend(user, YearMonth.of(2026, 3),
+            excluded).orElseThrow();
+        List<CategoryMonthlyProjection> raw = accountTransactionRepository.getCategoryMonthlySpend(user.getId(),
+            LocalDate.of(2026, 3, 1), excluded);
+
+        assertThat(rows(ledger)).containsExactlyInAnyOrderElementsOf(rows(raw));
+        assertThat(rows(ledger)).contains(food.getId() + "|2026-03|-200.0", dining.getId() + "|2026-04|-40.0");
+    }
+
+    private LedgerTotals rawTotals(Specification<AccountTransaction> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AccountTransaction> root = query.from(AccountTransaction.class);
+        Expression<BigDecimal> signed = cb.<BigDecimal>selectCase()
+            .when(cb.equal(root.get("type"), TransactionType.CREDIT), root.get("amount"))
+            .otherwise(cb.neg(root.get("amount")));
+        query.multiselect(cb.count(root), cb.coalesce(cb.sum(signed), BigDecimal.ZERO))
+            .where(spec.toPredicate(root, query, cb));
+        Tuple result = entityManager.createQuery(query).getSingleResult();
+        return new LedgerTotals(result.get(0, Long.class), result.get(1, BigDecimal.class));
+    }
+
+    private List<String> rows(List<CategoryMonthlyProjection> projections) {
+        return projections.stream()
+            .map(p -> p.getCategoryId() + "|" + p.getMonth() + "|" + p.getTotal())
+            .toList();
+    }
+
+    private Category category(String name, String parentId) {
+        Category category = new Category();
+        category.setName(name);
+        category.setParent(parentId);
+        category.setAppUser(user);
+        return categoryRepository.save(category);
+    }
+
+    private AccountTransaction transaction(String description, String amount, TransactionType type, Category category,
+            LocalDateTime date, String parentId, boolean hasChildren) {
+        return accountTransactionRepository.save(AccountTransaction.builder()
+            .description(description).amount(new BigDecimal(amount)).type(type).category(category).date(date)
+            .parent(parentId).hasChildren(hasChildren).account(checking).appUser(user).build());
+    }
+}
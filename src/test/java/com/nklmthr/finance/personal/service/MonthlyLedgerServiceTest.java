@@ -0,0 +1,214 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.AppUserRepository;
+import com.nklmthr.finance.personal.repository.MonthlyLedgerRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MonthlyLedgerServiceTest {
+
+    @Mock
+    private MonthlyLedgerRepository monthlyLedgerRepository;
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MonthlyLedgerService ledgerService;
+
+    private AppUser appUser;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledgerService, "backfilled", true);
+        appUser = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        new ArrayList<>(TransactionSynchronizationManager.getResourceMap().keySet())
+            .forEach(TransactionSynchronizationManager::unbindResourceIfPossible);
+    }
+
+    @Test
+    void markDirty_refreshesEachMonthOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledgerService.markDirty(appUser, LocalDateTime.of(2026, 3, 2, 9, 0), LocalDateTime.of(2026, 3, 20, 18, 0),
+            LocalDateTime.of(2026, 4, 1, 0, 0));
+        ledgerService.markDirty(appUser, LocalDateTime.of(2026, 3, 31, 23, 59), null);
+
+        verifyNoInteractions(monthlyLedgerRepository);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(monthlyLedgerRepository, times(1)).deleteMonthRange("u1", "2026-03", "2026-03");
+        verify(monthlyLedgerRepository, times(1)).deleteMonthRange("u1", "2026-04", "2026-04");
+        verify(monthlyLedgerRepository, times(2)).insertAggregatedRange(anyString(), any(), any());
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    @Test
+    void markDirty_refreshesNothingOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledgerService.markDirty(appUser, LocalDateTime.of(2026, 3, 2, 9, 0));
+
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(monthlyLedgerRepository);
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    @Test
+    void markDirty_outsideTransactionRefreshesImmediately() {
+        ledgerService.markDirty(appUser, LocalDateTime.of(2026, 3, 2, 9, 0));
+
+        verify(monthlyLedgerRepository).deleteMonthRange("u1", "2026-03", "2026-03");
+    }
+
+    @Test
+    void refreshFailure_marksUserStaleAndReadsFallBackToRawScan() {
+        when(monthlyLedgerRepository.deleteMonthRange("u1", "2026-03", "2026-03"))
+            .thenThrow(new IllegalStateException("Table 'monthly_ledger' is read only"));
+
+        ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3)));
+
+        assertThat(ledgerService.isAvailable(appUser)).isFalse();
+        assertThat(ledgerService.totals(appUser, YearMonth.of(2026, 3), YearMonth.of(2026, 3), null, null, null, false))
+            .isEmpty();
+        assertThat(ledgerService.categoryMonthlySpend(appUser, YearMonth.of(2026, 1), List.of("tr"))).isEmpty();
+        assertThat(ledgerService.leafTotalsByCategoryAndMonth(appUser, YearMonth.of(2026, 1), YearMonth.of(2026, 3)))
+            .isEmpty();
+
+        // A ledger consumer now answers from account_transactions
+        AppUserService appUserService = mock(AppUserService.class);
+        CategoryService categoryService = mock(CategoryService.class);
+        AccountTransactionRepository accountTransactionRepository = mock(AccountTransactionRepository.class);
+        when(appUserService.getCurrentUser()).thenReturn(appUser);
+        when(categoryService.getTransferCategory()).thenReturn(category("tr"));
+        when(categoryService.getSplitTrnsactionCategory()).thenReturn(category("sp"));
+        CategorySpendService categorySpendService = new CategorySpendService();
+        ReflectionTestUtils.setField(categorySpendService, "appUserService", appUserService);
+        ReflectionTestUtils.setField(categorySpendService, "categoryService", categoryService);
+        ReflectionTestUtils.setField(categorySpendService, "accountTransactionRepository", accountTransactionRepository);
+        ReflectionTestUtils.setField(categorySpendService, "monthlyLedgerService", ledgerService);
+
+        categorySpendService.getCategorySpendingLastMonths(3);
+
+        LocalDate startDate = LocalDate.now().withDayOfMonth(1).minusMonths(2);
+        verify(accountTransactionRepository).getCategoryMonthlySpend("u1", startDate, List.of("tr", "sp"));
+        verify(monthlyLedgerRepository, never()).getCategoryMonthlySpend(anyString(), anyString(), any());
+    }
+
+    @Test
+    void rebuildUser_clearsStaleFlag() {
+        lenient().when(monthlyLedgerRepository.deleteMonthRange("u1", "2026-03", "2026-03"))
+            .thenThrow(new IllegalStateException("boom"));
+        ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3)));
+
+        ledgerService.rebuildUser("u1");
+
+        assertThat(ledgerService.isAvailable(appUser)).isTrue();
+    }
+
+    @Test
+    void refreshMonths_retriesLockConflictWithoutMarkingStale() {
+        when(monthlyLedgerRepository.deleteMonthRange("u1", "2026-03", "2026-03"))
+            .thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+            .thenReturn(4);
+
+        ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3)));
+
+        verify(monthlyLedgerRepository, times(2)).deleteMonthRange("u1", "2026-03", "2026-03");
+        verify(monthlyLedgerRepository, times(1)).insertAggregatedRange(anyString(), any(), any());
+        assertThat(ledgerService.isAvailable(appUser)).isTrue();
+    }
+
+    @Test
+    void refreshMonths_marksUserStaleOnceRetriesRunOut() {
+        when(monthlyLedgerRepository.deleteMonthRange("u1", "2026-03", "2026-03"))
+            .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3)));
+
+        verify(monthlyLedgerRepository, times(3)).deleteMonthRange("u1", "2026-03", "2026-03");
+        assertThat(ledgerService.isAvailable(appUser)).isFalse();
+    }
+
+    @Test
+    void refreshMonths_runsOneRefreshPerUserAtATime() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(monthlyLedgerRepository.deleteMonthRange(anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            active.decrementAndGet();
+            return 1;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> statementJob = pool.submit(() -> ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3))));
+            Future<?> gmailIngest = pool.submit(() -> ledgerService.refreshMonths("u1", Set.of(YearMonth.of(2026, 3))));
+            statementJob.get(5, TimeUnit.SECONDS);
+            gmailIngest.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(maxActive.get()).isEqualTo(1);
+        verify(monthlyLedgerRepository, times(2)).insertAggregatedRange(anyString(), any(), any());
+    }
+
+    private Category category(String id) {
+        Category category = new Category();
+        category.setId(id);
+        return category;
+    }
+}
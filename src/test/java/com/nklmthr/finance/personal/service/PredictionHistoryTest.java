@@ -0,0 +1,41 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+
+class PredictionHistoryTest {
+
+    @Test
+    void window_netsDebitsAgainstCreditsAcrossSubtreeAndMonths() {
+        PredictionHistory history = new PredictionHistory();
+        history.addTotals(new Object[] { "grocery", "2026-01", TransactionType.DEBIT, new BigDecimal("300.00"), 3L });
+        history.addTotals(new Object[] { "grocery", "2026-01", TransactionType.CREDIT, new BigDecimal("50.00"), 1L });
+        history.addTotals(new Object[] { "vegetables", "2026-02", TransactionType.DEBIT, new BigDecimal("120.00"), 2L });
+        history.addTotals(new Object[] { "grocery", "2026-03", TransactionType.DEBIT, new BigDecimal("999.00"), 9L });
+        history.addTotals(new Object[] { "fuel", "2026-02", TransactionType.DEBIT, new BigDecimal("80.00"), 1L });
+
+        PredictionHistory.Window window = history.window(Set.of("grocery", "vegetables"),
+            YearMonth.of(2026, 1), YearMonth.of(2026, 2));
+
+        assertThat(window.net()).isEqualByComparingTo("370.00");
+        assertThat(window.count()).isEqualTo(6);
+    }
+
+    @Test
+    void window_isEmptyWithoutHistory() {
+        PredictionHistory history = new PredictionHistory();
+        history.addTotals(new Object[] { null, "2026-01", TransactionType.DEBIT, new BigDecimal("10.00"), 1L });
+
+        PredictionHistory.Window window = history.window(Set.of("rent"), YearMonth.of(2026, 1), YearMonth.of(2026, 3));
+
+        assertThat(window.net()).isEqualByComparingTo("0");
+        assertThat(window.count()).isZero();
+    }
+}
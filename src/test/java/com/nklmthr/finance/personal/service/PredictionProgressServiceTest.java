@@ -0,0 +1,76 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.service.PredictionProgressService.MonthTotals;
+
+@ExtendWith(MockitoExtension.class)
+class PredictionProgressServiceTest {
+
+    @Mock
+    private AccountTransactionRepository accountTransactionRepository;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private PredictionProgressService progressService;
+    private AppUser appUser;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(PredictionProgressService.CACHE_NAME);
+        progressService = new PredictionProgressService(accountTransactionRepository, cacheManager);
+        appUser = new AppUser();
+        appUser.setId("u1");
+    }
+
+    @Test
+    void loadMonthTotals_groupsLeafSumsByTypeAndSumsSubtree() {
+        when(accountTransactionRepository.sumLeafAmountsByCategoryAndType(eq(appUser),
+                eq(LocalDateTime.of(2026, 3, 1, 0, 0)), eq(LocalDateTime.of(2026, 4, 1, 0, 0))))
+            .thenReturn(List.of(
+                new Object[] { "grocery", TransactionType.DEBIT, new BigDecimal("120.00") },
+                new Object[] { "vegetables", TransactionType.DEBIT, new BigDecimal("30.50") },
+                new Object[] { "grocery", TransactionType.CREDIT, new BigDecimal("10.00") },
+                new Object[] { "fuel", TransactionType.DEBIT, new BigDecimal("999.00") }));
+
+        MonthTotals totals = progressService.loadMonthTotals(appUser, YearMonth.of(2026, 3));
+
+        assertThat(totals.sum(Set.of("grocery", "vegetables"), TransactionType.DEBIT))
+            .isEqualByComparingTo("150.50");
+        assertThat(totals.sum(Set.of("grocery", "vegetables"), TransactionType.CREDIT))
+            .isEqualByComparingTo("10.00");
+        assertThat(totals.sum(Set.of("rent"), TransactionType.DEBIT)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void invalidate_evictsOnlyThatMonth() {
+        Cache cache = cacheManager.getCache(PredictionProgressService.CACHE_NAME);
+        MonthTotals empty = new MonthTotals(Map.of(), Map.of());
+        cache.put("u1_2026-03", empty);
+        cache.put("u1_2026-04", empty);
+
+        progressService.invalidate(appUser, YearMonth.of(2026, 3));
+
+        assertThat(cache.get("u1_2026-03")).isNull();
+        assertThat(cache.get("u1_2026-04")).isNotNull();
+    }
+}
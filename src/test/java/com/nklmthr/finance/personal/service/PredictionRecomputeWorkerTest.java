@@ -0,0 +1,77 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.PredictedTransactionRepository;
+import com.nklmthr.finance.personal.service.PredictionProgressService.MonthTotals;
+
+@ExtendWith(MockitoExtension.class)
+class PredictionRecomputeWorkerTest {
+
+    @Mock
+    private PredictionProgressService predictionProgressService;
+
+    @Mock
+    private PredictedTransactionRepository predictedTransactionRepository;
+
+    @InjectMocks
+    private PredictionRecomputeWorker worker;
+
+    private AppUser appUser;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(worker, "debounceMs", 0L);
+        appUser = new AppUser();
+        appUser.setId("u1");
+    }
+
+    @Test
+    void recomputeDue_coalescesEventsPerMonth() {
+        YearMonth march = YearMonth.of(2026, 3);
+        MonthTotals totals = new MonthTotals(Map.of(), Map.of());
+        when(predictedTransactionRepository.existsByAppUserAndPredictionMonthAndVisibleTrue(appUser, "2026-03"))
+            .thenReturn(true);
+        when(predictionProgressService.loadMonthTotals(appUser, march)).thenReturn(totals);
+
+        for (int i = 0; i < 500; i++) {
+            worker.onTransactionsChanged(new TransactionsChangedEvent(appUser, march));
+        }
+        worker.recomputeDue();
+        worker.recomputeDue();
+
+        verify(predictionProgressService, times(500)).invalidate(appUser, march);
+        verify(predictionProgressService, times(1)).loadMonthTotals(appUser, march);
+        verify(predictionProgressService).store(appUser, march, totals);
+    }
+
+    @Test
+    void recomputeDue_skipsMonthsWithoutPredictions() {
+        YearMonth april = YearMonth.of(2026, 4);
+        when(predictedTransactionRepository.existsByAppUserAndPredictionMonthAndVisibleTrue(appUser, "2026-04"))
+            .thenReturn(false);
+
+        worker.onTransactionsChanged(new TransactionsChangedEvent(appUser, april));
+        worker.recomputeDue();
+
+        verify(predictionProgressService).invalidate(appUser, april);
+        verify(predictionProgressService, never()).loadMonthTotals(any(), any());
+        verify(predictionProgressService, never()).store(any(), any(), any());
+    }
+}
@@ -0,0 +1,224 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.nklmthr.finance.personal.dto.StatementJobDTO;
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.Category;
+import com.nklmthr.finance.personal.model.UploadedStatement;
+import com.nklmthr.finance.personal.model.UploadedStatement.Status;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.UploadedStatementRepository;
+import com.nklmthr.finance.personal.service.AccountTransactionService.StatementImportResult;
+
+@ExtendWith(MockitoExtension.class)
+class StatementJobServiceTest {
+
+    @Mock
+    private UploadedStatementService uploadedStatementService;
+
+    @Mock
+    private UploadedStatementRepository uploadedStatementRepository;
+
+    @Mock
+    private AccountTransactionService accountTransactionService;
+
+    @Mock
+    private AccountTransactionRepository accountTransactionRepository;
+
+    @Mock
+    private AppUserService appUserService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private StatementJobService statementJobService;
+
+    private ThreadPoolExecutor executor;
+
+    private AppUser appUser;
+
+    private Account account;
+
+    private UploadedStatement statement;
+
+    @BeforeEach
+    void setUp() {
+        appUser = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
+        account = new Account();
+        account.setId("acc-1");
+        statement = UploadedStatement.builder().id("s1").filename("march.csv").status(Status.UPLOADED)
+            .account(account).appUser(appUser).build();
+        executor = mock(ThreadPoolExecutor.class);
+        ReflectionTestUtils.setField(statementJobService, "executor", executor);
+    }
+
+    @Test
+    void submit_claimsStatementAndQueuesJob() {
+        when(appUserService.getCurrentUser()).thenReturn(appUser);
+        when(uploadedStatementRepository.findByAppUserAndId(appUser, "s1")).thenReturn(Optional.of(statement));
+        when(uploadedStatementRepository.updateStatusIfIn(appUser, "s1",
+            EnumSet.of(Status.UPLOADED, Status.FAILED, Status.PARTIAL), Status.PROCESSING)).thenReturn(1);
+
+        StatementJobDTO job = statementJobService.submit("s1");
+
+        assertThat(job.statementId()).isEqualTo("s1");
+        assertThat(job.status()).isEqualTo(Status.PROCESSING);
+        verify(executor).execute(any(Runnable.class));
+        assertThat(statementJobService.getJob(job.jobId())).isEqualTo(job);
+    }
+
+    @Test
+    void submit_alreadyClaimedStatementIsRejected() {
+        when(appUserService.getCurrentUser()).thenReturn(appUser);
+        when(uploadedStatementRepository.findByAppUserAndId(appUser, "s1")).thenReturn(Optional.of(statement));
+        when(uploadedStatementRepository.updateStatusIfIn(eq(appUser), eq("s1"), any(), eq(Status.PROCESSING)))
+            .thenReturn(0);
+
+        assertThatThrownBy(() -> statementJobService.submit("s1"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Only uploaded, failed or partially processed");
+        verify(executor, never()).execute(any());
+    }
+
+    @Test
+    void submit_fullQueueRestoresPreviousStatus() {
+        statement.setStatus(Status.FAILED);
+        when(appUserService.getCurrentUser()).thenReturn(appUser);
+        when(uploadedStatementRepository.findByAppUserAndId(appUser, "s1")).thenReturn(Optional.of(statement));
+        when(uploadedStatementRepository.updateStatusIfIn(eq(appUser), eq("s1"), any(), eq(Status.PROCESSING)))
+            .thenReturn(1);
+        doThrow(new RejectedExecutionException("queue full")).when(executor).execute(any());
+
+        assertThatThrownBy(() -> statementJobService.submit("s1"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Too many statements");
+
+        ArgumentCaptor<UploadedStatement> saved = ArgumentCaptor.forClass(UploadedStatement.class);
+        verify(uploadedStatementRepository).save(saved.capture());
+        assertThat(saved.getValue().getStatus()).isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getJob_otherUsersJobIsNotFound() {
+        StatementJobService.StatementJob job = new StatementJobService.StatementJob("job-1", "s1", appUser);
+        ((Map<String, StatementJobService.StatementJob>) ReflectionTestUtils.getField(statementJobService, "jobs"))
+            .put(job.id, job);
+        when(appUserService.getCurrentUser())
+            .thenReturn(AppUser.builder().id("u2").username("joe").password("p").role("USER").email("o@e.com").build());
+
+        assertThatThrownBy(() -> statementJobService.getJob("job-1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void run_failingChunkEndsPartial() {
+        List<AccountTransaction> rows = rows(StatementJobService.CHUNK_SIZE + 100);
+        stubParse(rows);
+        when(accountTransactionService.importStatementTransactions(eq(appUser), eq(account), anyList(), any()))
+            .thenReturn(new StatementImportResult(490, 10))
+            .thenThrow(new IllegalStateException("Data truncation"));
+        StatementJobService.StatementJob job = new StatementJobService.StatementJob("job-1", "s1", appUser);
+
+        statementJobService.run(job);
+
+        StatementJobDTO dto = job.toDTO();
+        assertThat(dto.status()).isEqualTo(Status.PARTIAL);
+        assertThat(dto.rowsParsed()).isEqualTo(600);
+        assertThat(dto.rowsSaved()).isEqualTo(490);
+        assertThat(dto.rowsDuplicate()).isEqualTo(10);
+        assertThat(dto.rowsFailed()).isEqualTo(100);
+        assertThat(dto.error()).isEqualTo("Data truncation");
+        assertThat(dto.finishedAt()).isNotNull();
+        assertThat(statement.getStatus()).isEqualTo(Status.PARTIAL);
+    }
+
+    @Test
+    void run_everyChunkFailingEndsFailed() {
+        stubParse(rows(StatementJobService.CHUNK_SIZE + 100));
+        when(accountTransactionService.importStatementTransactions(eq(appUser), eq(account), anyList(), any()))
+            .thenThrow(new IllegalStateException("Connection reset"));
+        StatementJobService.StatementJob job = new StatementJobService.StatementJob("job-1", "s1", appUser);
+
+        statementJobService.run(job);
+
+        assertThat(job.toDTO().status()).isEqualTo(Status.FAILED);
+        assertThat(job.toDTO().rowsFailed()).isEqualTo(600);
+        assertThat(statement.getStatus()).isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void run_allChunksSavedEndsProcessed() {
+        stubParse(rows(3));
+        when(accountTransactionService.importStatementTransactions(eq(appUser), eq(account), anyList(), any()))
+            .thenReturn(new StatementImportResult(3, 0));
+        StatementJobService.StatementJob job = new StatementJobService.StatementJob("job-1", "s1", appUser);
+
+        statementJobService.run(job);
+
+        assertThat(job.toDTO().status()).isEqualTo(Status.PROCESSED);
+        assertThat(statement.getStatus()).isEqualTo(Status.PROCESSED);
+    }
+
+    @Test
+    void recoverInterruptedJobs_settlesProcessingRows() {
+        UploadedStatement half = UploadedStatement.builder().id("s2").filename("a.csv").status(Status.PROCESSING).build();
+        UploadedStatement none = UploadedStatement.builder().id("s3").filename("b.csv").status(Status.PROCESSING).build();
+        when(uploadedStatementRepository.findByStatus(Status.PROCESSING)).thenReturn(List.of(half, none));
+        when(accountTransactionRepository.existsByUploadedStatement(half)).thenReturn(true);
+        when(accountTransactionRepository.existsByUploadedStatement(none)).thenReturn(false);
+
+        statementJobService.recoverInterruptedJobs();
+
+        assertThat(half.getStatus()).isEqualTo(Status.PARTIAL);
+        assertThat(none.getStatus()).isEqualTo(Status.FAILED);
+        verify(uploadedStatementRepository).save(half);
+        verify(uploadedStatementRepository).save(none);
+    }
+
+    private void stubParse(List<AccountTransaction> rows) {
+        when(uploadedStatementRepository.findByAppUserAndId(appUser, "s1")).thenReturn(Optional.of(statement));
+        when(uploadedStatementService.parseStatement(statement)).thenReturn(rows);
+        when(categoryService.getNonClassifiedCategory(appUser)).thenReturn(new Category());
+    }
+
+    private List<AccountTransaction> rows(int count) {
+        List<AccountTransaction> rows = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> rows.add(AccountTransaction.builder().description("row " + i).build()));
+        return rows;
+    }
+}
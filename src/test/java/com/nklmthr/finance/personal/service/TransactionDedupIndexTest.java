@@ -0,0 +1,60 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+
+class TransactionDedupIndexTest {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+	private final TransactionDedupIndex index = new TransactionDedupIndex(60, "V1.1");
+
+	@Test
+	void findDuplicate_matchesSourceIdThenFuzzyKeysWithinThread() {
+		index.put(new TransactionDedupIndex.DedupKey("t1", "m1", "th1", DATE, new BigDecimal("100.00"),
+				TransactionType.DEBIT, "swiggy order", "a1", "INR", "V1.1"));
+
+		assertThat(index.findDuplicate(candidate("m1", "th1", DATE.plusDays(3), "50", "Other"))).isPresent();
+		assertThat(index.findDuplicate(candidate("m2", "th1", DATE.plusSeconds(30), "100", "  Swiggy   Order ")))
+				.map(TransactionDedupIndex.DedupKey::id).contains("t1");
+		assertThat(index.findDuplicate(candidate("m2", "th1", DATE.plusSeconds(90), "100", "Swiggy Order"))).isEmpty();
+		assertThat(index.findDuplicate(candidate("m2", "th2", DATE, "100", "Swiggy Order"))).isEmpty();
+	}
+
+	@Test
+	void savedAndMergedTransactionsAreSeenByLaterMessages() {
+		AccountTransaction saved = candidate("m1", "th1", DATE, "100", "Swiggy Order");
+		saved.setId("t1");
+		saved.setDataVersionId("V2.0");
+		index.add(saved);
+
+		TransactionDedupIndex.DedupKey key = index.findDuplicate(candidate("m1", "th1", DATE, "1", "x")).orElseThrow();
+		assertThat(index.needsMerge(key)).isTrue();
+		assertThat(index.isSettled("m1")).isFalse();
+
+		index.markSettled(key, candidate("m2", "th1", DATE, "100", "Swiggy Order"));
+
+		assertThat(index.isSettled("m2")).isTrue();
+		assertThat(index.findDuplicate(candidate("m2", "th1", DATE, "1", "x"))).map(index::needsMerge).contains(false);
+	}
+
+	private AccountTransaction candidate(String sourceId, String threadId, LocalDateTime date, String amount,
+			String description) {
+		AccountTransaction transaction = new AccountTransaction();
+		transaction.setSourceId(sourceId);
+		transaction.setSourceThreadId(threadId);
+		transaction.setDate(date);
+		transaction.setAmount(new BigDecimal(amount));
+		transaction.setType(TransactionType.DEBIT);
+		transaction.setDescription(description);
+		transaction.setCurrency("INR");
+		return transaction;
+	}
+}
@@ -0,0 +1,99 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.nklmthr.finance.personal.enums.EnrichmentStatus;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.openai.OpenAIClient;
+import com.nklmthr.finance.personal.openai.OpenAIClient.GptResponse;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionEnrichmentServiceTest {
+
+    @Mock
+    private OpenAIClient openAIClient;
+
+    @Mock
+    private AccountTransactionRepository accountTransactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TransactionEnrichmentService enrichmentService;
+
+    @Test
+    void enrichBatch_sendsPendingEmailsTogetherAndSettlesEachRow() {
+        AccountTransaction parsed = pending("t1", "INR 100 spent at Swiggy");
+        AccountTransaction unparsed = pending("t2", "INR 200 spent at Zomato");
+        AccountTransaction blank = pending("t3", " ");
+        AccountTransaction done = pending("t4", "INR 50 spent");
+        done.setEnrichmentStatus(EnrichmentStatus.ENRICHED);
+        GptResponse first = new GptResponse("k1", "{}", false);
+        GptResponse second = new GptResponse("k2", "not json", false);
+
+        when(accountTransactionRepository.findAllById(List.of("t1", "t2", "t3", "t4")))
+            .thenReturn(List.of(parsed, unparsed, blank, done));
+        when(openAIClient.fetchResponses(List.of("INR 100 spent at Swiggy", "INR 200 spent at Zomato")))
+            .thenReturn(List.of(first, second));
+        when(accountTransactionRepository.findById("t1")).thenReturn(Optional.of(parsed));
+        when(accountTransactionRepository.findById("t2")).thenReturn(Optional.of(unparsed));
+        when(openAIClient.applyResponse(first, parsed)).thenReturn(true);
+        when(openAIClient.applyResponse(second, unparsed)).thenReturn(false);
+
+        int settled = enrichmentService.enrichBatch(List.of("t1", "t2", "t3", "t4"));
+
+        assertThat(settled).isEqualTo(4);
+        assertThat(parsed.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.ENRICHED);
+        assertThat(unparsed.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.FAILED);
+        assertThat(blank.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.FAILED);
+        assertThat(done.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.ENRICHED);
+    }
+
+    @Test
+    void pollPending_drainsOffTheSchedulerThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> drainThread = new AtomicReference<>();
+        when(accountTransactionRepository.countByEnrichmentStatus(EnrichmentStatus.PENDING)).thenAnswer(inv -> {
+            drainThread.set(Thread.currentThread());
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        enrichmentService.pollPending();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // A poll while the drain is still running starts no second one
+        enrichmentService.pollPending();
+        release.countDown();
+
+        assertThat(drainThread.get()).isNotSameAs(Thread.currentThread());
+        verify(accountTransactionRepository, timeout(5000).times(1)).countByEnrichmentStatus(EnrichmentStatus.PENDING);
+    }
+
+    private static AccountTransaction pending(String id, String rawData) {
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setId(id);
+        transaction.setRawData(rawData);
+        transaction.setEnrichmentStatus(EnrichmentStatus.PENDING);
+        return transaction;
+    }
+}
@@ -0,0 +1,65 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSearchServiceTest {
+
+    @Mock private AccountTransactionRepository accountTransactionRepository;
+    @InjectMocks private TransactionSearchService service;
+
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        user = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
+        ReflectionTestUtils.setField(service, "accountTransactionRepository", accountTransactionRepository);
+    }
+
+    @Test
+    void toBooleanQuery_prefixesEveryWordAndDropsShortOnesAndOperators() {
+        assertThat(TransactionSearchService.toBooleanQuery("Amazon pri")).isEqualTo("+amazon* +pri*");
+        assertThat(TransactionSearchService.toBooleanQuery("-uber +eats* at")).isEqualTo("+uber* +eats*");
+        assertThat(TransactionSearchService.toBooleanQuery("to")).isEmpty();
+    }
+
+    @Test
+    void rankedTransactionIds_emptyWithoutIndex() {
+        assertThat(service.rankedTransactionIds(user, "amazon")).isEmpty();
+        verify(accountTransactionRepository, never()).findIdsByFullTextSearch(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void rankedTransactionIds_returnsCandidatesInRankOrder() {
+        ReflectionTestUtils.setField(service, "fullTextAvailable", true);
+        when(accountTransactionRepository.findIdsByFullTextSearch("u1", "+amaz*", TransactionSearchService.CANDIDATE_LIMIT))
+            .thenReturn(List.of("t2", "t1"));
+
+        assertThat(service.rankedTransactionIds(user, "amaz")).contains(List.of("t2", "t1"));
+    }
+
+    @Test
+    void rankedTransactionIds_skipsAmountSearches() {
+        ReflectionTestUtils.setField(service, "fullTextAvailable", true);
+        assertThat(service.rankedTransactionIds(user, "250.00")).isEmpty();
+        verify(accountTransactionRepository, never()).findIdsByFullTextSearch(anyString(), anyString(), anyInt());
+    }
+}
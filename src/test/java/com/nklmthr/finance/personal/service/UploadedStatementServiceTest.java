@@ -0,0 +1,86 @@
+package com.nklmthr.finance.personal.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.nklmthr.finance.personal.enums.TransactionType;
+import com.nklmthr.finance.personal.model.Account;
+import com.nklmthr.finance.personal.model.AccountTransaction;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.model.UploadedStatement;
+import com.nklmthr.finance.personal.model.UploadedStatement.Status;
+import com.nklmthr.finance.personal.repository.AccountRepository;
+import com.nklmthr.finance.personal.repository.AccountTransactionRepository;
+import com.nklmthr.finance.personal.repository.UploadedStatementRepository;
+
+@ExtendWith(MockitoExtension.class)
+class UploadedStatementServiceTest {
+
+    @Mock
+    private UploadedStatementRepository uploadedStatementRepository;
+
+    @Mock
+    private AppUserService appUserService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountTransactionService accountTransactionService;
+
+    @Mock
+    private AccountTransactionRepository accountTransactionRepository;
+
+    @InjectMocks
+    private UploadedStatementService uploadedStatementService;
+
+    private AppUser appUser;
+
+    @BeforeEach
+    void setUp() {
+        appUser = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
+        when(appUserService.getCurrentUser()).thenReturn(appUser);
+    }
+
+    @Test
+    void unlinkTransactions_marksEveryTouchedMonthThroughSharedHelper() {
+        Account account = new Account();
+        account.setId("acc-1");
+        account.setBalance(new BigDecimal("100.00"));
+        UploadedStatement statement = UploadedStatement.builder().id("s1").filename("march.csv")
+            .status(Status.PROCESSED).account(account).appUser(appUser).build();
+        AccountTransaction march = transaction("t1", account, LocalDateTime.of(2026, 3, 30, 9, 0));
+        AccountTransaction april = transaction("t2", account, LocalDateTime.of(2026, 4, 1, 9, 0));
+        AccountTransaction split = transaction("c1", account, LocalDateTime.of(2026, 2, 28, 9, 0));
+        when(uploadedStatementRepository.findByAppUserAndId(appUser, "s1")).thenReturn(Optional.of(statement));
+        when(accountTransactionRepository.findByAppUserAndUploadedStatement(appUser, statement))
+            .thenReturn(List.of(march, april));
+        when(accountRepository.findByAppUserAndId(appUser, "acc-1")).thenReturn(Optional.of(account));
+        when(accountTransactionRepository.findByAppUserAndParentIn(appUser, List.of("t1", "t2")))
+            .thenReturn(List.of(split));
+
+        uploadedStatementService.unlinkTransactions("s1");
+
+        verify(accountTransactionService).markLedgerDirty(appUser, march.getDate(), april.getDate(), split.getDate());
+        assertThat(statement.getStatus()).isEqualTo(Status.UPLOADED);
+        assertThat(account.getBalance()).isEqualByComparingTo("120.00");
+    }
+
+    private AccountTransaction transaction(String id, Account account, LocalDateTime date) {
+        return AccountTransaction.builder().id(id).account(account).date(date).amount(new BigDecimal("10.00"))
+            .type(TransactionType.DEBIT).build();
+    }
+}
@@ -24,6 +24,7 @@ class GmailAuthHelperTest {
 
     @Mock private AppUserService appUserService;
     @Mock private AppUserRepository appUserRepository;
+    @Mock private GmailServiceProvider gmailServiceProvider;
 
     @InjectMocks private GmailAuthHelper helper;
 
@@ -0,0 +1,189 @@
+package com.nklmthr.finance.personal.service.gmail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the fetcher against a local stub of the Gmail batch endpoint.
+ */
+class GmailBatchMessageFetcherTest {
+
+    private static final Pattern MESSAGE_ID = Pattern.compile("/messages/([A-Za-z0-9]+)\\?");
+    private static final String BOUNDARY = "batch_stub";
+
+    private HttpServer server;
+    private Gmail gmail;
+    private GmailBatchMessageFetcher fetcher;
+
+    // Message ids per batch request the stub received
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    // Raw body of each batch request
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    // Ids the stub rejects with 429 the first time they are requested
+    private final Set<String> rateLimitOnce = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch/gmail/v1", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<String> ids = new ArrayList<>();
+            Matcher matcher = MESSAGE_ID.matcher(request);
+            while (matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+            batches.add(ids);
+            requests.add(request);
+
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < ids.size(); i++) {
+                String id = ids.get(i);
+                body.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: response-").append(i + 1).append("\r\n\r\n");
+                if (rateLimitOnce.remove(id)) {
+                    body.append("HTTP/1.1 429 Too Many Requests\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"error\":{\"code\":429,\"message\":\"Too many concurrent requests for user\",")
+                        .append("\"errors\":[{\"reason\":\"rateLimitExceeded\"}]}}\r\n");
+                } else if (id.startsWith("missing")) {
+                    body.append("HTTP/1.1 404 Not Found\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"error\":{\"code\":404,\"message\":\"Requested entity was not found.\"}}\r\n");
+                } else if (id.startsWith("broken")) {
+                    body.append("HTTP/1.1 500 Internal Server Error\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{}\r\n");
+                } else {
+                    body.append("HTTP/1.1 200 OK\r\n")
+                        .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append("{\"id\":\"").append(id).append("\",\"threadId\":\"t-").append(id).append("\"}\r\n");
+                }
+            }
+            body.append("--").append(BOUNDARY).append("--\r\n");
+
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "multipart/mixed; boundary=" + BOUNDARY);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        gmail = new Gmail.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+            .setRootUrl("http://localhost:" + server.getAddress().getPort() + "/")
+            .setBatchPath("batch/gmail/v1")
+            .setApplicationName("test")
+            .build();
+
+        fetcher = new GmailBatchMessageFetcher();
+        ReflectionTestUtils.setField(fetcher, "batchSize", 2);
+        ReflectionTestUtils.setField(fetcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(fetcher, "initialBackoffMs", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchFull_groupsIdsIntoBatchesAndKeepsRequestOrder() throws Exception {
+        Map<String, Message> fetched = fetcher.fetchFull(gmail, List.of("m1", "m2", "m3", "m2")).messages();
+
+        assertThat(batches).containsExactly(List.of("m1", "m2"), List.of("m3"));
+        assertThat(fetched.keySet()).containsExactly("m1", "m2", "m3");
+        assertThat(fetched.get("m3").getThreadId()).isEqualTo("t-m3");
+    }
+
+    @Test
+    void fetchMetadata_requestsOnlyRoutingHeaders() throws Exception {
+        Map<String, Message> fetched = fetcher.fetchMetadata(gmail, List.of("m1", "m2")).messages();
+
+        assertThat(fetched.keySet()).containsExactly("m1", "m2");
+        assertThat(requests).singleElement().asString()
+            .contains("format=metadata")
+            .contains("metadataHeaders=From")
+            .contains("metadataHeaders=Subject")
+            .doesNotContain("format=full");
+    }
+
+    @Test
+    void fetchFull_retriesOnlyRateLimitedItems() throws Exception {
+        rateLimitOnce.add("m2");
+
+        Map<String, Message> fetched = fetcher.fetchFull(gmail, List.of("m1", "m2", "m3")).messages();
+
+        assertThat(batches).containsExactly(List.of("m1", "m2"), List.of("m3"), List.of("m2"));
+        assertThat(fetched.keySet()).containsExactly("m1", "m2", "m3");
+    }
+
+    @Test
+    void fetchFull_reportsDeletedMessagesSeparately() throws Exception {
+        GmailBatchMessageFetcher.FetchResult result = fetcher.fetchFull(gmail, List.of("m1", "missing1"));
+
+        assertThat(batches).hasSize(1);
+        assertThat(result.messages().keySet()).containsExactly("m1");
+        assertThat(result.notFound()).containsExactly("missing1");
+    }
+
+    @Test
+    void fetchFull_leavesOutRateLimitedItemsOnceAttemptsRunOut() throws Exception {
+        ReflectionTestUtils.setField(fetcher, "maxAttempts", 1);
+        rateLimitOnce.add("m2");
+
+        GmailBatchMessageFetcher.FetchResult result = fetcher.fetchFull(gmail, List.of("m1", "m2"));
+
+        assertThat(result.messages().keySet()).containsExactly("m1");
+        assertThat(result.notFound()).isEmpty();
+    }
+
+    @Test
+    void fetchFull_leavesOutItemsThatFailWithoutErrorDetails() throws Exception {
+        GmailBatchMessageFetcher.FetchResult result = fetcher.fetchFull(gmail, List.of("m1", "broken1"));
+
+        assertThat(result.messages().keySet()).containsExactly("m1");
+        assertThat(result.notFound()).isEmpty();
+    }
+
+    @Test
+    void isRateLimited_recognisesQuotaErrors() {
+        GoogleJsonError tooMany = new GoogleJsonError();
+        tooMany.setCode(429);
+        GoogleJsonError.ErrorInfo userRate = new GoogleJsonError.ErrorInfo();
+        userRate.setReason("userRateLimitExceeded");
+        GoogleJsonError forbiddenRate = new GoogleJsonError();
+        forbiddenRate.setCode(403);
+        forbiddenRate.setErrors(List.of(userRate));
+        GoogleJsonError forbidden = new GoogleJsonError();
+        forbidden.setCode(403);
+
+        assertThat(GmailBatchMessageFetcher.isRateLimited(tooMany)).isTrue();
+        assertThat(GmailBatchMessageFetcher.isRateLimited(forbiddenRate)).isTrue();
+        assertThat(GmailBatchMessageFetcher.isRateLimited(forbidden)).isFalse();
+    }
+}
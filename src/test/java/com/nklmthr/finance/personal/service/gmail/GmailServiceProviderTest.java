@@ -1,28 +1,60 @@
 package com.nklmthr.finance.personal.service.gmail;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.http.javanet.NetHttpTransport;
 import com.nklmthr.finance.personal.model.AppUser;
 
 @ExtendWith(MockitoExtension.class)
 class GmailServiceProviderTest {
 
+    @Mock private GoogleAuthorizationCodeFlow flow;
+
     @InjectMocks private GmailServiceProvider provider;
 
+    private final AppUser user = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
+
+    @BeforeEach
+    void setUp() {
+        // Stands in for the flow built from credentials.json, which tests do not have
+        ReflectionTestUtils.setField(provider, "flow", flow);
+        ReflectionTestUtils.setField(provider, "googleHttpTransport", new NetHttpTransport());
+    }
+
     @Test
-    void getGmailService_buildsClient() throws Exception {
-        AppUser user = AppUser.builder().id("u1").username("jane").password("p").role("USER").email("j@e.com").build();
-        assertThat(user.getUsername()).isEqualTo("jane");
-        // We can't fully instantiate Gmail without credentials.json in tests; this test simply ensures method can be called up to flow creation.
-        // So we just assert that method throws no unexpected exceptions up to that point if credentials are present.
-        // Skipping actual invocation to avoid I/O. This acts as a placeholder to ensure class loads.
-        assertThat(provider).isNotNull();
+    void getGmailService_reusesClientUntilInvalidated() throws Exception {
+        Credential credential = mock(Credential.class);
+        when(flow.loadCredential("jane")).thenReturn(credential);
+
+        assertThat(provider.getGmailService(user)).isSameAs(provider.getGmailService(user));
+        assertThat(provider.getCredential(user)).isSameAs(credential);
+        verify(flow, times(1)).loadCredential("jane");
+
+        provider.invalidate(user);
+        provider.getGmailService(user);
+        verify(flow, times(2)).loadCredential("jane");
     }
-}
 
+    @Test
+    void getCredential_nullAndNotCachedWhenNotConnected() throws Exception {
+        when(flow.loadCredential("jane")).thenReturn(null);
 
+        assertThat(provider.getCredential(user)).isNull();
+        assertThat(provider.getCredential(user)).isNull();
+        verify(flow, times(2)).loadCredential("jane");
+    }
+}
@@ -0,0 +1,95 @@
+package com.nklmthr.finance.personal.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nklmthr.finance.personal.dto.AccountDTO;
+import com.nklmthr.finance.personal.dto.AccountTypeDTO;
+import com.nklmthr.finance.personal.dto.InstitutionDTO;
+import com.nklmthr.finance.personal.mapper.AccountMapper;
+import com.nklmthr.finance.personal.model.AppUser;
+import com.nklmthr.finance.personal.repository.AccountRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AccountFuzzyMatcherTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountMapper accountMapper;
+
+    private final AccountFuzzyMatcher matcher = new AccountFuzzyMatcher();
+
+    private final AppUser user = AppUser.builder().id("u1").username("jane").build();
+
+    private final AccountDTO axisCard = account("a1", "Axis Neo", "CCA", "Axis Bank", "0434", "neo", null);
+    private final AccountDTO hdfcSavings = account("a2", "HDFC Salary", "SVG", "HDFC Bank", "2804", null, "salary acct");
+    private final AccountDTO iciciCard = account("a3", "ICICI Amazon", "CCA", "ICICI Bank", "9057", "amazon pay", null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(matcher, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(matcher, "accountMapper", accountMapper);
+    }
+
+    @Test
+    void candidates_onlyAccountsSharingTermsOrNumbers() {
+        AccountMatchIndex index = new AccountMatchIndex(List.of(axisCard, hdfcSavings, iciciCard));
+
+        assertThat(index.candidates("", "inr 500 debited from a c xx2804 on 01 01", ""))
+            .extracting(entry -> entry.account().id()).containsExactly("a2");
+        assertThat(index.candidates("", "spent on your axis bank card", ""))
+            .extracting(entry -> entry.account().id()).containsExactly("a1");
+        assertThat(index.candidates("", "your credit card statement", ""))
+            .extracting(entry -> entry.account().id()).containsExactly("a1", "a3");
+        assertThat(index.candidates("", "nothing in common", ""))
+            .extracting(entry -> entry.account().id()).containsExactly("a1", "a2", "a3");
+    }
+
+    @Test
+    void findBestMatch_prefersAccountNumberAndInstitution() {
+        AccountFuzzyMatcher.MatchResult result = matcher.findBestMatch(List.of(axisCard, hdfcSavings, iciciCard),
+            "INR 340.50 spent on your ICICI Bank Credit Card XX9057 at Amazon", "Amazon");
+
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.account().id()).isEqualTo("a3");
+    }
+
+    @Test
+    void findBestMatch_cachesIndexPerUserUntilInvalidated() {
+        when(accountRepository.findAllByAppUser(eq(user), any(Sort.class))).thenReturn(List.of());
+        when(accountMapper.toDTOList(any())).thenReturn(List.of(axisCard, hdfcSavings));
+
+        matcher.findBestMatch(user, null, "Axis Bank card XX0434", "Store");
+        matcher.findBestMatch(user, "axis", "Axis Bank card XX0434", "Store");
+        verify(accountRepository, times(1)).findAllByAppUser(eq(user), any(Sort.class));
+
+        matcher.invalidate(user);
+        AccountFuzzyMatcher.MatchResult result = matcher.findBestMatch(user, null, "Axis Bank card XX0434", "Store");
+
+        verify(accountRepository, times(2)).findAllByAppUser(eq(user), any(Sort.class));
+        assertThat(result.account().id()).isEqualTo("a1");
+    }
+
+    private static AccountDTO account(String id, String name, String type, String institution, String number,
+            String keywords, String aliases) {
+        return new AccountDTO(id, name, BigDecimal.ZERO, new AccountTypeDTO("t-" + type, type, null, null, null),
+            new InstitutionDTO("i-" + institution, institution, null), number, keywords, aliases, false);
+    }
+}
@@ -0,0 +1,44 @@
+package com.nklmthr.finance.personal.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionCursorTest {
+
+    @Test
+    void dateCursor_roundTrips() {
+        String encoded = TransactionCursor.after(TransactionCursor.SORT_DATE, false,
+            LocalDateTime.of(2024, 3, 1, 10, 15, 30), BigDecimal.TEN, "t1").encode();
+
+        TransactionCursor decoded = TransactionCursor.decode(encoded);
+        assertThat(decoded.isAmountSort()).isFalse();
+        assertThat(decoded.ascending()).isFalse();
+        assertThat(decoded.dateValue()).isEqualTo(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+        assertThat(decoded.id()).isEqualTo("t1");
+    }
+
+    @Test
+    void amountCursor_roundTrips() {
+        String encoded = TransactionCursor.after(TransactionCursor.SORT_AMOUNT, true,
+            LocalDateTime.of(2024, 3, 1, 10, 15, 30), new BigDecimal("1250.50"), "t2").encode();
+        TransactionCursor decoded = TransactionCursor.decode(encoded);
+
+        assertThat(decoded.isAmountSort()).isTrue();
+        assertThat(decoded.ascending()).isTrue();
+        assertThat(decoded.amountValue()).isEqualByComparingTo("1250.50");
+    }
+
+    @Test
+    void decode_rejectsTamperedCursor() {
+        assertThatThrownBy(() -> TransactionCursor.decode("not-a-cursor"))
+            .isInstanceOf(IllegalArgumentException.class);
+        String badDate = java.util.Base64.getUrlEncoder().encodeToString("date|desc|yesterday|t1".getBytes());
+        assertThatThrownBy(() -> TransactionCursor.decode(badDate))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}